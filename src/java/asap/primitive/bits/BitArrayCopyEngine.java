@@ -0,0 +1,315 @@
+package asap.primitive.bits;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ *
+ * Motor de cpia de regies de arrays de bits, usado por
+ * "{@link BitHelper#bitArrayCopy( boolean, byte[], int, byte[], int, int )}".<br>
+ * <br>
+ * Regies com o mesmo alinhamento de bit na origem e no destino so copiadas por
+ * "{@link System#arraycopy( Object, int, Object, int, int )}"; as demais so copiadas de 64 em 64
+ * bits, lendo e escrevendo "<i>long</i>" diretamente sobre os arrays de bytes, com um
+ * <i>kernel</i> para cada ordenao de bits ("<i>BigEndian</i>" e "<i>LittleEndian</i>"). As
+ * pontas no alinhadas so copiadas byte a byte.<br>
+ * <br>
+ * O resultado  idntico, bit a bit, ao da cpia byte a byte, inclusive quanto ao truncamento da
+ * cpia no fim dos arrays e  cpia entre regies sobrepostas de um mesmo array.
+ *
+ */
+final class BitArrayCopyEngine {
+
+    private static final VarHandle BIG_ENDIAN_LONG_VIEW    = MethodHandles.byteArrayViewVarHandle( long[ ].class,
+                                                                                                   ByteOrder.BIG_ENDIAN );
+
+    private static final VarHandle LITTLE_ENDIAN_LONG_VIEW = MethodHandles.byteArrayViewVarHandle( long[ ].class,
+                                                                                                   ByteOrder.LITTLE_ENDIAN );
+
+    /**
+     * Tamanho mnimo, em bits, a partir do qual a cpia por palavras compensa o custo de
+     * alinhamento das pontas.
+     */
+    private static final int       WORD_COPY_THRESHOLD     = ( 2 * Long.SIZE );
+
+    private BitArrayCopyEngine( ) {
+    }
+
+    static void copy( boolean isLittleEndian,
+                      byte[ ] sourceBitArray,
+                      int sourceBitsOffset,
+                      byte[ ] targetBitArray,
+                      int targetBitOffset,
+                      int bitArrayLength ) {
+        if ( ( sourceBitsOffset < 0 ) || ( targetBitOffset < 0 ) ) {
+            copyByteWise( isLittleEndian,
+                          sourceBitArray,
+                          sourceBitsOffset,
+                          targetBitArray,
+                          targetBitOffset,
+                          bitArrayLength );
+            return;
+        }
+        //
+        long tmpCopyLength = bitArrayLength;
+        long tmpSourceLimit = ( ( (long) sourceBitArray.length * Byte.SIZE ) - sourceBitsOffset );
+        long tmpTargetLimit = ( ( (long) targetBitArray.length * Byte.SIZE ) - targetBitOffset );
+        if ( tmpCopyLength > tmpSourceLimit ) {
+            tmpCopyLength = tmpSourceLimit;
+        }
+        if ( tmpCopyLength > tmpTargetLimit ) {
+            tmpCopyLength = tmpTargetLimit;
+        }
+        if ( tmpCopyLength <= 0 ) {
+            return;
+        }
+        int tmpLength = (int) tmpCopyLength;
+        //
+        if ( ( sourceBitArray == targetBitArray ) && ( sourceBitsOffset < ( targetBitOffset + tmpLength ) )
+             && ( targetBitOffset < ( sourceBitsOffset + tmpLength ) ) ) {
+            // Regies sobrepostas: preserva a semntica da cpia progressiva byte a byte
+            copyByteWise( isLittleEndian,
+                          sourceBitArray,
+                          sourceBitsOffset,
+                          targetBitArray,
+                          targetBitOffset,
+                          tmpLength );
+        }
+        else if ( ( ( sourceBitsOffset ^ targetBitOffset ) & ( Byte.SIZE - 1 ) ) == 0 ) {
+            copyAligned( isLittleEndian,
+                         sourceBitArray,
+                         sourceBitsOffset,
+                         targetBitArray,
+                         targetBitOffset,
+                         tmpLength );
+        }
+        else if ( tmpLength < WORD_COPY_THRESHOLD ) {
+            copyByteWise( isLittleEndian,
+                          sourceBitArray,
+                          sourceBitsOffset,
+                          targetBitArray,
+                          targetBitOffset,
+                          tmpLength );
+        }
+        else if ( isLittleEndian ) {
+            copyLittleEndianWords( sourceBitArray,
+                                   sourceBitsOffset,
+                                   targetBitArray,
+                                   targetBitOffset,
+                                   tmpLength );
+        }
+        else {
+            copyBigEndianWords( sourceBitArray,
+                                sourceBitsOffset,
+                                targetBitArray,
+                                targetBitOffset,
+                                tmpLength );
+        }
+    }
+
+    /**
+     * Cpia de regies com o mesmo alinhamento de bit na origem e no destino: as pontas so
+     * copiadas byte a byte e o miolo por "{@link System#arraycopy( Object, int, Object, int, int )}"
+     * (o contedo dos bytes independe da ordenao dos bits).
+     */
+    private static void copyAligned( boolean isLittleEndian,
+                                     byte[ ] sourceBitArray,
+                                     int sourceBitsOffset,
+                                     byte[ ] targetBitArray,
+                                     int targetBitOffset,
+                                     int bitArrayLength ) {
+        int tmpHeadLength = ( ( Byte.SIZE - ( targetBitOffset & ( Byte.SIZE - 1 ) ) ) & ( Byte.SIZE - 1 ) );
+        if ( tmpHeadLength > bitArrayLength ) {
+            tmpHeadLength = bitArrayLength;
+        }
+        if ( tmpHeadLength > 0 ) {
+            copyByteWise( isLittleEndian,
+                          sourceBitArray,
+                          sourceBitsOffset,
+                          targetBitArray,
+                          targetBitOffset,
+                          tmpHeadLength );
+        }
+        int tmpSourceBitIndex = ( sourceBitsOffset + tmpHeadLength );
+        int tmpTargetBitIndex = ( targetBitOffset + tmpHeadLength );
+        int tmpByteCount = ( ( bitArrayLength - tmpHeadLength ) / Byte.SIZE );
+        if ( tmpByteCount > 0 ) {
+            System.arraycopy( sourceBitArray,
+                              ( tmpSourceBitIndex / Byte.SIZE ),
+                              targetBitArray,
+                              ( tmpTargetBitIndex / Byte.SIZE ),
+                              tmpByteCount );
+        }
+        int tmpCopiedLength = ( tmpHeadLength + ( tmpByteCount * Byte.SIZE ) );
+        if ( tmpCopiedLength < bitArrayLength ) {
+            copyByteWise( isLittleEndian,
+                          sourceBitArray,
+                          ( sourceBitsOffset + tmpCopiedLength ),
+                          targetBitArray,
+                          ( targetBitOffset + tmpCopiedLength ),
+                          ( bitArrayLength - tmpCopiedLength ) );
+        }
+    }
+
+    /**
+     * <i>Kernel</i> "<i>BigEndian</i>": o bit "0" do array  o bit mais significativo do primeiro
+     * byte, logo 64 bits consecutivos a partir de um byte correspondem a um "<i>long</i>"
+     * <i>BigEndian</i>. O destino  alinhado em byte antes do lao; a origem  deslocada para a
+     * esquerda e completada com os bits mais significativos do nono byte.<br>
+     * <br>
+     * O tamanho da cpia j vem limitado ao espao disponvel nos dois arrays, ento todo acesso do
+     * lao est dentro dos limites.
+     */
+    private static void copyBigEndianWords( byte[ ] sourceBitArray,
+                                            int sourceBitsOffset,
+                                            byte[ ] targetBitArray,
+                                            int targetBitOffset,
+                                            int bitArrayLength ) {
+        int tmpHeadLength = ( ( Byte.SIZE - ( targetBitOffset & ( Byte.SIZE - 1 ) ) ) & ( Byte.SIZE - 1 ) );
+        if ( tmpHeadLength > 0 ) {
+            copyByteWise( false,
+                          sourceBitArray,
+                          sourceBitsOffset,
+                          targetBitArray,
+                          targetBitOffset,
+                          tmpHeadLength );
+        }
+        int tmpSourceBitIndex = ( sourceBitsOffset + tmpHeadLength );
+        int tmpRemainingLength = ( bitArrayLength - tmpHeadLength );
+        // A origem nunca est alinhada aqui, pois o destino est e os alinhamentos diferem
+        int tmpSourceShift = ( tmpSourceBitIndex & ( Byte.SIZE - 1 ) );
+        int tmpSourceByteIndex = ( tmpSourceBitIndex / Byte.SIZE );
+        int tmpTargetByteIndex = ( ( targetBitOffset + tmpHeadLength ) / Byte.SIZE );
+        while ( tmpRemainingLength >= Long.SIZE ) {
+            long tmpWord = ( ( (long) BIG_ENDIAN_LONG_VIEW.get( sourceBitArray,
+                                                                 tmpSourceByteIndex ) << tmpSourceShift )
+                             | ( ( sourceBitArray[ tmpSourceByteIndex + Long.BYTES ] & 0x00ff ) >>> ( Byte.SIZE
+                                                                                                     - tmpSourceShift ) ) );
+            BIG_ENDIAN_LONG_VIEW.set( targetBitArray,
+                                      tmpTargetByteIndex,
+                                      tmpWord );
+            tmpSourceByteIndex += Long.BYTES;
+            tmpTargetByteIndex += Long.BYTES;
+            tmpRemainingLength -= Long.SIZE;
+        }
+        if ( tmpRemainingLength > 0 ) {
+            copyByteWise( false,
+                          sourceBitArray,
+                          ( ( tmpSourceByteIndex * Byte.SIZE ) + tmpSourceShift ),
+                          targetBitArray,
+                          ( tmpTargetByteIndex * Byte.SIZE ),
+                          tmpRemainingLength );
+        }
+    }
+
+    /**
+     * <i>Kernel</i> "<i>LittleEndian</i>": o bit "0" do array  o bit menos significativo do
+     * primeiro byte, logo 64 bits consecutivos a partir de um byte correspondem a um
+     * "<i>long</i>" <i>LittleEndian</i>. O destino  alinhado em byte antes do lao; a origem 
+     * deslocada para a direita e completada com os bits menos significativos do nono byte.<br>
+     * <br>
+     * O tamanho da cpia j vem limitado ao espao disponvel nos dois arrays, ento todo acesso do
+     * lao est dentro dos limites.
+     */
+    private static void copyLittleEndianWords( byte[ ] sourceBitArray,
+                                               int sourceBitsOffset,
+                                               byte[ ] targetBitArray,
+                                               int targetBitOffset,
+                                               int bitArrayLength ) {
+        int tmpHeadLength = ( ( Byte.SIZE - ( targetBitOffset & ( Byte.SIZE - 1 ) ) ) & ( Byte.SIZE - 1 ) );
+        if ( tmpHeadLength > 0 ) {
+            copyByteWise( true,
+                          sourceBitArray,
+                          sourceBitsOffset,
+                          targetBitArray,
+                          targetBitOffset,
+                          tmpHeadLength );
+        }
+        int tmpSourceBitIndex = ( sourceBitsOffset + tmpHeadLength );
+        int tmpRemainingLength = ( bitArrayLength - tmpHeadLength );
+        // A origem nunca est alinhada aqui, pois o destino est e os alinhamentos diferem
+        int tmpSourceShift = ( tmpSourceBitIndex & ( Byte.SIZE - 1 ) );
+        int tmpSourceByteIndex = ( tmpSourceBitIndex / Byte.SIZE );
+        int tmpTargetByteIndex = ( ( targetBitOffset + tmpHeadLength ) / Byte.SIZE );
+        while ( tmpRemainingLength >= Long.SIZE ) {
+            long tmpWord = ( ( (long) LITTLE_ENDIAN_LONG_VIEW.get( sourceBitArray,
+                                                                    tmpSourceByteIndex ) >>> tmpSourceShift )
+                             | ( (long) ( sourceBitArray[ tmpSourceByteIndex + Long.BYTES ] & 0x00ff ) << ( Long.SIZE
+                                                                                                            - tmpSourceShift ) ) );
+            LITTLE_ENDIAN_LONG_VIEW.set( targetBitArray,
+                                         tmpTargetByteIndex,
+                                         tmpWord );
+            tmpSourceByteIndex += Long.BYTES;
+            tmpTargetByteIndex += Long.BYTES;
+            tmpRemainingLength -= Long.SIZE;
+        }
+        if ( tmpRemainingLength > 0 ) {
+            copyByteWise( true,
+                          sourceBitArray,
+                          ( ( tmpSourceByteIndex * Byte.SIZE ) + tmpSourceShift ),
+                          targetBitArray,
+                          ( tmpTargetByteIndex * Byte.SIZE ),
+                          tmpRemainingLength );
+        }
+    }
+
+    /**
+     * Cpia byte a byte: copia, a cada passo, os bits restantes do byte corrente da origem ou do
+     * destino (o que terminar primeiro).  a implementao de referncia para os demais
+     * <i>kernels</i>.
+     */
+    static void copyByteWise( boolean isLittleEndian,
+                              byte[ ] sourceBitArray,
+                              int sourceBitsOffset,
+                              byte[ ] targetBitArray,
+                              int targetBitOffset,
+                              int bitArrayLength ) {
+        int tmpCurrentTargetBitIndex = targetBitOffset;
+        int tmpCurrentSourceBitIndex = sourceBitsOffset;
+        int tmpLastSourceBitIndex = ( tmpCurrentSourceBitIndex + bitArrayLength );
+        while ( tmpCurrentSourceBitIndex < tmpLastSourceBitIndex ) {
+            //
+            int tmpSourceByteIndex = ( tmpCurrentSourceBitIndex / Byte.SIZE );
+            int tmpTargetByteIndex = ( tmpCurrentTargetBitIndex / Byte.SIZE );
+            if ( ( tmpSourceByteIndex >= sourceBitArray.length ) || ( tmpTargetByteIndex >= targetBitArray.length ) ) {
+                break;
+            }
+            //
+            int tmpSourceBitPosition = ( tmpCurrentSourceBitIndex % Byte.SIZE );
+            int tmpSourceCopyLimit = ( Byte.SIZE - tmpSourceBitPosition );
+            int tmpTargetBitPosition = ( tmpCurrentTargetBitIndex % Byte.SIZE );
+            int tmpTargetCopyLimit = ( Byte.SIZE - tmpTargetBitPosition );
+            int tmpCopyingBitsCount = ( tmpSourceCopyLimit < tmpTargetCopyLimit ) ? tmpSourceCopyLimit
+                                                                                  : tmpTargetCopyLimit;
+            int tmpRemainingBitsCount = ( tmpLastSourceBitIndex - tmpCurrentSourceBitIndex );
+            if ( tmpCopyingBitsCount > tmpRemainingBitsCount ) {
+                tmpCopyingBitsCount = tmpRemainingBitsCount;
+            }
+            //
+            byte tmpCopyingSourceBits;
+            byte tmpTargetAndMask;
+            byte tmpTargetOrMask;
+            if ( isLittleEndian ) {
+                tmpCopyingSourceBits = (byte) ( sourceBitArray[ tmpSourceByteIndex ] >> tmpSourceBitPosition );
+                tmpTargetAndMask = (byte) ~( ( 0x00ff >> ( Byte.SIZE
+                                                           - ( tmpTargetBitPosition + tmpCopyingBitsCount ) ) )
+                                             & ( 0x00ff << tmpTargetBitPosition ) );
+                tmpTargetOrMask = (byte) ( ( tmpCopyingSourceBits << tmpTargetBitPosition ) & ( ~tmpTargetAndMask ) );
+            }
+            else {
+                tmpCopyingSourceBits = (byte) ( sourceBitArray[ tmpSourceByteIndex ] << tmpSourceBitPosition );
+                tmpTargetAndMask = (byte) ~( ( 0x00ff >> tmpTargetBitPosition )
+                                             & ( 0x00ff << ( Byte.SIZE
+                                                             - ( tmpTargetBitPosition + tmpCopyingBitsCount ) ) ) );
+                tmpTargetOrMask = (byte) ( ( tmpCopyingSourceBits >> tmpTargetBitPosition ) & ( ~tmpTargetAndMask ) );
+            }
+            //
+            targetBitArray[ tmpTargetByteIndex ] &= tmpTargetAndMask;
+            targetBitArray[ tmpTargetByteIndex ] |= tmpTargetOrMask;
+            //
+            tmpCurrentSourceBitIndex += tmpCopyingBitsCount;
+            tmpCurrentTargetBitIndex += tmpCopyingBitsCount;
+        }
+    }
+}
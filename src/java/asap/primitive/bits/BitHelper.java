@@ -353,52 +353,12 @@ public class BitHelper {
                                      byte[ ] targetBitArray,
                                      int targetBitOffset,
                                      int bitArrayLength ) {
-        int tmpCurrentTargetBitIndex = targetBitOffset;
-        int tmpCurrentSourceBitIndex = sourceBitsOffset;
-        int tmpLastSourceBitIndex = ( tmpCurrentSourceBitIndex + bitArrayLength );
-        while ( tmpCurrentSourceBitIndex < tmpLastSourceBitIndex ) {
-            //
-            int tmpSourceByteIndex = ( tmpCurrentSourceBitIndex / Byte.SIZE );
-            int tmpTargetByteIndex = ( tmpCurrentTargetBitIndex / Byte.SIZE );
-            if ( ( tmpSourceByteIndex >= sourceBitArray.length ) || ( tmpTargetByteIndex >= targetBitArray.length ) ) {
-                break;
-            }
-            //
-            int tmpSourceBitPosition = ( tmpCurrentSourceBitIndex % Byte.SIZE );
-            int tmpSourceCopyLimit = ( Byte.SIZE - tmpSourceBitPosition );
-            int tmpTargetBitPosition = ( tmpCurrentTargetBitIndex % Byte.SIZE );
-            int tmpTargetCopyLimit = ( Byte.SIZE - tmpTargetBitPosition );
-            int tmpCopyingBitsCount = ( tmpSourceCopyLimit < tmpTargetCopyLimit ) ? tmpSourceCopyLimit
-                                                                                  : tmpTargetCopyLimit;
-            int tmpRemainingBitsCount = ( tmpLastSourceBitIndex - tmpCurrentSourceBitIndex );
-            if ( tmpCopyingBitsCount > tmpRemainingBitsCount ) {
-                tmpCopyingBitsCount = tmpRemainingBitsCount;
-            }
-            //
-            byte tmpCopyingSourceBits;
-            byte tmpTargetAndMask;
-            byte tmpTargetOrMask;
-            if ( isLittleEndian ) {
-                tmpCopyingSourceBits = (byte) ( sourceBitArray[ tmpSourceByteIndex ] >> tmpSourceBitPosition );
-                tmpTargetAndMask = (byte) ~( ( 0x00ff >> ( Byte.SIZE
-                                                           - ( tmpTargetBitPosition + tmpCopyingBitsCount ) ) )
-                                             & ( 0x00ff << tmpTargetBitPosition ) );
-                tmpTargetOrMask = (byte) ( ( tmpCopyingSourceBits << tmpTargetBitPosition ) & ( ~tmpTargetAndMask ) );
-            }
-            else {
-                tmpCopyingSourceBits = (byte) ( sourceBitArray[ tmpSourceByteIndex ] << tmpSourceBitPosition );
-                tmpTargetAndMask = (byte) ~( ( 0x00ff >> tmpTargetBitPosition )
-                                             & ( 0x00ff << ( Byte.SIZE
-                                                             - ( tmpTargetBitPosition + tmpCopyingBitsCount ) ) ) );
-                tmpTargetOrMask = (byte) ( ( tmpCopyingSourceBits >> tmpTargetBitPosition ) & ( ~tmpTargetAndMask ) );
-            }
-            //
-            targetBitArray[ tmpTargetByteIndex ] &= tmpTargetAndMask;
-            targetBitArray[ tmpTargetByteIndex ] |= tmpTargetOrMask;
-            //
-            tmpCurrentSourceBitIndex += tmpCopyingBitsCount;
-            tmpCurrentTargetBitIndex += tmpCopyingBitsCount;
-        }
+        BitArrayCopyEngine.copy( isLittleEndian,
+                                 sourceBitArray,
+                                 sourceBitsOffset,
+                                 targetBitArray,
+                                 targetBitOffset,
+                                 bitArrayLength );
     }
 
     /**
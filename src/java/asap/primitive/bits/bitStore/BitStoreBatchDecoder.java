@@ -0,0 +1,575 @@
+package asap.primitive.bits.bitStore;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import asap.primitive.bits.BitHelper;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreEnumerationFieldMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreMapException;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreRecordMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreViewFieldMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreViewMap;
+
+/**
+ *
+ * Decodificador em lote de campos de muitas imagens de um mesmo "{@link BitStoreMap}", que produz
+ * colunas de tipos primitivos sem montar um "{@link BitStoreData}" por imagem.<br>
+ * <br>
+ * Cada imagem  a imagem completa de um store: as imagens dos registros da viso principal (as
+ * mesmas de "<i>BitStoreRecordData.getBytes( )</i>"), na ordem de
+ * "{@link BitStoreMap#getRecords( )}", uma aps a outra. Os campos so indicados por caminhos
+ * "registro.campo" dentro de uma viso qualquer do mapa, e cada um  lido pelo
+ * "{@link BitStoreFieldAccessor}" compilado a partir das peas do campo.<br>
+ * <br>
+ * Campos "<i>Boolean</i>" geram colunas "<i>boolean[]</i>", campos "<i>Date</i>" geram colunas
+ * "<i>int[]</i>" de dias desde 01/01/1970 ("<i>epoch day</i>") e os demais campos inteiros
+ * ("<i>Integer</i>", "<i>Currency</i>", "<i>Time</i>" e "<i>Enumeration</i>") geram colunas
+ * "<i>long[]</i>" com o mesmo valor de "<i>getAs( Long.class )</i>". Lotes grandes so divididos
+ * entre os processadores com <i>fork-join</i>; as imagens vm de um "<i>Iterable</i>", ou de um
+ * "<i>Iterator</i>" consumido em partes de tamanho limitado.
+ *
+ */
+public final class BitStoreBatchDecoder {
+
+    public static enum BitStoreColumnType {
+        Long,
+        Boolean,
+        EpochDay;
+    }
+
+    /**
+     *
+     * Resultado de um lote: uma coluna por caminho de campo, com uma linha por imagem.
+     *
+     */
+    public static final class BitStoreColumns {
+
+        protected final String[ ]             fieldPaths;
+
+        protected final BitStoreColumnType[ ] columnTypes;
+
+        protected final Object[ ]             columns;
+
+        protected final int                   imageCount;
+
+        protected BitStoreColumns( BitStoreBatchDecoder decoder,
+                                   int imageCount ) {
+            this.fieldPaths = decoder.fieldPaths;
+            this.columnTypes = decoder.columnTypes;
+            this.columns = new Object[ this.fieldPaths.length ];
+            this.imageCount = imageCount;
+            for ( int tmpIndex = 0; tmpIndex < this.columns.length; tmpIndex++ ) {
+                switch ( this.columnTypes[ tmpIndex ] ) {
+                    case Boolean:
+                        this.columns[ tmpIndex ] = new boolean[ imageCount ];
+                        break;
+                    case EpochDay:
+                        this.columns[ tmpIndex ] = new int[ imageCount ];
+                        break;
+                    default:
+                        this.columns[ tmpIndex ] = new long[ imageCount ];
+                        break;
+                }
+            }
+        }
+
+        public int getImageCount( ) {
+            return this.imageCount;
+        }
+
+        public int getColumnCount( ) {
+            return this.columns.length;
+        }
+
+        public String getFieldPath( int columnIndex ) {
+            return this.fieldPaths[ columnIndex ];
+        }
+
+        public BitStoreColumnType getColumnType( int columnIndex ) {
+            return this.columnTypes[ columnIndex ];
+        }
+
+        public int getColumnIndex( String fieldPath )
+            throws BitStoreMapException {
+            for ( int tmpIndex = 0; tmpIndex < this.fieldPaths.length; tmpIndex++ ) {
+                if ( this.fieldPaths[ tmpIndex ].equals( fieldPath ) ) {
+                    return tmpIndex;
+                }
+            }
+            throw new BitStoreMapException( "Nenhuma coluna para o campo '%s' no lote",
+                                            fieldPath );
+        }
+
+        protected Object getColumn( int columnIndex,
+                                    BitStoreColumnType columnType )
+            throws BitStoreMapException {
+            if ( this.columnTypes[ columnIndex ] != columnType ) {
+                throw new BitStoreMapException( "Coluna do campo '%s'  do tipo '%s', e no '%s'",
+                                                this.fieldPaths[ columnIndex ],
+                                                this.columnTypes[ columnIndex ].name( ),
+                                                columnType.name( ) );
+            }
+            return this.columns[ columnIndex ];
+        }
+
+        public long[ ] getLongs( int columnIndex )
+            throws BitStoreMapException {
+            return (long[ ]) this.getColumn( columnIndex,
+                                             BitStoreColumnType.Long );
+        }
+
+        public long[ ] getLongs( String fieldPath )
+            throws BitStoreMapException {
+            return this.getLongs( this.getColumnIndex( fieldPath ) );
+        }
+
+        public boolean[ ] getBooleans( int columnIndex )
+            throws BitStoreMapException {
+            return (boolean[ ]) this.getColumn( columnIndex,
+                                                BitStoreColumnType.Boolean );
+        }
+
+        public boolean[ ] getBooleans( String fieldPath )
+            throws BitStoreMapException {
+            return this.getBooleans( this.getColumnIndex( fieldPath ) );
+        }
+
+        public int[ ] getEpochDays( int columnIndex )
+            throws BitStoreMapException {
+            return (int[ ]) this.getColumn( columnIndex,
+                                            BitStoreColumnType.EpochDay );
+        }
+
+        public int[ ] getEpochDays( String fieldPath )
+            throws BitStoreMapException {
+            return this.getEpochDays( this.getColumnIndex( fieldPath ) );
+        }
+    }
+
+    /**
+     *
+     * Acesso uniforme s imagens de um lote, qualquer que seja o seu armazenamento.
+     *
+     */
+    protected static abstract class BitStoreImageReader {
+
+        protected abstract long getLong( BitStoreFieldAccessor accessor,
+                                         int imageIndex,
+                                         int recordOffset );
+    }
+
+    @SuppressWarnings( "serial" )
+    protected static class BitStoreDecodeTask extends RecursiveAction {
+
+        protected final BitStoreBatchDecoder decoder;
+
+        protected final BitStoreImageReader  imageReader;
+
+        protected final BitStoreColumns      columns;
+
+        protected final int                  firstImage;
+
+        protected final int                  lastImage;
+
+        protected BitStoreDecodeTask( BitStoreBatchDecoder decoder,
+                                      BitStoreImageReader imageReader,
+                                      BitStoreColumns columns,
+                                      int firstImage,
+                                      int lastImage ) {
+            this.decoder = decoder;
+            this.imageReader = imageReader;
+            this.columns = columns;
+            this.firstImage = firstImage;
+            this.lastImage = lastImage;
+        }
+
+        @Override
+        protected void compute( ) {
+            if ( ( this.lastImage - this.firstImage ) > this.decoder.splitThreshold ) {
+                int tmpMiddleImage = ( ( this.firstImage + this.lastImage ) >>> 1 );
+                invokeAll( new BitStoreDecodeTask( this.decoder,
+                                                   this.imageReader,
+                                                   this.columns,
+                                                   this.firstImage,
+                                                   tmpMiddleImage ),
+                           new BitStoreDecodeTask( this.decoder,
+                                                   this.imageReader,
+                                                   this.columns,
+                                                   tmpMiddleImage,
+                                                   this.lastImage ) );
+            }
+            else {
+                this.decoder.decodeRange( this.imageReader,
+                                          this.columns,
+                                          this.firstImage,
+                                          this.lastImage );
+            }
+        }
+    }
+
+    public static final int                  DEFAULT_SPLIT_THRESHOLD = 4096;
+
+    protected static final int               REFERENCE_EPOCH_DAY     = (int) LocalDate.of( 2000,
+                                                                                           1,
+                                                                                           1 ).toEpochDay( );
+
+    protected final BitStoreMap              storeMap;
+
+    protected final BitStoreViewMap          viewMap;
+
+    protected final String[ ]                fieldPaths;
+
+    protected final BitStoreColumnType[ ]    columnTypes;
+
+    protected final BitStoreFieldAccessor[ ] accessors;
+
+    protected final int[ ]                   recordOffsets;
+
+    protected final int[ ][ ]                invertedBits;
+
+    protected final int                      imageLength;
+
+    protected final ForkJoinPool             pool;
+
+    protected final int                      splitThreshold;
+
+    public BitStoreBatchDecoder( BitStoreMap storeMap,
+                                 String viewName,
+                                 List< String > fieldPaths,
+                                 ForkJoinPool pool,
+                                 int splitThreshold )
+        throws BitStoreMapException {
+        this.storeMap = storeMap;
+        this.viewMap = storeMap.getView( viewName );
+        this.fieldPaths = fieldPaths.toArray( new String[ 0 ] );
+        this.columnTypes = new BitStoreColumnType[ this.fieldPaths.length ];
+        this.accessors = new BitStoreFieldAccessor[ this.fieldPaths.length ];
+        this.recordOffsets = new int[ this.fieldPaths.length ];
+        this.invertedBits = new int[ this.fieldPaths.length ][ ];
+        this.pool = pool;
+        this.splitThreshold = Math.max( 1,
+                                        splitThreshold );
+        BitStoreRecordMap[ ] tmpRecordMaps = storeMap.getRecords( );
+        int[ ] tmpRecordOffsets = new int[ tmpRecordMaps.length ];
+        int tmpImageLength = 0;
+        for ( int tmpIndex = 0; tmpIndex < tmpRecordMaps.length; tmpIndex++ ) {
+            tmpRecordOffsets[ tmpIndex ] = tmpImageLength;
+            tmpImageLength += tmpRecordMaps[ tmpIndex ].getByteLength( );
+        }
+        this.imageLength = tmpImageLength;
+        for ( int tmpIndex = 0; tmpIndex < this.fieldPaths.length; tmpIndex++ ) {
+            String[ ] tmpItemPath = this.fieldPaths[ tmpIndex ].split( "\\." );
+            if ( tmpItemPath.length != 2 ) {
+                throw new BitStoreMapException( "Caminho '%s' invlido para campo da viso '%s' do mapa '%s'",
+                                                this.fieldPaths[ tmpIndex ],
+                                                this.viewMap.getName( ),
+                                                storeMap.getName( ) );
+            }
+            BitStoreViewFieldMap tmpViewField = this.viewMap.getRecord( tmpItemPath[ 0 ] ).getField( tmpItemPath[ 1 ] );
+            switch ( tmpViewField.getType( ) ) {
+                case Boolean:
+                    this.columnTypes[ tmpIndex ] = BitStoreColumnType.Boolean;
+                    break;
+                case Date:
+                    this.columnTypes[ tmpIndex ] = BitStoreColumnType.EpochDay;
+                    break;
+                case Integer:
+                case Currency:
+                case Time:
+                case Enumeration:
+                    this.columnTypes[ tmpIndex ] = BitStoreColumnType.Long;
+                    break;
+                default:
+                    throw new BitStoreMapException( "Campo '%s' do tipo '%s' da viso '%s' no pode ser decodificado em coluna",
+                                                    this.fieldPaths[ tmpIndex ],
+                                                    tmpViewField.getType( ).name( ),
+                                                    this.viewMap.getName( ) );
+            }
+            this.accessors[ tmpIndex ] = tmpViewField.getAccessor( );
+            this.recordOffsets[ tmpIndex ] = tmpRecordOffsets[ tmpViewField.getParentViewRecord( ).getRecordMap( ).getIndex( ) ];
+            Boolean tmpIsInverted = ( ( tmpViewField.getType( ) == BitStoreMap.BitStoreItemType.Enumeration ) ? ( (BitStoreEnumerationFieldMap) tmpViewField.getFieldMap( ) ).inverted
+                                                                                                                  : null );
+            if ( ( tmpIsInverted != null ) && tmpIsInverted.booleanValue( ) ) {
+                this.invertedBits[ tmpIndex ] = computeInvertedBits( tmpViewField );
+            }
+        }
+    }
+
+    public BitStoreBatchDecoder( BitStoreMap storeMap,
+                                 String viewName,
+                                 List< String > fieldPaths )
+        throws BitStoreMapException {
+        this( storeMap,
+              viewName,
+              fieldPaths,
+              ForkJoinPool.commonPool( ),
+              DEFAULT_SPLIT_THRESHOLD );
+    }
+
+    /**
+     * Permutao equivalente  inverso da ordem dos bits feita por
+     * "<i>BitStoreEnumerationData.getAs( )</i>" no buffer do campo, onde os bits so contados como
+     * <i>BigEndian</i> qualquer que seja a ordenao dos bytes: para cada bit do valor final, o bit
+     * do valor lido que vai para ele.
+     */
+    protected static int[ ] computeInvertedBits( BitStoreViewFieldMap viewFieldMap ) {
+        int tmpByteLength = viewFieldMap.getByteLength( );
+        int tmpBufferBitLength = ( tmpByteLength * Byte.SIZE );
+        int tmpPadLength = BitHelper.getBitArrayPadLength( viewFieldMap.getBitLength( ) );
+        boolean tmpIsLittleEndianBytes = viewFieldMap.getParentViewRecord( ).isLittleEndianBytes( );
+        int[ ] tmpResult = new int[ Math.min( tmpBufferBitLength,
+                                              Long.SIZE ) ];
+        for ( int tmpBitIndex = 0; tmpBitIndex < tmpBufferBitLength; tmpBitIndex++ ) {
+            int tmpSourceBitIndex = ( ( tmpBitIndex < tmpPadLength ) ? tmpBitIndex
+                                                                     : ( tmpPadLength + tmpBufferBitLength - 1 - tmpBitIndex ) );
+            int tmpValueBit = valueBit( tmpIsLittleEndianBytes,
+                                        tmpByteLength,
+                                        tmpBitIndex );
+            if ( tmpValueBit < tmpResult.length ) {
+                tmpResult[ tmpValueBit ] = valueBit( tmpIsLittleEndianBytes,
+                                                     tmpByteLength,
+                                                     tmpSourceBitIndex );
+            }
+        }
+        return tmpResult;
+    }
+
+    /**
+     * Bit do valor correspondente a um bit, contado como <i>BigEndian</i>, do buffer de um campo.
+     */
+    protected static int valueBit( boolean isLittleEndianBytes,
+                                   int byteLength,
+                                   int bitIndex ) {
+        int tmpByteIndex = ( bitIndex / Byte.SIZE );
+        return ( ( ( isLittleEndianBytes ? tmpByteIndex
+                                         : ( byteLength - 1 - tmpByteIndex ) )
+                   * Byte.SIZE )
+                 + ( Byte.SIZE - 1 - ( bitIndex % Byte.SIZE ) ) );
+    }
+
+    protected static long invertBits( long value,
+                                      int[ ] invertedBits ) {
+        long tmpResult = 0L;
+        for ( int tmpValueBit = 0; tmpValueBit < invertedBits.length; tmpValueBit++ ) {
+            tmpResult |= ( ( ( value >>> invertedBits[ tmpValueBit ] ) & 1L ) << tmpValueBit );
+        }
+        return tmpResult;
+    }
+
+    public BitStoreMap getStoreMap( ) {
+        return this.storeMap;
+    }
+
+    public BitStoreViewMap getViewMap( ) {
+        return this.viewMap;
+    }
+
+    /**
+     * Tamanho, em bytes, da imagem completa de um store do mapa.
+     */
+    public int getImageLength( ) {
+        return this.imageLength;
+    }
+
+    protected void decodeRange( BitStoreImageReader imageReader,
+                                BitStoreColumns columns,
+                                int firstImage,
+                                int lastImage ) {
+        for ( int tmpColumn = 0; tmpColumn < this.accessors.length; tmpColumn++ ) {
+            BitStoreFieldAccessor tmpAccessor = this.accessors[ tmpColumn ];
+            int tmpRecordOffset = this.recordOffsets[ tmpColumn ];
+            int[ ] tmpInvertedBits = this.invertedBits[ tmpColumn ];
+            switch ( this.columnTypes[ tmpColumn ] ) {
+                case Boolean: {
+                    boolean[ ] tmpValues = (boolean[ ]) columns.columns[ tmpColumn ];
+                    for ( int tmpImage = firstImage; tmpImage < lastImage; tmpImage++ ) {
+                        tmpValues[ tmpImage ] = ( imageReader.getLong( tmpAccessor,
+                                                                       tmpImage,
+                                                                       tmpRecordOffset ) != 0 );
+                    }
+                    break;
+                }
+                case EpochDay: {
+                    int[ ] tmpValues = (int[ ]) columns.columns[ tmpColumn ];
+                    for ( int tmpImage = firstImage; tmpImage < lastImage; tmpImage++ ) {
+                        tmpValues[ tmpImage ] = ( REFERENCE_EPOCH_DAY + (int) imageReader.getLong( tmpAccessor,
+                                                                                                   tmpImage,
+                                                                                                   tmpRecordOffset ) );
+                    }
+                    break;
+                }
+                default: {
+                    long[ ] tmpValues = (long[ ]) columns.columns[ tmpColumn ];
+                    for ( int tmpImage = firstImage; tmpImage < lastImage; tmpImage++ ) {
+                        tmpValues[ tmpImage ] = imageReader.getLong( tmpAccessor,
+                                                                     tmpImage,
+                                                                     tmpRecordOffset );
+                    }
+                    if ( tmpInvertedBits != null ) {
+                        for ( int tmpImage = firstImage; tmpImage < lastImage; tmpImage++ ) {
+                            tmpValues[ tmpImage ] = invertBits( tmpValues[ tmpImage ],
+                                                                tmpInvertedBits );
+                        }
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    protected BitStoreColumns decode( BitStoreImageReader imageReader,
+                                      int imageCount ) {
+        BitStoreColumns tmpResult = new BitStoreColumns( this,
+                                                         imageCount );
+        if ( ( imageCount <= this.splitThreshold ) || ( this.pool == null ) ) {
+            this.decodeRange( imageReader,
+                              tmpResult,
+                              0,
+                              imageCount );
+        }
+        else {
+            this.pool.invoke( new BitStoreDecodeTask( this,
+                                                      imageReader,
+                                                      tmpResult,
+                                                      0,
+                                                      imageCount ) );
+        }
+        return tmpResult;
+    }
+
+    protected void checkImageLength( int imageLength,
+                                     int imageIndex )
+        throws BitStoreMapException {
+        if ( imageLength < this.imageLength ) {
+            throw new BitStoreMapException( "Imagem %d com %d bytes, menos que os %d bytes do mapa '%s'",
+                                            imageIndex,
+                                            imageLength,
+                                            this.imageLength,
+                                            this.storeMap.getName( ) );
+        }
+    }
+
+    /**
+     * Prximas imagens de "<i>images</i>", no mximo "<i>maxImageCount</i>"; o iterador fica na
+     * imagem seguinte.
+     */
+    protected static < I > List< I > nextImages( Iterator< ? extends I > images,
+                                                 int maxImageCount ) {
+        List< I > tmpResult = new ArrayList< I >( );
+        while ( ( tmpResult.size( ) < maxImageCount ) && images.hasNext( ) ) {
+            tmpResult.add( images.next( ) );
+        }
+        return tmpResult;
+    }
+
+    public BitStoreColumns decodeArrays( Iterable< byte[ ] > images )
+        throws BitStoreMapException {
+        return this.decodeArrays( images.iterator( ),
+                                  Integer.MAX_VALUE );
+    }
+
+    /**
+     * Decodifica as prximas imagens de "<i>images</i>", no mximo "<i>maxImageCount</i>", e deixa
+     * o iterador na seguinte: um lote maior que a memria  decodificado em partes, chamando de
+     * novo enquanto houver imagens. Com o iterador esgotado, o resultado no tem linhas.
+     */
+    public BitStoreColumns decodeArrays( Iterator< byte[ ] > images,
+                                         int maxImageCount )
+        throws BitStoreMapException {
+        List< byte[ ] > tmpImageList = nextImages( images,
+                                                   maxImageCount );
+        final byte[ ][ ] tmpImages = tmpImageList.toArray( new byte[ tmpImageList.size( ) ][ ] );
+        for ( int tmpIndex = 0; tmpIndex < tmpImages.length; tmpIndex++ ) {
+            this.checkImageLength( tmpImages[ tmpIndex ].length,
+                                   tmpIndex );
+        }
+        return this.decode( new BitStoreImageReader( ) {
+
+            @Override
+            protected long getLong( BitStoreFieldAccessor accessor,
+                                    int imageIndex,
+                                    int recordOffset ) {
+                return accessor.getLong( tmpImages[ imageIndex ],
+                                         recordOffset );
+            }
+        },
+                            tmpImages.length );
+    }
+
+    /**
+     * Decodifica imagens em buffers, cada uma a partir da posio corrente do seu buffer (que no 
+     * alterada).
+     */
+    public BitStoreColumns decodeBuffers( Iterable< ByteBuffer > images )
+        throws BitStoreMapException {
+        return this.decodeBuffers( images.iterator( ),
+                                   Integer.MAX_VALUE );
+    }
+
+    /**
+     * Como "{@link #decodeBuffers( Iterable )}", para as prximas imagens de "<i>images</i>", no
+     * mximo "<i>maxImageCount</i>"; o iterador fica na imagem seguinte.
+     */
+    public BitStoreColumns decodeBuffers( Iterator< ByteBuffer > images,
+                                          int maxImageCount )
+        throws BitStoreMapException {
+        List< ByteBuffer > tmpImageList = nextImages( images,
+                                                      maxImageCount );
+        final ByteBuffer[ ] tmpImages = tmpImageList.toArray( new ByteBuffer[ tmpImageList.size( ) ] );
+        final int[ ] tmpPositions = new int[ tmpImages.length ];
+        for ( int tmpIndex = 0; tmpIndex < tmpImages.length; tmpIndex++ ) {
+            this.checkImageLength( tmpImages[ tmpIndex ].remaining( ),
+                                   tmpIndex );
+            tmpPositions[ tmpIndex ] = tmpImages[ tmpIndex ].position( );
+        }
+        return this.decode( new BitStoreImageReader( ) {
+
+            @Override
+            protected long getLong( BitStoreFieldAccessor accessor,
+                                    int imageIndex,
+                                    int recordOffset ) {
+                return accessor.getLong( tmpImages[ imageIndex ],
+                                         tmpPositions[ imageIndex ] + recordOffset );
+            }
+        },
+                            tmpImages.length );
+    }
+
+    /**
+     * Decodifica "<i>imageCount</i>" imagens guardadas em sequncia em um nico buffer, a partir da
+     * posio absoluta "<i>firstImageOffset</i>" e separadas por "<i>imageStride</i>" bytes, como os
+     * <i>slots</i> de um arquivo mapeado.
+     */
+    public BitStoreColumns decodeBuffer( final ByteBuffer images,
+                                         final int firstImageOffset,
+                                         final int imageStride,
+                                         int imageCount )
+        throws BitStoreMapException {
+        this.checkImageLength( imageStride,
+                               0 );
+        if ( ( imageCount > 0 )
+             && ( ( firstImageOffset + ( ( (long) imageCount - 1 ) * imageStride ) + this.imageLength ) > images.limit( ) ) ) {
+            throw new BitStoreMapException( "Buffer com %d bytes no contm %d imagens de %d bytes a partir do byte %d",
+                                            images.limit( ),
+                                            imageCount,
+                                            imageStride,
+                                            firstImageOffset );
+        }
+        return this.decode( new BitStoreImageReader( ) {
+
+            @Override
+            protected long getLong( BitStoreFieldAccessor accessor,
+                                    int imageIndex,
+                                    int recordOffset ) {
+                return accessor.getLong( images,
+                                         firstImageOffset + ( imageIndex * imageStride ) + recordOffset );
+            }
+        },
+                            imageCount );
+    }
+}
@@ -8,11 +8,14 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Currency;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import asap.primitive.bits.BitHelper;
 import asap.primitive.bits.bitStore.BitStoreMap.BitStoreBooleanFieldMap;
@@ -32,6 +35,7 @@ import asap.primitive.bits.bitStore.BitStoreSource.BitStoreAccessException;
 import asap.primitive.bits.bitStore.BitStoreSource.BitStoreAuthenticationException;
 import asap.primitive.bits.bitStore.BitStoreSource.BitStoreDeviceException;
 import asap.primitive.bits.bitStore.BitStoreSource.BitStoreMemorySource;
+import asap.primitive.bits.bitStore.BitStoreSource.BitStorePieceObserver;
 import asap.primitive.bits.bitStore.BitStoreSource.BitStoreRecordSource;
 import asap.primitive.bits.bitStore.BitStoreSource.BitStoreSessionException;
 import asap.primitive.bits.bitStore.BitStoreSource.BitStoreSetupException;
@@ -454,6 +458,21 @@ public class BitStoreData {
             return this.viewFieldMap;
         }
 
+        public BitStoreFieldAccessor getAccessor( )
+            throws BitStoreMapException {
+            return this.viewFieldMap.getAccessor( );
+        }
+
+        /**
+         *
+         * Peas do campo na fonte de dados, isto , as peas da viso principal, cujas posies so
+         * as informadas aos "{@link BitStorePieceObserver}" do registro.
+         *
+         */
+        public BitStoreViewPieceMap[ ] getSourcePieces( ) {
+            return this.viewFieldMap.getFieldMap( ).getMainViewPieces( );
+        }
+
         @Override
         public byte[ ] getBytes( )
             throws BitStoreMapException,
@@ -528,6 +547,8 @@ public class BitStoreData {
                                                                this.isLittleEndianBits,
                                                                tmpMainBytes,
                                                                tmpMainOffset );
+                this.parentRecord.getRecordSource( ).notifyChanged( tmpPieceMap.offset,
+                                                                    tmpPieceMap.length );
                 tmpMainOffset += tmpPieceMap.length;
             }
         }
@@ -1434,23 +1455,49 @@ public class BitStoreData {
         }
     }
 
+    /**
+     *
+     * Verificao de integridade ligada a um registro ("{@link BitStoreRecordData#getValidator( )}"),
+     * como a dos CRCs ("<i>asap.primitive.bytes.BitRecordCrcEvaluator</i>").
+     *
+     */
+    public static interface BitStoreRecordValidator {
+
+        public boolean validate( )
+            throws BitStoreException;
+
+        public void update( )
+            throws BitStoreException;
+
+        /**
+         *
+         * Descarta o que foi calculado, para que a prxima verificao releia todo o registro.
+         *
+         */
+        public void reset( );
+    }
+
     public static class BitStoreRecordData {
 
-        protected final BitStoreViewRecordMap viewRecordMap;
+        protected final BitStoreViewRecordMap           viewRecordMap;
+
+        protected final BitStoreRecordSource            recordSource;
+
+        protected final BitStoreViewData                parentView;
 
-        protected final BitStoreRecordSource  recordSource;
+        protected final BitStoreItemData[ ]             items;
 
-        protected final BitStoreViewData      parentView;
+        protected final BitStoreFieldData[ ]            fields;
 
-        protected final BitStoreItemData[ ]   items;
+        protected final Map< String, BitStoreItemData > itemsByName;
 
-        protected final BitStoreFieldData[ ]  fields;
+        protected boolean                               isLittleEndianBytes;
 
-        protected boolean                     isLittleEndianBytes;
+        protected boolean                               isLittleEndianBits;
 
-        protected boolean                     isLittleEndianBits;
+        protected BitStoreRecordValidator               validator;
 
-        public boolean                        hiden;
+        public boolean                                  hiden;
 
         protected BitStoreRecordData( BitStoreViewRecordMap viewRecordMap,
                                       BitStoreRecordSource bitStoreRecordSource,
@@ -1476,6 +1523,13 @@ public class BitStoreData {
                     ++tmpFieldIndex;
                 }
             }
+            Map< String, BitStoreItemData > tmpItemsByName = new HashMap< String, BitStoreItemData >( );
+            for ( BitStoreItemData tmpItem : this.items ) {
+                tmpItemsByName.putIfAbsent( tmpItem.getName( ),
+                                            tmpItem );
+            }
+            this.itemsByName = Collections.unmodifiableMap( tmpItemsByName );
+            this.validator = null;
             this.hiden = this.viewRecordMap.getName( ).startsWith( "_" );
         }
 
@@ -1561,6 +1615,19 @@ public class BitStoreData {
             return this.recordSource;
         }
 
+        /**
+         *
+         * Verificao mantida com o registro, ou "<i>null</i>".
+         *
+         */
+        public BitStoreRecordValidator getValidator( ) {
+            return this.validator;
+        }
+
+        public void setValidator( BitStoreRecordValidator validator ) {
+            this.validator = validator;
+        }
+
         public BitStoreItemData[ ] getItems( ) {
             return this.getItems( false );
         }
@@ -1580,12 +1647,7 @@ public class BitStoreData {
         }
 
         public BitStoreItemData searchItem( String itemName ) {
-            for ( BitStoreItemData tmpItem : this.items ) {
-                if ( tmpItem.getName( ).compareTo( itemName ) == 0 ) {
-                    return tmpItem;
-                }
-            }
-            return null;
+            return this.itemsByName.get( itemName );
         }
 
         public BitStoreItemData getItem( String fieldName )
@@ -1632,12 +1694,7 @@ public class BitStoreData {
         }
 
         public BitStoreFieldData searchField( String fieldName ) {
-            for ( BitStoreItemData tmpField : this.items ) {
-                if ( tmpField.getName( ).compareTo( fieldName ) == 0 ) {
-                    return (BitStoreFieldData) tmpField;
-                }
-            }
-            return null;
+            return (BitStoreFieldData) this.itemsByName.get( fieldName );
         }
 
         public BitStoreFieldData getField( String fieldName )
@@ -1725,13 +1782,17 @@ public class BitStoreData {
 
     public class BitStoreViewData {
 
-        protected final BitStoreViewMap       viewMap;
+        protected final BitStoreViewMap                   viewMap;
+
+        protected final BitStoreRecordData[ ]             records;
 
-        protected final BitStoreRecordData[ ] records;
+        protected final BitStoreData                      parentStore;
 
-        protected final BitStoreData          parentStore;
+        protected final Map< String, BitStoreRecordData > recordsByName;
 
-        public boolean                        hiden;
+        protected final Map< String, BitStoreItemData >   itemsByPath;
+
+        public boolean                                    hiden;
 
         protected BitStoreViewData( BitStoreViewMap viewMap,
                                     BitStoreData parentStore )
@@ -1746,6 +1807,20 @@ public class BitStoreData {
                                                                      tmpStoreSource.getRecord( tmpViewRecord.getName( ) ),
                                                                      this );
             }
+            Map< String, BitStoreRecordData > tmpRecordsByName = new HashMap< String, BitStoreRecordData >( );
+            Map< String, BitStoreItemData > tmpItemsByPath = new HashMap< String, BitStoreItemData >( );
+            for ( BitStoreRecordData tmpRecord : this.records ) {
+                tmpRecordsByName.putIfAbsent( tmpRecord.getName( ),
+                                              tmpRecord );
+                for ( BitStoreItemData tmpItem : tmpRecord.items ) {
+                    tmpItemsByPath.putIfAbsent( String.format( "%s.%s",
+                                                               tmpRecord.getName( ),
+                                                               tmpItem.getName( ) ),
+                                                tmpItem );
+                }
+            }
+            this.recordsByName = Collections.unmodifiableMap( tmpRecordsByName );
+            this.itemsByPath = Collections.unmodifiableMap( tmpItemsByPath );
             this.hiden = this.viewMap.getName( ).startsWith( "_" );
         }
 
@@ -1778,12 +1853,7 @@ public class BitStoreData {
         }
 
         public BitStoreRecordData searchRecord( String recordName ) {
-            for ( BitStoreRecordData tmpRecordData : this.records ) {
-                if ( tmpRecordData.getName( ).compareTo( recordName ) == 0 ) {
-                    return tmpRecordData;
-                }
-            }
-            return null;
+            return this.recordsByName.get( recordName );
         }
 
         public BitStoreRecordData getRecord( int recordIndex )
@@ -1840,6 +1910,10 @@ public class BitStoreData {
 
         public BitStoreItemData searchItem( String itemPath )
             throws BitStoreMapException {
+            BitStoreItemData tmpResult = this.itemsByPath.get( itemPath );
+            if ( tmpResult != null ) {
+                return tmpResult;
+            }
             String[ ] tmpItemPath = itemPath.split( "\\." );
             if ( tmpItemPath.length != 2 ) {
                 throw new BitStoreMapException( "Caminho '%s' invlido para tem da viso '%s'",
@@ -1855,6 +1929,10 @@ public class BitStoreData {
 
         public BitStoreItemData getItem( String itemPath )
             throws BitStoreMapException {
+            BitStoreItemData tmpResult = this.itemsByPath.get( itemPath );
+            if ( ( tmpResult != null ) && ( tmpResult.getItemType( ) == BitStoreViewItemMap.ItemType.Field ) ) {
+                return tmpResult;
+            }
             String[ ] tmpItemPath = itemPath.split( "\\." );
             if ( tmpItemPath.length != 2 ) {
                 throw new BitStoreMapException( "Caminho '%s' invlido para tem da view '%s'",
@@ -1870,15 +1948,25 @@ public class BitStoreData {
         }
     }
 
-    protected final BitStoreMap         storeMap;
+    protected final BitStoreMap                     storeMap;
+
+    protected final BitStoreSource                  storeSource;
+
+    protected final BitStoreViewData                mainView;
+
+    protected final BitStoreViewData[ ]             alternativeViews;
+
+    protected final BitStoreViewData[ ]             views;
 
-    protected final BitStoreSource      storeSource;
+    protected final Map< String, BitStoreViewData > viewsByName;
 
-    protected final BitStoreViewData    mainView;
+    protected final Map< String, Integer >          recordHandles;
 
-    protected final BitStoreViewData[ ] alternativeViews;
+    protected final BitStoreRecordData[ ]           handleRecords;
 
-    protected final BitStoreViewData[ ] views;
+    protected final Map< String, Integer >          itemHandles;
+
+    protected final BitStoreItemData[ ]             handleItems;
 
     public BitStoreData( BitStoreMap storeMap,
                          BitStoreSource storeSource )
@@ -1899,6 +1987,38 @@ public class BitStoreData {
                           this.views,
                           1,
                           this.alternativeViews.length );
+        Map< String, BitStoreViewData > tmpViewsByName = new HashMap< String, BitStoreViewData >( );
+        Map< String, Integer > tmpRecordHandles = new HashMap< String, Integer >( );
+        List< BitStoreRecordData > tmpHandleRecords = new ArrayList< BitStoreRecordData >( );
+        Map< String, Integer > tmpItemHandles = new HashMap< String, Integer >( );
+        List< BitStoreItemData > tmpHandleItems = new ArrayList< BitStoreItemData >( );
+        for ( BitStoreViewData tmpView : this.views ) {
+            tmpViewsByName.putIfAbsent( tmpView.getName( ),
+                                        tmpView );
+            for ( BitStoreRecordData tmpRecord : tmpView.records ) {
+                String tmpRecordPath = tmpRecord.getPath( );
+                if ( !tmpRecordHandles.containsKey( tmpRecordPath ) ) {
+                    tmpRecordHandles.put( tmpRecordPath,
+                                          tmpHandleRecords.size( ) );
+                    tmpHandleRecords.add( tmpRecord );
+                }
+                for ( BitStoreItemData tmpItem : tmpRecord.items ) {
+                    String tmpItemPath = String.format( "%s.%s",
+                                                        tmpRecordPath,
+                                                        tmpItem.getName( ) );
+                    if ( !tmpItemHandles.containsKey( tmpItemPath ) ) {
+                        tmpItemHandles.put( tmpItemPath,
+                                            tmpHandleItems.size( ) );
+                        tmpHandleItems.add( tmpItem );
+                    }
+                }
+            }
+        }
+        this.viewsByName = Collections.unmodifiableMap( tmpViewsByName );
+        this.recordHandles = Collections.unmodifiableMap( tmpRecordHandles );
+        this.handleRecords = tmpHandleRecords.toArray( new BitStoreRecordData[ 0 ] );
+        this.itemHandles = Collections.unmodifiableMap( tmpItemHandles );
+        this.handleItems = tmpHandleItems.toArray( new BitStoreItemData[ 0 ] );
     }
 
     public BitStoreData( BitStoreMap bitStoreMap )
@@ -1971,12 +2091,7 @@ public class BitStoreData {
     }
 
     public BitStoreViewData searchView( String viewName ) {
-        for ( BitStoreViewData tmpView : this.views ) {
-            if ( tmpView.getName( ).compareTo( viewName ) == 0 ) {
-                return tmpView;
-            }
-        }
-        return null;
+        return this.viewsByName.get( viewName );
     }
 
     public BitStoreViewData getView( String viewName )
@@ -1992,6 +2107,10 @@ public class BitStoreData {
 
     public BitStoreItemData getItem( String itemPath )
         throws BitStoreMapException {
+        Integer tmpHandle = this.itemHandles.get( itemPath );
+        if ( ( tmpHandle != null ) && ( this.handleItems[ tmpHandle ].getItemType( ) == BitStoreViewItemMap.ItemType.Field ) ) {
+            return this.handleItems[ tmpHandle ];
+        }
         String[ ] tmpItemPath = itemPath.split( "\\." );
         if ( tmpItemPath.length != 3 ) {
             throw new BitStoreMapException( "Caminho '%s' invlido para tem do store '%s'",
@@ -2003,6 +2122,10 @@ public class BitStoreData {
 
     public BitStoreRecordData getRecord( String recordPath )
         throws BitStoreMapException {
+        Integer tmpHandle = this.recordHandles.get( recordPath );
+        if ( tmpHandle != null ) {
+            return this.handleRecords[ tmpHandle ];
+        }
         String[ ] tmpItemPath = recordPath.split( "\\." );
         if ( tmpItemPath.length != 2 ) {
             throw new BitStoreMapException( "Caminho '%s' invlido para registro do store '%s'",
@@ -2012,6 +2135,61 @@ public class BitStoreData {
         return this.getView( tmpItemPath[ 0 ] ).getRecord( tmpItemPath[ 1 ] );
     }
 
+    /**
+     *
+     * Resolve o caminho "viso.registro.tem" para um <i>handle</i> inteiro, estvel durante toda a vida
+     * deste store, a ser usado com "{@link #getItem(int)}" em laos que no devem pagar pela busca por
+     * nome.
+     *
+     */
+    public int getItemHandle( String itemPath )
+        throws BitStoreMapException {
+        Integer tmpHandle = this.itemHandles.get( itemPath );
+        if ( tmpHandle == null ) {
+            throw new BitStoreMapException( "Nenhum tem com o caminho '%s' no store '%s'",
+                                            itemPath,
+                                            this.getMap( ).getName( ) );
+        }
+        return tmpHandle;
+    }
+
+    public BitStoreItemData getItem( int itemHandle )
+        throws BitStoreMapException {
+        if ( ( itemHandle < 0 ) || ( itemHandle >= this.handleItems.length ) ) {
+            throw new BitStoreMapException( "Handle de tem '%d'  invlido no store '%s'",
+                                            itemHandle,
+                                            this.getMap( ).getName( ) );
+        }
+        return this.handleItems[ itemHandle ];
+    }
+
+    /**
+     *
+     * Resolve o caminho "viso.registro" para um <i>handle</i> inteiro, a ser usado com
+     * "{@link #getRecord(int)}".
+     *
+     */
+    public int getRecordHandle( String recordPath )
+        throws BitStoreMapException {
+        Integer tmpHandle = this.recordHandles.get( recordPath );
+        if ( tmpHandle == null ) {
+            throw new BitStoreMapException( "Nenhum registro com o caminho '%s' no store '%s'",
+                                            recordPath,
+                                            this.getMap( ).getName( ) );
+        }
+        return tmpHandle;
+    }
+
+    public BitStoreRecordData getRecord( int recordHandle )
+        throws BitStoreMapException {
+        if ( ( recordHandle < 0 ) || ( recordHandle >= this.handleRecords.length ) ) {
+            throw new BitStoreMapException( "Handle de registro '%d'  invlido no store '%s'",
+                                            recordHandle,
+                                            this.getMap( ).getName( ) );
+        }
+        return this.handleRecords[ recordHandle ];
+    }
+
     @Override
     public String toString( ) {
         return BitStoreHelper.dumpStoreData( this );
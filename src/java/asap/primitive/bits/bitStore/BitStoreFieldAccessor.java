@@ -0,0 +1,437 @@
+package asap.primitive.bits.bitStore;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+import asap.primitive.bits.BitHelper;
+import asap.primitive.bits.bitStore.BitStoreData.BitStoreDataException;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreItemMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreViewFieldMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreViewPieceMap;
+import asap.primitive.bytes.ByteHelper;
+
+/**
+ *
+ * Acessor compilado de um campo de uma viso, que l e escreve o valor inteiro do campo
+ * diretamente na imagem do registro na viso principal (a mesma imagem de
+ * "<i>BitStoreRecordData.getBytes( )</i>" e "<i>setBytes( byte[] )</i>" do registro da viso
+ * principal), sem alocaes.<br>
+ * <br>
+ * O acessor  compilado uma nica vez, no "<i>engage</i>" do mapa: cada bit do valor 
+ * rastreado pelo mesmo caminho de cpia usado por "{@link BitStoreData.BitStoreRecordData}" e
+ * "{@link BitStoreData.BitStoreFieldData}" (peas da viso principal, ordenao dos bits na fonte
+ * de dados, ajuste de tamanho da viso e ordenao dos bytes), e o resultado 
+ * agrupado em trechos de bits contguos de um mesmo byte, com deslocamentos e mscaras j
+ * calculados. Por isso "{@link #getLong( byte[] )}" retorna exatamente o mesmo valor que
+ * "<i>getAs( Long.class )</i>" de um campo inteiro, e "{@link #setLong( byte[], long )}" grava os
+ * mesmos bits que "<i>setWith( Long )</i>".<br>
+ * <br>
+ * O valor  o inteiro armazenado, sem as converses especficas do tipo do campo (inverso de
+ * enumerados, por exemplo). S h acessor para campos de at 64 bits.
+ *
+ */
+public final class BitStoreFieldAccessor {
+
+    protected final BitStoreViewFieldMap viewFieldMap;
+
+    protected final int                  bitLength;
+
+    protected final int[ ]               getByteIndexes;
+
+    protected final int[ ]               getBitShifts;
+
+    protected final int[ ]               getBitMasks;
+
+    protected final int[ ]               getValueShifts;
+
+    protected final int[ ]               clearByteIndexes;
+
+    protected final int[ ]               clearBitMasks;
+
+    protected final int[ ]               setByteIndexes;
+
+    protected final int[ ]               setBitShifts;
+
+    protected final int[ ]               setBitMasks;
+
+    protected final int[ ]               setValueShifts;
+
+    protected BitStoreFieldAccessor( BitStoreViewFieldMap viewFieldMap,
+                                     List< int[ ] > getChunks,
+                                     List< int[ ] > clearChunks,
+                                     List< int[ ] > setChunks ) {
+        this.viewFieldMap = viewFieldMap;
+        this.bitLength = viewFieldMap.getBitLength( );
+        this.getByteIndexes = column( getChunks,
+                                      0 );
+        this.getBitShifts = column( getChunks,
+                                    1 );
+        this.getBitMasks = column( getChunks,
+                                   2 );
+        this.getValueShifts = column( getChunks,
+                                      3 );
+        this.clearByteIndexes = column( clearChunks,
+                                        0 );
+        this.clearBitMasks = column( clearChunks,
+                                     1 );
+        this.setByteIndexes = column( setChunks,
+                                      0 );
+        this.setBitShifts = column( setChunks,
+                                    1 );
+        this.setBitMasks = column( setChunks,
+                                   2 );
+        this.setValueShifts = column( setChunks,
+                                      3 );
+    }
+
+    public BitStoreViewFieldMap getViewFieldMap( ) {
+        return this.viewFieldMap;
+    }
+
+    public int getBitLength( ) {
+        return this.bitLength;
+    }
+
+    /**
+     * L o valor do campo na imagem de um registro da viso principal.
+     */
+    public long getLong( byte[ ] record ) {
+        long tmpResult = 0L;
+        for ( int tmpIndex = 0; tmpIndex < this.getByteIndexes.length; tmpIndex++ ) {
+            tmpResult |= ( (long) ( ( record[ this.getByteIndexes[ tmpIndex ] ] >>> this.getBitShifts[ tmpIndex ] )
+                                    & this.getBitMasks[ tmpIndex ] ) ) << this.getValueShifts[ tmpIndex ];
+        }
+        return tmpResult;
+    }
+
+    /**
+     * L o valor do campo na imagem de um registro da viso principal que comea no byte
+     * "<i>recordOffset</i>" do array, como em uma imagem com vrios registros seguidos.
+     */
+    public long getLong( byte[ ] image,
+                         int recordOffset ) {
+        long tmpResult = 0L;
+        for ( int tmpIndex = 0; tmpIndex < this.getByteIndexes.length; tmpIndex++ ) {
+            tmpResult |= ( (long) ( ( image[ recordOffset + this.getByteIndexes[ tmpIndex ] ] >>> this.getBitShifts[ tmpIndex ] )
+                                    & this.getBitMasks[ tmpIndex ] ) ) << this.getValueShifts[ tmpIndex ];
+        }
+        return tmpResult;
+    }
+
+    /**
+     * L o valor do campo na imagem de um registro da viso principal que comea na posio
+     * absoluta "<i>recordOffset</i>" do buffer, sem alterar a posio do buffer.
+     */
+    public long getLong( ByteBuffer image,
+                         int recordOffset ) {
+        long tmpResult = 0L;
+        for ( int tmpIndex = 0; tmpIndex < this.getByteIndexes.length; tmpIndex++ ) {
+            tmpResult |= ( (long) ( ( image.get( recordOffset + this.getByteIndexes[ tmpIndex ] ) >>> this.getBitShifts[ tmpIndex ] )
+                                    & this.getBitMasks[ tmpIndex ] ) ) << this.getValueShifts[ tmpIndex ];
+        }
+        return tmpResult;
+    }
+
+    /**
+     * Grava o valor do campo na imagem de um registro da viso principal, com a mesma validao
+     * de tamanho feita por "<i>setWith( Long )</i>".
+     */
+    public void setLong( byte[ ] record,
+                         long value )
+        throws BitStoreDataException {
+        if ( ( value > 0 ) && ( ( Long.SIZE - Long.numberOfLeadingZeros( value ) ) > this.bitLength ) ) {
+            throw new BitStoreDataException( "Valor '%d' do tipo '%s' ( %d bits ) excede o tamanho do campo '%s' do tipo '%s' ( %d bits ) da viso '%s'",
+                                             value,
+                                             Long.class.getSimpleName( ),
+                                             ( Long.SIZE - Long.numberOfLeadingZeros( value ) ),
+                                             this.viewFieldMap.getName( ),
+                                             this.viewFieldMap.getType( ).name( ),
+                                             this.bitLength,
+                                             this.viewFieldMap.getParentViewRecord( ).getParentView( ).getName( ) );
+        }
+        for ( int tmpIndex = 0; tmpIndex < this.clearByteIndexes.length; tmpIndex++ ) {
+            record[ this.clearByteIndexes[ tmpIndex ] ] &= ~this.clearBitMasks[ tmpIndex ];
+        }
+        for ( int tmpIndex = 0; tmpIndex < this.setByteIndexes.length; tmpIndex++ ) {
+            record[ this.setByteIndexes[ tmpIndex ] ] |= ( ( ( (int) ( value >>> this.setValueShifts[ tmpIndex ] ) )
+                                                             & this.setBitMasks[ tmpIndex ] ) << this.setBitShifts[ tmpIndex ] );
+        }
+    }
+
+    /**
+     * Compila o acessor de um campo de viso j engajado. Retorna "<i>null</i>" para campos que no
+     * cabem em um "<i>long</i>".
+     */
+    static BitStoreFieldAccessor compile( BitStoreViewFieldMap viewFieldMap ) {
+        int tmpMainBitLength = viewFieldMap.fieldMap.bitLength;
+        int tmpBitLength = viewFieldMap.getBitLength( );
+        if ( ( tmpMainBitLength < 1 ) || ( tmpMainBitLength > Long.SIZE )
+             || ( tmpBitLength < 1 )
+             || ( tmpBitLength > Long.SIZE ) ) {
+            return null;
+        }
+        boolean tmpIsLittleEndianBytes = viewFieldMap.getParentViewRecord( ).isLittleEndianBytes( );
+        int tmpRecordBitLength = 0;
+        TreeMap< Integer, Integer > tmpClearMasks = new TreeMap< Integer, Integer >( );
+        for ( BitStoreViewPieceMap tmpPiece : viewFieldMap.fieldMap.mainViewPieces ) {
+            tmpRecordBitLength = Math.max( tmpRecordBitLength,
+                                           ( tmpPiece.offset + tmpPiece.length ) );
+            for ( int tmpBitIndex = tmpPiece.offset; tmpBitIndex < ( tmpPiece.offset + tmpPiece.length ); tmpBitIndex++ ) {
+                int tmpByteIndex = ( tmpBitIndex / Byte.SIZE );
+                Integer tmpClearMask = tmpClearMasks.get( tmpByteIndex );
+                tmpClearMasks.put( tmpByteIndex,
+                                   ( ( ( tmpClearMask == null ) ? 0
+                                                                : tmpClearMask )
+                                     | ( 1 << bitInByte( tmpIsLittleEndianBytes,
+                                                         tmpBitIndex ) ) ) );
+            }
+        }
+        byte[ ] tmpRecord = BitHelper.createBitArrayBuffer( tmpRecordBitLength );
+        //
+        int[ ] tmpGetValueBits = new int[ tmpRecord.length * Byte.SIZE ];
+        Arrays.fill( tmpGetValueBits,
+                     ( -1 ) );
+        int[ ] tmpSetValueBits = new int[ tmpRecord.length * Byte.SIZE ];
+        Arrays.fill( tmpSetValueBits,
+                     ( -1 ) );
+        try {
+            for ( int tmpByteIndex : tmpClearMasks.keySet( ) ) {
+                for ( int tmpBit = 0; tmpBit < Byte.SIZE; tmpBit++ ) {
+                    if ( ( tmpClearMasks.get( tmpByteIndex ) & ( 1 << tmpBit ) ) != 0 ) {
+                        tmpRecord[ tmpByteIndex ] = (byte) ( 1 << tmpBit );
+                        long tmpValue = referenceGet( viewFieldMap,
+                                                      tmpRecord );
+                        tmpRecord[ tmpByteIndex ] = 0;
+                        if ( Long.bitCount( tmpValue ) > 1 ) {
+                            return null;
+                        }
+                        if ( tmpValue != 0 ) {
+                            tmpGetValueBits[ ( tmpByteIndex * Byte.SIZE ) + tmpBit ] = Long.numberOfTrailingZeros( tmpValue );
+                        }
+                    }
+                }
+            }
+            //
+            for ( int tmpValueBit = 0; tmpValueBit < Long.SIZE; tmpValueBit++ ) {
+                referenceSet( viewFieldMap,
+                              tmpRecord,
+                              ( 1L << tmpValueBit ) );
+                int tmpSetCount = 0;
+                for ( int tmpByteIndex = 0; tmpByteIndex < tmpRecord.length; tmpByteIndex++ ) {
+                    for ( int tmpBit = 0; tmpBit < Byte.SIZE; tmpBit++ ) {
+                        if ( ( tmpRecord[ tmpByteIndex ] & ( 1 << tmpBit ) ) != 0 ) {
+                            tmpSetValueBits[ ( tmpByteIndex * Byte.SIZE ) + tmpBit ] = tmpValueBit;
+                            ++tmpSetCount;
+                        }
+                    }
+                    tmpRecord[ tmpByteIndex ] = 0;
+                }
+                if ( tmpSetCount > 1 ) {
+                    return null;
+                }
+            }
+        }
+        catch ( IndexOutOfBoundsException e ) {
+            // Layout que o caminho genrico tambm no consegue copiar ( viso maior que o campo )
+            return null;
+        }
+        //
+        List< int[ ] > tmpClearChunks = new ArrayList< int[ ] >( );
+        for ( int tmpByteIndex : tmpClearMasks.keySet( ) ) {
+            tmpClearChunks.add( new int[ ] { tmpByteIndex,
+                                             tmpClearMasks.get( tmpByteIndex ) } );
+        }
+        return new BitStoreFieldAccessor( viewFieldMap,
+                                          chunk( tmpGetValueBits ),
+                                          tmpClearChunks,
+                                          chunk( tmpSetValueBits ) );
+    }
+
+    /**
+     * Posio, contada a partir do bit menos significativo, de um bit de um array de bits dentro
+     * do seu byte.
+     */
+    protected static int bitInByte( boolean isLittleEndian,
+                                    int bitIndex ) {
+        return isLittleEndian ? ( bitIndex % Byte.SIZE )
+                              : ( Byte.SIZE - 1 - ( bitIndex % Byte.SIZE ) );
+    }
+
+    /**
+     * Agrupa os bits do registro, indexados por ( byte * 8 ) + bit no byte e associados a um bit do
+     * valor, em trechos ( byte, deslocamento, mscara, deslocamento no valor ) de bits contguos no
+     * byte e no valor.
+     */
+    protected static List< int[ ] > chunk( int[ ] valueBits ) {
+        List< int[ ] > tmpResult = new ArrayList< int[ ] >( );
+        int[ ] tmpChunk = null;
+        int tmpChunkLength = 0;
+        for ( int tmpRecordBit = 0; tmpRecordBit < valueBits.length; tmpRecordBit++ ) {
+            int tmpValueBit = valueBits[ tmpRecordBit ];
+            if ( tmpValueBit < 0 ) {
+                tmpChunk = null;
+                continue;
+            }
+            int tmpByteIndex = ( tmpRecordBit / Byte.SIZE );
+            int tmpBit = ( tmpRecordBit % Byte.SIZE );
+            if ( ( tmpChunk != null ) && ( tmpChunk[ 0 ] == tmpByteIndex )
+                 && ( ( tmpChunk[ 3 ] + tmpChunkLength ) == tmpValueBit ) ) {
+                ++tmpChunkLength;
+                tmpChunk[ 2 ] = ( ( 1 << tmpChunkLength ) - 1 );
+            }
+            else {
+                tmpChunk = new int[ ] { tmpByteIndex,
+                                        tmpBit,
+                                        1,
+                                        tmpValueBit };
+                tmpChunkLength = 1;
+                tmpResult.add( tmpChunk );
+            }
+        }
+        return tmpResult;
+    }
+
+    protected static int[ ] column( List< int[ ] > rows,
+                                    int columnIndex ) {
+        int[ ] tmpResult = new int[ rows.size( ) ];
+        for ( int tmpIndex = 0; tmpIndex < tmpResult.length; tmpIndex++ ) {
+            tmpResult[ tmpIndex ] = rows.get( tmpIndex )[ columnIndex ];
+        }
+        return tmpResult;
+    }
+
+    /**
+     * Copia as peas da viso principal de um campo entre duas imagens de registro, passando por
+     * um buffer do tamanho do campo, como fazem "<i>BitStoreRecordData.setBytes( byte[] )</i>" e
+     * "<i>BitStoreRecordData.getBytes( )</i>" entre a imagem do registro (ordenada pelos bytes) e a
+     * fonte de dados (ordenada pelos bits).
+     */
+    protected static void transferPieces( BitStoreItemMap fieldMap,
+                                          boolean isLittleEndianSource,
+                                          byte[ ] sourceRecord,
+                                          boolean isLittleEndianTarget,
+                                          byte[ ] targetRecord ) {
+        byte[ ] tmpFieldBuffer = BitHelper.createBitArrayBuffer( fieldMap.bitLength );
+        int tmpFieldOffset = isLittleEndianSource ? 0
+                                                  : BitHelper.getBitArrayPadLength( fieldMap.bitLength );
+        for ( BitStoreViewPieceMap tmpPieceMap : fieldMap.mainViewPieces ) {
+            BitHelper.bitArrayCopy( isLittleEndianSource,
+                                    sourceRecord,
+                                    tmpPieceMap.offset,
+                                    tmpFieldBuffer,
+                                    tmpFieldOffset,
+                                    tmpPieceMap.length );
+            tmpFieldOffset += tmpPieceMap.length;
+        }
+        tmpFieldOffset = isLittleEndianTarget ? 0
+                                              : BitHelper.getBitArrayPadLength( fieldMap.bitLength );
+        for ( BitStoreViewPieceMap tmpPieceMap : fieldMap.mainViewPieces ) {
+            BitHelper.bitArrayCopy( isLittleEndianTarget,
+                                    tmpFieldBuffer,
+                                    tmpFieldOffset,
+                                    targetRecord,
+                                    tmpPieceMap.offset,
+                                    tmpPieceMap.length );
+            tmpFieldOffset += tmpPieceMap.length;
+        }
+    }
+
+    /**
+     * Leitura pelo mesmo caminho de "<i>BitStoreRecordData.setBytes( byte[] )</i>" na viso
+     * principal, seguido de "<i>BitStoreFieldData.getBytes( )</i>" e de
+     * "<i>getInteger( Long.class )</i>" na viso do campo.
+     */
+    protected static long referenceGet( BitStoreViewFieldMap viewFieldMap,
+                                        byte[ ] record ) {
+        boolean tmpIsLittleEndianBits = viewFieldMap.getParentViewRecord( ).isLittleEndianBits( );
+        boolean tmpIsLittleEndianBytes = viewFieldMap.getParentViewRecord( ).isLittleEndianBytes( );
+        byte[ ] tmpSourceRecord = new byte[ record.length ];
+        transferPieces( viewFieldMap.fieldMap,
+                        tmpIsLittleEndianBytes,
+                        record,
+                        tmpIsLittleEndianBits,
+                        tmpSourceRecord );
+        int tmpFieldBitLength = viewFieldMap.fieldMap.bitLength;
+        byte[ ] tmpMainViewBuffer = BitHelper.createBitArrayBuffer( tmpFieldBitLength );
+        int tmpMainViewOffset = tmpIsLittleEndianBits ? 0
+                                                      : BitHelper.getBitArrayPadLength( tmpFieldBitLength );
+        for ( BitStoreViewPieceMap tmpPieceMap : viewFieldMap.fieldMap.mainViewPieces ) {
+            BitHelper.bitArrayCopy( tmpIsLittleEndianBits,
+                                    tmpSourceRecord,
+                                    tmpPieceMap.offset,
+                                    tmpMainViewBuffer,
+                                    tmpMainViewOffset,
+                                    tmpPieceMap.length );
+            tmpMainViewOffset += tmpPieceMap.length;
+        }
+        byte[ ] tmpResultBuffer = new byte[ viewFieldMap.getByteLength( ) ];
+        int tmpBitLength = viewFieldMap.getBitLength( );
+        tmpMainViewOffset = tmpIsLittleEndianBits ? 0
+                                                  : ( ( tmpMainViewBuffer.length * Byte.SIZE ) - tmpBitLength );
+        int tmpResultOffset = tmpIsLittleEndianBits ? 0
+                                                    : BitHelper.getBitArrayPadLength( tmpBitLength );
+        BitHelper.bitArrayCopy( tmpIsLittleEndianBits,
+                                tmpMainViewBuffer,
+                                tmpMainViewOffset,
+                                tmpResultBuffer,
+                                tmpResultOffset,
+                                tmpBitLength );
+        return tmpIsLittleEndianBytes ? ByteHelper.fromLittleEndian( tmpResultBuffer )
+                                      : ByteHelper.fromBigEndian( tmpResultBuffer );
+    }
+
+    /**
+     * Escrita pelo mesmo caminho de "<i>setInteger( Long )</i>" e
+     * "<i>BitStoreFieldData.setBytes( byte[] )</i>" na viso do campo, sem a validao de tamanho,
+     * seguido de "<i>BitStoreRecordData.getBytes( )</i>" na viso principal.
+     */
+    protected static void referenceSet( BitStoreViewFieldMap viewFieldMap,
+                                        byte[ ] record,
+                                        long value ) {
+        boolean tmpIsLittleEndianBits = viewFieldMap.getParentViewRecord( ).isLittleEndianBits( );
+        boolean tmpIsLittleEndianBytes = viewFieldMap.getParentViewRecord( ).isLittleEndianBytes( );
+        int tmpByteLength = viewFieldMap.getByteLength( );
+        byte[ ] tmpBytes = tmpIsLittleEndianBytes ? ByteHelper.toLittleEndian( value,
+                                                                                tmpByteLength )
+                                                  : ByteHelper.toBigEndian( value,
+                                                                            tmpByteLength );
+        byte[ ] tmpMainBytes;
+        int tmpMainBitLength = viewFieldMap.fieldMap.bitLength;
+        int tmpBitLength = viewFieldMap.getBitLength( );
+        if ( tmpMainBitLength == tmpBitLength ) {
+            tmpMainBytes = tmpBytes;
+        }
+        else {
+            if ( tmpIsLittleEndianBits ) {
+                tmpMainBytes = BitHelper.copyOfLeftAlignedBitArray( tmpBytes,
+                                                                    tmpBitLength,
+                                                                    tmpMainBitLength );
+            }
+            else {
+                tmpMainBytes = BitHelper.copyOfRightAlignedBitArray( tmpBytes,
+                                                                     tmpBitLength,
+                                                                     tmpMainBitLength );
+            }
+        }
+        byte[ ] tmpSourceRecord = new byte[ record.length ];
+        int tmpMainOffset = tmpIsLittleEndianBits ? 0
+                                                  : BitHelper.getBitArrayPadLength( tmpMainBitLength );
+        for ( BitStoreViewPieceMap tmpPieceMap : viewFieldMap.fieldMap.mainViewPieces ) {
+            BitHelper.bitArrayCopy( tmpIsLittleEndianBits,
+                                    tmpMainBytes,
+                                    tmpMainOffset,
+                                    tmpSourceRecord,
+                                    tmpPieceMap.offset,
+                                    tmpPieceMap.length );
+            tmpMainOffset += tmpPieceMap.length;
+        }
+        transferPieces( viewFieldMap.fieldMap,
+                        tmpIsLittleEndianBits,
+                        tmpSourceRecord,
+                        tmpIsLittleEndianBytes,
+                        record );
+    }
+}
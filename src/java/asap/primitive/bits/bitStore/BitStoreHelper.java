@@ -452,7 +452,8 @@ public class BitStoreHelper {
     public static BitStoreMap fromXmlMapFile( String xmlMapFilePath )
         throws BitStoreMapException {
         try {
-            return BitStoreMap.fromXml( FileHelper.loadTextFile( xmlMapFilePath ) );
+            return BitStoreMapBinary.fromXml( FileHelper.loadTextFile( xmlMapFilePath ),
+                                              System.getProperty( BitStoreMapBinary.CACHE_DIR_PROPERTY ) );
         }
         catch ( IOException e ) {
             throw new BitStoreMapException( e.getLocalizedMessage( ) );
@@ -462,7 +463,8 @@ public class BitStoreHelper {
     public static BitStoreMap fromXmlMapResource( String xmlMapResourcePath )
         throws BitStoreMapException {
         try {
-            return BitStoreMap.fromXml( FileHelper.loadTextResource( xmlMapResourcePath ) );
+            return BitStoreMapBinary.fromXml( FileHelper.loadTextResource( xmlMapResourcePath ),
+                                              System.getProperty( BitStoreMapBinary.CACHE_DIR_PROPERTY ) );
         }
         catch ( IOException e ) {
             throw new BitStoreMapException( e.getLocalizedMessage( ) );
@@ -473,8 +475,41 @@ public class BitStoreHelper {
                                                   String xmlMapResourcePath )
         throws BitStoreMapException {
         try {
-            return BitStoreMap.fromXml( FileHelper.loadTextResource( clazz,
-                                                                     xmlMapResourcePath ) );
+            return BitStoreMapBinary.fromXml( FileHelper.loadTextResource( clazz,
+                                                                           xmlMapResourcePath ),
+                                              System.getProperty( BitStoreMapBinary.CACHE_DIR_PROPERTY ) );
+        }
+        catch ( IOException e ) {
+            throw new BitStoreMapException( e.getLocalizedMessage( ) );
+        }
+    }
+
+    public static BitStoreMap fromBinaryMapFile( String binaryMapFilePath )
+        throws BitStoreMapException {
+        try {
+            return BitStoreMapBinary.fromBinary( FileHelper.loadBinFile( binaryMapFilePath ) );
+        }
+        catch ( IOException e ) {
+            throw new BitStoreMapException( e.getLocalizedMessage( ) );
+        }
+    }
+
+    public static BitStoreMap fromBinaryMapResource( String binaryMapResourcePath )
+        throws BitStoreMapException {
+        try {
+            return BitStoreMapBinary.fromBinary( FileHelper.loadBinResource( binaryMapResourcePath ) );
+        }
+        catch ( IOException e ) {
+            throw new BitStoreMapException( e.getLocalizedMessage( ) );
+        }
+    }
+
+    public static BitStoreMap fromBinaryMapResource( Class< ? > clazz,
+                                                     String binaryMapResourcePath )
+        throws BitStoreMapException {
+        try {
+            return BitStoreMapBinary.fromBinary( FileHelper.loadBinResource( clazz,
+                                                                             binaryMapResourcePath ) );
         }
         catch ( IOException e ) {
             throw new BitStoreMapException( e.getLocalizedMessage( ) );
@@ -3,6 +3,9 @@ package asap.primitive.bits.bitStore;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -1050,16 +1053,16 @@ public final class BitStoreMap implements ConfigurationStockItem {
     public static class BitStoreRecordMap {
 
         @XmlAttribute( required = true )
-        protected int                   bitLength;
+        protected int                            bitLength;
 
         @XmlAttribute( required = true )
-        protected String                name;
+        protected String                         name;
 
         @XmlAttribute( required = true )
-        protected String                description;
+        protected String                         description;
 
         @XmlAttribute( required = true )
-        protected int                   dataType;
+        protected int                            dataType;
 
         @XmlElements( { @XmlElement( required = true,
                                      name = "rufField",
@@ -1091,13 +1094,16 @@ public final class BitStoreMap implements ConfigurationStockItem {
                         @XmlElement( required = true,
                                      name = "enumerationField",
                                      type = BitStoreEnumerationFieldMap.class ) } )
-        protected BitStoreItemMap[ ]    fields;
+        protected BitStoreItemMap[ ]             fields;
 
         @XmlTransient
-        protected BitStoreMap           parentMap;
+        protected Map< String, BitStoreItemMap > fieldsByName;
 
         @XmlTransient
-        protected BitStoreViewRecordMap mainViewRecord;
+        protected BitStoreMap                    parentMap;
+
+        @XmlTransient
+        protected BitStoreViewRecordMap          mainViewRecord;
 
         public BitStoreRecordMap( int bitLength,
                                   String name,
@@ -1125,6 +1131,12 @@ public final class BitStoreMap implements ConfigurationStockItem {
         protected void engage( BitStoreMap parentStoreMap )
             throws BitStoreMapException {
             this.parentMap = parentStoreMap;
+            Map< String, BitStoreItemMap > tmpFieldsByName = new HashMap< String, BitStoreItemMap >( );
+            for ( BitStoreItemMap tmpFieldMap : this.fields ) {
+                tmpFieldsByName.putIfAbsent( tmpFieldMap.getName( ),
+                                             tmpFieldMap );
+            }
+            this.fieldsByName = Collections.unmodifiableMap( tmpFieldsByName );
             BitStoreViewFieldMap[ ] tmpMainViewItems = new BitStoreViewFieldMap[ this.fields.length ];
             for ( int tmpIndex = 0; tmpIndex < tmpMainViewItems.length; tmpIndex++ ) {
                 this.fields[ tmpIndex ].engage( this );
@@ -1208,12 +1220,7 @@ public final class BitStoreMap implements ConfigurationStockItem {
         }
 
         public BitStoreItemMap searchField( String fieldName ) {
-            for ( BitStoreItemMap tmpFieldMap : fields ) {
-                if ( tmpFieldMap.getName( ).compareTo( fieldName ) == 0 ) {
-                    return tmpFieldMap;
-                }
-            }
-            return null;
+            return this.fieldsByName.get( fieldName );
         }
 
         public BitStoreItemMap getField( String fieldName )
@@ -1492,7 +1499,10 @@ public final class BitStoreMap implements ConfigurationStockItem {
         protected String          name;
 
         @XmlTransient
-        protected BitStoreItemMap fieldMap;
+        protected BitStoreItemMap       fieldMap;
+
+        @XmlTransient
+        protected BitStoreFieldAccessor accessor;
 
         public BitStoreViewFieldMap( int bitLength,
                                      String name,
@@ -1515,6 +1525,7 @@ public final class BitStoreMap implements ConfigurationStockItem {
             super.engage( parentViewRecord,
                           index );
             this.fieldMap = parentViewRecord.getRecordMap( ).getField( this.name );
+            this.accessor = BitStoreFieldAccessor.compile( this );
         }
 
         protected void checkBitLength( int modulo,
@@ -1584,6 +1595,19 @@ public final class BitStoreMap implements ConfigurationStockItem {
         public BitStoreItemMap getFieldMap( ) {
             return this.fieldMap;
         }
+
+        public BitStoreFieldAccessor getAccessor( )
+            throws BitStoreMapException {
+            if ( this.accessor == null ) {
+                throw new BitStoreMapException( "Campo '%s' do tipo '%s' ( %d bits ) do registro '%s' na viso '%s' no pode ser acessado como inteiro",
+                                                this.name,
+                                                this.getType( ).name( ),
+                                                this.bitLength,
+                                                this.parentViewRecord.name,
+                                                this.parentViewRecord.parentView.name );
+            }
+            return this.accessor;
+        }
     }
 
     @XmlType( name = "record_v",
@@ -1595,16 +1619,16 @@ public final class BitStoreMap implements ConfigurationStockItem {
     public static class BitStoreViewRecordMap {
 
         @XmlAttribute( required = true )
-        protected int                     bitLength;
+        protected int                                 bitLength;
 
         @XmlAttribute( required = true )
-        protected String                  name;
+        protected String                              name;
 
         @XmlAttribute( required = false )
-        protected String                  description;
+        protected String                              description;
 
         @XmlAttribute( required = false )
-        protected Integer                 dataType;
+        protected Integer                             dataType;
 
         @XmlElements( { @XmlElement( required = true,
                                      name = "ruf",
@@ -1612,22 +1636,25 @@ public final class BitStoreMap implements ConfigurationStockItem {
                         @XmlElement( required = true,
                                      name = "field",
                                      type = BitStoreViewFieldMap.class ) } )
-        protected BitStoreViewItemMap[ ]  viewItems;
+        protected BitStoreViewItemMap[ ]              viewItems;
+
+        @XmlTransient
+        protected BitStoreViewFieldMap[ ]             viewFields;
 
         @XmlTransient
-        protected BitStoreViewFieldMap[ ] viewFields;
+        protected BitStoreViewRUFMap[ ]               viewRUFs;
 
         @XmlTransient
-        protected BitStoreViewRUFMap[ ]   viewRUFs;
+        protected Map< String, BitStoreViewFieldMap > viewFieldsByName;
 
         @XmlTransient
-        protected BitStoreViewMap         parentView;
+        protected BitStoreViewMap                     parentView;
 
         @XmlTransient
-        protected BitStoreRecordMap       recordMap;
+        protected BitStoreRecordMap                   recordMap;
 
         @XmlTransient
-        protected int                     index;
+        protected int                                 index;
 
         public BitStoreViewRecordMap( int bitLength,
                                       String name,
@@ -1691,6 +1718,12 @@ public final class BitStoreMap implements ConfigurationStockItem {
                     ++tmpViewRUFMapIndex;
                 }
             }
+            Map< String, BitStoreViewFieldMap > tmpViewFieldsByName = new HashMap< String, BitStoreViewFieldMap >( );
+            for ( BitStoreViewFieldMap tmpFieldView : this.viewFields ) {
+                tmpViewFieldsByName.putIfAbsent( tmpFieldView.name,
+                                                 tmpFieldView );
+            }
+            this.viewFieldsByName = Collections.unmodifiableMap( tmpViewFieldsByName );
         }
 
         protected void validate( )
@@ -1743,12 +1776,7 @@ public final class BitStoreMap implements ConfigurationStockItem {
         }
 
         public BitStoreViewFieldMap searchField( String fieldName ) {
-            for ( BitStoreViewFieldMap tmpFieldView : this.viewFields ) {
-                if ( tmpFieldView.name.compareTo( fieldName ) == 0 ) {
-                    return tmpFieldView;
-                }
-            }
-            return null;
+            return this.viewFieldsByName.get( fieldName );
         }
 
         public BitStoreViewFieldMap getField( String fieldName )
@@ -1819,23 +1847,26 @@ public final class BitStoreMap implements ConfigurationStockItem {
     public static class BitStoreViewMap {
 
         @XmlAttribute( required = true )
-        protected String                   name;
+        protected String                               name;
 
         @XmlAttribute( required = false )
-        protected String                   description;
+        protected String                               description;
 
         @XmlElement( required = true,
                      name = "record" )
-        protected BitStoreViewRecordMap[ ] viewRecords;
+        protected BitStoreViewRecordMap[ ]             viewRecords;
 
         @XmlTransient
-        protected BitStoreMap              parentStore;
+        protected Map< String, BitStoreViewRecordMap > viewRecordsByName;
 
         @XmlTransient
-        protected int                      bitLength;
+        protected BitStoreMap                          parentStore;
 
         @XmlTransient
-        protected int                      parentMapIndex;
+        protected int                                  bitLength;
+
+        @XmlTransient
+        protected int                                  parentMapIndex;
 
         public BitStoreViewMap( String name,
                                 String description,
@@ -1867,6 +1898,12 @@ public final class BitStoreMap implements ConfigurationStockItem {
                                       tmpRecordIndex );
                 this.bitLength += tmpViewRecord.bitLength;
             }
+            Map< String, BitStoreViewRecordMap > tmpViewRecordsByName = new HashMap< String, BitStoreViewRecordMap >( );
+            for ( BitStoreViewRecordMap tmpViewRecord : this.viewRecords ) {
+                tmpViewRecordsByName.putIfAbsent( tmpViewRecord.name,
+                                                  tmpViewRecord );
+            }
+            this.viewRecordsByName = Collections.unmodifiableMap( tmpViewRecordsByName );
         }
 
         protected void validate( )
@@ -1911,12 +1948,7 @@ public final class BitStoreMap implements ConfigurationStockItem {
         }
 
         public BitStoreViewRecordMap searchRecord( String recordName ) {
-            for ( BitStoreViewRecordMap tmpViewRecord : this.viewRecords ) {
-                if ( tmpViewRecord.name.compareTo( recordName ) == 0 ) {
-                    return tmpViewRecord;
-                }
-            }
-            return null;
+            return this.viewRecordsByName.get( recordName );
         }
 
         public BitStoreViewRecordMap getRecord( String recordName )
@@ -1978,45 +2010,51 @@ public final class BitStoreMap implements ConfigurationStockItem {
     }
 
     @XmlAttribute( required = true )
-    protected String               name;
+    protected String                           name;
 
     @XmlAttribute( required = false )
-    protected String               description;
+    protected String                           description;
 
     @XmlAttribute( required = false )
-    protected Integer              versionMajor;
+    protected Integer                          versionMajor;
 
     @XmlAttribute( required = false )
-    protected Integer              versionMinor;
+    protected Integer                          versionMinor;
 
     @XmlAttribute( required = false )
-    protected Integer              versionRelease;
+    protected Integer                          versionRelease;
 
     @XmlAttribute( required = false )
-    protected Boolean              isLittleEndianBytes;
+    protected Boolean                          isLittleEndianBytes;
 
     @XmlAttribute( required = false )
-    protected Boolean              isLittleEndianBits;
+    protected Boolean                          isLittleEndianBits;
 
     @XmlElement( required = true,
                  name = "record" )
-    protected BitStoreRecordMap[ ] records;
+    protected BitStoreRecordMap[ ]             records;
 
     @XmlAttribute( required = true )
-    protected String               mainViewName;
+    protected String                           mainViewName;
 
     @XmlAttribute( required = false )
-    protected String               mainViewDescription;
+    protected String                           mainViewDescription;
 
     @XmlTransient
-    protected BitStoreViewMap      mainView;
+    protected BitStoreViewMap                  mainView;
 
     @XmlElement( required = false,
                  name = "alternativeView" )
-    protected BitStoreViewMap[ ]   alternativeViews;
+    protected BitStoreViewMap[ ]               alternativeViews;
+
+    @XmlTransient
+    protected BitStoreViewMap[ ]               views;
 
     @XmlTransient
-    protected BitStoreViewMap[ ]   views;
+    protected Map< String, BitStoreRecordMap > recordsByName;
+
+    @XmlTransient
+    protected Map< String, BitStoreViewMap >   viewsByName;
 
     public BitStoreMap( String name,
                         String description,
@@ -2119,6 +2157,12 @@ public final class BitStoreMap implements ConfigurationStockItem {
 
     protected void engage( )
         throws BitStoreMapException {
+        Map< String, BitStoreRecordMap > tmpRecordsByName = new HashMap< String, BitStoreRecordMap >( );
+        for ( BitStoreRecordMap tmpRecord : this.records ) {
+            tmpRecordsByName.putIfAbsent( tmpRecord.name,
+                                          tmpRecord );
+        }
+        this.recordsByName = Collections.unmodifiableMap( tmpRecordsByName );
         BitStoreViewRecordMap[ ] tmpViewRecords = new BitStoreViewRecordMap[ this.records.length ];
         for ( int tmpIndex = 0; tmpIndex < tmpViewRecords.length; tmpIndex++ ) {
             this.records[ tmpIndex ].engage( this );
@@ -2138,6 +2182,12 @@ public final class BitStoreMap implements ConfigurationStockItem {
                           this.views,
                           1,
                           this.alternativeViews.length );
+        Map< String, BitStoreViewMap > tmpViewsByName = new HashMap< String, BitStoreViewMap >( );
+        for ( BitStoreViewMap tmpView : this.views ) {
+            tmpViewsByName.putIfAbsent( tmpView.name,
+                                        tmpView );
+        }
+        this.viewsByName = Collections.unmodifiableMap( tmpViewsByName );
     }
 
     protected void validate( )
@@ -2208,12 +2258,7 @@ public final class BitStoreMap implements ConfigurationStockItem {
 
     public BitStoreRecordMap searchRecord( String recordName )
         throws BitStoreMapException {
-        for ( BitStoreRecordMap tmpRecord : this.records ) {
-            if ( tmpRecord.name.compareTo( recordName ) == 0 ) {
-                return tmpRecord;
-            }
-        }
-        return null;
+        return this.recordsByName.get( recordName );
     }
 
     public BitStoreRecordMap getRecord( String recordName )
@@ -2238,6 +2283,17 @@ public final class BitStoreMap implements ConfigurationStockItem {
         return this.getView( tmpItemPath[ 0 ] ).getRecord( tmpItemPath[ 1 ] );
     }
 
+    public BitStoreFieldAccessor getFieldAccessor( String fieldPath )
+        throws BitStoreMapException {
+        String[ ] tmpItemPath = fieldPath.split( "\\." );
+        if ( tmpItemPath.length != 3 ) {
+            throw new BitStoreMapException( "Caminho '%s' invlido para campo no mapa '%s'",
+                                            fieldPath,
+                                            this.getName( ) );
+        }
+        return this.getView( tmpItemPath[ 0 ] ).getRecord( tmpItemPath[ 1 ] ).getField( tmpItemPath[ 2 ] ).getAccessor( );
+    }
+
     public BitStoreViewMap[ ] getViews( ) {
         return Arrays.copyOf( this.views,
                               this.views.length );
@@ -2253,12 +2309,7 @@ public final class BitStoreMap implements ConfigurationStockItem {
     }
 
     public BitStoreViewMap searchView( String viewName ) {
-        for ( BitStoreViewMap tmpView : this.views ) {
-            if ( tmpView.name.compareTo( viewName ) == 0 ) {
-                return tmpView;
-            }
-        }
-        return null;
+        return this.viewsByName.get( viewName );
     }
 
     public BitStoreViewMap getView( String viewName )
@@ -0,0 +1,698 @@
+package asap.primitive.bits.bitStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElements;
+
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreBitArrayFieldMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreBooleanFieldMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreByteArrayFieldMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreCurrencyFieldMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreDateFieldMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreEnumerationFieldMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreFieldMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreIntegerArrayFieldMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreIntegerFieldMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreItemMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreItemType;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreMapException;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreRUFMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreRecordMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreTimeFieldMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreViewFieldMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreViewItemMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreViewMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreViewPieceMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreViewRUFMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreViewRecordMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreEnumerationFieldMap.BitStoreEnumerationFieldItemMap;
+import asap.primitive.bytes.ByteHelper;
+import asap.primitive.file.FileHelper;
+
+/**
+ *
+ * Formato binrio pr-compilado de um "{@link BitStoreMap}", que evita criar o contexto JAXB e
+ * interpretar o XML a cada carga do mapa.<br>
+ * <br>
+ * O formato guarda exatamente os atributos declarados no XML (registros, campos, peas, itens de
+ * enumerao e vises alternativas); na leitura os objetos so criados diretamente e o mapa passa
+ * pelas mesmas etapas de "<i>engage</i>" e validao da carga a partir do XML, de modo que o
+ * resultado  idntico. Dois mapas so equivalentes quando todos os atributos e elementos
+ * declarados no XML so iguais ("{@link #isEquivalent( BitStoreMap, BitStoreMap )}"), comparao
+ * que no depende do formato binrio.<br>
+ * <br>
+ * O arquivo binrio pode ser gerado no <i>build</i> ("{@link #main( String[ ] )}") ou na primeira
+ * carga, em um diretrio de <i>cache</i> onde o nome do arquivo  o <i>hash</i> SHA-256 do XML
+ * ("{@link #fromXml( String, String )}"). Ao ser gerado, o binrio  lido de volta e comparado com
+ * o mapa obtido do XML antes de ser gravado.
+ *
+ */
+public final class BitStoreMapBinary {
+
+    public static final int    FORMAT_MAGIC         = 0x42534D42;
+
+    public static final int    FORMAT_VERSION       = 2;
+
+    public static final String CACHE_FILE_EXTENSION = ".bsmb";
+
+    public static final String CACHE_DIR_PROPERTY   = "asap.primitive.bitStore.mapCacheDir";
+
+    protected static final int VIEW_RUF_TAG         = 0;
+
+    protected static final int VIEW_FIELD_TAG       = 1;
+
+    public static byte[ ] toBinary( BitStoreMap bitStoreMap )
+        throws BitStoreMapException {
+        return toBinary( bitStoreMap,
+                         new byte[ 0 ] );
+    }
+
+    public static byte[ ] toBinary( BitStoreMap bitStoreMap,
+                                    byte[ ] sourceHash )
+        throws BitStoreMapException {
+        try {
+            ByteArrayOutputStream tmpBytes = new ByteArrayOutputStream( 4096 );
+            DataOutputStream tmpOutput = new DataOutputStream( tmpBytes );
+            tmpOutput.writeInt( FORMAT_MAGIC );
+            tmpOutput.writeShort( FORMAT_VERSION );
+            tmpOutput.writeShort( sourceHash.length );
+            tmpOutput.write( sourceHash );
+            writeString( tmpOutput,
+                         bitStoreMap.name );
+            writeString( tmpOutput,
+                         bitStoreMap.description );
+            writeInteger( tmpOutput,
+                          bitStoreMap.versionMajor );
+            writeInteger( tmpOutput,
+                          bitStoreMap.versionMinor );
+            writeInteger( tmpOutput,
+                          bitStoreMap.versionRelease );
+            writeBoolean( tmpOutput,
+                          bitStoreMap.isLittleEndianBytes );
+            writeBoolean( tmpOutput,
+                          bitStoreMap.isLittleEndianBits );
+            writeString( tmpOutput,
+                         bitStoreMap.mainViewName );
+            writeString( tmpOutput,
+                         bitStoreMap.mainViewDescription );
+            tmpOutput.writeInt( bitStoreMap.records.length );
+            for ( BitStoreRecordMap tmpRecord : bitStoreMap.records ) {
+                writeRecord( tmpOutput,
+                             tmpRecord );
+            }
+            tmpOutput.writeInt( bitStoreMap.alternativeViews.length );
+            for ( BitStoreViewMap tmpView : bitStoreMap.alternativeViews ) {
+                writeView( tmpOutput,
+                           tmpView );
+            }
+            tmpOutput.flush( );
+            return tmpBytes.toByteArray( );
+        }
+        catch ( IOException e ) {
+            throw new BitStoreMapException( e,
+                                            "Erro na gerao da viso binria do mapa '%s': %s",
+                                            bitStoreMap.name,
+                                            e.getMessage( ) );
+        }
+    }
+
+    public static BitStoreMap fromBinary( byte[ ] binary )
+        throws BitStoreMapException {
+        try {
+            DataInputStream tmpInput = new DataInputStream( new ByteArrayInputStream( binary ) );
+            readHeader( tmpInput );
+            BitStoreMap tmpStoreMap = new BitStoreMap( );
+            tmpStoreMap.name = readString( tmpInput );
+            tmpStoreMap.description = readString( tmpInput );
+            tmpStoreMap.versionMajor = readInteger( tmpInput );
+            tmpStoreMap.versionMinor = readInteger( tmpInput );
+            tmpStoreMap.versionRelease = readInteger( tmpInput );
+            tmpStoreMap.isLittleEndianBytes = readBoolean( tmpInput );
+            tmpStoreMap.isLittleEndianBits = readBoolean( tmpInput );
+            tmpStoreMap.mainViewName = readString( tmpInput );
+            tmpStoreMap.mainViewDescription = readString( tmpInput );
+            tmpStoreMap.records = new BitStoreRecordMap[ tmpInput.readInt( ) ];
+            for ( int tmpIndex = 0; tmpIndex < tmpStoreMap.records.length; tmpIndex++ ) {
+                tmpStoreMap.records[ tmpIndex ] = readRecord( tmpInput );
+            }
+            tmpStoreMap.alternativeViews = new BitStoreViewMap[ tmpInput.readInt( ) ];
+            for ( int tmpIndex = 0; tmpIndex < tmpStoreMap.alternativeViews.length; tmpIndex++ ) {
+                tmpStoreMap.alternativeViews[ tmpIndex ] = readView( tmpInput );
+            }
+            if ( tmpInput.available( ) > 0 ) {
+                throw new BitStoreMapException( "%d bytes excedentes no final da viso binria do mapa '%s'",
+                                                tmpInput.available( ),
+                                                tmpStoreMap.name );
+            }
+            tmpStoreMap.engage( );
+            tmpStoreMap.validate( );
+            return tmpStoreMap;
+        }
+        catch ( IOException e ) {
+            throw new BitStoreMapException( e,
+                                            "Erro ao construir mapa a partir da viso binria: %s",
+                                            e.getMessage( ) );
+        }
+    }
+
+    public static byte[ ] getSourceHash( byte[ ] binary )
+        throws BitStoreMapException {
+        try {
+            return readHeader( new DataInputStream( new ByteArrayInputStream( binary ) ) );
+        }
+        catch ( IOException e ) {
+            throw new BitStoreMapException( e,
+                                            "Cabealho invlido na viso binria do mapa: %s",
+                                            e.getMessage( ) );
+        }
+    }
+
+    public static byte[ ] computeSourceHash( String xmlString )
+        throws BitStoreMapException {
+        try {
+            return MessageDigest.getInstance( "SHA-256" ).digest( xmlString.getBytes( StandardCharsets.UTF_8 ) );
+        }
+        catch ( NoSuchAlgorithmException e ) {
+            throw new BitStoreMapException( e,
+                                            "Algoritmo de hash indisponvel: %s",
+                                            e.getMessage( ) );
+        }
+    }
+
+    public static boolean isEquivalent( BitStoreMap firstMap,
+                                        BitStoreMap secondMap )
+        throws BitStoreMapException {
+        try {
+            return isEquivalentElement( firstMap,
+                                        secondMap );
+        }
+        catch ( IllegalAccessException e ) {
+            throw new BitStoreMapException( e,
+                                            "Erro na comparao dos mapas '%s' e '%s': %s",
+                                            firstMap.name,
+                                            secondMap.name,
+                                            e.getMessage( ) );
+        }
+    }
+
+    /**
+     *
+     * Compara dois elementos do mapa pelos campos anotados com "<i>XmlAttribute</i>",
+     * "<i>XmlElement</i>" ou "<i>XmlElements</i>", descendo nos elementos aninhados; textos,
+     * nmeros, booleanos e enumeraes so comparados por "<i>equals</i>".
+     *
+     */
+    protected static boolean isEquivalentElement( Object first,
+                                                  Object second )
+        throws IllegalAccessException {
+        if ( first == second ) {
+            return true;
+        }
+        if ( ( first == null ) || ( second == null ) || ( first.getClass( ) != second.getClass( ) ) ) {
+            return false;
+        }
+        if ( ( first instanceof String ) || ( first instanceof Number ) || ( first instanceof Boolean ) || ( first instanceof Enum ) ) {
+            return first.equals( second );
+        }
+        if ( first instanceof Object[ ] ) {
+            Object[ ] tmpFirstArray = (Object[ ]) first;
+            Object[ ] tmpSecondArray = (Object[ ]) second;
+            if ( tmpFirstArray.length != tmpSecondArray.length ) {
+                return false;
+            }
+            for ( int tmpIndex = 0; tmpIndex < tmpFirstArray.length; tmpIndex++ ) {
+                if ( !isEquivalentElement( tmpFirstArray[ tmpIndex ],
+                                           tmpSecondArray[ tmpIndex ] ) ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if ( first.getClass( ).isArray( ) ) {
+            return Arrays.deepEquals( new Object[ ] { first },
+                                      new Object[ ] { second } );
+        }
+        for ( Class< ? > tmpClass = first.getClass( ); tmpClass != null; tmpClass = tmpClass.getSuperclass( ) ) {
+            for ( Field tmpField : tmpClass.getDeclaredFields( ) ) {
+                if ( !Modifier.isStatic( tmpField.getModifiers( ) )
+                     && ( tmpField.isAnnotationPresent( XmlAttribute.class )
+                          || tmpField.isAnnotationPresent( XmlElement.class )
+                          || tmpField.isAnnotationPresent( XmlElements.class ) ) ) {
+                    tmpField.setAccessible( true );
+                    if ( !isEquivalentElement( tmpField.get( first ),
+                                               tmpField.get( second ) ) ) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     *
+     * Gera a viso binria de um mapa obtido do XML e confirma que ela reconstri um mapa
+     * equivalente.
+     *
+     */
+    public static byte[ ] compile( BitStoreMap xmlMap,
+                                   byte[ ] sourceHash )
+        throws BitStoreMapException {
+        byte[ ] tmpResult = toBinary( xmlMap,
+                                      sourceHash );
+        if ( !isEquivalent( xmlMap,
+                            fromBinary( tmpResult ) ) ) {
+            throw new BitStoreMapException( "Viso binria do mapa '%s' no equivale  viso XML",
+                                            xmlMap.name );
+        }
+        return tmpResult;
+    }
+
+    /**
+     *
+     * Carrega o mapa descrito pelo XML usando a viso binria guardada no diretrio de
+     * <i>cache</i>, ou interpreta o XML e grava a viso binria para as prximas cargas. Um arquivo
+     * de <i>cache</i> ilegvel  regerado; falhas na gravao do <i>cache</i> so propagadas.
+     *
+     */
+    public static BitStoreMap fromXml( String xmlString,
+                                       String cacheDirPath )
+        throws BitStoreMapException {
+        if ( cacheDirPath == null ) {
+            return BitStoreMap.fromXml( xmlString );
+        }
+        byte[ ] tmpSourceHash = computeSourceHash( xmlString );
+        File tmpCacheFile = new File( cacheDirPath,
+                                      ByteHelper.hexify( tmpSourceHash,
+                                                         "" ).toLowerCase( )
+                                                    + CACHE_FILE_EXTENSION );
+        if ( tmpCacheFile.isFile( ) ) {
+            try {
+                byte[ ] tmpBinary = FileHelper.loadBinFile( tmpCacheFile );
+                if ( Arrays.equals( getSourceHash( tmpBinary ),
+                                    tmpSourceHash ) ) {
+                    return fromBinary( tmpBinary );
+                }
+            }
+            catch ( IOException | BitStoreMapException e ) {
+                // Arquivo de cache ilegvel ou de outra verso do formato: regerado abaixo
+            }
+        }
+        BitStoreMap tmpResult = BitStoreMap.fromXml( xmlString );
+        byte[ ] tmpBinary = compile( tmpResult,
+                                     tmpSourceHash );
+        File tmpTemporaryFile = null;
+        try {
+            File tmpCacheDir = tmpCacheFile.getParentFile( );
+            tmpCacheDir.mkdirs( );
+            tmpTemporaryFile = File.createTempFile( "bitStoreMap",
+                                                    ".tmp",
+                                                    tmpCacheDir );
+            FileHelper.saveBinFile( tmpTemporaryFile,
+                                    tmpBinary );
+            Files.move( tmpTemporaryFile.toPath( ),
+                        tmpCacheFile.toPath( ),
+                        StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE );
+        }
+        catch ( IOException e ) {
+            throw new BitStoreMapException( e,
+                                            "Erro na gravao da viso binria do mapa '%s' em '%s': %s",
+                                            tmpResult.name,
+                                            tmpCacheFile.getPath( ),
+                                            e.getMessage( ) );
+        }
+        finally {
+            // Aps o "move" bem-sucedido o temporrio j no existe
+            if ( ( tmpTemporaryFile != null ) && tmpTemporaryFile.exists( ) ) {
+                tmpTemporaryFile.delete( );
+            }
+        }
+        return tmpResult;
+    }
+
+    /**
+     *
+     * Passo de <i>build</i>: "<i>BitStoreMapBinary &lt;mapa.xml&gt; &lt;mapa.bsmb&gt;</i>" gera
+     * a viso binria de um mapa XML.
+     *
+     */
+    public static void main( String[ ] args )
+        throws IOException,
+            BitStoreMapException {
+        if ( args.length != 2 ) {
+            throw new BitStoreMapException( "Uso: BitStoreMapBinary <mapa.xml> <mapa%s>",
+                                            CACHE_FILE_EXTENSION );
+        }
+        String tmpXmlString = FileHelper.loadTextFile( args[ 0 ] );
+        FileHelper.saveBinFile( args[ 1 ],
+                                compile( BitStoreMap.fromXml( tmpXmlString ),
+                                         computeSourceHash( tmpXmlString ) ) );
+    }
+
+    protected static byte[ ] readHeader( DataInputStream input )
+        throws IOException,
+            BitStoreMapException {
+        int tmpMagic = input.readInt( );
+        int tmpVersion = input.readUnsignedShort( );
+        if ( ( tmpMagic != FORMAT_MAGIC ) || ( tmpVersion != FORMAT_VERSION ) ) {
+            throw new BitStoreMapException( "Viso binria de mapa invlida ( assinatura %08X, verso %d )",
+                                            tmpMagic,
+                                            tmpVersion );
+        }
+        byte[ ] tmpSourceHash = new byte[ input.readUnsignedShort( ) ];
+        input.readFully( tmpSourceHash );
+        return tmpSourceHash;
+    }
+
+    protected static void writeRecord( DataOutputStream output,
+                                       BitStoreRecordMap record )
+        throws IOException {
+        output.writeInt( record.bitLength );
+        writeString( output,
+                     record.name );
+        writeString( output,
+                     record.description );
+        output.writeInt( record.dataType );
+        output.writeInt( record.fields.length );
+        for ( BitStoreItemMap tmpField : record.fields ) {
+            writeField( output,
+                        tmpField );
+        }
+    }
+
+    protected static BitStoreRecordMap readRecord( DataInputStream input )
+        throws IOException,
+            BitStoreMapException {
+        BitStoreRecordMap tmpResult = new BitStoreRecordMap( );
+        tmpResult.bitLength = input.readInt( );
+        tmpResult.name = readString( input );
+        tmpResult.description = readString( input );
+        tmpResult.dataType = input.readInt( );
+        tmpResult.fields = new BitStoreItemMap[ input.readInt( ) ];
+        for ( int tmpIndex = 0; tmpIndex < tmpResult.fields.length; tmpIndex++ ) {
+            tmpResult.fields[ tmpIndex ] = readField( input );
+        }
+        return tmpResult;
+    }
+
+    protected static void writeField( DataOutputStream output,
+                                      BitStoreItemMap field )
+        throws IOException {
+        output.writeByte( field.type.ordinal( ) );
+        output.writeInt( field.bitLength );
+        writePieces( output,
+                     field.mainViewPieces );
+        if ( field instanceof BitStoreFieldMap ) {
+            writeString( output,
+                         ( (BitStoreFieldMap) field ).name );
+            writeString( output,
+                         ( (BitStoreFieldMap) field ).description );
+        }
+        switch ( field.type ) {
+            case Boolean:
+                writeString( output,
+                             ( (BitStoreBooleanFieldMap) field ).trueString );
+                writeString( output,
+                             ( (BitStoreBooleanFieldMap) field ).falseString );
+                break;
+            case Integer:
+                writeInteger( output,
+                              ( (BitStoreIntegerFieldMap) field ).defaultBase );
+                break;
+            case ByteArray:
+                output.writeInt( ( (BitStoreByteArrayFieldMap) field ).arrayLength );
+                break;
+            case IntegerArray:
+                output.writeInt( ( (BitStoreIntegerArrayFieldMap) field ).integerLength );
+                output.writeInt( ( (BitStoreIntegerArrayFieldMap) field ).arrayLength );
+                break;
+            case Enumeration:
+                BitStoreEnumerationFieldMap tmpEnumeration = (BitStoreEnumerationFieldMap) field;
+                writeBoolean( output,
+                              tmpEnumeration.inverted );
+                output.writeInt( tmpEnumeration.items.length );
+                for ( BitStoreEnumerationFieldItemMap tmpItem : tmpEnumeration.items ) {
+                    output.writeInt( tmpItem.value );
+                    writeString( output,
+                                 tmpItem.name );
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    protected static BitStoreItemMap readField( DataInputStream input )
+        throws IOException,
+            BitStoreMapException {
+        int tmpTypeOrdinal = input.readUnsignedByte( );
+        if ( tmpTypeOrdinal >= BitStoreItemType.values( ).length ) {
+            throw new BitStoreMapException( "Tipo de campo %d invlido na viso binria do mapa",
+                                            tmpTypeOrdinal );
+        }
+        BitStoreItemType tmpType = BitStoreItemType.values( )[ tmpTypeOrdinal ];
+        int tmpBitLength = input.readInt( );
+        BitStoreViewPieceMap[ ] tmpPieces = readPieces( input );
+        String tmpName = null;
+        String tmpDescription = null;
+        if ( tmpType != BitStoreItemType.RUF ) {
+            tmpName = readString( input );
+            tmpDescription = readString( input );
+        }
+        BitStoreItemMap tmpResult;
+        switch ( tmpType ) {
+            case RUF:
+                tmpResult = new BitStoreRUFMap( );
+                break;
+            case Boolean:
+                BitStoreBooleanFieldMap tmpBoolean = new BitStoreBooleanFieldMap( );
+                tmpBoolean.trueString = readString( input );
+                tmpBoolean.falseString = readString( input );
+                tmpResult = tmpBoolean;
+                break;
+            case Integer:
+                BitStoreIntegerFieldMap tmpInteger = new BitStoreIntegerFieldMap( );
+                tmpInteger.defaultBase = readInteger( input );
+                tmpResult = tmpInteger;
+                break;
+            case Currency:
+                tmpResult = new BitStoreCurrencyFieldMap( );
+                break;
+            case Date:
+                tmpResult = new BitStoreDateFieldMap( );
+                break;
+            case Time:
+                tmpResult = new BitStoreTimeFieldMap( );
+                break;
+            case BitArray:
+                tmpResult = new BitStoreBitArrayFieldMap( );
+                break;
+            case ByteArray:
+                BitStoreByteArrayFieldMap tmpByteArray = new BitStoreByteArrayFieldMap( );
+                tmpByteArray.arrayLength = input.readInt( );
+                tmpResult = tmpByteArray;
+                break;
+            case IntegerArray:
+                BitStoreIntegerArrayFieldMap tmpIntegerArray = new BitStoreIntegerArrayFieldMap( );
+                tmpIntegerArray.integerLength = input.readInt( );
+                tmpIntegerArray.arrayLength = input.readInt( );
+                tmpResult = tmpIntegerArray;
+                break;
+            case Enumeration:
+                BitStoreEnumerationFieldMap tmpEnumeration = new BitStoreEnumerationFieldMap( );
+                tmpEnumeration.inverted = readBoolean( input );
+                tmpEnumeration.items = new BitStoreEnumerationFieldItemMap[ input.readInt( ) ];
+                for ( int tmpIndex = 0; tmpIndex < tmpEnumeration.items.length; tmpIndex++ ) {
+                    tmpEnumeration.items[ tmpIndex ] = new BitStoreEnumerationFieldItemMap( input.readInt( ),
+                                                                                           readString( input ) );
+                }
+                tmpResult = tmpEnumeration;
+                break;
+            default:
+                throw new BitStoreMapException( "Tipo de campo '%s' invlido na viso binria do mapa",
+                                                tmpType.name( ) );
+        }
+        tmpResult.bitLength = tmpBitLength;
+        tmpResult.mainViewPieces = tmpPieces;
+        if ( tmpResult instanceof BitStoreFieldMap ) {
+            ( (BitStoreFieldMap) tmpResult ).name = tmpName;
+            ( (BitStoreFieldMap) tmpResult ).description = tmpDescription;
+        }
+        return tmpResult;
+    }
+
+    protected static void writeView( DataOutputStream output,
+                                     BitStoreViewMap view )
+        throws IOException {
+        writeString( output,
+                     view.name );
+        writeString( output,
+                     view.description );
+        output.writeInt( view.viewRecords.length );
+        for ( BitStoreViewRecordMap tmpViewRecord : view.viewRecords ) {
+            output.writeInt( tmpViewRecord.bitLength );
+            writeString( output,
+                         tmpViewRecord.name );
+            writeString( output,
+                         tmpViewRecord.description );
+            writeInteger( output,
+                          tmpViewRecord.dataType );
+            output.writeInt( tmpViewRecord.viewItems.length );
+            for ( BitStoreViewItemMap tmpViewItem : tmpViewRecord.viewItems ) {
+                if ( tmpViewItem instanceof BitStoreViewFieldMap ) {
+                    output.writeByte( VIEW_FIELD_TAG );
+                    output.writeInt( tmpViewItem.bitLength );
+                    writePieces( output,
+                                 tmpViewItem.pieces );
+                    writeString( output,
+                                 ( (BitStoreViewFieldMap) tmpViewItem ).name );
+                }
+                else {
+                    output.writeByte( VIEW_RUF_TAG );
+                    output.writeInt( tmpViewItem.bitLength );
+                    writePieces( output,
+                                 tmpViewItem.pieces );
+                }
+            }
+        }
+    }
+
+    protected static BitStoreViewMap readView( DataInputStream input )
+        throws IOException,
+            BitStoreMapException {
+        BitStoreViewMap tmpResult = new BitStoreViewMap( );
+        tmpResult.name = readString( input );
+        tmpResult.description = readString( input );
+        tmpResult.viewRecords = new BitStoreViewRecordMap[ input.readInt( ) ];
+        for ( int tmpRecordIndex = 0; tmpRecordIndex < tmpResult.viewRecords.length; tmpRecordIndex++ ) {
+            BitStoreViewRecordMap tmpViewRecord = new BitStoreViewRecordMap( );
+            tmpViewRecord.bitLength = input.readInt( );
+            tmpViewRecord.name = readString( input );
+            tmpViewRecord.description = readString( input );
+            tmpViewRecord.dataType = readInteger( input );
+            tmpViewRecord.viewItems = new BitStoreViewItemMap[ input.readInt( ) ];
+            for ( int tmpItemIndex = 0; tmpItemIndex < tmpViewRecord.viewItems.length; tmpItemIndex++ ) {
+                int tmpTag = input.readUnsignedByte( );
+                BitStoreViewItemMap tmpViewItem;
+                if ( tmpTag == VIEW_FIELD_TAG ) {
+                    tmpViewItem = new BitStoreViewFieldMap( );
+                }
+                else if ( tmpTag == VIEW_RUF_TAG ) {
+                    tmpViewItem = new BitStoreViewRUFMap( );
+                }
+                else {
+                    throw new BitStoreMapException( "Item de viso %d invlido no registro '%s' da viso '%s'",
+                                                    tmpTag,
+                                                    tmpViewRecord.name,
+                                                    tmpResult.name );
+                }
+                tmpViewItem.bitLength = input.readInt( );
+                tmpViewItem.pieces = readPieces( input );
+                if ( tmpTag == VIEW_FIELD_TAG ) {
+                    ( (BitStoreViewFieldMap) tmpViewItem ).name = readString( input );
+                }
+                tmpViewRecord.viewItems[ tmpItemIndex ] = tmpViewItem;
+            }
+            tmpResult.viewRecords[ tmpRecordIndex ] = tmpViewRecord;
+        }
+        return tmpResult;
+    }
+
+    protected static void writePieces( DataOutputStream output,
+                                       BitStoreViewPieceMap[ ] pieces )
+        throws IOException {
+        output.writeInt( pieces.length );
+        for ( BitStoreViewPieceMap tmpPiece : pieces ) {
+            output.writeInt( tmpPiece.offset );
+            output.writeInt( tmpPiece.length );
+        }
+    }
+
+    protected static BitStoreViewPieceMap[ ] readPieces( DataInputStream input )
+        throws IOException {
+        BitStoreViewPieceMap[ ] tmpResult = new BitStoreViewPieceMap[ input.readInt( ) ];
+        for ( int tmpIndex = 0; tmpIndex < tmpResult.length; tmpIndex++ ) {
+            tmpResult[ tmpIndex ] = new BitStoreViewPieceMap( input.readInt( ),
+                                                              input.readInt( ) );
+        }
+        return tmpResult;
+    }
+
+    /**
+     *
+     * Texto em UTF-8 precedido do tamanho em bytes ("<i>writeUTF</i>" limita o texto a 64 KB).
+     *
+     */
+    protected static void writeString( DataOutputStream output,
+                                       String value )
+        throws IOException {
+        output.writeBoolean( value != null );
+        if ( value != null ) {
+            byte[ ] tmpBytes = value.getBytes( StandardCharsets.UTF_8 );
+            output.writeInt( tmpBytes.length );
+            output.write( tmpBytes );
+        }
+    }
+
+    protected static String readString( DataInputStream input )
+        throws IOException {
+        if ( !input.readBoolean( ) ) {
+            return null;
+        }
+        int tmpLength = input.readInt( );
+        if ( ( tmpLength < 0 ) || ( tmpLength > input.available( ) ) ) {
+            throw new IOException( String.format( "Tamanho de texto %d invlido",
+                                                  tmpLength ) );
+        }
+        byte[ ] tmpBytes = new byte[ tmpLength ];
+        input.readFully( tmpBytes );
+        return new String( tmpBytes,
+                           StandardCharsets.UTF_8 );
+    }
+
+    protected static void writeInteger( DataOutputStream output,
+                                        Integer value )
+        throws IOException {
+        output.writeBoolean( value != null );
+        if ( value != null ) {
+            output.writeInt( value );
+        }
+    }
+
+    protected static Integer readInteger( DataInputStream input )
+        throws IOException {
+        return input.readBoolean( ) ? Integer.valueOf( input.readInt( ) )
+                                    : null;
+    }
+
+    protected static void writeBoolean( DataOutputStream output,
+                                        Boolean value )
+        throws IOException {
+        output.writeByte( ( value == null ) ? ( -1 )
+                                            : ( value ? 1
+                                                      : 0 ) );
+    }
+
+    protected static Boolean readBoolean( DataInputStream input )
+        throws IOException {
+        byte tmpValue = input.readByte( );
+        return ( tmpValue < 0 ) ? null
+                                : Boolean.valueOf( tmpValue != 0 );
+    }
+}
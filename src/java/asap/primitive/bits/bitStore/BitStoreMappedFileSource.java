@@ -0,0 +1,589 @@
+package asap.primitive.bits.bitStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import asap.primitive.bits.BitHelper;
+import asap.primitive.bits.bitStore.BitStoreData.BitStoreDataException;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreMapException;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreRecordMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreViewPieceMap;
+
+/**
+ *
+ * Fonte de dados de um "{@link BitStoreMap}" apoiada em um arquivo mapeado em memria
+ * ("<i>MappedByteBuffer</i>"), para percorrer e corrigir grandes conjuntos de imagens sem
+ * carreg-las no <i>heap</i>.<br>
+ * <br>
+ * O arquivo  uma sequncia de <i>slots</i> de tamanho fixo, cada um com a imagem completa de um
+ * store: os registros do mapa, na ordem de "{@link BitStoreMap#getRecords( )}", um aps o outro,
+ * cada um com "{@link BitStoreRecordMap#getByteLength( )}" bytes, na mesma ordenao de bits da
+ * "{@link BitStoreMemorySource}". O passo entre os <i>slots</i> pode ser arredondado para um
+ * alinhamento, e um cabealho opcional no incio do arquivo  ignorado.<br>
+ * <br>
+ * A fonte enxerga um <i>slot</i> por vez, escolhido por "{@link #selectSlot( long )}"; assim um
+ * mesmo "{@link BitStoreData}" pode ser reaproveitado para todas as imagens do arquivo. As
+ * leituras e escritas das peas vo direto na regio mapeada, e "{@link #flush( boolean )}"
+ * fora a gravao em disco ("<i>force</i>") s das faixas alteradas, ou de todo o arquivo.<br>
+ * <br>
+ * Como cada "<i>MappedByteBuffer</i>"  limitado a 2 GB, o arquivo  mapeado em segmentos com
+ * uma quantidade inteira de <i>slots</i>. A fonte no  <i>thread-safe</i>, assim como
+ * "{@link BitStoreMemorySource}".
+ *
+ */
+public class BitStoreMappedFileSource extends BitStoreSource implements AutoCloseable {
+
+    public static class BitStoreRecordMappedFileSource extends BitStoreRecordSource {
+
+        protected final BitStoreMappedFileSource parentFileSource;
+
+        protected final int                      slotOffset;
+
+        protected final int                      byteLength;
+
+        protected final byte[ ]                  pieceBuffer;
+
+        protected static final String            DESCRIPTION     = "Arquivo mapeado";
+
+        /**
+         *
+         * O "<i>force</i>" trabalha em pginas: faixas alteradas dentro de uma mesma pgina so
+         * gravadas juntas.
+         *
+         */
+        protected static final int               FLUSH_MERGE_GAP = 4096;
+
+        protected BitStoreRecordMappedFileSource( BitStoreRecordMap bitStoreRecordMap,
+                                                  BitStoreMappedFileSource parentFileSource,
+                                                  int slotOffset ) {
+            super( bitStoreRecordMap.getName( ),
+                   parentFileSource );
+            this.parentFileSource = parentFileSource;
+            this.slotOffset = slotOffset;
+            this.byteLength = bitStoreRecordMap.getByteLength( );
+            this.pieceBuffer = new byte[ this.byteLength ];
+        }
+
+        public int getSlotOffset( ) {
+            return this.slotOffset;
+        }
+
+        @Override
+        public String[ ] describe( boolean isLittleEndianBits )
+            throws BitStoreMapException {
+            return new String[ ] { DESCRIPTION,
+                                   this.parentFileSource.filePath.toString( ),
+                                   String.format( "slot %d",
+                                                  this.parentFileSource.slotIndex ) };
+        }
+
+        @Override
+        public String[ ] describe( BitStoreViewPieceMap pieceMap )
+            throws BitStoreMapException {
+            return this.describe( pieceMap.getParentViewItem( ).getParentViewRecord( ).isLittleEndianBits( ) );
+        }
+
+        @Override
+        public void getPiece( BitStoreViewPieceMap pieceMap,
+                              boolean isLittleEndianBits,
+                              byte[ ] targetArray,
+                              int targetOffset )
+            throws BitStoreSetupException {
+            int tmpFirstByte = ( pieceMap.offset / Byte.SIZE );
+            int tmpBitOffset = ( pieceMap.offset % Byte.SIZE );
+            int tmpSpanLength = BitHelper.getBitArrayBufferLength( tmpBitOffset + pieceMap.length );
+            this.parentFileSource.getSlotBuffer( ).get( this.parentFileSource.slotBase + this.slotOffset + tmpFirstByte,
+                                                        this.pieceBuffer,
+                                                        0,
+                                                        tmpSpanLength );
+            BitHelper.bitArrayCopy( isLittleEndianBits,
+                                    this.pieceBuffer,
+                                    tmpBitOffset,
+                                    targetArray,
+                                    targetOffset,
+                                    pieceMap.length );
+        }
+
+        @Override
+        public void setPiece( BitStoreViewPieceMap pieceMap,
+                              boolean isLittleEndianBits,
+                              byte[ ] sourceArray,
+                              int sourceOffset )
+            throws BitStoreSetupException,
+                BitStoreAccessException {
+            if ( this.parentFileSource.isReadOnly ) {
+                throw new BitStoreAccessException( "Arquivo '%s' do mapa '%s' aberto somente para leitura",
+                                                   this.parentFileSource.filePath,
+                                                   this.parentFileSource.mapName );
+            }
+            int tmpFirstByte = ( pieceMap.offset / Byte.SIZE );
+            int tmpBitOffset = ( pieceMap.offset % Byte.SIZE );
+            int tmpSpanLength = BitHelper.getBitArrayBufferLength( tmpBitOffset + pieceMap.length );
+            int tmpSpanIndex = ( this.parentFileSource.slotBase + this.slotOffset + tmpFirstByte );
+            MappedByteBuffer tmpSlotBuffer = this.parentFileSource.getSlotBuffer( );
+            // Leitura antes da escrita, para preservar os bits vizinhos da pea nos bytes das pontas
+            tmpSlotBuffer.get( tmpSpanIndex,
+                               this.pieceBuffer,
+                               0,
+                               tmpSpanLength );
+            BitHelper.bitArrayCopy( isLittleEndianBits,
+                                    sourceArray,
+                                    sourceOffset,
+                                    this.pieceBuffer,
+                                    tmpBitOffset,
+                                    pieceMap.length );
+            tmpSlotBuffer.put( tmpSpanIndex,
+                               this.pieceBuffer,
+                               0,
+                               tmpSpanLength );
+            this.markDirty( pieceMap.offset,
+                            pieceMap.length );
+        }
+
+        @Override
+        protected int getFlushMergeGap( ) {
+            return FLUSH_MERGE_GAP;
+        }
+
+        @Override
+        public void forceFlush( )
+            throws BitStoreSetupException {
+            this.parentFileSource.getSlotBuffer( ).force( this.parentFileSource.slotBase + this.slotOffset,
+                                                          this.byteLength );
+            this.clearDirty( );
+        }
+
+        @Override
+        protected void flushRanges( BitStoreDirtyRange[ ] dirtyRanges )
+            throws BitStoreSetupException {
+            MappedByteBuffer tmpSlotBuffer = this.parentFileSource.getSlotBuffer( );
+            for ( BitStoreDirtyRange tmpRange : dirtyRanges ) {
+                tmpSlotBuffer.force( this.parentFileSource.slotBase + this.slotOffset + tmpRange.byteOffset,
+                                     tmpRange.byteLength );
+            }
+        }
+    }
+
+    protected final Path                              filePath;
+
+    protected final boolean                           isReadOnly;
+
+    protected final long                              headerLength;
+
+    protected final int                               slotLength;
+
+    protected final int                               slotStride;
+
+    protected final long                              slotCount;
+
+    protected final int                               segmentSlotCount;
+
+    protected final FileChannel                       fileChannel;
+
+    protected final MappedByteBuffer[ ]               segments;
+
+    protected final BitStoreRecordMappedFileSource[ ] records;
+
+    protected long                                    slotIndex;
+
+    protected int                                     slotBase;
+
+    protected MappedByteBuffer                        slotSegment;
+
+    protected final int[ ]                            pendingFrom;
+
+    protected final int[ ]                            pendingTo;
+
+    /**
+     *
+     * Abre (ou cria, se "<i>isReadOnly</i>" for falso) o arquivo de imagens, mapeando
+     * "<i>slotCount</i>" <i>slots</i>. Se o arquivo for menor que o necessrio e puder ser escrito,
+     * ele  estendido com zeros.
+     *
+     * @param bitStoreMap
+     *            Mapa das imagens gravadas no arquivo
+     * @param filePath
+     *            Caminho do arquivo de imagens
+     * @param headerLength
+     *            Quantidade de bytes ignorados no incio do arquivo
+     * @param slotAlignment
+     *            Alinhamento, em bytes, do passo entre os <i>slots</i> (1 para nenhum)
+     * @param slotCount
+     *            Quantidade de <i>slots</i> mapeados, ou negativo para deduzir do tamanho do arquivo
+     * @param isReadOnly
+     *            Se o arquivo deve ser mapeado somente para leitura
+     * @param mediaId
+     *            Identificao da mdia, ou nulo
+     */
+    public BitStoreMappedFileSource( BitStoreMap bitStoreMap,
+                                     Path filePath,
+                                     long headerLength,
+                                     int slotAlignment,
+                                     long slotCount,
+                                     boolean isReadOnly,
+                                     byte[ ] mediaId )
+        throws BitStoreSetupException,
+            BitStoreDeviceException {
+        super( "MappedFileSource",
+               "Fonte de dados em arquivo mapeado em memria",
+               bitStoreMap.getName( ),
+               bitStoreMap.getDescription( ),
+               mediaId );
+        if ( ( headerLength < 0 ) || ( slotAlignment < 1 ) ) {
+            throw new BitStoreSetupException( "Cabealho '%d' ou alinhamento '%d' invlido para o arquivo '%s' do mapa '%s'",
+                                              headerLength,
+                                              slotAlignment,
+                                              filePath,
+                                              this.mapName );
+        }
+        this.filePath = filePath;
+        this.isReadOnly = isReadOnly;
+        this.headerLength = headerLength;
+        BitStoreRecordMap[ ] tmpRecordMaps = bitStoreMap.getRecords( );
+        int[ ] tmpRecordOffsets = new int[ tmpRecordMaps.length ];
+        long tmpSlotLength = 0;
+        for ( int tmpIndex = 0; tmpIndex < tmpRecordMaps.length; tmpIndex++ ) {
+            tmpRecordOffsets[ tmpIndex ] = (int) tmpSlotLength;
+            tmpSlotLength += tmpRecordMaps[ tmpIndex ].getByteLength( );
+        }
+        long tmpSlotStride = ( ( ( tmpSlotLength + slotAlignment - 1 ) / slotAlignment ) * slotAlignment );
+        if ( ( tmpSlotStride < 1 ) || ( tmpSlotStride > Integer.MAX_VALUE ) ) {
+            throw new BitStoreSetupException( "Tamanho de slot '%d' invlido para o arquivo '%s' do mapa '%s'",
+                                              tmpSlotStride,
+                                              filePath,
+                                              this.mapName );
+        }
+        this.slotLength = (int) tmpSlotLength;
+        this.slotStride = (int) tmpSlotStride;
+        this.segmentSlotCount = ( Integer.MAX_VALUE / this.slotStride );
+        try {
+            this.fileChannel = ( isReadOnly ? FileChannel.open( filePath,
+                                                                StandardOpenOption.READ )
+                                            : FileChannel.open( filePath,
+                                                                StandardOpenOption.READ,
+                                                                StandardOpenOption.WRITE,
+                                                                StandardOpenOption.CREATE ) );
+        }
+        catch ( IOException e ) {
+            throw new BitStoreDeviceException( e,
+                                               "Falha ao abrir o arquivo '%s' do mapa '%s'",
+                                               filePath,
+                                               this.mapName );
+        }
+        try {
+            long tmpFileSize = this.fileChannel.size( );
+            long tmpSlotCount = ( ( slotCount < 0 ) ? ( Math.max( 0,
+                                                                  tmpFileSize - headerLength ) / this.slotStride )
+                                                    : slotCount );
+            long tmpRequiredSize = ( headerLength + ( tmpSlotCount * this.slotStride ) );
+            if ( isReadOnly && ( tmpFileSize < tmpRequiredSize ) ) {
+                throw new BitStoreSetupException( "Arquivo '%s' do mapa '%s' tem %d bytes, menos que os %d bytes de %d slots",
+                                                  filePath,
+                                                  this.mapName,
+                                                  tmpFileSize,
+                                                  tmpRequiredSize,
+                                                  tmpSlotCount );
+            }
+            this.slotCount = tmpSlotCount;
+            this.segments = new MappedByteBuffer[ (int) ( ( tmpSlotCount + this.segmentSlotCount - 1 ) / this.segmentSlotCount ) ];
+            FileChannel.MapMode tmpMapMode = ( isReadOnly ? FileChannel.MapMode.READ_ONLY
+                                                          : FileChannel.MapMode.READ_WRITE );
+            for ( int tmpIndex = 0; tmpIndex < this.segments.length; tmpIndex++ ) {
+                long tmpFirstSlot = ( (long) tmpIndex * this.segmentSlotCount );
+                long tmpSegmentSlots = Math.min( this.segmentSlotCount,
+                                                 tmpSlotCount - tmpFirstSlot );
+                // Mapear em modo de escrita alm do fim do arquivo o estende com zeros
+                this.segments[ tmpIndex ] = this.fileChannel.map( tmpMapMode,
+                                                                  headerLength + ( tmpFirstSlot * this.slotStride ),
+                                                                  tmpSegmentSlots * this.slotStride );
+            }
+        }
+        catch ( IOException e ) {
+            this.closeChannel( );
+            throw new BitStoreDeviceException( e,
+                                               "Falha ao mapear o arquivo '%s' do mapa '%s'",
+                                               filePath,
+                                               this.mapName );
+        }
+        catch ( BitStoreSetupException e ) {
+            this.closeChannel( );
+            throw e;
+        }
+        this.pendingFrom = new int[ this.segments.length ];
+        this.pendingTo = new int[ this.segments.length ];
+        Arrays.fill( this.pendingFrom,
+                     Integer.MAX_VALUE );
+        this.records = new BitStoreRecordMappedFileSource[ tmpRecordMaps.length ];
+        for ( int tmpIndex = 0; tmpIndex < this.records.length; tmpIndex++ ) {
+            this.records[ tmpIndex ] = new BitStoreRecordMappedFileSource( tmpRecordMaps[ tmpIndex ],
+                                                                           this,
+                                                                           tmpRecordOffsets[ tmpIndex ] );
+        }
+        this.slotIndex = ( -1 );
+        this.slotBase = 0;
+        this.slotSegment = null;
+        if ( this.slotCount > 0 ) {
+            this.selectSlot( 0 );
+        }
+    }
+
+    public BitStoreMappedFileSource( BitStoreMap bitStoreMap,
+                                     Path filePath,
+                                     long slotCount )
+        throws BitStoreSetupException,
+            BitStoreDeviceException {
+        this( bitStoreMap,
+              filePath,
+              0,
+              1,
+              slotCount,
+              false,
+              null );
+    }
+
+    public BitStoreMappedFileSource( BitStoreMap bitStoreMap,
+                                     Path filePath,
+                                     boolean isReadOnly )
+        throws BitStoreSetupException,
+            BitStoreDeviceException {
+        this( bitStoreMap,
+              filePath,
+              0,
+              1,
+              ( -1 ),
+              isReadOnly,
+              null );
+    }
+
+    protected void closeChannel( ) {
+        try {
+            this.fileChannel.close( );
+        }
+        catch ( IOException e ) {
+            // Nada a fazer: o canal j est sendo descartado por outra falha
+        }
+    }
+
+    protected MappedByteBuffer getSlotBuffer( )
+        throws BitStoreSetupException {
+        if ( this.slotSegment == null ) {
+            throw new BitStoreSetupException( "Nenhum slot selecionado no arquivo '%s' do mapa '%s'",
+                                              this.filePath,
+                                              this.mapName );
+        }
+        return this.slotSegment;
+    }
+
+    public Path getFilePath( ) {
+        return this.filePath;
+    }
+
+    public boolean isReadOnly( ) {
+        return this.isReadOnly;
+    }
+
+    public long getSlotCount( ) {
+        return this.slotCount;
+    }
+
+    public int getSlotLength( ) {
+        return this.slotLength;
+    }
+
+    public int getSlotStride( ) {
+        return this.slotStride;
+    }
+
+    public long getSlotIndex( ) {
+        return this.slotIndex;
+    }
+
+    public void selectSlot( long slotIndex )
+        throws BitStoreSetupException {
+        if ( ( slotIndex < 0 ) || ( slotIndex >= this.slotCount ) ) {
+            throw new BitStoreSetupException( "Slot '%d' fora dos %d slots do arquivo '%s' do mapa '%s'",
+                                              slotIndex,
+                                              this.slotCount,
+                                              this.filePath,
+                                              this.mapName );
+        }
+        this.retireDirtyRecords( );
+        this.slotIndex = slotIndex;
+        this.slotSegment = this.segments[ (int) ( slotIndex / this.segmentSlotCount ) ];
+        this.slotBase = ( (int) ( slotIndex % this.segmentSlotCount ) * this.slotStride );
+        this.notifyRecordsChanged( );
+    }
+
+    /**
+     *
+     * Ao trocar de <i>slot</i>, as faixas alteradas dos registros deixam de ser endereveis pelos
+     * registros: viram um intervalo pendente no segmento, gravado no prximo "<i>flush</i>".
+     *
+     */
+    protected void retireDirtyRecords( ) {
+        if ( this.slotSegment == null ) {
+            return;
+        }
+        int tmpSegmentIndex = (int) ( this.slotIndex / this.segmentSlotCount );
+        for ( BitStoreRecordMappedFileSource tmpRecord : this.records ) {
+            if ( tmpRecord.isDirty( ) ) {
+                int tmpBase = ( this.slotBase + tmpRecord.slotOffset );
+                this.pendingFrom[ tmpSegmentIndex ] = Math.min( this.pendingFrom[ tmpSegmentIndex ],
+                                                                tmpBase + tmpRecord.dirtyBytes.nextSetBit( 0 ) );
+                this.pendingTo[ tmpSegmentIndex ] = Math.max( this.pendingTo[ tmpSegmentIndex ],
+                                                              tmpBase + tmpRecord.dirtyBytes.length( ) );
+                tmpRecord.clearDirty( );
+            }
+        }
+    }
+
+    protected void notifyRecordsChanged( ) {
+        for ( BitStoreRecordMappedFileSource tmpRecord : this.records ) {
+            tmpRecord.notifyChanged( 0,
+                                     tmpRecord.byteLength * Byte.SIZE );
+        }
+    }
+
+    /**
+     *
+     * Copia a imagem completa do <i>slot</i> corrente ("{@link #getSlotLength( )}" bytes) para o
+     * array indicado, sem passar pelos registros.
+     *
+     */
+    public void getSlotBytes( byte[ ] targetArray,
+                              int targetOffset )
+        throws BitStoreSetupException {
+        this.getSlotBuffer( ).get( this.slotBase,
+                                   targetArray,
+                                   targetOffset,
+                                   this.slotLength );
+    }
+
+    /**
+     *
+     * Grava a imagem completa do <i>slot</i> corrente a partir do array indicado, sem passar pelos
+     * registros.
+     *
+     */
+    public void setSlotBytes( byte[ ] sourceArray,
+                              int sourceOffset )
+        throws BitStoreSetupException,
+            BitStoreAccessException {
+        if ( this.isReadOnly ) {
+            throw new BitStoreAccessException( "Arquivo '%s' do mapa '%s' aberto somente para leitura",
+                                               this.filePath,
+                                               this.mapName );
+        }
+        this.getSlotBuffer( ).put( this.slotBase,
+                                   sourceArray,
+                                   sourceOffset,
+                                   this.slotLength );
+        for ( BitStoreRecordMappedFileSource tmpRecord : this.records ) {
+            tmpRecord.markDirty( 0,
+                                 tmpRecord.byteLength * Byte.SIZE );
+        }
+        this.notifyRecordsChanged( );
+    }
+
+    @Override
+    public boolean isActive( ) {
+        return this.fileChannel.isOpen( );
+    }
+
+    @Override
+    public void clearCaches( ) {
+    }
+
+    @Override
+    protected BitStoreRecordSource[ ] getRecords( ) {
+        return this.records;
+    }
+
+    /**
+     *
+     * Fora a gravao em disco apenas das faixas alteradas: as do <i>slot</i> corrente, byte a
+     * byte, e as dos <i>slots</i> deixados para trs, como um intervalo por segmento. Se
+     * "<i>force</i>" for verdadeiro, grava todos os segmentos mapeados do arquivo.
+     *
+     */
+    @Override
+    public void flush( boolean force )
+        throws BitStoreMapException,
+            BitStoreDataException,
+            BitStoreSetupException,
+            BitStoreDeviceException,
+            BitStoreSessionException,
+            BitStoreAuthenticationException,
+            BitStoreAccessException {
+        if ( this.isReadOnly ) {
+            return;
+        }
+        if ( force ) {
+            for ( MappedByteBuffer tmpSegment : this.segments ) {
+                tmpSegment.force( );
+            }
+            for ( BitStoreRecordMappedFileSource tmpRecord : this.records ) {
+                tmpRecord.clearDirty( );
+            }
+        }
+        else {
+            super.flush( false );
+            for ( int tmpIndex = 0; tmpIndex < this.segments.length; tmpIndex++ ) {
+                if ( this.pendingFrom[ tmpIndex ] < this.pendingTo[ tmpIndex ] ) {
+                    this.segments[ tmpIndex ].force( this.pendingFrom[ tmpIndex ],
+                                                     this.pendingTo[ tmpIndex ] - this.pendingFrom[ tmpIndex ] );
+                }
+            }
+        }
+        Arrays.fill( this.pendingFrom,
+                     Integer.MAX_VALUE );
+        Arrays.fill( this.pendingTo,
+                     0 );
+    }
+
+    /**
+     *
+     * Fora a gravao em disco de todos os segmentos mapeados antes de fechar o arquivo: o
+     * mapeamento s  liberado pelo coletor, e o que estiver pendente nele no pode ser perdido.
+     *
+     */
+    @Override
+    public void close( )
+        throws BitStoreDeviceException {
+        try {
+            if ( !this.isReadOnly ) {
+                for ( MappedByteBuffer tmpSegment : this.segments ) {
+                    tmpSegment.force( );
+                }
+                for ( BitStoreRecordMappedFileSource tmpRecord : this.records ) {
+                    tmpRecord.clearDirty( );
+                }
+                Arrays.fill( this.pendingFrom,
+                             Integer.MAX_VALUE );
+                Arrays.fill( this.pendingTo,
+                             0 );
+            }
+        }
+        catch ( UncheckedIOException e ) {
+            this.closeChannel( );
+            throw new BitStoreDeviceException( e.getCause( ),
+                                               "Falha ao gravar o arquivo '%s' do mapa '%s'",
+                                               this.filePath,
+                                               this.mapName );
+        }
+        try {
+            this.fileChannel.close( );
+        }
+        catch ( IOException e ) {
+            throw new BitStoreDeviceException( e,
+                                               "Falha ao fechar o arquivo '%s' do mapa '%s'",
+                                               this.filePath,
+                                               this.mapName );
+        }
+    }
+}
@@ -1,5 +1,12 @@
 package asap.primitive.bits.bitStore;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import asap.primitive.bits.BitHelper;
 import asap.primitive.bits.bitStore.BitStoreData.BitStoreDataException;
 import asap.primitive.bits.bitStore.BitStoreMap.BitStoreMapException;
@@ -141,16 +148,138 @@ public abstract class BitStoreSource {
         }
     }
 
+    /**
+     *
+     * Faixa contgua de bytes alterados em um "{@link BitStoreRecordSource}".
+     *
+     */
+    public static final class BitStoreDirtyRange {
+
+        public final int byteOffset;
+
+        public final int byteLength;
+
+        public BitStoreDirtyRange( int byteOffset,
+                                   int byteLength ) {
+            this.byteOffset = byteOffset;
+            this.byteLength = byteLength;
+        }
+
+        @Override
+        public String toString( ) {
+            return String.format( "[%d, %d)",
+                                  this.byteOffset,
+                                  this.byteOffset + this.byteLength );
+        }
+    }
+
+    /**
+     *
+     * Observador das gravaes em um "{@link BitStoreRecordSource}": recebe a faixa de bits
+     * alterada, nas coordenadas da fonte (as das peas da viso principal).
+     *
+     */
+    public static interface BitStorePieceObserver {
+
+        public abstract void changed( BitStoreRecordSource recordSource,
+                                      int bitOffset,
+                                      int bitLength );
+    }
+
     public static abstract class BitStoreRecordSource {
 
-        public final String         name;
+        public final String                           name;
+
+        public final BitStoreSource                   parentStore;
+
+        protected final List< BitStorePieceObserver > observers;
 
-        public final BitStoreSource parentStore;
+        protected final BitSet                        dirtyBytes;
 
         protected BitStoreRecordSource( String name,
                                         BitStoreSource parentStore ) {
             this.name = name;
             this.parentStore = parentStore;
+            this.observers = new ArrayList< BitStorePieceObserver >( );
+            this.dirtyBytes = new BitSet( );
+        }
+
+        public void attachObserver( BitStorePieceObserver observer ) {
+            if ( ( observer != null ) && !this.observers.contains( observer ) ) {
+                this.observers.add( observer );
+            }
+        }
+
+        public void detachObserver( BitStorePieceObserver observer ) {
+            if ( observer != null ) {
+                this.observers.remove( observer );
+            }
+        }
+
+        protected void notifyChanged( int bitOffset,
+                                      int bitLength ) {
+            for ( int tmpIndex = 0; tmpIndex < this.observers.size( ); tmpIndex++ ) {
+                this.observers.get( tmpIndex ).changed( this,
+                                                        bitOffset,
+                                                        bitLength );
+            }
+        }
+
+        /**
+         *
+         * Marca como alterados, desde o ltimo "{@link #flush( )}", os bytes do registro que contm
+         * a faixa de bits indicada. Deve ser chamado pelas implementaes de
+         * "{@link #setPiece( BitStoreViewPieceMap, boolean, byte[ ], int )}".
+         *
+         */
+        protected void markDirty( int bitOffset,
+                                  int bitLength ) {
+            if ( bitLength > 0 ) {
+                this.dirtyBytes.set( bitOffset / Byte.SIZE,
+                                     ( ( bitOffset + bitLength - 1 ) / Byte.SIZE ) + 1 );
+            }
+        }
+
+        public boolean isDirty( ) {
+            return !this.dirtyBytes.isEmpty( );
+        }
+
+        public void clearDirty( ) {
+            this.dirtyBytes.clear( );
+        }
+
+        /**
+         *
+         * Faixas contguas de bytes alterados, em ordem crescente. Faixas separadas por at
+         * "<i>mergeGap</i>" bytes limpos so unidas em uma s, para dispositivos em que uma escrita
+         * maior custa menos que vrias pequenas.
+         *
+         */
+        public BitStoreDirtyRange[ ] getDirtyRanges( int mergeGap ) {
+            List< BitStoreDirtyRange > tmpRanges = new ArrayList< BitStoreDirtyRange >( );
+            int tmpStart = this.dirtyBytes.nextSetBit( 0 );
+            while ( tmpStart >= 0 ) {
+                int tmpEnd = this.dirtyBytes.nextClearBit( tmpStart );
+                int tmpNext = this.dirtyBytes.nextSetBit( tmpEnd );
+                while ( ( tmpNext >= 0 ) && ( ( tmpNext - tmpEnd ) <= mergeGap ) ) {
+                    tmpEnd = this.dirtyBytes.nextClearBit( tmpNext );
+                    tmpNext = this.dirtyBytes.nextSetBit( tmpEnd );
+                }
+                tmpRanges.add( new BitStoreDirtyRange( tmpStart,
+                                                       tmpEnd - tmpStart ) );
+                tmpStart = tmpNext;
+            }
+            return tmpRanges.toArray( new BitStoreDirtyRange[ tmpRanges.size( ) ] );
+        }
+
+        /**
+         *
+         * Distncia mxima, em bytes, entre duas faixas alteradas unidas em uma s por
+         * "{@link #flush( )}".
+         *
+         */
+        protected int getFlushMergeGap( ) {
+            return 0;
         }
 
         public abstract String[ ] describe( boolean isLittleEndianBits )
@@ -183,14 +312,60 @@ public abstract class BitStoreSource {
                 BitStoreAuthenticationException,
                 BitStoreAccessException;
 
-        public abstract void flush( )
+        /**
+         *
+         * Grava as faixas alteradas desde o ltimo "<i>flush</i>", se houver, e limpa a marcao. Se
+         * a gravao falhar, as faixas continuam marcadas.
+         *
+         */
+        public void flush( )
             throws BitStoreMapException,
                 BitStoreDataException,
                 BitStoreSetupException,
                 BitStoreDeviceException,
                 BitStoreSessionException,
                 BitStoreAuthenticationException,
-                BitStoreAccessException;
+                BitStoreAccessException {
+            if ( this.isDirty( ) ) {
+                this.flushRanges( this.getDirtyRanges( this.getFlushMergeGap( ) ) );
+                this.clearDirty( );
+            }
+        }
+
+        /**
+         *
+         * Grava o registro inteiro, mesmo que nenhuma faixa esteja marcada, e limpa a marcao. A
+         * implementao padro equivale a "{@link #flush( )}"; fontes capazes de sincronizar o
+         * registro todo com o dispositivo devem sobrescrev-la.
+         *
+         */
+        public void forceFlush( )
+            throws BitStoreMapException,
+                BitStoreDataException,
+                BitStoreSetupException,
+                BitStoreDeviceException,
+                BitStoreSessionException,
+                BitStoreAuthenticationException,
+                BitStoreAccessException {
+            this.flush( );
+        }
+
+        /**
+         *
+         * Grava no dispositivo as faixas indicadas. A implementao padro no faz nada, o que
+         * serve s fontes cujo "{@link #setPiece( BitStoreViewPieceMap, boolean, byte[ ], int )}" j
+         * escreve direto no armazenamento.
+         *
+         */
+        protected void flushRanges( BitStoreDirtyRange[ ] dirtyRanges )
+            throws BitStoreMapException,
+                BitStoreDataException,
+                BitStoreSetupException,
+                BitStoreDeviceException,
+                BitStoreSessionException,
+                BitStoreAuthenticationException,
+                BitStoreAccessException {
+        }
     }
 
     public static class BitStoreRecordMemorySource extends BitStoreRecordSource {
@@ -242,10 +417,8 @@ public abstract class BitStoreSource {
                                     this.recordData,
                                     pieceMap.offset,
                                     pieceMap.length );
-        }
-
-        @Override
-        public void flush( ) {
+            this.markDirty( pieceMap.offset,
+                            pieceMap.length );
         }
     }
 
@@ -292,15 +465,17 @@ public abstract class BitStoreSource {
         }
     }
 
-    public final String     name;
+    public final String                                    name;
 
-    public final String     description;
+    public final String                                    description;
 
-    public final String     mapName;
+    public final String                                    mapName;
 
-    public final String     mapDescription;
+    public final String                                    mapDescription;
 
-    protected final byte[ ] mediaId;
+    protected final byte[ ]                                mediaId;
+
+    protected volatile Map< String, BitStoreRecordSource > recordsByName;
 
     public byte[ ] getMediaId( ) {
         return ByteHelper.copyOf( this.mediaId );
@@ -320,16 +495,27 @@ public abstract class BitStoreSource {
         this.mapName = mapName;
         this.mapDescription = mapDescription;
         this.mediaId = ByteHelper.copyOf( mediaId );
+        this.recordsByName = null;
     }
 
     protected abstract BitStoreRecordSource[ ] getRecords( );
 
     public BitStoreRecordSource getRecord( String recordName )
         throws BitStoreMapException {
-        for ( BitStoreRecordSource tmpRecord : this.getRecords( ) ) {
-            if ( tmpRecord.name.compareTo( recordName ) == 0 ) {
-                return tmpRecord;
+        Map< String, BitStoreRecordSource > tmpRecordsByName = this.recordsByName;
+        if ( tmpRecordsByName == null ) {
+            // Os registros s existem aps a construo da subclasse: ndice montado no primeiro acesso
+            Map< String, BitStoreRecordSource > tmpIndex = new HashMap< String, BitStoreRecordSource >( );
+            for ( BitStoreRecordSource tmpRecord : this.getRecords( ) ) {
+                tmpIndex.putIfAbsent( tmpRecord.name,
+                                      tmpRecord );
             }
+            tmpRecordsByName = Collections.unmodifiableMap( tmpIndex );
+            this.recordsByName = tmpRecordsByName;
+        }
+        BitStoreRecordSource tmpResult = tmpRecordsByName.get( recordName );
+        if ( tmpResult != null ) {
+            return tmpResult;
         }
         throw new BitStoreMapException( "No h registro '%s' em '%s' para o mapa '%s'",
                                         recordName,
@@ -357,7 +543,12 @@ public abstract class BitStoreSource {
             BitStoreAuthenticationException,
             BitStoreAccessException {
         for ( BitStoreRecordSource tmpRecord : this.getRecords( ) ) {
-            tmpRecord.flush( );
+            if ( force ) {
+                tmpRecord.forceFlush( );
+            }
+            else {
+                tmpRecord.flush( );
+            }
         }
     }
 }
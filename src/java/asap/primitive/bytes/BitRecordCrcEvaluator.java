@@ -6,11 +6,31 @@ import java.util.List;
 
 import asap.primitive.bits.BitHelper;
 import asap.primitive.bits.bitStore.BitStoreException;
+import asap.primitive.bits.bitStore.BitStoreData.BitStoreFieldData;
 import asap.primitive.bits.bitStore.BitStoreData.BitStoreItemData;
 import asap.primitive.bits.bitStore.BitStoreData.BitStoreRecordData;
+import asap.primitive.bits.bitStore.BitStoreData.BitStoreRecordValidator;
 import asap.primitive.bits.bitStore.BitStoreMap.BitStoreViewPieceMap;
+import asap.primitive.bits.bitStore.BitStoreSource.BitStorePieceObserver;
+import asap.primitive.bits.bitStore.BitStoreSource.BitStoreRecordSource;
 
-public class BitRecordCrcEvaluator {
+/**
+ *
+ * Avaliador dos CRCs de um registro: cada campo chamado "<i>crc</i>" (ou "<i>Crc</i>",
+ * "<i>CRC</i>", com ou sem nmero) protege os itens que o antecedem desde o CRC anterior.<br>
+ * <br>
+ * O avaliador observa as gravaes na fonte de dados do registro, de modo que s os CRCs cujos
+ * itens foram alterados sejam recalculados; alteraes que no passam pela gravao de peas
+ * (releitura da fonte, "<i>clearCaches</i>") no so percebidas e exigem um "<i>reset</i>". H um
+ * nico avaliador por registro, criado por "{@link #getEvaluator( BitStoreRecordData )}" e
+ * reaproveitado pelos mtodos estticos, que s recalculam o que foi alterado; "{@link #close( )}"
+ * o desliga da fonte. Dentro de um CRC a rea protegida  dividida em blocos de
+ * "{@link #CHUNK_LENGTH}" bytes: a contribuio de cada bloco para o registrador final  guardada,
+ * e s os blocos cujos bytes mudaram so recalculados e deslocados at o fim da rea
+ * ("{@link CRCEngine#shift( long, long )}"), o que  possvel porque o CRC  linear.
+ *
+ */
+public class BitRecordCrcEvaluator implements BitStoreRecordValidator {
 
     public static class CrcInstance {
 
@@ -26,6 +46,22 @@ public class BitRecordCrcEvaluator {
 
         protected int                    enclosedBitCount;
 
+        protected BitStoreFieldData[ ]   sourceFields;
+
+        protected int[ ]                 sourceRanges;
+
+        protected int[ ]                 crcSourceRanges;
+
+        protected byte[ ]                recordImage;
+
+        protected byte[ ]                enclosedBytes;
+
+        protected long[ ]                chunkContributions;
+
+        protected boolean                enclosedChanged;
+
+        protected boolean                crcFieldChanged;
+
         protected CrcInstance( BitStoreItemData crcField,
                                List< BitStoreItemData > enclosedItems ) {
             this.crcField = crcField;
@@ -40,36 +76,213 @@ public class BitRecordCrcEvaluator {
                 }
                 this.enclosedBitCount += tmpItem.getBitLength( );
             }
+            BitStoreRecordData tmpRecord = crcField.getParentRecord( );
+            this.recordImage = new byte[ tmpRecord.getByteLength( ) ];
+            List< BitStoreFieldData > tmpSourceFields = new ArrayList< BitStoreFieldData >( );
+            if ( this.enclosedBitCount > 0 ) {
+                for ( BitStoreFieldData tmpField : tmpRecord.getFields( true ) ) {
+                    if ( this.isEnclosed( tmpField ) ) {
+                        tmpSourceFields.add( tmpField );
+                    }
+                }
+                Arrays.fill( this.recordImage,
+                             (byte) 0 );
+            }
+            this.sourceFields = tmpSourceFields.toArray( new BitStoreFieldData[ 0 ] );
+            this.sourceRanges = getSourceRanges( this.sourceFields );
+            this.crcSourceRanges = ( ( crcField instanceof BitStoreFieldData ) ? getSourceRanges( (BitStoreFieldData) crcField )
+                                                                             : new int[ 0 ] );
             this.reset( );
         }
 
+        /**
+         *
+         * Indica se algum bit do campo cai na rea protegida, posicionando uma mscara do campo na
+         * imagem do registro exatamente como "{@link BitStoreRecordData#getBytes( )}" posiciona o
+         * valor.
+         *
+         */
+        protected boolean isEnclosed( BitStoreFieldData field ) {
+            byte[ ] tmpFieldMask = new byte[ field.getViewFieldMap( ).getByteLength( ) ];
+            Arrays.fill( tmpFieldMask,
+                         (byte) 0xFF );
+            Arrays.fill( this.recordImage,
+                         (byte) 0 );
+            this.placeField( field,
+                             tmpFieldMask );
+            byte[ ] tmpEnclosedMask = BitHelper.createBitArrayBuffer( this.enclosedBitCount );
+            BitHelper.bitArrayCopy( this.recordImage,
+                                    this.enclosedBitStart,
+                                    tmpEnclosedMask,
+                                    0,
+                                    this.enclosedBitCount );
+            for ( byte tmpByte : tmpEnclosedMask ) {
+                if ( tmpByte != 0 ) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        protected void placeField( BitStoreFieldData field,
+                                   byte[ ] fieldBytes ) {
+            boolean tmpIsLittleEndianBytes = field.getParentRecord( ).isLittleEndianBytes( );
+            int tmpFieldViewOffset = tmpIsLittleEndianBytes ? 0
+                                                            : BitHelper.getBitArrayPadLength( field.getViewFieldMap( ).getBitLength( ) );
+            for ( BitStoreViewPieceMap tmpViewPiece : field.getViewFieldMap( ).getPieces( ) ) {
+                BitHelper.bitArrayCopy( tmpIsLittleEndianBytes,
+                                        fieldBytes,
+                                        tmpFieldViewOffset,
+                                        this.recordImage,
+                                        tmpViewPiece.getOffset( ),
+                                        tmpViewPiece.getLength( ) );
+                tmpFieldViewOffset += tmpViewPiece.getLength( );
+            }
+        }
+
+        protected static int[ ] getSourceRanges( BitStoreFieldData... fields ) {
+            List< BitStoreViewPieceMap > tmpPieces = new ArrayList< BitStoreViewPieceMap >( );
+            for ( BitStoreFieldData tmpField : fields ) {
+                tmpPieces.addAll( Arrays.asList( tmpField.getSourcePieces( ) ) );
+            }
+            int[ ] tmpResult = new int[ tmpPieces.size( ) * 2 ];
+            for ( int tmpIndex = 0; tmpIndex < tmpPieces.size( ); tmpIndex++ ) {
+                tmpResult[ tmpIndex * 2 ] = tmpPieces.get( tmpIndex ).getOffset( );
+                tmpResult[ ( tmpIndex * 2 ) + 1 ] = tmpPieces.get( tmpIndex ).getLength( );
+            }
+            return tmpResult;
+        }
+
+        protected static boolean overlaps( int[ ] ranges,
+                                           int bitOffset,
+                                           int bitLength ) {
+            for ( int tmpIndex = 0; tmpIndex < ranges.length; tmpIndex += 2 ) {
+                if ( ( bitOffset < ( ranges[ tmpIndex ] + ranges[ tmpIndex + 1 ] ) ) && ( ranges[ tmpIndex ] < ( bitOffset + bitLength ) ) ) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        protected void changed( int bitOffset,
+                                int bitLength ) {
+            if ( overlaps( this.sourceRanges,
+                           bitOffset,
+                           bitLength ) ) {
+                this.enclosedChanged = true;
+            }
+            if ( overlaps( this.crcSourceRanges,
+                           bitOffset,
+                           bitLength ) ) {
+                this.crcFieldChanged = true;
+            }
+        }
+
+        public boolean isChanged( ) {
+            return ( this.enclosedChanged || this.crcFieldChanged );
+        }
+
         public void reset( ) {
             this.computedValue = null;
             this.valid = false;
+            this.enclosedBytes = null;
+            this.chunkContributions = null;
+            this.enclosedChanged = true;
+            this.crcFieldChanged = true;
         }
 
         public void compute( )
             throws BitStoreException {
-            byte[ ] tmpEnclosedBytes = BitHelper.createBitArrayBuffer( this.enclosedBitCount );
-            BitHelper.bitArrayCopy( this.crcField.getParentRecord( ).getBytes( ),
-                                    this.enclosedBitStart,
-                                    tmpEnclosedBytes,
-                                    0,
-                                    this.enclosedBitCount );
-            this.computedValue = ByteHelper.toBigEndian( CRC16BU.compute( tmpEnclosedBytes ),
-                                                         2 );
-            this.valid = Arrays.equals( this.crcField.getBytes( ),
-                                        this.computedValue );
+            this.enclosedChanged = true;
+            this.crcFieldChanged = true;
+            this.refresh( );
+        }
+
+        /**
+         *
+         * Recalcula o que foi alterado desde a ltima avaliao: os blocos da rea protegida cujos
+         * bytes mudaram e, em seguida, a comparao com o valor gravado no campo de CRC.
+         *
+         */
+        protected void refresh( )
+            throws BitStoreException {
+            if ( this.enclosedChanged ) {
+                // Antes da leitura: gravaes feitas durante a leitura voltam a marcar a alterao
+                this.enclosedChanged = false;
+                byte[ ] tmpEnclosedBytes = BitHelper.createBitArrayBuffer( this.enclosedBitCount );
+                if ( this.enclosedBitCount > 0 ) {
+                    for ( BitStoreFieldData tmpField : this.sourceFields ) {
+                        this.placeField( tmpField,
+                                         tmpField.getBytes( ) );
+                    }
+                    BitHelper.bitArrayCopy( this.recordImage,
+                                            this.enclosedBitStart,
+                                            tmpEnclosedBytes,
+                                            0,
+                                            this.enclosedBitCount );
+                }
+                byte[ ] tmpComputedValue = ByteHelper.toBigEndian( CRC16BU.fromEngineValue( this.computeCrc( tmpEnclosedBytes ) ),
+                                                                   2 );
+                if ( !Arrays.equals( tmpComputedValue,
+                                     this.computedValue ) ) {
+                    this.computedValue = tmpComputedValue;
+                    this.crcFieldChanged = true;
+                }
+            }
+            if ( this.crcFieldChanged ) {
+                this.crcFieldChanged = false;
+                this.valid = Arrays.equals( this.crcField.getBytes( ),
+                                            this.computedValue );
+            }
+        }
+
+        protected long computeCrc( byte[ ] enclosedBytes ) {
+            CRCEngine tmpEngine = CRC16BU.getEngine( );
+            int tmpChunkCount = ( ( enclosedBytes.length + CHUNK_LENGTH ) - 1 ) / CHUNK_LENGTH;
+            byte[ ] tmpPreviousBytes = this.enclosedBytes;
+            if ( this.chunkContributions == null ) {
+                this.chunkContributions = new long[ tmpChunkCount ];
+                tmpPreviousBytes = null;
+            }
+            long tmpRegister = tmpEngine.shift( tmpEngine.getInitialState( ),
+                                                enclosedBytes.length );
+            for ( int tmpChunk = 0; tmpChunk < tmpChunkCount; tmpChunk++ ) {
+                int tmpChunkStart = tmpChunk * CHUNK_LENGTH;
+                int tmpChunkEnd = Math.min( tmpChunkStart + CHUNK_LENGTH,
+                                            enclosedBytes.length );
+                if ( ( tmpPreviousBytes == null ) || !Arrays.equals( enclosedBytes,
+                                                                     tmpChunkStart,
+                                                                     tmpChunkEnd,
+                                                                     tmpPreviousBytes,
+                                                                     tmpChunkStart,
+                                                                     tmpChunkEnd ) ) {
+                    // Registrador do bloco a partir de zero, levado at o fim da rea protegida
+                    this.chunkContributions[ tmpChunk ] = tmpEngine.shift( tmpEngine.update( 0L,
+                                                                                             enclosedBytes,
+                                                                                             tmpChunkStart,
+                                                                                             tmpChunkEnd - tmpChunkStart ),
+                                                                           enclosedBytes.length - tmpChunkEnd );
+                }
+                tmpRegister ^= this.chunkContributions[ tmpChunk ];
+            }
+            this.enclosedBytes = enclosedBytes;
+            return tmpEngine.getValue( tmpRegister );
         }
     }
 
+    public static final int                           CHUNK_LENGTH = 16;
+
     public final BitRecordCrcEvaluator.CrcInstance[ ] crcInstances;
 
     public boolean                                    checked;
 
     public boolean                                    valid;
 
-    public BitRecordCrcEvaluator( BitStoreRecordData record ) {
+    protected final BitStoreRecordSource              recordSource;
+
+    protected final BitStorePieceObserver             pieceObserver;
+
+    protected BitRecordCrcEvaluator( BitStoreRecordData record ) {
         List< BitRecordCrcEvaluator.CrcInstance > tmpCrcInstances = new ArrayList< BitRecordCrcEvaluator.CrcInstance >( );
         List< BitStoreItemData > tmpEnclosedItens = new ArrayList< BitStoreItemData >( );
         for ( BitStoreItemData tmpItem : record.getItems( ) ) {
@@ -86,8 +299,36 @@ public class BitRecordCrcEvaluator {
         this.crcInstances = tmpCrcInstances.toArray( new BitRecordCrcEvaluator.CrcInstance[ 0 ] );
         this.checked = false;
         this.valid = false;
+        this.recordSource = record.getRecordSource( );
+        this.pieceObserver = new BitStorePieceObserver( ) {
+
+            @Override
+            public void changed( BitStoreRecordSource recordSource,
+                                 int bitOffset,
+                                 int bitLength ) {
+                for ( CrcInstance tmpInstance : BitRecordCrcEvaluator.this.crcInstances ) {
+                    tmpInstance.changed( bitOffset,
+                                         bitLength );
+                    if ( tmpInstance.isChanged( ) ) {
+                        BitRecordCrcEvaluator.this.checked = false;
+                    }
+                }
+            }
+        };
+        this.recordSource.attachObserver( this.pieceObserver );
+    }
+
+    /**
+     *
+     * Desliga o avaliador da fonte de dados do registro; depois disso alteraes no registro
+     * deixam de ser percebidas.
+     *
+     */
+    public void close( ) {
+        this.recordSource.detachObserver( this.pieceObserver );
     }
 
+    @Override
     public void reset( ) {
         for ( CrcInstance tmpInstance : this.crcInstances ) {
             tmpInstance.reset( );
@@ -100,7 +341,9 @@ public class BitRecordCrcEvaluator {
         throws BitStoreException {
         boolean tmpValid = true;
         for ( CrcInstance tmpInstance : this.crcInstances ) {
-            tmpInstance.compute( );
+            if ( tmpInstance.isChanged( ) ) {
+                tmpInstance.refresh( );
+            }
             if ( !tmpInstance.valid ) {
                 tmpValid = false;
             }
@@ -109,21 +352,53 @@ public class BitRecordCrcEvaluator {
         this.valid = tmpValid;
     }
 
-    public static boolean validate( BitStoreRecordData record )
+    @Override
+    public boolean validate( )
         throws BitStoreException {
-        return new BitRecordCrcEvaluator( record ).valid;
+        if ( !this.checked ) {
+            this.compute( );
+        }
+        return this.valid;
     }
 
-    public static void update( BitStoreRecordData record )
+    @Override
+    public void update( )
         throws BitStoreException {
-        BitRecordCrcEvaluator tmpRecordCRC = new BitRecordCrcEvaluator( record );
-        if ( !tmpRecordCRC.valid ) {
-            for ( BitRecordCrcEvaluator.CrcInstance tmpInstance : tmpRecordCRC.crcInstances ) {
-                tmpInstance.compute( );
+        if ( !this.validate( ) ) {
+            for ( BitRecordCrcEvaluator.CrcInstance tmpInstance : this.crcInstances ) {
                 if ( !tmpInstance.valid ) {
                     tmpInstance.crcField.setBytes( tmpInstance.computedValue );
                 }
             }
+            this.compute( );
+        }
+    }
+
+    /**
+     *
+     * Avaliador mantido com o registro ("{@link BitStoreRecordData#getValidator( )}"), criado no
+     * primeiro uso.
+     *
+     */
+    public static BitRecordCrcEvaluator getEvaluator( BitStoreRecordData record ) {
+        BitStoreRecordValidator tmpValidator = record.getValidator( );
+        if ( tmpValidator instanceof BitRecordCrcEvaluator ) {
+            return (BitRecordCrcEvaluator) tmpValidator;
         }
+        BitRecordCrcEvaluator tmpEvaluator = new BitRecordCrcEvaluator( record );
+        record.setValidator( tmpEvaluator );
+        return tmpEvaluator;
+    }
+
+    public static boolean validate( BitStoreRecordData record )
+        throws BitStoreException {
+        BitRecordCrcEvaluator tmpEvaluator = getEvaluator( record );
+        return tmpEvaluator.validate( );
+    }
+
+    public static void update( BitStoreRecordData record )
+        throws BitStoreException {
+        BitRecordCrcEvaluator tmpEvaluator = getEvaluator( record );
+        tmpEvaluator.update( );
     }
 }
@@ -0,0 +1,435 @@
+package asap.primitive.bytes;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+/**
+ *
+ * Motor de clculo de CRC com tabelas "<i>slicing-by-8</i>" (oito bytes por passo), para qualquer
+ * CRC de ordem 1 a 32 descrito por um "{@link CRC}".<br>
+ * <br>
+ * O clculo  feito sobre um registrador interno (o estado), o que permite processar a mensagem
+ * em partes e retomar o clculo mais tarde: "{@link #getInitialState( )}" d o estado inicial,
+ * "<i>update</i>" avana o estado sobre um trecho da mensagem e "{@link #getValue( long )}" d o
+ * valor do CRC para um estado, sem alter-lo. Para CRCs refletidos o registrador fica nos bits
+ * baixos, refletido; para os demais fica alinhado ao bit 31, de modo que as mesmas tabelas de 32
+ * bits servem para todas as ordens.<br>
+ * <br>
+ * Quando os parmetros so os do CRC-32 (ISO-HDLC) ou do CRC-32C (Castagnoli), trechos maiores
+ * so calculados por "<i>java.util.zip.CRC32</i>" e "<i>java.util.zip.CRC32C</i>", que a JVM
+ * substitui por instrues do processador. Como essas classes sempre partem do estado inicial, o
+ * estado anterior  combinado ao resultado com "{@link #shift( long, long )}", que avana um
+ * estado sobre uma quantidade qualquer de bytes zero em tempo logartmico.<br>
+ * <br>
+ * O motor  imutvel e pode ser compartilhado entre <i>threads</i>; o resultado  sempre igual ao
+ * de "{@link CRC#crc_bitbybit_fast( byte[] )}".
+ *
+ */
+public class CRCEngine {
+
+    protected static enum CRCIntrinsic {
+        CRC32( 0x04C11DB7L ) {
+
+            @Override
+            protected Checksum createChecksum( ) {
+                return new CRC32( );
+            }
+        },
+        CRC32C( 0x1EDC6F41L ) {
+
+            @Override
+            protected Checksum createChecksum( ) {
+                return new CRC32C( );
+            }
+        };
+
+        protected final long polynom;
+
+        private CRCIntrinsic( long polynom ) {
+            this.polynom = polynom;
+        }
+
+        protected abstract Checksum createChecksum( );
+
+        protected static CRCIntrinsic search( CRC parameters ) {
+            if ( ( parameters.order != 32 ) || !parameters.refin
+                 || !parameters.refout
+                 || ( parameters.crcinit_direct != 0xFFFFFFFFL )
+                 || ( parameters.crcxor != 0xFFFFFFFFL ) ) {
+                return null;
+            }
+            for ( CRCIntrinsic tmpIntrinsic : CRCIntrinsic.values( ) ) {
+                if ( tmpIntrinsic.polynom == parameters.polynom ) {
+                    return tmpIntrinsic;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     *
+     * Clculo contnuo de um CRC no padro "<i>java.util.zip.Checksum</i>", cujo estado pode ser
+     * lido e restaurado para retomar o clculo.
+     *
+     */
+    public static class CRCChecksum implements Checksum {
+
+        protected final CRCEngine engine;
+
+        protected long            state;
+
+        protected CRCChecksum( CRCEngine engine ) {
+            this.engine = engine;
+            this.state = engine.getInitialState( );
+        }
+
+        public CRCEngine getEngine( ) {
+            return this.engine;
+        }
+
+        public long getState( ) {
+            return this.state;
+        }
+
+        public void setState( long state ) {
+            this.state = state;
+        }
+
+        @Override
+        public void update( int b ) {
+            this.state = this.engine.update( this.state,
+                                             (byte) b );
+        }
+
+        @Override
+        public void update( byte[ ] b,
+                            int off,
+                            int len ) {
+            this.state = this.engine.update( this.state,
+                                             b,
+                                             off,
+                                             len );
+        }
+
+        @Override
+        public void update( ByteBuffer buffer ) {
+            this.state = this.engine.update( this.state,
+                                             buffer );
+        }
+
+        @Override
+        public long getValue( ) {
+            return this.engine.getValue( this.state );
+        }
+
+        @Override
+        public void reset( ) {
+            this.state = this.engine.getInitialState( );
+        }
+    }
+
+    public static final int      INTRINSIC_THRESHOLD = 64;
+
+    protected static final int   SLICE_LENGTH        = 8;
+
+    protected final CRC          parameters;
+
+    protected final boolean      isReflected;
+
+    protected final int          alignShift;
+
+    protected final int[ ][ ]    tables;
+
+    protected final int          initialRegister;
+
+    protected final CRCIntrinsic intrinsic;
+
+    protected volatile int[ ][ ] shiftOperators;
+
+    public CRCEngine( CRC parameters,
+                      boolean useIntrinsics ) {
+        this.parameters = parameters;
+        this.isReflected = parameters.refin;
+        this.alignShift = ( Integer.SIZE - parameters.order );
+        this.tables = new int[ SLICE_LENGTH ][ 256 ];
+        int tmpPolynom = ( this.isReflected ? (int) parameters.reflect( parameters.polynom,
+                                                                        parameters.order )
+                                            : ( (int) parameters.polynom << this.alignShift ) );
+        for ( int tmpTableIndex = 0; tmpTableIndex < 256; tmpTableIndex++ ) {
+            int tmpTableEntry = ( this.isReflected ? tmpTableIndex
+                                                   : ( tmpTableIndex << 24 ) );
+            for ( int tmpBitIndex = 0; tmpBitIndex < Byte.SIZE; tmpBitIndex++ ) {
+                if ( this.isReflected ) {
+                    tmpTableEntry = ( ( ( tmpTableEntry & 1 ) != 0 ) ? ( ( tmpTableEntry >>> 1 ) ^ tmpPolynom )
+                                                                    : ( tmpTableEntry >>> 1 ) );
+                }
+                else {
+                    tmpTableEntry = ( ( tmpTableEntry < 0 ) ? ( ( tmpTableEntry << 1 ) ^ tmpPolynom )
+                                                            : ( tmpTableEntry << 1 ) );
+                }
+            }
+            this.tables[ 0 ][ tmpTableIndex ] = tmpTableEntry;
+        }
+        for ( int tmpSlice = 1; tmpSlice < SLICE_LENGTH; tmpSlice++ ) {
+            for ( int tmpTableIndex = 0; tmpTableIndex < 256; tmpTableIndex++ ) {
+                this.tables[ tmpSlice ][ tmpTableIndex ] = this.zeroByte( this.tables[ tmpSlice - 1 ][ tmpTableIndex ] );
+            }
+        }
+        this.initialRegister = ( this.isReflected ? (int) parameters.reflect( parameters.crcinit_direct,
+                                                                              parameters.order )
+                                                  : ( (int) parameters.crcinit_direct << this.alignShift ) );
+        this.intrinsic = ( useIntrinsics ? CRCIntrinsic.search( parameters )
+                                         : null );
+        this.shiftOperators = null;
+    }
+
+    public CRCEngine( CRC parameters ) {
+        this( parameters,
+              true );
+    }
+
+    public CRC getParameters( ) {
+        return this.parameters;
+    }
+
+    public boolean isIntrinsic( ) {
+        return ( this.intrinsic != null );
+    }
+
+    public CRCChecksum createChecksum( ) {
+        return new CRCChecksum( this );
+    }
+
+    public long getInitialState( ) {
+        return ( this.initialRegister & 0xFFFFFFFFL );
+    }
+
+    public long getValue( long state ) {
+        long tmpResult;
+        if ( this.isReflected ) {
+            tmpResult = state;
+            if ( !this.parameters.refout ) {
+                tmpResult = this.parameters.reflect( tmpResult,
+                                                     this.parameters.order );
+            }
+        }
+        else {
+            tmpResult = ( ( state & 0xFFFFFFFFL ) >>> this.alignShift );
+            if ( this.parameters.refout ) {
+                tmpResult = this.parameters.reflect( tmpResult,
+                                                     this.parameters.order );
+            }
+        }
+        return ( ( tmpResult ^ this.parameters.crcxor ) & this.parameters.crcmask );
+    }
+
+    public long compute( byte[ ] message ) {
+        return this.getValue( this.update( this.getInitialState( ),
+                                           message,
+                                           0,
+                                           message.length ) );
+    }
+
+    public long compute( byte[ ] message,
+                         int offset,
+                         int length ) {
+        return this.getValue( this.update( this.getInitialState( ),
+                                           message,
+                                           offset,
+                                           length ) );
+    }
+
+    /**
+     *
+     * Avana o registrador sobre um byte zero.
+     *
+     */
+    protected int zeroByte( int register ) {
+        return ( this.isReflected ? ( this.tables[ 0 ][ register & 0xFF ] ^ ( register >>> 8 ) )
+                                  : ( this.tables[ 0 ][ register >>> 24 ] ^ ( register << 8 ) ) );
+    }
+
+    public long update( long state,
+                        byte data ) {
+        int tmpRegister = (int) state;
+        tmpRegister = ( this.isReflected ? ( this.tables[ 0 ][ ( tmpRegister ^ data ) & 0xFF ] ^ ( tmpRegister >>> 8 ) )
+                                         : ( this.tables[ 0 ][ ( ( tmpRegister >>> 24 ) ^ data ) & 0xFF ] ^ ( tmpRegister << 8 ) ) );
+        return ( tmpRegister & 0xFFFFFFFFL );
+    }
+
+    public long update( long state,
+                        byte[ ] data,
+                        int offset,
+                        int length ) {
+        if ( ( this.intrinsic != null ) && ( length >= INTRINSIC_THRESHOLD ) ) {
+            Checksum tmpChecksum = this.intrinsic.createChecksum( );
+            tmpChecksum.update( data,
+                                offset,
+                                length );
+            return this.combineIntrinsic( state,
+                                          tmpChecksum,
+                                          length );
+        }
+        return this.updateTables( state,
+                                  ByteBuffer.wrap( data,
+                                                   offset,
+                                                   length ) );
+    }
+
+    /**
+     *
+     * Avana o estado sobre os bytes restantes do buffer, que fica com a posio no seu limite.
+     *
+     */
+    public long update( long state,
+                        ByteBuffer data ) {
+        int tmpLength = data.remaining( );
+        if ( ( this.intrinsic != null ) && ( tmpLength >= INTRINSIC_THRESHOLD ) ) {
+            Checksum tmpChecksum = this.intrinsic.createChecksum( );
+            tmpChecksum.update( data );
+            return this.combineIntrinsic( state,
+                                          tmpChecksum,
+                                          tmpLength );
+        }
+        long tmpResult = this.updateTables( state,
+                                            data );
+        data.position( data.limit( ) );
+        return tmpResult;
+    }
+
+    protected long combineIntrinsic( long state,
+                                     Checksum checksum,
+                                     long length ) {
+        // Registrador refletido a partir do estado inicial: o valor final antes do XOR final
+        long tmpResult = ( ( checksum.getValue( ) ^ this.parameters.crcxor ) & 0xFFFFFFFFL );
+        long tmpDelta = ( ( state ^ this.initialRegister ) & 0xFFFFFFFFL );
+        if ( tmpDelta != 0 ) {
+            tmpResult ^= this.shift( tmpDelta,
+                                     length );
+        }
+        return tmpResult;
+    }
+
+    protected long updateTables( long state,
+                                 ByteBuffer data ) {
+        ByteBuffer tmpData = data.duplicate( ).order( this.isReflected ? ByteOrder.LITTLE_ENDIAN
+                                                                        : ByteOrder.BIG_ENDIAN );
+        int tmpCursor = tmpData.position( );
+        int tmpLimit = tmpData.limit( );
+        int tmpRegister = (int) state;
+        int[ ] tmpTable0 = this.tables[ 0 ];
+        int[ ] tmpTable1 = this.tables[ 1 ];
+        int[ ] tmpTable2 = this.tables[ 2 ];
+        int[ ] tmpTable3 = this.tables[ 3 ];
+        int[ ] tmpTable4 = this.tables[ 4 ];
+        int[ ] tmpTable5 = this.tables[ 5 ];
+        int[ ] tmpTable6 = this.tables[ 6 ];
+        int[ ] tmpTable7 = this.tables[ 7 ];
+        if ( this.isReflected ) {
+            for ( ; ( tmpCursor + SLICE_LENGTH ) <= tmpLimit; tmpCursor += SLICE_LENGTH ) {
+                long tmpWord = tmpData.getLong( tmpCursor );
+                int tmpLow = ( tmpRegister ^ (int) tmpWord );
+                int tmpHigh = (int) ( tmpWord >>> 32 );
+                tmpRegister = ( tmpTable7[ tmpLow & 0xFF ] ^ tmpTable6[ ( tmpLow >>> 8 ) & 0xFF ]
+                                ^ tmpTable5[ ( tmpLow >>> 16 ) & 0xFF ]
+                                ^ tmpTable4[ tmpLow >>> 24 ]
+                                ^ tmpTable3[ tmpHigh & 0xFF ]
+                                ^ tmpTable2[ ( tmpHigh >>> 8 ) & 0xFF ]
+                                ^ tmpTable1[ ( tmpHigh >>> 16 ) & 0xFF ]
+                                ^ tmpTable0[ tmpHigh >>> 24 ] );
+            }
+            for ( ; tmpCursor < tmpLimit; tmpCursor++ ) {
+                tmpRegister = ( tmpTable0[ ( tmpRegister ^ tmpData.get( tmpCursor ) ) & 0xFF ] ^ ( tmpRegister >>> 8 ) );
+            }
+        }
+        else {
+            for ( ; ( tmpCursor + SLICE_LENGTH ) <= tmpLimit; tmpCursor += SLICE_LENGTH ) {
+                long tmpWord = tmpData.getLong( tmpCursor );
+                int tmpHigh = ( tmpRegister ^ (int) ( tmpWord >>> 32 ) );
+                int tmpLow = (int) tmpWord;
+                tmpRegister = ( tmpTable7[ tmpHigh >>> 24 ] ^ tmpTable6[ ( tmpHigh >>> 16 ) & 0xFF ]
+                                ^ tmpTable5[ ( tmpHigh >>> 8 ) & 0xFF ]
+                                ^ tmpTable4[ tmpHigh & 0xFF ]
+                                ^ tmpTable3[ tmpLow >>> 24 ]
+                                ^ tmpTable2[ ( tmpLow >>> 16 ) & 0xFF ]
+                                ^ tmpTable1[ ( tmpLow >>> 8 ) & 0xFF ]
+                                ^ tmpTable0[ tmpLow & 0xFF ] );
+            }
+            for ( ; tmpCursor < tmpLimit; tmpCursor++ ) {
+                tmpRegister = ( tmpTable0[ ( ( tmpRegister >>> 24 ) ^ tmpData.get( tmpCursor ) ) & 0xFF ] ^ ( tmpRegister << 8 ) );
+            }
+        }
+        return ( tmpRegister & 0xFFFFFFFFL );
+    }
+
+    /**
+     *
+     * Avana um estado sobre "<i>zeroByteCount</i>" bytes zero, sem percorr-los: o operador de
+     * avano de 2^k bytes  uma matriz 32x32 sobre GF(2), e as matrizes so elevadas ao quadrado
+     * uma nica vez, no primeiro uso. Como o CRC  linear, o estado depois de A seguido de B  o
+     * estado de A avanado sobre os bytes de B, combinado (XOR) com o registrador de B calculado a
+     * partir de um estado zero.
+     *
+     */
+    public long shift( long state,
+                       long zeroByteCount ) {
+        int[ ][ ] tmpOperators = this.getShiftOperators( );
+        int tmpRegister = (int) state;
+        for ( int tmpLevel = 0; zeroByteCount != 0; tmpLevel++, zeroByteCount >>>= 1 ) {
+            if ( ( zeroByteCount & 1 ) != 0 ) {
+                tmpRegister = applyOperator( tmpOperators[ tmpLevel ],
+                                             tmpRegister );
+            }
+        }
+        return ( tmpRegister & 0xFFFFFFFFL );
+    }
+
+    /**
+     *
+     * Combina o estado de uma mensagem A com o estado de uma mensagem B, calculado a partir do
+     * estado inicial, dando o estado da mensagem A seguida de B.
+     *
+     */
+    public long combine( long stateA,
+                         long stateB,
+                         long lengthB ) {
+        return ( ( stateB ^ this.shift( stateA ^ this.initialRegister,
+                                        lengthB ) ) & 0xFFFFFFFFL );
+    }
+
+    protected int[ ][ ] getShiftOperators( ) {
+        int[ ][ ] tmpResult = this.shiftOperators;
+        if ( tmpResult == null ) {
+            tmpResult = new int[ Long.SIZE ][ ];
+            tmpResult[ 0 ] = new int[ Integer.SIZE ];
+            for ( int tmpBit = 0; tmpBit < Integer.SIZE; tmpBit++ ) {
+                tmpResult[ 0 ][ tmpBit ] = this.zeroByte( 1 << tmpBit );
+            }
+            for ( int tmpLevel = 1; tmpLevel < tmpResult.length; tmpLevel++ ) {
+                int[ ] tmpPrevious = tmpResult[ tmpLevel - 1 ];
+                tmpResult[ tmpLevel ] = new int[ Integer.SIZE ];
+                for ( int tmpBit = 0; tmpBit < Integer.SIZE; tmpBit++ ) {
+                    tmpResult[ tmpLevel ][ tmpBit ] = applyOperator( tmpPrevious,
+                                                                     tmpPrevious[ tmpBit ] );
+                }
+            }
+            this.shiftOperators = tmpResult;
+        }
+        return tmpResult;
+    }
+
+    protected static int applyOperator( int[ ] operator,
+                                        int register ) {
+        int tmpResult = 0;
+        for ( int tmpBit = 0; register != 0; tmpBit++, register >>>= 1 ) {
+            if ( ( register & 1 ) != 0 ) {
+                tmpResult ^= operator[ tmpBit ];
+            }
+        }
+        return tmpResult;
+    }
+}
@@ -1,11 +1,13 @@
 package asap.primitive.bytes.codec;
 
-import java.util.ArrayList;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 
 import asap.primitive.bytes.ByteHelper;
 import asap.primitive.bytes.codec.ByteCodecMap.ByteCodecContainerMap;
@@ -15,6 +17,7 @@ import asap.primitive.bytes.codec.ByteCodecMap.ByteCodecFileMap;
 import asap.primitive.bytes.codec.ByteCodecMap.ByteCodecItemDataType;
 import asap.primitive.bytes.codec.ByteCodecMap.ByteCodecItemLengthType;
 import asap.primitive.bytes.codec.ByteCodecMap.ByteCodecItemMap;
+import asap.primitive.bytes.codec.ByteCodecMap.ByteCodecMapException;
 import asap.primitive.bytes.codec.ByteCodecMap.ByteCodecRecordArrayMap;
 import asap.primitive.bytes.codec.ByteCodecMap.ByteCodecRecordMap;
 
@@ -55,6 +58,13 @@ public class ByteCodecData {
 
         public final int               offset;
 
+        /**
+         *
+         * Posio do item nos dados do arquivo.
+         *
+         */
+        public final int               absoluteOffset;
+
         protected Integer              length;
 
         protected ByteCodecItemData( ByteCodecItemMap map,
@@ -65,6 +75,8 @@ public class ByteCodecData {
             this.parent = parent;
             this.index = index;
             this.offset = offset;
+            this.absoluteOffset = ( parent != null ) ? ( parent.absoluteOffset + offset )
+                                                     : offset;
             this.length = null;
         }
 
@@ -86,13 +98,62 @@ public class ByteCodecData {
         }
 
         public int getLength( ) {
+            if ( this.length == null ) {
+                this.length = this.resolveLength( );
+            }
             return this.length;
         }
 
+        /**
+         *
+         * Tamanho do item segundo o mapa, lido dos dados quando depende de outro campo, ou
+         * "<i>null</i>" se o tipo de tamanho no se aplica ao item.
+         *
+         */
+        protected Integer resolveLength( ) {
+            switch ( this.map.lengthType ) {
+                case FixedLength:
+                    return this.map.fixedLength;
+                case PreviousField:
+                    return ( (ByteCodecContainerData) this.parent ).getItem( this.index - 1 ).getInteger( ).intValue( );
+                case ArbitraryField: {
+                    ByteCodecFileData tmpRoot = this.getRoot( );
+                    try {
+                        return this.map.getLengthFieldPath( (ByteCodecFileMap) tmpRoot.map ).getItem( tmpRoot ).getInteger( ).intValue( );
+                    }
+                    catch ( ByteCodecMapException e ) {
+                        // Itens de elementos de arrays s compilam o caminho aqui, no primeiro uso
+                        throw new IllegalStateException( String.format( "Campo de tamanho invlido para '%s': %s",
+                                                                        this.getPath( ),
+                                                                        e.getMessage( ) ),
+                                                         e );
+                    }
+                }
+                case RemainingOfRecord:
+                    return ( this.parent.getLength( ) - this.offset );
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         *
+         * Resolve o item e tudo o que ele contm, validando os tamanhos.
+         *
+         */
+        protected void engage( )
+            throws ByteCodecDataException {
+            this.length = this.resolveLength( );
+            if ( this.length == null ) {
+                throw new ByteCodecDataException( "Tamanho indefinido para '%s'",
+                                                  this.getPath( ) );
+            }
+        }
+
         public byte[ ] getBytes( int offset,
                                  int length ) {
-            return this.parent.getBytes( ( this.offset + offset ),
-                                         length );
+            return this.getRoot( ).getBytes( ( this.absoluteOffset + offset ),
+                                             length );
         }
 
         public byte[ ] getBytes( ) {
@@ -106,7 +167,8 @@ public class ByteCodecData {
                 case Integer:
                 case Date:
                 case Time:
-                    return ByteHelper.fromBigEndian( this.getBytes( ) );
+                    return this.getRoot( ).getBigEndian( this.absoluteOffset,
+                                                         this.getLength( ) );
                 default:
                     break;
             }
@@ -116,21 +178,20 @@ public class ByteCodecData {
         public Date getDate( ) {
             if ( ( this.map.dataType == ByteCodecItemDataType.Date )
                  || ( this.map.dataType == ByteCodecItemDataType.DateTime ) ) {
-                byte[ ] tmpBytes = this.getBytes( );
-                GregorianCalendar tmpCalendar = new GregorianCalendar( (int) ByteHelper.fromBigEndian( Arrays.copyOfRange( tmpBytes,
-                                                                                                                           0,
-                                                                                                                           2 ) ),
-                                                                       (int) ( ( tmpBytes[ 2 ] > 0 ) ? ( tmpBytes[ 2 ]
-                                                                                                         - 1 )
-                                                                                                     : 0 ),
-                                                                       (int) tmpBytes[ 3 ] );
+                ByteCodecFileData tmpRoot = this.getRoot( );
+                byte tmpMonth = tmpRoot.getByte( this.absoluteOffset + 2 );
+                GregorianCalendar tmpCalendar = new GregorianCalendar( (int) tmpRoot.getBigEndian( this.absoluteOffset,
+                                                                                                   2 ),
+                                                                       (int) ( ( tmpMonth > 0 ) ? ( tmpMonth - 1 )
+                                                                                                : 0 ),
+                                                                       (int) tmpRoot.getByte( this.absoluteOffset + 3 ) );
                 if ( this.map.dataType == ByteCodecItemDataType.DateTime ) {
                     tmpCalendar.add( Calendar.HOUR,
-                                     (int) tmpBytes[ 4 ] );
+                                     (int) tmpRoot.getByte( this.absoluteOffset + 4 ) );
                     tmpCalendar.add( Calendar.MINUTE,
-                                     (int) tmpBytes[ 5 ] );
+                                     (int) tmpRoot.getByte( this.absoluteOffset + 5 ) );
                     tmpCalendar.add( Calendar.SECOND,
-                                     (int) tmpBytes[ 6 ] );
+                                     (int) tmpRoot.getByte( this.absoluteOffset + 6 ) );
                 }
                 return tmpCalendar.getTime( );
             }
@@ -140,12 +201,12 @@ public class ByteCodecData {
         public Integer getTime( ) {
             if ( ( this.map.dataType == ByteCodecItemDataType.Time )
                  || ( this.map.dataType == ByteCodecItemDataType.DateTime ) ) {
-                byte[ ] tmpBytes = this.getBytes( );
-                int tmpOffset = ( this.map.dataType == ByteCodecItemDataType.Time ) ? 0
-                                                                                    : 4;
-                return ( ( tmpBytes[ tmpOffset + 0 ] * 60 * 60 )
-                         + ( tmpBytes[ tmpOffset + 1 ] * 60 )
-                         + tmpBytes[ tmpOffset + 2 ] );
+                ByteCodecFileData tmpRoot = this.getRoot( );
+                int tmpOffset = this.absoluteOffset + ( ( this.map.dataType == ByteCodecItemDataType.Time ) ? 0
+                                                                                                            : 4 );
+                return ( ( tmpRoot.getByte( tmpOffset + 0 ) * 60 * 60 )
+                         + ( tmpRoot.getByte( tmpOffset + 1 ) * 60 )
+                         + tmpRoot.getByte( tmpOffset + 2 ) );
             }
             return null;
         }
@@ -169,14 +230,12 @@ public class ByteCodecData {
                     return ByteCodecDateTimeFieldMap.PRINT_DATE_TIME_FORMAT.format( this.getDate( ) );
                 case File:
                 case Record: {
+                    ByteCodecContainerData tmpContainer = (ByteCodecContainerData) this;
                     StringBuilder tmpBuffer = new StringBuilder( );
                     tmpBuffer.append( "{" );
-                    boolean tmpFirstItem = true;
-                    for ( ByteCodecItemData tmpItem : ( (ByteCodecContainerData) this ).items ) {
-                        if ( tmpFirstItem ) {
-                            tmpFirstItem = false;
-                        }
-                        else {
+                    for ( int tmpIndex = 0; tmpIndex < tmpContainer.getItemCount( ); tmpIndex++ ) {
+                        ByteCodecItemData tmpItem = tmpContainer.getItem( tmpIndex );
+                        if ( tmpIndex > 0 ) {
                             tmpBuffer.append( ", " );
                         }
                         tmpBuffer.append( String.format( "%s: %s",
@@ -190,7 +249,7 @@ public class ByteCodecData {
                     StringBuilder tmpBuffer = new StringBuilder( );
                     tmpBuffer.append( "{" );
                     boolean tmpFirstItem = true;
-                    for ( ByteCodecItemData tmpItem : ( (ByteCodecRecordArrayData) this ).arrayItems ) {
+                    for ( ByteCodecItemData tmpItem : ( (ByteCodecRecordArrayData) this ).getArrayItems( ) ) {
                         if ( tmpFirstItem ) {
                             tmpFirstItem = false;
                         }
@@ -230,56 +289,102 @@ public class ByteCodecData {
                    parent,
                    index,
                    offset );
-            switch ( this.map.lengthType ) {
-                case FixedLength:
-                    this.length = this.map.fixedLength;
-                    break;
-                case PreviousField:
-                    this.length = parent.items[ index - 1 ].getInteger( ).intValue( );
-                    break;
-                case ArbitraryField:
-                    this.length = this.getRoot( ).getItem( this.map.lengthFieldName ).getInteger( ).intValue( );
-                    break;
-                //    case FirstInnerField:
-                //    case SumOfInnerFields:
-                //        break;
-                case RemainingOfRecord:
-                    this.length = ( parent.getLength( ) - offset );
-                    break;
-                default:
-                    /*
-                     * Tipo invlido de tamanho para item do tipo 'campo'
-                     */
-                    break;
-            }
         }
     }
 
+    /**
+     *
+     * Os itens so criados em ordem, na primeira vez em que um item ou um posterior  visitado: o
+     * deslocamento de cada um depende do tamanho do anterior. Um registro s cria os seus itens
+     * se for visitado ou se o seu tamanho depender deles ("<i>FirstInnerField</i>" e
+     * "<i>SumOfInnerFields</i>").
+     *
+     */
     public static class ByteCodecContainerData extends ByteCodecItemData {
 
         protected static final String     INDEXED_NAME_REGEX = "(\\w+)\\[(\\d+)\\]";
 
+        /**
+         *
+         * Itens j criados; depois de "<i>engage</i>" (sempre, nos dados construdos a partir de
+         * um "<i>byte[ ]</i>") esto todos preenchidos. No acesso sob demanda use
+         * "<i>getItem( int )</i>".
+         *
+         */
         public final ByteCodecItemData[ ] items;
 
+        protected int                     resolvedCount;
+
         protected ByteCodecContainerData( ByteCodecContainerMap map ) {
             super( map,
                    null,
                    0,
                    0 );
             this.items = new ByteCodecItemData[ map.items.length ];
+            this.resolvedCount = 0;
         }
 
         protected ByteCodecContainerData( ByteCodecContainerMap map,
                                           ByteCodecItemData parent,
                                           int index,
-                                          int offset )
-            throws ByteCodecDataException {
+                                          int offset ) {
             super( map,
                    parent,
                    index,
                    offset );
             this.items = new ByteCodecItemData[ map.items.length ];
-            this.engage( );
+            this.resolvedCount = 0;
+        }
+
+        public int getItemCount( ) {
+            return this.items.length;
+        }
+
+        public ByteCodecItemData getItem( int index ) {
+            while ( this.resolvedCount <= index ) {
+                int tmpOffset = 0;
+                if ( this.resolvedCount > 0 ) {
+                    ByteCodecItemData tmpPrevious = this.items[ this.resolvedCount - 1 ];
+                    tmpOffset = ( tmpPrevious.offset + tmpPrevious.getLength( ) );
+                }
+                this.items[ this.resolvedCount ] = this.createItem( this.resolvedCount,
+                                                                    tmpOffset );
+                ++this.resolvedCount;
+            }
+            return this.items[ index ];
+        }
+
+        protected ByteCodecItemData createItem( int index,
+                                                int offset ) {
+            ByteCodecItemMap tmpItemMap = ( (ByteCodecContainerMap) this.map ).items[ index ];
+            switch ( tmpItemMap.dataType ) {
+                case ByteArray:
+                case Integer:
+                case Date:
+                case Time:
+                case DateTime:
+                    return new ByteCodecFieldData( tmpItemMap,
+                                                   this,
+                                                   index,
+                                                   offset );
+                case Record:
+                    return new ByteCodecRecordData( (ByteCodecRecordMap) tmpItemMap,
+                                                    this,
+                                                    index,
+                                                    offset );
+                case RecordArray:
+                    return new ByteCodecRecordArrayData( (ByteCodecRecordArrayMap) tmpItemMap,
+                                                         this,
+                                                         index,
+                                                         offset );
+                //    case File:
+                //        break;
+                default:
+                    /*
+                     * Tipo invlido de tamanho para item do tipo 'registro'
+                     */
+                    return null;
+            }
         }
 
         public ByteCodecItemData getItem( String path ) {
@@ -289,8 +394,10 @@ public class ByteCodecData {
 
         public ByteCodecItemData getItem( String[ ] path ) {
             ByteCodecItemData tmpResult = null;
-            for ( ByteCodecItemData tmpItem : this.items ) {
-                if ( tmpItem.map.name.compareTo( path[ 0 ] ) == 0 ) {
+            ByteCodecItemMap[ ] tmpItemMaps = ( (ByteCodecContainerMap) this.map ).items;
+            for ( int tmpIndex = 0; tmpIndex < tmpItemMaps.length; tmpIndex++ ) {
+                if ( tmpItemMaps[ tmpIndex ].name.compareTo( path[ 0 ] ) == 0 ) {
+                    ByteCodecItemData tmpItem = this.getItem( tmpIndex );
                     if ( path.length == 1 ) {
                         tmpResult = tmpItem;
                     }
@@ -302,19 +409,7 @@ public class ByteCodecData {
                             tmpResult = ( (ByteCodecContainerData) tmpItem ).getItem( tmpSubPath );
                         }
                         else if ( tmpItem instanceof ByteCodecRecordArrayData ) {
-                            int tmpIndex = Integer.parseInt( tmpSubPath[ 0 ] );
-                            tmpResult = ( (ByteCodecRecordArrayData) tmpItem ).arrayItems[ tmpIndex ];
-                            if ( tmpSubPath.length > 1 ) {
-                                if ( tmpResult instanceof ByteCodecContainerData ) {
-                                    tmpSubPath = Arrays.copyOfRange( tmpSubPath,
-                                                                     1,
-                                                                     tmpSubPath.length );
-                                    tmpResult = ( (ByteCodecContainerData) tmpResult ).getItem( tmpSubPath );
-                                }
-                                else {
-                                    tmpResult = null;
-                                }
-                            }
+                            tmpResult = ( (ByteCodecRecordArrayData) tmpItem ).getItem( tmpSubPath );
                         }
                         else {
                             tmpResult = null;
@@ -326,82 +421,43 @@ public class ByteCodecData {
             return tmpResult;
         }
 
-        protected void engage( )
-            throws ByteCodecDataException {
-            //
+        @Override
+        protected Integer resolveLength( ) {
             switch ( this.map.lengthType ) {
+                case FirstInnerField:
+                    return ( this.items.length > 0 ) ? this.getItem( 0 ).getInteger( ).intValue( )
+                                                     : null;
+                case SumOfInnerFields:
+                    return this.getItemsLength( );
                 case FixedLength:
-                    this.length = this.map.fixedLength;
-                    break;
                 case PreviousField:
-                    this.length = ( (ByteCodecContainerData) this.parent ).items[ this.index
-                                                                                  - 1 ].getInteger( ).intValue( );
-                    break;
                 case ArbitraryField:
-                    this.length = this.getRoot( ).getItem( this.map.lengthFieldName ).getInteger( ).intValue( );
-                    break;
-                case FirstInnerField:
-                case SumOfInnerFields:
-                    break;
                 case RemainingOfRecord:
-                    this.length = ( this.parent.getLength( ) - this.offset );
-                    break;
+                    return super.resolveLength( );
                 default:
                     /*
                      * Tipo invlido de tamanho para item do tipo 'container'
                      */
-                    break;
+                    return null;
             }
-            //
-            int tmpOffset = 0;
-            ByteCodecContainerMap tmpMap = (ByteCodecContainerMap) this.map;
-            for ( int tmpItemIndex = 0; tmpItemIndex < this.items.length; tmpItemIndex++ ) {
-                ByteCodecItemData tmpItem = null;
-                switch ( tmpMap.items[ tmpItemIndex ].dataType ) {
-                    case ByteArray:
-                    case Integer:
-                    case Date:
-                    case Time:
-                    case DateTime:
-                        tmpItem = new ByteCodecFieldData( tmpMap.items[ tmpItemIndex ],
-                                                          this,
-                                                          tmpItemIndex,
-                                                          tmpOffset );
-                        break;
-                    case Record:
-                        tmpItem = new ByteCodecRecordData( (ByteCodecRecordMap) tmpMap.items[ tmpItemIndex ],
-                                                           this,
-                                                           tmpItemIndex,
-                                                           tmpOffset );
-                        break;
-                    case RecordArray:
-                        tmpItem = new ByteCodecRecordArrayData( (ByteCodecRecordArrayMap) tmpMap.items[ tmpItemIndex ],
-                                                                this,
-                                                                tmpItemIndex,
-                                                                tmpOffset );
-                        break;
-                    //    case File:
-                    //        break;
-                    default:
-                        /*
-                         * Tipo invlido de tamanho para item do tipo 'registro'
-                         */
-                        break;
-                }
-                tmpOffset += tmpItem.getLength( );
-                this.items[ tmpItemIndex ] = tmpItem;
-                if ( ( tmpItemIndex == 0 ) && ( this.map.lengthType == ByteCodecItemLengthType.FirstInnerField ) ) {
-                    this.length = tmpItem.getInteger( ).intValue( );
-                }
-            }
-            if ( this.map.lengthType == ByteCodecItemLengthType.SumOfInnerFields ) {
-                this.length = tmpOffset;
+        }
+
+        protected int getItemsLength( ) {
+            if ( this.items.length == 0 ) {
+                return 0;
             }
-            if ( this.length == null ) {
-                throw new ByteCodecDataException( "Tamanho indefinido para '%s'",
-                                                  this.getPath( ) );
+            ByteCodecItemData tmpLastItem = this.getItem( this.items.length - 1 );
+            return ( tmpLastItem.offset + tmpLastItem.getLength( ) );
+        }
+
+        @Override
+        protected void engage( )
+            throws ByteCodecDataException {
+            super.engage( );
+            for ( int tmpIndex = 0; tmpIndex < this.items.length; tmpIndex++ ) {
+                this.getItem( tmpIndex ).engage( );
             }
-            else if ( tmpOffset != this.length ) {
+            if ( this.getItemsLength( ) != this.length ) {
                 throw new ByteCodecDataException( "Tamanho dos items incoerente com o tamanho de '%s'",
                                                   this.getPath( ) );
             }
@@ -413,8 +469,7 @@ public class ByteCodecData {
         protected ByteCodecRecordData( ByteCodecRecordMap map,
                                        ByteCodecItemData parent,
                                        int index,
-                                       int offset )
-            throws ByteCodecDataException {
+                                       int offset ) {
             super( map,
                    parent,
                    index,
@@ -422,99 +477,247 @@ public class ByteCodecData {
         }
     }
 
+    /**
+     *
+     * Com elementos de tamanho fixo, cada elemento  criado diretamente na sua posio e s os
+     * visitados so guardados; seno os elementos so criados em ordem at o visitado.
+     *
+     */
     public static class ByteCodecRecordArrayData extends ByteCodecItemData {
 
-        public final ByteCodecRecordData[ ] arrayItems;
+        /**
+         *
+         * Todos os elementos, preenchido por "<i>getArrayItems</i>" (sempre, nos dados
+         * construdos a partir de um "<i>byte[ ]</i>"). No acesso sob demanda use
+         * "<i>getArrayItem( int )</i>".
+         *
+         */
+        public ByteCodecRecordData[ ]                    arrayItems;
+
+        protected ByteCodecRecordData[ ]                 elements;
+
+        protected Map< Integer, ByteCodecRecordData >    fixedElements;
+
+        protected int                                    resolvedCount;
+
+        protected Integer                                arrayLength;
 
         protected ByteCodecRecordArrayData( ByteCodecRecordArrayMap map,
                                             ByteCodecContainerData parent,
                                             int index,
-                                            int offset )
-            throws ByteCodecDataException {
+                                            int offset ) {
             super( map,
                    parent,
                    index,
                    offset );
-            //
-            Integer tmpArrayLength = null;
-            switch ( this.map.lengthType ) {
-                case FixedLength:
-                    tmpArrayLength = this.map.fixedLength;
-                    break;
-                case PreviousField:
-                    tmpArrayLength = parent.items[ index - 1 ].getInteger( ).intValue( );
-                    break;
-                case ArbitraryField:
-                    tmpArrayLength = this.getRoot( ).getItem( this.map.lengthFieldName ).getInteger( ).intValue( );
-                    break;
-                //    case FirstInnerField:
-                //    case SumOfInnerFields:
-                //        break;
-                case RemainingOfRecord:
-                    break;
-                default:
-                    /*
-                     * Tipo invlido de tamanho para item do tipo 'array de registros'
-                     */
-                    break;
+            this.arrayItems = null;
+            this.elements = new ByteCodecRecordData[ 0 ];
+            this.fixedElements = new HashMap< Integer, ByteCodecRecordData >( );
+            this.resolvedCount = 0;
+            this.arrayLength = null;
+        }
+
+        protected ByteCodecRecordMap getElementMap( ) {
+            return ( (ByteCodecRecordArrayMap) this.map ).elementMap;
+        }
+
+        /**
+         *
+         * Tamanho dos elementos, se fixo no mapa; seno "<i>null</i>".
+         *
+         */
+        protected Integer getElementLength( ) {
+            ByteCodecRecordMap tmpElementMap = this.getElementMap( );
+            return ( tmpElementMap.lengthType == ByteCodecItemLengthType.FixedLength ) ? tmpElementMap.fixedLength
+                                                                                       : null;
+        }
+
+        public int getArrayLength( ) {
+            if ( this.arrayLength == null ) {
+                switch ( this.map.lengthType ) {
+                    case FixedLength:
+                    case PreviousField:
+                    case ArbitraryField:
+                        this.arrayLength = super.resolveLength( );
+                        break;
+                    //    case FirstInnerField:
+                    //    case SumOfInnerFields:
+                    //        break;
+                    case RemainingOfRecord: {
+                        int tmpRemaining = ( this.parent.getLength( ) - this.offset );
+                        Integer tmpElementLength = this.getElementLength( );
+                        if ( ( tmpElementLength != null ) && ( tmpElementLength > 0 ) ) {
+                            this.arrayLength = ( ( tmpRemaining + tmpElementLength - 1 ) / tmpElementLength );
+                        }
+                        else {
+                            int tmpCount = 0;
+                            int tmpOffset = 0;
+                            while ( tmpOffset < tmpRemaining ) {
+                                tmpOffset += this.resolveElement( tmpCount ).getLength( );
+                                ++tmpCount;
+                            }
+                            this.arrayLength = tmpCount;
+                        }
+                        break;
+                    }
+                    default:
+                        /*
+                         * Tipo invlido de tamanho para item do tipo 'array de registros'
+                         */
+                        this.arrayLength = 0;
+                        break;
+                }
             }
-            List< ByteCodecRecordData > tmpElements = new ArrayList< ByteCodecRecordData >( );
-            int tmpOffset = 0;
-            while ( ( tmpArrayLength == null ) || ( tmpArrayLength > 0 ) ) {
-                ByteCodecRecordData tmpElement = new ByteCodecRecordData( map.elementMap,
-                                                                          this,
-                                                                          tmpElements.size( ),
-                                                                          tmpOffset );
-                tmpElements.add( tmpElement );
-                tmpOffset += tmpElement.getLength( );
-                if ( tmpArrayLength != null ) {
-                    --tmpArrayLength;
+            return this.arrayLength;
+        }
+
+        protected ByteCodecRecordData resolveElement( int elementIndex ) {
+            Integer tmpElementLength = this.getElementLength( );
+            if ( tmpElementLength != null ) {
+                ByteCodecRecordData tmpElement = this.fixedElements.get( elementIndex );
+                if ( tmpElement == null ) {
+                    tmpElement = new ByteCodecRecordData( this.getElementMap( ),
+                                                          this,
+                                                          elementIndex,
+                                                          ( elementIndex * tmpElementLength ) );
+                    this.fixedElements.put( elementIndex,
+                                            tmpElement );
                 }
-                else if ( tmpOffset >= this.parent.getLength( ) ) {
-                    tmpArrayLength = 0;
+                return tmpElement;
+            }
+            if ( elementIndex >= this.elements.length ) {
+                this.elements = Arrays.copyOf( this.elements,
+                                               Math.max( ( elementIndex + 1 ),
+                                                         ( this.elements.length * 2 ) ) );
+            }
+            while ( this.resolvedCount <= elementIndex ) {
+                int tmpOffset = 0;
+                if ( this.resolvedCount > 0 ) {
+                    ByteCodecRecordData tmpPrevious = this.elements[ this.resolvedCount - 1 ];
+                    tmpOffset = ( tmpPrevious.offset + tmpPrevious.getLength( ) );
                 }
+                this.elements[ this.resolvedCount ] = new ByteCodecRecordData( this.getElementMap( ),
+                                                                               this,
+                                                                               this.resolvedCount,
+                                                                               tmpOffset );
+                ++this.resolvedCount;
+            }
+            return this.elements[ elementIndex ];
+        }
+
+        public ByteCodecRecordData getArrayItem( int elementIndex ) {
+            if ( ( elementIndex < 0 ) || ( elementIndex >= this.getArrayLength( ) ) ) {
+                return null;
+            }
+            return this.resolveElement( elementIndex );
+        }
+
+        public ByteCodecRecordData[ ] getArrayItems( ) {
+            if ( this.arrayItems == null ) {
+                ByteCodecRecordData[ ] tmpArrayItems = new ByteCodecRecordData[ this.getArrayLength( ) ];
+                for ( int tmpIndex = 0; tmpIndex < tmpArrayItems.length; tmpIndex++ ) {
+                    tmpArrayItems[ tmpIndex ] = this.resolveElement( tmpIndex );
+                }
+                this.arrayItems = tmpArrayItems;
+            }
+            return this.arrayItems;
+        }
+
+        @Override
+        protected Integer resolveLength( ) {
+            int tmpArrayLength = this.getArrayLength( );
+            if ( tmpArrayLength == 0 ) {
+                return 0;
+            }
+            Integer tmpElementLength = this.getElementLength( );
+            if ( tmpElementLength != null ) {
+                return ( tmpArrayLength * tmpElementLength );
+            }
+            ByteCodecRecordData tmpLastElement = this.resolveElement( tmpArrayLength - 1 );
+            return ( tmpLastElement.offset + tmpLastElement.getLength( ) );
+        }
+
+        @Override
+        protected void engage( )
+            throws ByteCodecDataException {
+            super.engage( );
+            for ( ByteCodecRecordData tmpElement : this.getArrayItems( ) ) {
+                tmpElement.engage( );
             }
-            this.arrayItems = tmpElements.toArray( new ByteCodecRecordData[ 0 ] );
-            this.length = tmpOffset;
         }
 
         public ByteCodecItemData getItem( String[ ] path ) {
             ByteCodecItemData tmpResult = null;
             if ( path[ 0 ].matches( "\\d+" ) ) {
-                int tmpIndex = Integer.parseInt( path[ 0 ] );
-                if ( tmpIndex < this.arrayItems.length ) {
-                    tmpResult = this.arrayItems[ tmpIndex ];
-                    if ( path.length > 1 ) {
-                        tmpResult = ( tmpResult instanceof ByteCodecContainerData ) ? ( (ByteCodecContainerData) tmpResult ).getItem( Arrays.copyOfRange( path,
-                                                                                                                                                          1,
-                                                                                                                                                          path.length ) )
-                                                                                    : null;
-                    }
+                tmpResult = this.getArrayItem( Integer.parseInt( path[ 0 ] ) );
+                if ( ( tmpResult != null ) && ( path.length > 1 ) ) {
+                    tmpResult = ( (ByteCodecContainerData) tmpResult ).getItem( Arrays.copyOfRange( path,
+                                                                                                    1,
+                                                                                                    path.length ) );
                 }
             }
             return tmpResult;
         }
     }
 
+    /**
+     *
+     * A partir de um "<i>byte[ ]</i>" os dados so copiados e toda a rvore de itens  criada e
+     * validada na construo. A partir de um "<i>ByteBuffer</i>" (a regio entre a posio e o
+     * limite) os dados no so copiados e s os itens visitados so criados, sem validar a
+     * coerncia dos tamanhos; "<i>engage</i>" faz a validao completa. Nos dois casos os campos
+     * so lidos direto dos dados. A resoluo sob demanda altera o objeto e no 
+     * <i>thread-safe</i>.
+     *
+     */
     public static class ByteCodecFileData extends ByteCodecContainerData {
 
-        public final byte[ ] buffer;
+        /**
+         *
+         * Cpia dos dados; "<i>null</i>" se construdo a partir de um "<i>ByteBuffer</i>".
+         *
+         */
+        public final byte[ ]       buffer;
+
+        protected final ByteBuffer data;
 
         public ByteCodecFileData( ByteCodecFileMap fileMap,
                                   byte[ ] buffer )
             throws ByteCodecDataException {
             super( fileMap );
             this.buffer = ByteHelper.copyOf( buffer );
+            this.data = ByteBuffer.wrap( this.buffer );
             this.engage( );
-            if ( this.length != buffer.length ) {
+        }
+
+        public ByteCodecFileData( ByteCodecFileMap fileMap,
+                                  ByteBuffer buffer ) {
+            super( fileMap );
+            this.buffer = null;
+            this.data = buffer.slice( );
+        }
+
+        @Override
+        public void engage( )
+            throws ByteCodecDataException {
+            try {
+                super.engage( );
+            }
+            catch ( IndexOutOfBoundsException | BufferUnderflowException e ) {
+                // Um campo de tamanho ultrapassa o fim dos dados
+                throw new ByteCodecDataException( e,
+                                                  "Dados invlidos para '%s'",
+                                                  this.map.name );
+            }
+            if ( this.length != this.data.capacity( ) ) {
                 throw new ByteCodecDataException( "Dados invlidos para '%s'",
-                                                  fileMap.name );
+                                                  this.map.name );
             }
         }
 
         @Override
         public int getLength( ) {
-            return this.buffer.length;
+            return this.data.capacity( );
         }
 
         @Override
@@ -525,9 +728,35 @@ public class ByteCodecData {
         @Override
         public byte[ ] getBytes( int offset,
                                  int length ) {
-            return Arrays.copyOfRange( this.buffer,
-                                       offset,
-                                       ( offset + length ) );
+            if ( this.buffer != null ) {
+                return Arrays.copyOfRange( this.buffer,
+                                           offset,
+                                           ( offset + length ) );
+            }
+            byte[ ] tmpResult = new byte[ length ];
+            ByteBuffer tmpData = this.data.duplicate( );
+            tmpData.position( offset );
+            tmpData.get( tmpResult );
+            return tmpResult;
+        }
+
+        public byte getByte( int absoluteOffset ) {
+            return this.data.get( absoluteOffset );
+        }
+
+        /**
+         *
+         * Equivalente a "<i>ByteHelper.fromBigEndian( getBytes( absoluteOffset, length ) )</i>",
+         * sem a cpia.
+         *
+         */
+        public long getBigEndian( int absoluteOffset,
+                                  int length ) {
+            long tmpResult = 0L;
+            for ( int tmpIndex = 0; tmpIndex < length; tmpIndex++ ) {
+                tmpResult |= ( this.data.get( absoluteOffset + length - tmpIndex - 1 ) & 0xFFL ) << ( 8 * tmpIndex );
+            }
+            return ( tmpResult & 0xFFFFFFFFFFFFFFL );
         }
     }
 }
@@ -134,14 +134,15 @@ public class ByteCodecHelper {
         switch ( itemData.map.dataType ) {
             case File:
             case Record:
-                for ( ByteCodecItemData tmpItem : ( (ByteCodecContainerData) itemData ).items ) {
+                ByteCodecContainerData tmpContainer = (ByteCodecContainerData) itemData;
+                for ( int tmpIndex = 0; tmpIndex < tmpContainer.getItemCount( ); tmpIndex++ ) {
                     appendItemData( level,
                                     buffer,
-                                    tmpItem );
+                                    tmpContainer.getItem( tmpIndex ) );
                 }
                 break;
             case RecordArray:
-                for ( ByteCodecRecordData tmpItem : ( (ByteCodecRecordArrayData) itemData ).arrayItems ) {
+                for ( ByteCodecRecordData tmpItem : ( (ByteCodecRecordArrayData) itemData ).getArrayItems( ) ) {
                     appendItemData( level,
                                     buffer,
                                     tmpItem );
@@ -159,7 +160,7 @@ public class ByteCodecHelper {
                           fileData.map.name );
         tmpResult.increaseIndent( );
         tmpResult.append( "Bytes:" );
-        tmpResult.appendIndented( ByteHelper.dump( fileData.buffer,
+        tmpResult.appendIndented( ByteHelper.dump( fileData.getBytes( ),
                                                    32 ) );
         tmpResult.append( "Decode:" );
         tmpResult.appendIndented( appendItemData( 1,
@@ -1,8 +1,16 @@
 package asap.primitive.bytes.codec;
 
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
+import asap.primitive.bytes.codec.ByteCodecData.ByteCodecContainerData;
+import asap.primitive.bytes.codec.ByteCodecData.ByteCodecItemData;
+import asap.primitive.bytes.codec.ByteCodecData.ByteCodecRecordArrayData;
+import asap.primitive.bytes.codec.ByteCodecStreamParser.ByteCodecItemView;
 import asap.primitive.string.IndentedStringBuilder;
 
 public class ByteCodecMap {
@@ -51,6 +59,193 @@ public class ByteCodecMap {
         RemainingOfRecord // Record/field
     }
 
+    /**
+     *
+     * Caminho de um item compilado a partir de um mapa: os nomes viram ndices dos itens, e o
+     * acesso aos dados no faz nenhum tratamento de texto. Os ndices de elementos de arrays so
+     * fixos ("<i>recs[2].id</i>") ou parmetros do acesso ("<i>recs[].id</i>").
+     *
+     */
+    public static class ByteCodecItemPath {
+
+        public static final int            PARAMETER = -1;
+
+        public final ByteCodecContainerMap base;
+
+        public final String                path;
+
+        public final ByteCodecItemMap      target;
+
+        public final int                   parameterCount;
+
+        /**
+         *
+         * ndice do item no registro, ou do elemento no array (ou "<i>PARAMETER</i>") quando
+         * "<i>elementSteps</i>" indica.
+         *
+         */
+        protected final int[ ]             steps;
+
+        protected final boolean[ ]         elementSteps;
+
+        protected ByteCodecItemPath( ByteCodecContainerMap base,
+                                     String path )
+            throws ByteCodecMapException {
+            String tmpPath = path.replaceAll( " +",
+                                              "" );
+            List< Integer > tmpSteps = new ArrayList< Integer >( );
+            List< Boolean > tmpElementSteps = new ArrayList< Boolean >( );
+            ByteCodecItemMap tmpCurrent = base;
+            int tmpParameterCount = 0;
+            int tmpPosition = 0;
+            while ( true ) {
+                if ( !( tmpCurrent instanceof ByteCodecContainerMap ) ) {
+                    throw new ByteCodecMapException( "Caminho '%s' invlido: '%s' no  um registro",
+                                                     path,
+                                                     tmpCurrent.name );
+                }
+                int tmpEnd = tmpPosition;
+                while ( ( tmpEnd < tmpPath.length( ) ) && ( tmpPath.charAt( tmpEnd ) != '.' ) && ( tmpPath.charAt( tmpEnd ) != '[' ) ) {
+                    ++tmpEnd;
+                }
+                String tmpName = tmpPath.substring( tmpPosition,
+                                                    tmpEnd );
+                ByteCodecItemMap[ ] tmpItems = ( (ByteCodecContainerMap) tmpCurrent ).items;
+                int tmpIndex = 0;
+                while ( ( tmpIndex < tmpItems.length ) && ( tmpItems[ tmpIndex ].name.compareTo( tmpName ) != 0 ) ) {
+                    ++tmpIndex;
+                }
+                if ( tmpIndex == tmpItems.length ) {
+                    throw new ByteCodecMapException( "Caminho '%s' invlido: no existe o item '%s' em '%s'",
+                                                     path,
+                                                     tmpName,
+                                                     tmpCurrent.name );
+                }
+                tmpSteps.add( tmpIndex );
+                tmpElementSteps.add( false );
+                tmpCurrent = tmpItems[ tmpIndex ];
+                tmpPosition = tmpEnd;
+                if ( ( tmpPosition < tmpPath.length( ) ) && ( tmpPath.charAt( tmpPosition ) == '[' ) ) {
+                    int tmpClose = tmpPath.indexOf( ']',
+                                                    tmpPosition );
+                    if ( !( tmpCurrent instanceof ByteCodecRecordArrayMap ) || ( tmpClose < 0 ) ) {
+                        throw new ByteCodecMapException( "Caminho '%s' invlido: ndice para '%s'",
+                                                         path,
+                                                         tmpCurrent.name );
+                    }
+                    String tmpElementIndex = tmpPath.substring( tmpPosition + 1,
+                                                                tmpClose );
+                    if ( tmpElementIndex.isEmpty( ) ) {
+                        tmpSteps.add( PARAMETER );
+                        ++tmpParameterCount;
+                    }
+                    else if ( tmpElementIndex.matches( "\\d+" ) ) {
+                        tmpSteps.add( Integer.parseInt( tmpElementIndex ) );
+                    }
+                    else {
+                        throw new ByteCodecMapException( "Caminho '%s' invlido: ndice '%s' para '%s'",
+                                                         path,
+                                                         tmpElementIndex,
+                                                         tmpCurrent.name );
+                    }
+                    tmpElementSteps.add( true );
+                    tmpCurrent = ( (ByteCodecRecordArrayMap) tmpCurrent ).elementMap;
+                    tmpPosition = ( tmpClose + 1 );
+                }
+                if ( tmpPosition == tmpPath.length( ) ) {
+                    break;
+                }
+                else if ( tmpPath.charAt( tmpPosition ) != '.' ) {
+                    throw new ByteCodecMapException( "Caminho '%s' invlido na posio %d",
+                                                     path,
+                                                     tmpPosition );
+                }
+                ++tmpPosition;
+            }
+            this.base = base;
+            this.path = path;
+            this.target = tmpCurrent;
+            this.parameterCount = tmpParameterCount;
+            this.steps = new int[ tmpSteps.size( ) ];
+            this.elementSteps = new boolean[ tmpSteps.size( ) ];
+            for ( int tmpIndex = 0; tmpIndex < this.steps.length; tmpIndex++ ) {
+                this.steps[ tmpIndex ] = tmpSteps.get( tmpIndex );
+                this.elementSteps[ tmpIndex ] = tmpElementSteps.get( tmpIndex );
+            }
+        }
+
+        protected void checkAccess( ByteCodecItemMap map,
+                                    int[ ] indexes ) {
+            if ( map != this.base ) {
+                throw new IllegalArgumentException( String.format( "Caminho '%s' compilado para '%s' usado em '%s'",
+                                                                   this.path,
+                                                                   this.base.name,
+                                                                   map.name ) );
+            }
+            if ( indexes.length != this.parameterCount ) {
+                throw new IllegalArgumentException( String.format( "Caminho '%s' requer %d ndices ( recebidos %d )",
+                                                                   this.path,
+                                                                   this.parameterCount,
+                                                                   indexes.length ) );
+            }
+        }
+
+        /**
+         *
+         * Item no caminho a partir de "<i>container</i>" (do mapa "<i>base</i>"), ou
+         * "<i>null</i>" se um ndice est fora do array.
+         *
+         */
+        public ByteCodecItemData getItem( ByteCodecContainerData container,
+                                          int... indexes ) {
+            this.checkAccess( container.map,
+                              indexes );
+            ByteCodecItemData tmpItem = container;
+            int tmpParameter = 0;
+            for ( int tmpIndex = 0; ( tmpItem != null ) && ( tmpIndex < this.steps.length ); tmpIndex++ ) {
+                if ( this.elementSteps[ tmpIndex ] ) {
+                    tmpItem = ( (ByteCodecRecordArrayData) tmpItem ).getArrayItem( ( this.steps[ tmpIndex ] == PARAMETER ) ? indexes[ tmpParameter++ ]
+                                                                                                                            : this.steps[ tmpIndex ] );
+                }
+                else {
+                    tmpItem = ( (ByteCodecContainerData) tmpItem ).getItem( this.steps[ tmpIndex ] );
+                }
+            }
+            return tmpItem;
+        }
+
+        /**
+         *
+         * Item no caminho a partir de uma viso do leitor em fluxo; as vises so reaproveitadas,
+         * e o resultado vale at a prxima navegao nos mesmos arrays.
+         *
+         */
+        public ByteCodecItemView getItem( ByteCodecItemView view,
+                                          int... indexes ) {
+            this.checkAccess( view.map,
+                              indexes );
+            ByteCodecItemView tmpItem = view;
+            int tmpParameter = 0;
+            for ( int tmpIndex = 0; ( tmpItem != null ) && ( tmpIndex < this.steps.length ); tmpIndex++ ) {
+                if ( this.elementSteps[ tmpIndex ] ) {
+                    tmpItem = tmpItem.getArrayItem( ( this.steps[ tmpIndex ] == PARAMETER ) ? indexes[ tmpParameter++ ]
+                                                                                            : this.steps[ tmpIndex ] );
+                }
+                else {
+                    tmpItem = tmpItem.getItem( this.steps[ tmpIndex ] );
+                }
+            }
+            return tmpItem;
+        }
+
+        @Override
+        public String toString( ) {
+            return String.format( "%s: %s",
+                                  this.base.name,
+                                  this.path );
+        }
+    }
+
     public static abstract class ByteCodecItemMap {
 
         public final String                  name;
@@ -65,6 +260,8 @@ public class ByteCodecMap {
 
         protected ByteCodecContainerMap      parent;
 
+        protected ByteCodecItemPath          lengthFieldPath;
+
         protected ByteCodecItemMap( String name,
                                     ByteCodecItemDataType dataType,
                                     ByteCodecItemLengthType lengthType,
@@ -76,6 +273,7 @@ public class ByteCodecMap {
             this.fixedLength = fixedLength;
             this.lengthFieldName = lengthFieldName;
             this.parent = null;
+            this.lengthFieldPath = null;
         }
 
         protected ByteCodecItemMap( String name,
@@ -118,6 +316,21 @@ public class ByteCodecMap {
                                   this.name );
         }
 
+        /**
+         *
+         * Caminho compilado, a partir de "<i>root</i>", do campo que define o tamanho
+         * ("<i>ArbitraryField</i>"); compilado no "<i>engage</i>", ou no primeiro uso para os itens
+         * dos elementos de arrays, que no passam pelo "<i>engage</i>".
+         *
+         */
+        public ByteCodecItemPath getLengthFieldPath( ByteCodecFileMap root )
+            throws ByteCodecMapException {
+            if ( this.lengthFieldPath == null ) {
+                this.lengthFieldPath = root.compilePath( this.lengthFieldName );
+            }
+            return this.lengthFieldPath;
+        }
+
         protected void engage( ByteCodecContainerMap parent,
                                int index )
             throws ByteCodecMapException {
@@ -158,6 +371,7 @@ public class ByteCodecMap {
                                                              this.lengthFieldName,
                                                              this.name );
                         }
+                        this.lengthFieldPath = this.getRoot( ).compilePath( this.lengthFieldName );
                     }
                     break;
                 case FirstInnerField:
@@ -357,6 +571,17 @@ public class ByteCodecMap {
                                                   "" ).split( "\\." ) );
         }
 
+        /**
+         *
+         * Compila um caminho a partir deste mapa, para acessos repetidos sem tratamento de texto.
+         *
+         */
+        public ByteCodecItemPath compilePath( String path )
+            throws ByteCodecMapException {
+            return new ByteCodecItemPath( this,
+                                          path );
+        }
+
         @Override
         public String toString( ) {
             IndentedStringBuilder tmpResult = new IndentedStringBuilder( super.toString( ) );
@@ -459,5 +684,18 @@ public class ByteCodecMap {
             this.engage( null,
                          ( -1 ) );
         }
+
+        /**
+         *
+         * Leitor em fluxo de um arquivo deste mapa, com uma janela de "<i>windowSize</i>" bytes.
+         *
+         */
+        public ByteCodecStreamParser openStream( ReadableByteChannel channel,
+                                                 int windowSize )
+            throws IOException {
+            return new ByteCodecStreamParser( this,
+                                              channel,
+                                              windowSize );
+        }
     }
 }
@@ -0,0 +1,1003 @@
+package asap.primitive.bytes.codec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import asap.primitive.bytes.ByteHelper;
+import asap.primitive.bytes.codec.ByteCodecData.ByteCodecDataException;
+import asap.primitive.bytes.codec.ByteCodecMap.ByteCodecContainerMap;
+import asap.primitive.bytes.codec.ByteCodecMap.ByteCodecDateFieldMap;
+import asap.primitive.bytes.codec.ByteCodecMap.ByteCodecDateTimeFieldMap;
+import asap.primitive.bytes.codec.ByteCodecMap.ByteCodecFileMap;
+import asap.primitive.bytes.codec.ByteCodecMap.ByteCodecItemDataType;
+import asap.primitive.bytes.codec.ByteCodecMap.ByteCodecItemLengthType;
+import asap.primitive.bytes.codec.ByteCodecMap.ByteCodecItemMap;
+import asap.primitive.bytes.codec.ByteCodecMap.ByteCodecMapException;
+import asap.primitive.bytes.codec.ByteCodecMap.ByteCodecRecordArrayMap;
+
+/**
+ *
+ * Leitor de arquivos de um "{@link ByteCodecFileMap}" a partir de um "<i>ReadableByteChannel</i>",
+ * com memria constante: os dados passam por uma janela de tamanho fixo, e s o item corrente
+ * precisa caber nela.<br>
+ * <br>
+ * O arquivo e os registros fora de arrays so percorridos item a item ("<i>StartRecord</i>",
+ * "<i>Field</i>", ..., "<i>EndRecord</i>"); cada elemento de um array de registros  entregue
+ * inteiro ("<i>ArrayRecord</i>") como uma viso ("{@link ByteCodecItemView}") reaproveitada a
+ * cada elemento, vlida at o prximo "<i>next</i>". Os tamanhos "<i>PreviousField</i>",
+ * "<i>ArbitraryField</i>" e "<i>FirstInnerField</i>" so resolvidos com os campos j lidos: os
+ * campos inteiros fora de arrays ficam disponveis por caminho em "<i>getFieldValue</i>".<br>
+ * <br>
+ * O canal deve ser bloqueante. Se for um "<i>SeekableByteChannel</i>", o tamanho restante limita
+ * o arquivo; seno o fim dos dados encerra os itens "<i>RemainingOfRecord</i>" da raiz. O leitor
+ * no  <i>thread-safe</i>.
+ *
+ */
+public class ByteCodecStreamParser implements Closeable {
+
+    public static final int DEFAULT_WINDOW_SIZE = ( 1024 * 1024 );
+
+    public static enum ByteCodecStreamEvent {
+        StartFile,
+        EndFile,
+        StartRecord,
+        EndRecord,
+        Field,
+        StartArray,
+        ArrayRecord,
+        EndArray
+    }
+
+    public static interface ByteCodecStreamVisitor {
+
+        public void startRecord( ByteCodecContainerMap map );
+
+        public void endRecord( ByteCodecContainerMap map );
+
+        public void field( ByteCodecItemView field );
+
+        public void startArray( ByteCodecRecordArrayMap map,
+                                int arrayLength );
+
+        public void arrayRecord( ByteCodecItemView record );
+
+        public void endArray( ByteCodecRecordArrayMap map );
+    }
+
+    public static class ByteCodecStreamAdapter implements ByteCodecStreamVisitor {
+
+        @Override
+        public void startRecord( ByteCodecContainerMap map ) {
+        }
+
+        @Override
+        public void endRecord( ByteCodecContainerMap map ) {
+        }
+
+        @Override
+        public void field( ByteCodecItemView field ) {
+        }
+
+        @Override
+        public void startArray( ByteCodecRecordArrayMap map,
+                                int arrayLength ) {
+        }
+
+        @Override
+        public void arrayRecord( ByteCodecItemView record ) {
+        }
+
+        @Override
+        public void endArray( ByteCodecRecordArrayMap map ) {
+        }
+    }
+
+    /**
+     *
+     * Viso de um item nos dados da janela, com os mesmos acessos de "{@link ByteCodecData}". 
+     * reaproveitada: os itens de um registro e o elemento corrente de um array so vises fixas,
+     * reposicionadas a cada medio.
+     *
+     */
+    public static class ByteCodecItemView {
+
+        public final ByteCodecItemMap         map;
+
+        public final ByteCodecItemView        parent;
+
+        protected final ByteCodecStreamParser parser;
+
+        protected long                        position;
+
+        protected int                         length;
+
+        protected int                         index;
+
+        protected ByteCodecItemView[ ]        items;
+
+        protected ByteCodecItemView           element;
+
+        protected int                         arrayLength;
+
+        protected long                        arrayEnd;
+
+        protected long                        elementLimit;
+
+        protected ByteCodecItemView( ByteCodecStreamParser parser,
+                                     ByteCodecItemMap map,
+                                     ByteCodecItemView parent ) {
+            this.parser = parser;
+            this.map = map;
+            this.parent = parent;
+            this.position = 0;
+            this.length = 0;
+            this.index = 0;
+        }
+
+        /**
+         *
+         * Posiciona a viso em "<i>position</i>" (no fluxo) e resolve o seu tamanho e o dos itens
+         * contidos, lendo do canal o que faltar; "<i>limit</i>"  o fim do registro que a contm
+         * (-1 se desconhecido).
+         *
+         */
+        protected void measure( long position,
+                                int index,
+                                long limit,
+                                Long previousValue )
+            throws IOException,
+                ByteCodecDataException {
+            this.position = position;
+            this.index = index;
+            switch ( this.map.dataType ) {
+                case Record:
+                    this.measureRecord( limit,
+                                        previousValue );
+                    break;
+                case RecordArray:
+                    this.measureArray( limit,
+                                       previousValue );
+                    break;
+                default:
+                    this.length = this.parser.declaredLength( this.map,
+                                                              position,
+                                                              limit,
+                                                              previousValue );
+                    if ( this.length < 0 ) {
+                        throw new ByteCodecDataException( "Tamanho indefinido para '%s'",
+                                                          this.getPath( ) );
+                    }
+                    this.parser.require( position + this.length );
+                    break;
+            }
+        }
+
+        protected void measureRecord( long limit,
+                                      Long previousValue )
+            throws IOException,
+                ByteCodecDataException {
+            ByteCodecContainerMap tmpMap = (ByteCodecContainerMap) this.map;
+            if ( this.items == null ) {
+                this.items = new ByteCodecItemView[ tmpMap.items.length ];
+                for ( int tmpIndex = 0; tmpIndex < this.items.length; tmpIndex++ ) {
+                    this.items[ tmpIndex ] = new ByteCodecItemView( this.parser,
+                                                                    tmpMap.items[ tmpIndex ],
+                                                                    this );
+                }
+            }
+            int tmpLength = -1;
+            if ( ( this.map.lengthType != ByteCodecItemLengthType.FirstInnerField )
+                 && ( this.map.lengthType != ByteCodecItemLengthType.SumOfInnerFields ) ) {
+                tmpLength = this.parser.declaredLength( this.map,
+                                                        this.position,
+                                                        limit,
+                                                        previousValue );
+            }
+            long tmpItemLimit = ( tmpLength >= 0 ) ? ( this.position + tmpLength )
+                                                   : limit;
+            long tmpItemPosition = this.position;
+            Long tmpPreviousValue = null;
+            for ( int tmpIndex = 0; tmpIndex < this.items.length; tmpIndex++ ) {
+                ByteCodecItemView tmpItem = this.items[ tmpIndex ];
+                tmpItem.measure( tmpItemPosition,
+                                 tmpIndex,
+                                 tmpItemLimit,
+                                 tmpPreviousValue );
+                tmpPreviousValue = tmpItem.getInteger( );
+                if ( ( tmpIndex == 0 ) && ( this.map.lengthType == ByteCodecItemLengthType.FirstInnerField ) ) {
+                    tmpLength = tmpPreviousValue.intValue( );
+                    tmpItemLimit = ( this.position + tmpLength );
+                }
+                tmpItemPosition += tmpItem.length;
+            }
+            if ( this.map.lengthType == ByteCodecItemLengthType.SumOfInnerFields ) {
+                tmpLength = (int) ( tmpItemPosition - this.position );
+            }
+            if ( tmpLength < 0 ) {
+                throw new ByteCodecDataException( "Tamanho indefinido para '%s'",
+                                                  this.getPath( ) );
+            }
+            else if ( ( tmpItemPosition - this.position ) != tmpLength ) {
+                throw new ByteCodecDataException( "Tamanho dos items incoerente com o tamanho de '%s'",
+                                                  this.getPath( ) );
+            }
+            this.length = tmpLength;
+        }
+
+        protected void measureArray( long limit,
+                                     Long previousValue )
+            throws IOException,
+                ByteCodecDataException {
+            if ( this.element == null ) {
+                this.element = new ByteCodecItemView( this.parser,
+                                                      ( (ByteCodecRecordArrayMap) this.map ).elementMap,
+                                                      this );
+            }
+            int tmpArrayLength = -1;
+            this.arrayEnd = -1;
+            if ( this.map.lengthType == ByteCodecItemLengthType.RemainingOfRecord ) {
+                if ( limit < 0 ) {
+                    throw new ByteCodecDataException( "Tamanho indefinido para '%s'",
+                                                      this.getPath( ) );
+                }
+                this.arrayEnd = limit;
+            }
+            else {
+                tmpArrayLength = this.parser.declaredLength( this.map,
+                                                             this.position,
+                                                             limit,
+                                                             previousValue );
+            }
+            this.elementLimit = ( this.arrayEnd >= 0 ) ? this.arrayEnd
+                                                       : limit;
+            long tmpElementPosition = this.position;
+            int tmpElementIndex = 0;
+            while ( ( tmpArrayLength >= 0 ) ? ( tmpElementIndex < tmpArrayLength )
+                                            : ( tmpElementPosition < this.arrayEnd ) ) {
+                this.element.measure( tmpElementPosition,
+                                      tmpElementIndex,
+                                      this.elementLimit,
+                                      null );
+                tmpElementPosition += this.element.length;
+                ++tmpElementIndex;
+            }
+            this.arrayLength = tmpElementIndex;
+            this.length = (int) ( tmpElementPosition - this.position );
+        }
+
+        public String getName( ) {
+            return this.map.name;
+        }
+
+        public String getPath( ) {
+            if ( this.parent != null ) {
+                return ( this.parent.map.dataType == ByteCodecItemDataType.RecordArray ) ? String.format( "%s[%d]",
+                                                                                                          this.parent.getPath( ),
+                                                                                                          this.index )
+                                                                                         : String.format( "%s.%s",
+                                                                                                          this.parent.getPath( ),
+                                                                                                          this.getName( ) );
+            }
+            return this.getName( );
+        }
+
+        public int getIndex( ) {
+            return this.index;
+        }
+
+        /**
+         *
+         * Posio do item no fluxo.
+         *
+         */
+        public long getPosition( ) {
+            return this.position;
+        }
+
+        public int getLength( ) {
+            return this.length;
+        }
+
+        public int getItemCount( ) {
+            return ( this.items != null ) ? this.items.length
+                                          : 0;
+        }
+
+        public ByteCodecItemView getItem( int index ) {
+            return ( ( this.items != null ) && ( index >= 0 ) && ( index < this.items.length ) ) ? this.items[ index ]
+                                                                                                  : null;
+        }
+
+        public ByteCodecItemView getItem( String path ) {
+            return this.getItem( path.replaceAll( " +",
+                                                  "" ).split( "\\[|(\\]\\.?)|\\." ) );
+        }
+
+        public ByteCodecItemView getItem( String[ ] path ) {
+            ByteCodecItemView tmpResult = null;
+            if ( this.map.dataType == ByteCodecItemDataType.RecordArray ) {
+                if ( path[ 0 ].matches( "\\d+" ) ) {
+                    tmpResult = this.getArrayItem( Integer.parseInt( path[ 0 ] ) );
+                }
+            }
+            else if ( this.items != null ) {
+                for ( ByteCodecItemView tmpItem : this.items ) {
+                    if ( tmpItem.map.name.compareTo( path[ 0 ] ) == 0 ) {
+                        tmpResult = tmpItem;
+                        break;
+                    }
+                }
+            }
+            if ( ( tmpResult != null ) && ( path.length > 1 ) ) {
+                tmpResult = tmpResult.getItem( Arrays.copyOfRange( path,
+                                                                   1,
+                                                                   path.length ) );
+            }
+            return tmpResult;
+        }
+
+        public int getArrayLength( ) {
+            return this.arrayLength;
+        }
+
+        /**
+         *
+         * Posiciona o elemento (a mesma viso para todos os elementos) em "<i>elementIndex</i>";
+         * a partir do elemento corrente, ou direto, se os elementos tm tamanho fixo.
+         *
+         */
+        public ByteCodecItemView getArrayItem( int elementIndex ) {
+            if ( ( this.element == null ) || ( elementIndex < 0 ) || ( elementIndex >= this.arrayLength ) ) {
+                return null;
+            }
+            try {
+                ByteCodecItemMap tmpElementMap = this.element.map;
+                if ( tmpElementMap.lengthType == ByteCodecItemLengthType.FixedLength ) {
+                    this.element.measure( this.position + ( (long) elementIndex * tmpElementMap.fixedLength ),
+                                          elementIndex,
+                                          this.elementLimit,
+                                          null );
+                }
+                else {
+                    if ( elementIndex < this.element.index ) {
+                        this.element.measure( this.position,
+                                              0,
+                                              this.elementLimit,
+                                              null );
+                    }
+                    while ( this.element.index < elementIndex ) {
+                        this.element.measure( this.element.position + this.element.length,
+                                              this.element.index + 1,
+                                              this.elementLimit,
+                                              null );
+                    }
+                }
+            }
+            catch ( IOException e ) {
+                throw new UncheckedIOException( e );
+            }
+            catch ( ByteCodecDataException e ) {
+                // Os elementos j foram medidos com o array, com os mesmos limites
+                throw new IllegalStateException( e );
+            }
+            return this.element;
+        }
+
+        public byte[ ] getBytes( ) {
+            return this.parser.getBytes( this.position,
+                                         this.length );
+        }
+
+        public Long getInteger( ) {
+            switch ( this.map.dataType ) {
+                case ByteArray:
+                case Integer:
+                case Date:
+                case Time:
+                    return this.parser.getBigEndian( this.position,
+                                                     this.length );
+                default:
+                    break;
+            }
+            return null;
+        }
+
+        public Date getDate( ) {
+            if ( ( this.map.dataType == ByteCodecItemDataType.Date )
+                 || ( this.map.dataType == ByteCodecItemDataType.DateTime ) ) {
+                byte tmpMonth = this.parser.getByte( this.position + 2 );
+                GregorianCalendar tmpCalendar = new GregorianCalendar( (int) this.parser.getBigEndian( this.position,
+                                                                                                       2 ),
+                                                                       ( tmpMonth > 0 ) ? ( tmpMonth - 1 )
+                                                                                        : 0,
+                                                                       (int) this.parser.getByte( this.position + 3 ) );
+                if ( this.map.dataType == ByteCodecItemDataType.DateTime ) {
+                    tmpCalendar.add( Calendar.HOUR,
+                                     (int) this.parser.getByte( this.position + 4 ) );
+                    tmpCalendar.add( Calendar.MINUTE,
+                                     (int) this.parser.getByte( this.position + 5 ) );
+                    tmpCalendar.add( Calendar.SECOND,
+                                     (int) this.parser.getByte( this.position + 6 ) );
+                }
+                return tmpCalendar.getTime( );
+            }
+            return null;
+        }
+
+        public Integer getTime( ) {
+            if ( ( this.map.dataType == ByteCodecItemDataType.Time )
+                 || ( this.map.dataType == ByteCodecItemDataType.DateTime ) ) {
+                long tmpPosition = this.position + ( ( this.map.dataType == ByteCodecItemDataType.Time ) ? 0
+                                                                                                         : 4 );
+                return ( ( this.parser.getByte( tmpPosition + 0 ) * 60 * 60 )
+                         + ( this.parser.getByte( tmpPosition + 1 ) * 60 )
+                         + this.parser.getByte( tmpPosition + 2 ) );
+            }
+            return null;
+        }
+
+        public String getString( ) {
+            switch ( this.map.dataType ) {
+                case ByteArray:
+                    return ByteHelper.hexify( this.getBytes( ) );
+                case Integer:
+                    return String.format( "%,d",
+                                          this.getInteger( ) );
+                case Date:
+                    return ByteCodecDateFieldMap.PRINT_DATE_FORMAT.format( this.getDate( ) );
+                case Time:
+                    int tmpTime = this.getTime( );
+                    return String.format( "%02d:%02d:%02d",
+                                          ( ( tmpTime / ( 60 * 60 ) ) % 24 ),
+                                          ( ( tmpTime / 60 ) % 60 ),
+                                          ( tmpTime % 60 ) );
+                case DateTime:
+                    return ByteCodecDateTimeFieldMap.PRINT_DATE_TIME_FORMAT.format( this.getDate( ) );
+                case Record: {
+                    StringBuilder tmpBuffer = new StringBuilder( );
+                    tmpBuffer.append( "{" );
+                    for ( int tmpIndex = 0; tmpIndex < this.items.length; tmpIndex++ ) {
+                        if ( tmpIndex > 0 ) {
+                            tmpBuffer.append( ", " );
+                        }
+                        tmpBuffer.append( String.format( "%s: %s",
+                                                         this.items[ tmpIndex ].map.name,
+                                                         this.items[ tmpIndex ].getString( ) ) );
+                    }
+                    tmpBuffer.append( "}" );
+                    return tmpBuffer.toString( );
+                }
+                case RecordArray: {
+                    StringBuilder tmpBuffer = new StringBuilder( );
+                    tmpBuffer.append( "{" );
+                    for ( int tmpIndex = 0; tmpIndex < this.arrayLength; tmpIndex++ ) {
+                        ByteCodecItemView tmpElement = this.getArrayItem( tmpIndex );
+                        if ( tmpIndex > 0 ) {
+                            tmpBuffer.append( ", " );
+                        }
+                        tmpBuffer.append( String.format( "%s[%d]: %s",
+                                                         tmpElement.map.name,
+                                                         tmpIndex,
+                                                         tmpElement.getString( ) ) );
+                    }
+                    tmpBuffer.append( "}" );
+                    return tmpBuffer.toString( );
+                }
+                default:
+                    break;
+            }
+            return null;
+        }
+
+        @Override
+        public String toString( ) {
+            return String.format( "%s - %s - %s",
+                                  this.map.dataType.name( ),
+                                  this.map.name,
+                                  this.getString( ) );
+        }
+    }
+
+    /**
+     *
+     * Registro ou array em leitura no fluxo.
+     *
+     */
+    protected static class ByteCodecStreamFrame {
+
+        protected final ByteCodecItemMap map;
+
+        protected final long             start;
+
+        protected long                   limit;
+
+        protected int                    length;
+
+        protected int                    nextIndex;
+
+        protected long                   position;
+
+        protected Long                   previousValue;
+
+        protected ByteCodecStreamFrame( ByteCodecItemMap map,
+                                        long start,
+                                        long limit,
+                                        int length ) {
+            this.map = map;
+            this.start = start;
+            this.limit = limit;
+            this.length = length;
+            this.nextIndex = 0;
+            this.position = start;
+            this.previousValue = null;
+        }
+    }
+
+    protected final ByteCodecFileMap                           fileMap;
+
+    protected final ReadableByteChannel                        channel;
+
+    protected final ByteBuffer                                 window;
+
+    protected long                                             windowStart;
+
+    protected long                                             anchor;
+
+    protected boolean                                          endOfStream;
+
+    protected final long                                       streamLength;
+
+    protected final Map< ByteCodecItemMap, Long >              fieldValues;
+
+    protected final List< ByteCodecStreamFrame >               frames;
+
+    protected final Map< ByteCodecItemMap, ByteCodecItemView > views;
+
+    protected ByteCodecStreamEvent                             event;
+
+    protected ByteCodecItemMap                                 eventMap;
+
+    protected ByteCodecItemView                                eventView;
+
+    protected int                                              eventIndex;
+
+    public ByteCodecStreamParser( ByteCodecFileMap fileMap,
+                                  ReadableByteChannel channel )
+        throws IOException {
+        this( fileMap,
+              channel,
+              DEFAULT_WINDOW_SIZE );
+    }
+
+    public ByteCodecStreamParser( ByteCodecFileMap fileMap,
+                                  ReadableByteChannel channel,
+                                  int windowSize )
+        throws IOException {
+        this.fileMap = fileMap;
+        this.channel = channel;
+        this.window = ByteBuffer.allocate( windowSize );
+        this.windowStart = 0;
+        this.anchor = 0;
+        this.endOfStream = false;
+        if ( channel instanceof SeekableByteChannel ) {
+            SeekableByteChannel tmpChannel = (SeekableByteChannel) channel;
+            this.streamLength = ( tmpChannel.size( ) - tmpChannel.position( ) );
+        }
+        else {
+            this.streamLength = -1;
+        }
+        this.fieldValues = new IdentityHashMap< ByteCodecItemMap, Long >( );
+        this.frames = new ArrayList< ByteCodecStreamFrame >( );
+        this.views = new IdentityHashMap< ByteCodecItemMap, ByteCodecItemView >( );
+        this.event = null;
+    }
+
+    /**
+     *
+     * Garante na janela os dados at "<i>streamEnd</i>" (exclusive), descartando os anteriores
+     * ao item corrente se preciso; "<i>false</i>" se os dados terminam antes.
+     *
+     */
+    protected boolean fill( long streamEnd )
+        throws IOException,
+            ByteCodecDataException {
+        while ( ( this.windowStart + this.window.position( ) ) < streamEnd ) {
+            if ( ( streamEnd - this.windowStart ) > this.window.capacity( ) ) {
+                int tmpDiscarded = (int) ( this.anchor - this.windowStart );
+                this.window.flip( );
+                this.window.position( tmpDiscarded );
+                this.window.compact( );
+                this.windowStart = this.anchor;
+                if ( ( streamEnd - this.windowStart ) > this.window.capacity( ) ) {
+                    throw new ByteCodecDataException( "Item na posio %d com mais de %d bytes excede a janela de leitura",
+                                                      this.anchor,
+                                                      this.window.capacity( ) );
+                }
+            }
+            if ( this.endOfStream ) {
+                return false;
+            }
+            if ( this.channel.read( this.window ) < 0 ) {
+                this.endOfStream = true;
+            }
+        }
+        return true;
+    }
+
+    protected void require( long streamEnd )
+        throws IOException,
+            ByteCodecDataException {
+        if ( !this.fill( streamEnd ) ) {
+            throw new ByteCodecDataException( "Fim inesperado dos dados do arquivo '%s' na posio %d",
+                                              this.fileMap.name,
+                                              this.windowStart + this.window.position( ) );
+        }
+    }
+
+    protected long findEndOfStream( long position )
+        throws IOException,
+            ByteCodecDataException {
+        long tmpEnd = position;
+        while ( this.fill( tmpEnd + 1 ) ) {
+            tmpEnd = ( this.windowStart + this.window.position( ) );
+        }
+        return tmpEnd;
+    }
+
+    protected byte getByte( long position ) {
+        return this.window.get( (int) ( position - this.windowStart ) );
+    }
+
+    protected long getBigEndian( long position,
+                                 int length ) {
+        int tmpOffset = (int) ( position - this.windowStart );
+        long tmpResult = 0L;
+        for ( int tmpIndex = 0; tmpIndex < length; tmpIndex++ ) {
+            tmpResult |= ( this.window.get( tmpOffset + length - tmpIndex - 1 ) & 0xFFL ) << ( 8 * tmpIndex );
+        }
+        return ( tmpResult & 0xFFFFFFFFFFFFFFL );
+    }
+
+    protected byte[ ] getBytes( long position,
+                                int length ) {
+        byte[ ] tmpResult = new byte[ length ];
+        ByteBuffer tmpWindow = this.window.duplicate( );
+        tmpWindow.position( (int) ( position - this.windowStart ) );
+        tmpWindow.get( tmpResult );
+        return tmpResult;
+    }
+
+    /**
+     *
+     * Tamanho (ou quantidade de elementos, para arrays) definido pelo mapa para um item em
+     * "<i>position</i>"; -1 para "<i>FirstInnerField</i>" e "<i>SumOfInnerFields</i>", que
+     * dependem dos itens.
+     *
+     */
+    protected int declaredLength( ByteCodecItemMap map,
+                                  long position,
+                                  long limit,
+                                  Long previousValue )
+        throws IOException,
+            ByteCodecDataException {
+        switch ( map.lengthType ) {
+            case FixedLength:
+                return map.fixedLength;
+            case PreviousField:
+                if ( previousValue == null ) {
+                    throw new ByteCodecDataException( "Campo anterior a '%s' no define um tamanho",
+                                                      map.name );
+                }
+                return previousValue.intValue( );
+            case ArbitraryField: {
+                Long tmpValue;
+                try {
+                    tmpValue = this.fieldValues.get( map.getLengthFieldPath( this.fileMap ).target );
+                }
+                catch ( ByteCodecMapException e ) {
+                    throw new ByteCodecDataException( e );
+                }
+                if ( tmpValue == null ) {
+                    throw new ByteCodecDataException( "Campo '%s' para o tamanho de '%s' no foi lido",
+                                                      map.lengthFieldName,
+                                                      map.name );
+                }
+                return tmpValue.intValue( );
+            }
+            case RemainingOfRecord:
+                return (int) ( ( ( limit >= 0 ) ? limit
+                                                : this.findEndOfStream( position ) )
+                               - position );
+            default:
+                return -1;
+        }
+    }
+
+    protected ByteCodecItemView getView( ByteCodecItemMap map ) {
+        ByteCodecItemView tmpResult = this.views.get( map );
+        if ( tmpResult == null ) {
+            tmpResult = new ByteCodecItemView( this,
+                                               map,
+                                               null );
+            this.views.put( map,
+                            tmpResult );
+        }
+        return tmpResult;
+    }
+
+    /**
+     *
+     * Avana para o prximo evento; "<i>null</i>" depois de "<i>EndFile</i>".
+     *
+     */
+    public ByteCodecStreamEvent next( )
+        throws IOException,
+            ByteCodecDataException {
+        this.eventView = null;
+        if ( this.event == null ) {
+            this.frames.add( new ByteCodecStreamFrame( this.fileMap,
+                                                       0,
+                                                       this.streamLength,
+                                                       -1 ) );
+            this.startContainer( this.frames.get( 0 ),
+                                 null );
+            return this.setEvent( ByteCodecStreamEvent.StartFile,
+                                  this.fileMap,
+                                  0 );
+        }
+        if ( this.frames.isEmpty( ) ) {
+            return this.setEvent( null,
+                                  null,
+                                  0 );
+        }
+        ByteCodecStreamFrame tmpFrame = this.frames.get( this.frames.size( ) - 1 );
+        if ( tmpFrame.map.dataType == ByteCodecItemDataType.RecordArray ) {
+            return this.nextArrayItem( tmpFrame );
+        }
+        ByteCodecContainerMap tmpMap = (ByteCodecContainerMap) tmpFrame.map;
+        if ( tmpFrame.nextIndex == tmpMap.items.length ) {
+            return this.endContainer( tmpFrame );
+        }
+        int tmpIndex = tmpFrame.nextIndex++;
+        ByteCodecItemMap tmpItemMap = tmpMap.items[ tmpIndex ];
+        switch ( tmpItemMap.dataType ) {
+            case Record: {
+                ByteCodecStreamFrame tmpChild = new ByteCodecStreamFrame( tmpItemMap,
+                                                                          tmpFrame.position,
+                                                                          tmpFrame.limit,
+                                                                          -1 );
+                this.startContainer( tmpChild,
+                                     tmpFrame.previousValue );
+                this.frames.add( tmpChild );
+                return this.setEvent( ByteCodecStreamEvent.StartRecord,
+                                      tmpItemMap,
+                                      tmpIndex );
+            }
+            case RecordArray: {
+                ByteCodecStreamFrame tmpChild = new ByteCodecStreamFrame( tmpItemMap,
+                                                                          tmpFrame.position,
+                                                                          tmpFrame.limit,
+                                                                          -1 );
+                if ( tmpItemMap.lengthType != ByteCodecItemLengthType.RemainingOfRecord ) {
+                    tmpChild.length = this.declaredLength( tmpItemMap,
+                                                           tmpFrame.position,
+                                                           tmpFrame.limit,
+                                                           tmpFrame.previousValue );
+                }
+                this.frames.add( tmpChild );
+                return this.setEvent( ByteCodecStreamEvent.StartArray,
+                                      tmpItemMap,
+                                      tmpIndex );
+            }
+            default: {
+                this.anchor = tmpFrame.position;
+                ByteCodecItemView tmpView = this.getView( tmpItemMap );
+                tmpView.measure( tmpFrame.position,
+                                 tmpIndex,
+                                 tmpFrame.limit,
+                                 tmpFrame.previousValue );
+                tmpFrame.previousValue = tmpView.getInteger( );
+                if ( tmpItemMap.dataType == ByteCodecItemDataType.Integer ) {
+                    this.fieldValues.put( tmpItemMap,
+                                          tmpFrame.previousValue );
+                }
+                if ( ( tmpIndex == 0 ) && ( tmpMap.lengthType == ByteCodecItemLengthType.FirstInnerField ) ) {
+                    tmpFrame.length = tmpFrame.previousValue.intValue( );
+                    tmpFrame.limit = ( tmpFrame.start + tmpFrame.length );
+                }
+                tmpFrame.position += tmpView.length;
+                this.eventView = tmpView;
+                return this.setEvent( ByteCodecStreamEvent.Field,
+                                      tmpItemMap,
+                                      tmpIndex );
+            }
+        }
+    }
+
+    protected void startContainer( ByteCodecStreamFrame frame,
+                                   Long previousValue )
+        throws IOException,
+            ByteCodecDataException {
+        if ( ( frame.map.lengthType != ByteCodecItemLengthType.FirstInnerField )
+             && ( frame.map.lengthType != ByteCodecItemLengthType.SumOfInnerFields ) ) {
+            frame.length = this.declaredLength( frame.map,
+                                                frame.start,
+                                                frame.limit,
+                                                previousValue );
+            frame.limit = ( frame.start + frame.length );
+        }
+    }
+
+    protected ByteCodecStreamEvent endContainer( ByteCodecStreamFrame frame )
+        throws IOException,
+            ByteCodecDataException {
+        this.frames.remove( this.frames.size( ) - 1 );
+        long tmpLength = ( frame.position - frame.start );
+        if ( ( frame.length >= 0 ) && ( tmpLength != frame.length ) ) {
+            throw new ByteCodecDataException( "Tamanho dos items incoerente com o tamanho de '%s'",
+                                              frame.map.name );
+        }
+        if ( this.frames.isEmpty( ) ) {
+            this.anchor = frame.position;
+            if ( ( this.streamLength >= 0 ) ? ( tmpLength != this.streamLength )
+                                            : this.fill( frame.position + 1 ) ) {
+                throw new ByteCodecDataException( "Dados invlidos para '%s'",
+                                                  this.fileMap.name );
+            }
+            return this.setEvent( ByteCodecStreamEvent.EndFile,
+                                  frame.map,
+                                  0 );
+        }
+        ByteCodecStreamFrame tmpParent = this.frames.get( this.frames.size( ) - 1 );
+        tmpParent.position = frame.position;
+        tmpParent.previousValue = null;
+        return this.setEvent( ByteCodecStreamEvent.EndRecord,
+                              frame.map,
+                              tmpParent.nextIndex - 1 );
+    }
+
+    protected ByteCodecStreamEvent nextArrayItem( ByteCodecStreamFrame frame )
+        throws IOException,
+            ByteCodecDataException {
+        this.anchor = frame.position;
+        boolean tmpHasNext;
+        if ( frame.length >= 0 ) {
+            tmpHasNext = ( frame.nextIndex < frame.length );
+        }
+        else if ( frame.limit >= 0 ) {
+            tmpHasNext = ( frame.position < frame.limit );
+        }
+        else {
+            tmpHasNext = this.fill( frame.position + 1 );
+        }
+        if ( !tmpHasNext ) {
+            this.frames.remove( this.frames.size( ) - 1 );
+            ByteCodecStreamFrame tmpParent = this.frames.get( this.frames.size( ) - 1 );
+            tmpParent.position = frame.position;
+            tmpParent.previousValue = null;
+            return this.setEvent( ByteCodecStreamEvent.EndArray,
+                                  frame.map,
+                                  tmpParent.nextIndex - 1 );
+        }
+        ByteCodecItemView tmpView = this.getView( ( (ByteCodecRecordArrayMap) frame.map ).elementMap );
+        tmpView.measure( frame.position,
+                         frame.nextIndex,
+                         frame.limit,
+                         null );
+        frame.position += tmpView.length;
+        this.eventView = tmpView;
+        return this.setEvent( ByteCodecStreamEvent.ArrayRecord,
+                              tmpView.map,
+                              frame.nextIndex++ );
+    }
+
+    protected ByteCodecStreamEvent setEvent( ByteCodecStreamEvent event,
+                                             ByteCodecItemMap map,
+                                             int index ) {
+        this.event = event;
+        this.eventMap = map;
+        this.eventIndex = index;
+        return event;
+    }
+
+    public ByteCodecStreamEvent getEvent( ) {
+        return this.event;
+    }
+
+    public ByteCodecItemMap getItemMap( ) {
+        return this.eventMap;
+    }
+
+    /**
+     *
+     * ndice do item no registro ou do elemento no array.
+     *
+     */
+    public int getIndex( ) {
+        return this.eventIndex;
+    }
+
+    /**
+     *
+     * Viso do campo ("<i>Field</i>") ou do elemento ("<i>ArrayRecord</i>") corrente.
+     *
+     */
+    public ByteCodecItemView getView( ) {
+        return this.eventView;
+    }
+
+    /**
+     *
+     * Quantidade de elementos do array iniciado ("<i>StartArray</i>"), ou -1 se o array vai at o
+     * fim do registro.
+     *
+     */
+    public int getArrayLength( ) {
+        ByteCodecStreamFrame tmpFrame = this.frames.isEmpty( ) ? null
+                                                               : this.frames.get( this.frames.size( ) - 1 );
+        return ( ( tmpFrame != null ) && ( tmpFrame.map.dataType == ByteCodecItemDataType.RecordArray ) ) ? tmpFrame.length
+                                                                                                           : -1;
+    }
+
+    /**
+     *
+     * Valor de um campo inteiro j lido fora de arrays, pelo caminho a partir da raiz.
+     *
+     */
+    public Long getFieldValue( String path ) {
+        ByteCodecItemMap tmpMap = this.fileMap.getItem( path );
+        return ( tmpMap != null ) ? this.fieldValues.get( tmpMap )
+                                  : null;
+    }
+
+    public void parse( ByteCodecStreamVisitor visitor )
+        throws IOException,
+            ByteCodecDataException {
+        ByteCodecStreamEvent tmpEvent;
+        while ( ( tmpEvent = this.next( ) ) != null ) {
+            switch ( tmpEvent ) {
+                case StartFile:
+                case StartRecord:
+                    visitor.startRecord( (ByteCodecContainerMap) this.eventMap );
+                    break;
+                case EndFile:
+                case EndRecord:
+                    visitor.endRecord( (ByteCodecContainerMap) this.eventMap );
+                    break;
+                case Field:
+                    visitor.field( this.eventView );
+                    break;
+                case StartArray:
+                    visitor.startArray( (ByteCodecRecordArrayMap) this.eventMap,
+                                        this.getArrayLength( ) );
+                    break;
+                case ArrayRecord:
+                    visitor.arrayRecord( this.eventView );
+                    break;
+                case EndArray:
+                    visitor.endArray( (ByteCodecRecordArrayMap) this.eventMap );
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public void close( )
+        throws IOException {
+        this.channel.close( );
+    }
+}
@@ -0,0 +1,310 @@
+package asap.primitive.log;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.TimeZone;
+
+import asap.primitive.log.LogService.LogDetail;
+import asap.primitive.log.LogService.LogException;
+import asap.primitive.log.LogService.LogLayout;
+import asap.primitive.log.LogService.LogLayout.LogTimestampRenderer;
+import asap.primitive.log.LogService.LogLevel;
+import asap.primitive.log.LogService.LogOutputBinaryFile;
+import asap.primitive.pattern.ValuePattern.BasicValue;
+import asap.primitive.pattern.ValuePattern.Value;
+import asap.primitive.string.StringHelper;
+
+/**
+ *
+ * Leitor dos arquivos gravados por "{@link LogOutputBinaryFile}": cada registro  formatado com o
+ * layout descrito no cabealho do arquivo (ou com um layout fornecido) e no fuso horrio da sada
+ * que o gravou, produzindo o mesmo texto que "{@link LogLayout}" produziria no momento do registro.
+ * A exceo so os argumentos "{@link Date}" e "{@link Calendar}": o instante (e o fuso do
+ * "<i>Calendar</i>")  preservado, mas as converses que dependem do fuso ou da localidade padro
+ * ("%s" de ambos e "%t" de "<i>Date</i>") usam os da JVM que decodifica. O alinhamento das mensagens ("<i>messageShift</i>")  acumulado ao longo da leitura, como em uma
+ * sada de texto.<br>
+ * <br>
+ * Um registro incompleto no fim do arquivo (gravao interrompida) encerra a leitura sem erro.
+ *
+ */
+public final class LogBinaryDecoder implements Closeable {
+
+    protected final DataInputStream  input;
+
+    protected final LogLayout        fixedLayout;
+
+    protected LogLayout              layout;
+
+    protected final Value< Integer > messageShift;
+
+    protected final List< String >   strings;
+
+    protected long                   lastTimestamp;
+
+    protected final Calendar         timestamp;
+
+    public LogBinaryDecoder( InputStream input ) {
+        this( input,
+              null );
+    }
+
+    public LogBinaryDecoder( InputStream input,
+                             LogLayout layout ) {
+        this.input = new DataInputStream( new BufferedInputStream( input ) );
+        this.fixedLayout = layout;
+        this.layout = layout;
+        this.messageShift = new BasicValue< Integer >( 0 );
+        this.strings = new ArrayList< String >( );
+        this.lastTimestamp = 0;
+        this.timestamp = new GregorianCalendar( );
+    }
+
+    /**
+     *
+     * Texto do prximo registro, ou "<i>null</i>" no fim do arquivo.
+     *
+     */
+    public String next( )
+        throws IOException,
+            LogException {
+        try {
+            while ( true ) {
+                int tmpTag = this.input.read( );
+                switch ( tmpTag ) {
+                    case -1:
+                        return null;
+                    case LogOutputBinaryFile.HEADER_TAG:
+                        this.readHeader( );
+                        break;
+                    case LogOutputBinaryFile.STRING_TAG: {
+                        int tmpId = (int) this.readVarLong( );
+                        if ( tmpId != ( this.strings.size( ) + 1 ) ) {
+                            throw new LogException( "Invalid string id %d ( expected %d )",
+                                                    tmpId,
+                                                    this.strings.size( ) + 1 );
+                        }
+                        this.strings.add( this.readString( ) );
+                        break;
+                    }
+                    case LogOutputBinaryFile.RECORD_TAG:
+                        return this.readRecord( );
+                    default:
+                        throw new LogException( "Invalid binary log tag 0x%02X",
+                                                tmpTag );
+                }
+            }
+        }
+        catch ( EOFException e ) {
+            return null;
+        }
+    }
+
+    protected void readHeader( )
+        throws IOException,
+            LogException {
+        int tmpMagic = this.input.readInt( );
+        int tmpVersion = this.input.readUnsignedShort( );
+        if ( ( tmpMagic != LogOutputBinaryFile.FORMAT_MAGIC ) || ( tmpVersion != LogOutputBinaryFile.FORMAT_VERSION ) ) {
+            throw new LogException( "Invalid binary log header ( magic %08X, version %d )",
+                                    tmpMagic,
+                                    tmpVersion );
+        }
+        String tmpName = this.readString( );
+        long tmpWidth = this.readVarLong( );
+        int tmpNoWrap = this.input.readUnsignedByte( );
+        LogDetail[ ] tmpDetails = new LogDetail[ (int) this.readVarLong( ) ];
+        for ( int tmpIndex = 0; tmpIndex < tmpDetails.length; tmpIndex++ ) {
+            tmpDetails[ tmpIndex ] = LogDetail.valueOf( this.readString( ) );
+        }
+        ZoneId tmpZone = ZoneId.of( this.readString( ) );
+        this.strings.clear( );
+        this.lastTimestamp = 0;
+        if ( this.fixedLayout == null ) {
+            this.layout = new LogLayout( tmpName,
+                                         ( tmpWidth == 0 ) ? null
+                                                           : (int) ( tmpWidth - 1 ),
+                                         ( tmpNoWrap == 2 ) ? null
+                                                            : ( tmpNoWrap == 1 ),
+                                         tmpDetails );
+            this.layout.timestampRenderer = new LogTimestampRenderer( tmpZone );
+            this.layout.parseDetails( );
+        }
+    }
+
+    protected String readRecord( )
+        throws IOException,
+            LogException {
+        if ( this.layout == null ) {
+            throw new LogException( "Binary log record before header" );
+        }
+        int tmpFlags = this.input.readUnsignedByte( );
+        this.lastTimestamp += unZigZag( this.readVarLong( ) );
+        LogLevel tmpLevel = LogLevel.values( )[ this.input.readUnsignedByte( ) ];
+        long tmpThreadId = this.readVarLong( );
+        int tmpIndentation = (int) this.readVarLong( );
+        // Nome do logger: gravado para filtros, no faz parte do texto
+        this.lookup( this.readVarLong( ) );
+        String tmpFormat = ( ( tmpFlags & LogOutputBinaryFile.LITERAL_FORMAT_FLAG ) != 0 ) ? this.readString( )
+                                                                                            : this.lookup( this.readVarLong( ) );
+        StackTraceElement tmpStackElement = null;
+        if ( ( tmpFlags & LogOutputBinaryFile.CALLER_FLAG ) != 0 ) {
+            String tmpClassName = this.lookup( this.readVarLong( ) );
+            String tmpMethodName = this.lookup( this.readVarLong( ) );
+            tmpStackElement = new StackTraceElement( tmpClassName,
+                                                     tmpMethodName,
+                                                     null,
+                                                     (int) unZigZag( this.readVarLong( ) ) );
+        }
+        Object[ ] tmpArgs = new Object[ (int) this.readVarLong( ) ];
+        for ( int tmpIndex = 0; tmpIndex < tmpArgs.length; tmpIndex++ ) {
+            tmpArgs[ tmpIndex ] = this.readArgument( );
+        }
+        this.timestamp.setTimeInMillis( this.lastTimestamp );
+        return this.layout.format( this.timestamp,
+                                   tmpLevel,
+                                   tmpThreadId,
+                                   tmpStackElement,
+                                   this.messageShift,
+                                   tmpIndentation,
+                                   StringHelper.flawlessFormat( tmpFormat,
+                                                                tmpArgs ) );
+    }
+
+    protected Object readArgument( )
+        throws IOException,
+            LogException {
+        int tmpType = this.input.readUnsignedByte( );
+        switch ( tmpType ) {
+            case LogOutputBinaryFile.NULL_ARGUMENT:
+                return null;
+            case LogOutputBinaryFile.TRUE_ARGUMENT:
+                return Boolean.TRUE;
+            case LogOutputBinaryFile.FALSE_ARGUMENT:
+                return Boolean.FALSE;
+            case LogOutputBinaryFile.BYTE_ARGUMENT:
+                return this.input.readByte( );
+            case LogOutputBinaryFile.SHORT_ARGUMENT:
+                return (short) unZigZag( this.readVarLong( ) );
+            case LogOutputBinaryFile.INTEGER_ARGUMENT:
+                return (int) unZigZag( this.readVarLong( ) );
+            case LogOutputBinaryFile.LONG_ARGUMENT:
+                return unZigZag( this.readVarLong( ) );
+            case LogOutputBinaryFile.FLOAT_ARGUMENT:
+                return this.input.readFloat( );
+            case LogOutputBinaryFile.DOUBLE_ARGUMENT:
+                return this.input.readDouble( );
+            case LogOutputBinaryFile.CHARACTER_ARGUMENT:
+                return (char) this.readVarLong( );
+            case LogOutputBinaryFile.STRING_ARGUMENT:
+                return this.readString( );
+            case LogOutputBinaryFile.BIG_INTEGER_ARGUMENT:
+                return new BigInteger( this.readString( ) );
+            case LogOutputBinaryFile.BIG_DECIMAL_ARGUMENT:
+                return new BigDecimal( this.readString( ) );
+            case LogOutputBinaryFile.DATE_ARGUMENT:
+                return new Date( unZigZag( this.readVarLong( ) ) );
+            case LogOutputBinaryFile.CALENDAR_ARGUMENT: {
+                long tmpMillis = unZigZag( this.readVarLong( ) );
+                Calendar tmpCalendar = new GregorianCalendar( TimeZone.getTimeZone( this.readString( ) ) );
+                tmpCalendar.setTimeInMillis( tmpMillis );
+                return tmpCalendar;
+            }
+            default:
+                throw new LogException( "Invalid binary log argument type %d",
+                                        tmpType );
+        }
+    }
+
+    protected String lookup( long id )
+        throws LogException {
+        if ( id == 0 ) {
+            return null;
+        }
+        if ( id > this.strings.size( ) ) {
+            throw new LogException( "Undefined string id %d",
+                                    id );
+        }
+        return this.strings.get( (int) ( id - 1 ) );
+    }
+
+    protected long readVarLong( )
+        throws IOException {
+        long tmpResult = 0;
+        for ( int tmpShift = 0; tmpShift < 64; tmpShift += 7 ) {
+            int tmpByte = this.input.readUnsignedByte( );
+            tmpResult |= ( (long) ( tmpByte & 0x7F ) << tmpShift );
+            if ( ( tmpByte & 0x80 ) == 0 ) {
+                break;
+            }
+        }
+        return tmpResult;
+    }
+
+    protected String readString( )
+        throws IOException {
+        byte[ ] tmpBytes = new byte[ (int) this.readVarLong( ) ];
+        this.input.readFully( tmpBytes );
+        return new String( tmpBytes,
+                           StandardCharsets.UTF_8 );
+    }
+
+    protected static long unZigZag( long value ) {
+        return ( ( value >>> 1 ) ^ -( value & 1 ) );
+    }
+
+    @Override
+    public void close( )
+        throws IOException {
+        this.input.close( );
+    }
+
+    public static void decode( InputStream input,
+                               PrintStream output )
+        throws IOException,
+            LogException {
+        LogBinaryDecoder tmpDecoder = new LogBinaryDecoder( input );
+        try {
+            String tmpLine;
+            while ( ( tmpLine = tmpDecoder.next( ) ) != null ) {
+                output.println( tmpLine );
+            }
+        }
+        finally {
+            tmpDecoder.close( );
+        }
+    }
+
+    /**
+     *
+     * "<i>LogBinaryDecoder &lt;arquivo&gt; [&lt;arquivo&gt; ...]</i>" escreve o texto dos
+     * registros na sada padro.
+     *
+     */
+    public static void main( String[ ] args )
+        throws IOException,
+            LogException {
+        if ( args.length == 0 ) {
+            throw new LogException( "Usage: LogBinaryDecoder <file> [<file> ...]" );
+        }
+        for ( String tmpFilePath : args ) {
+            decode( new FileInputStream( tmpFilePath ),
+                    System.out );
+        }
+        System.out.flush( );
+    }
+}
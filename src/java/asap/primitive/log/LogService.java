@@ -1,14 +1,28 @@
 package asap.primitive.log;
 
-import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
-import java.text.SimpleDateFormat;
+import java.lang.StackWalker.StackFrame;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -17,7 +31,19 @@ import java.util.GregorianCalendar;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -67,6 +93,8 @@ public class LogService {
 
         public final String tag;
 
+        public final long   mask;
+
         public boolean isLesser( LogLevel anotherLevel ) {
             return ( ( anotherLevel != null ) && ( this.ordinal( ) < anotherLevel.ordinal( ) ) );
         }
@@ -83,8 +111,26 @@ public class LogService {
             return LogLevel.All;
         }
 
+        /**
+         *
+         * Mscara, com um bit por nvel ("{@link #mask}"), dos nveis entre "<i>minLevel</i>" e
+         * "<i>maxLevel</i>"; limites nulos no restringem.
+         *
+         */
+        public static long rangeMask( LogLevel minLevel,
+                                      LogLevel maxLevel ) {
+            long tmpMask = 0;
+            for ( LogLevel tmpLevel : LogLevel.values( ) ) {
+                if ( !tmpLevel.isLesser( minLevel ) && !tmpLevel.isGreater( maxLevel ) ) {
+                    tmpMask |= tmpLevel.mask;
+                }
+            }
+            return tmpMask;
+        }
+
         private LogLevel( String tag ) {
             this.tag = tag;
+            this.mask = ( 1L << this.ordinal( ) );
         }
     }
 
@@ -112,6 +158,7 @@ public class LogService {
         public Logger setMinLevel( LogLevel minLevel ) {
             synchronized ( this ) {
                 this.localMinLevel = minLevel;
+                this.refreshLevels( );
             }
             return this;
         }
@@ -119,18 +166,27 @@ public class LogService {
         public Logger setMaxLevel( LogLevel maxLevel ) {
             synchronized ( this ) {
                 this.localMaxLevel = maxLevel;
+                this.refreshLevels( );
             }
             return this;
         }
 
-        protected boolean isLocalEnabled( LogLevel level ) {
-            return ( !level.isLesser( this.localMinLevel ) && !level.isGreater( this.localMaxLevel ) );
+        /**
+         *
+         * Recalcula o instantneo dos nveis habilitados: os locais do logger que o perfil tambm
+         * habilita (diretamente ou por repasse ao perfil pai).
+         *
+         */
+        protected void refreshLevels( ) {
+            synchronized ( this ) {
+                this.enabledLevels = ( LogLevel.rangeMask( this.localMinLevel,
+                                                           this.localMaxLevel )
+                                       & this.profile.enabledLevels );
+            }
         }
 
         public boolean isEnabled( LogLevel level ) {
-            synchronized ( this ) {
-                return ( this.isLocalEnabled( level ) && this.profile.isEnabled( level ) );
-            }
+            return ( ( this.enabledLevels & level.mask ) != 0 );
         }
 
         public boolean isTraceEnabled( ) {
@@ -189,9 +245,10 @@ public class LogService {
         public Logger message( LogLevel level,
                                String format,
                                Object... args ) {
-            synchronized ( this ) {
-                if ( this.isLocalEnabled( level ) ) {
-                    this.profile.message( this.indentation,
+            if ( this.isEnabled( level ) ) {
+                synchronized ( this ) {
+                    this.profile.message( this.name,
+                                          this.indentation,
                                           level,
                                           format,
                                           args );
@@ -204,9 +261,10 @@ public class LogService {
                                LogLevel level,
                                String format,
                                Object... args ) {
-            synchronized ( this ) {
-                if ( this.isLocalEnabled( level ) && this.profile.isEnabled( level ) ) {
-                    this.profile.message( ( this.indentation + indentation ),
+            if ( this.isEnabled( level ) ) {
+                synchronized ( this ) {
+                    this.profile.message( this.name,
+                                          ( this.indentation + indentation ),
                                           level,
                                           format,
                                           args );
@@ -217,9 +275,10 @@ public class LogService {
 
         public Logger trace( String format,
                              Object... args ) {
-            synchronized ( this ) {
-                if ( this.isLocalEnabled( LogLevel.Trace ) ) {
-                    this.profile.message( this.indentation,
+            if ( this.isEnabled( LogLevel.Trace ) ) {
+                synchronized ( this ) {
+                    this.profile.message( this.name,
+                                          this.indentation,
                                           LogLevel.Trace,
                                           format,
                                           args );
@@ -231,9 +290,10 @@ public class LogService {
         public Logger trace( int indentation,
                              String format,
                              Object... args ) {
-            synchronized ( this ) {
-                if ( this.isLocalEnabled( LogLevel.Trace ) ) {
-                    this.profile.message( ( this.indentation + indentation ),
+            if ( this.isEnabled( LogLevel.Trace ) ) {
+                synchronized ( this ) {
+                    this.profile.message( this.name,
+                                          ( this.indentation + indentation ),
                                           LogLevel.Trace,
                                           format,
                                           args );
@@ -244,9 +304,10 @@ public class LogService {
 
         public Logger debug( String format,
                              Object... args ) {
-            synchronized ( this ) {
-                if ( this.isLocalEnabled( LogLevel.Debug ) ) {
-                    this.profile.message( this.indentation,
+            if ( this.isEnabled( LogLevel.Debug ) ) {
+                synchronized ( this ) {
+                    this.profile.message( this.name,
+                                          this.indentation,
                                           LogLevel.Debug,
                                           format,
                                           args );
@@ -258,9 +319,10 @@ public class LogService {
         public Logger debug( int indentation,
                              String format,
                              Object... args ) {
-            synchronized ( this ) {
-                if ( this.isLocalEnabled( LogLevel.Debug ) ) {
-                    this.profile.message( ( this.indentation + indentation ),
+            if ( this.isEnabled( LogLevel.Debug ) ) {
+                synchronized ( this ) {
+                    this.profile.message( this.name,
+                                          ( this.indentation + indentation ),
                                           LogLevel.Debug,
                                           format,
                                           args );
@@ -270,9 +332,10 @@ public class LogService {
         }
 
         public Logger exception( Throwable e ) {
-            synchronized ( this ) {
-                if ( this.isLocalEnabled( LogLevel.Exception ) ) {
-                    this.profile.message( this.indentation,
+            if ( this.isEnabled( LogLevel.Exception ) ) {
+                synchronized ( this ) {
+                    this.profile.message( this.name,
+                                          this.indentation,
                                           LogLevel.Exception,
                                           "%s: %s",
                                           e.getClass( ).getSimpleName( ),
@@ -284,9 +347,10 @@ public class LogService {
 
         public Logger exception( int indentation,
                                  Throwable e ) {
-            synchronized ( this ) {
-                if ( this.isLocalEnabled( LogLevel.Exception ) ) {
-                    this.profile.message( ( this.indentation + indentation ),
+            if ( this.isEnabled( LogLevel.Exception ) ) {
+                synchronized ( this ) {
+                    this.profile.message( this.name,
+                                          ( this.indentation + indentation ),
                                           LogLevel.Exception,
                                           "%s: %s",
                                           e.getClass( ).getSimpleName( ),
@@ -298,9 +362,10 @@ public class LogService {
 
         public Logger exception( String format,
                                  Object... args ) {
-            synchronized ( this ) {
-                if ( this.isLocalEnabled( LogLevel.Exception ) ) {
-                    this.profile.message( this.indentation,
+            if ( this.isEnabled( LogLevel.Exception ) ) {
+                synchronized ( this ) {
+                    this.profile.message( this.name,
+                                          this.indentation,
                                           LogLevel.Exception,
                                           format,
                                           args );
@@ -312,9 +377,10 @@ public class LogService {
         public Logger exception( int indentation,
                                  String format,
                                  Object... args ) {
-            synchronized ( this ) {
-                if ( this.isLocalEnabled( LogLevel.Exception ) ) {
-                    this.profile.message( ( this.indentation + indentation ),
+            if ( this.isEnabled( LogLevel.Exception ) ) {
+                synchronized ( this ) {
+                    this.profile.message( this.name,
+                                          ( this.indentation + indentation ),
                                           LogLevel.Exception,
                                           format,
                                           args );
@@ -325,9 +391,10 @@ public class LogService {
 
         public Logger info( String format,
                             Object... args ) {
-            synchronized ( this ) {
-                if ( this.isLocalEnabled( LogLevel.Info ) ) {
-                    this.profile.message( this.indentation,
+            if ( this.isEnabled( LogLevel.Info ) ) {
+                synchronized ( this ) {
+                    this.profile.message( this.name,
+                                          this.indentation,
                                           LogLevel.Info,
                                           format,
                                           args );
@@ -339,9 +406,10 @@ public class LogService {
         public Logger info( int indentation,
                             String format,
                             Object... args ) {
-            synchronized ( this ) {
-                if ( this.isLocalEnabled( LogLevel.Info ) ) {
-                    this.profile.message( ( this.indentation + indentation ),
+            if ( this.isEnabled( LogLevel.Info ) ) {
+                synchronized ( this ) {
+                    this.profile.message( this.name,
+                                          ( this.indentation + indentation ),
                                           LogLevel.Info,
                                           format,
                                           args );
@@ -352,9 +420,10 @@ public class LogService {
 
         public Logger warn( String format,
                             Object... args ) {
-            synchronized ( this ) {
-                if ( this.isLocalEnabled( LogLevel.Warn ) ) {
-                    this.profile.message( this.indentation,
+            if ( this.isEnabled( LogLevel.Warn ) ) {
+                synchronized ( this ) {
+                    this.profile.message( this.name,
+                                          this.indentation,
                                           LogLevel.Warn,
                                           format,
                                           args );
@@ -366,9 +435,10 @@ public class LogService {
         public Logger warn( int indentation,
                             String format,
                             Object... args ) {
-            synchronized ( this ) {
-                if ( this.isLocalEnabled( LogLevel.Warn ) ) {
-                    this.profile.message( ( this.indentation + indentation ),
+            if ( this.isEnabled( LogLevel.Warn ) ) {
+                synchronized ( this ) {
+                    this.profile.message( this.name,
+                                          ( this.indentation + indentation ),
                                           LogLevel.Warn,
                                           format,
                                           args );
@@ -379,9 +449,10 @@ public class LogService {
 
         public Logger error( String format,
                              Object... args ) {
-            synchronized ( this ) {
-                if ( this.isLocalEnabled( LogLevel.Error ) ) {
-                    this.profile.message( this.indentation,
+            if ( this.isEnabled( LogLevel.Error ) ) {
+                synchronized ( this ) {
+                    this.profile.message( this.name,
+                                          this.indentation,
                                           LogLevel.Error,
                                           format,
                                           args );
@@ -393,9 +464,10 @@ public class LogService {
         public Logger error( int indentation,
                              String format,
                              Object... args ) {
-            synchronized ( this ) {
-                if ( this.isLocalEnabled( LogLevel.Error ) ) {
-                    this.profile.message( ( this.indentation + indentation ),
+            if ( this.isEnabled( LogLevel.Error ) ) {
+                synchronized ( this ) {
+                    this.profile.message( this.name,
+                                          ( this.indentation + indentation ),
                                           LogLevel.Error,
                                           format,
                                           args );
@@ -406,9 +478,10 @@ public class LogService {
 
         public Logger fatal( String format,
                              Object... args ) {
-            synchronized ( this ) {
-                if ( this.isLocalEnabled( LogLevel.Fatal ) ) {
-                    this.profile.message( this.indentation,
+            if ( this.isEnabled( LogLevel.Fatal ) ) {
+                synchronized ( this ) {
+                    this.profile.message( this.name,
+                                          this.indentation,
                                           LogLevel.Fatal,
                                           format,
                                           args );
@@ -420,9 +493,10 @@ public class LogService {
         public Logger fatal( int indentation,
                              String format,
                              Object... args ) {
-            synchronized ( this ) {
-                if ( this.isLocalEnabled( LogLevel.Fatal ) ) {
-                    this.profile.message( ( this.indentation + indentation ),
+            if ( this.isEnabled( LogLevel.Fatal ) ) {
+                synchronized ( this ) {
+                    this.profile.message( this.name,
+                                          ( this.indentation + indentation ),
                                           LogLevel.Fatal,
                                           format,
                                           args );
@@ -444,12 +518,14 @@ public class LogService {
             this.localMinLevel = null;
             this.localMaxLevel = null;
             this.indentation = 0;
+            this.refreshLevels( );
         }
 
         protected LogProfile setProfile( LogProfile profile ) {
             synchronized ( this ) {
                 LogProfile tmpPrevious = this.profile;
                 this.profile = profile;
+                this.refreshLevels( );
                 return tmpPrevious;
             }
         }
@@ -479,6 +555,8 @@ public class LogService {
         protected LogLevel         localMaxLevel;
 
         protected int              indentation;
+
+        protected volatile long    enabledLevels;
     }
 
     @SuppressWarnings( "serial" )
@@ -526,50 +604,184 @@ public class LogService {
     @XmlAccessorType( XmlAccessType.NONE )
     public static final class LogLayout {
 
+        /**
+         *
+         * Trecho pr-compilado de um layout: os detalhes so resolvidos uma vez, em
+         * "{@link LogLayout#parseDetails( )}", e cada mensagem apenas percorre a sequncia.
+         *
+         */
+        protected static interface LogLayoutAppender {
+
+            public abstract void append( StringBuilder builder,
+                                         Calendar timestamp,
+                                         LogLevel level,
+                                         long threadId,
+                                         StackTraceElement stackElement,
+                                         int indentation );
+        }
+
+        /**
+         *
+         * Formatador de data e hora baseado em "java.time", seguro para uso concorrente. O texto da
+         * data  mantido por dia e o texto da hora por segundo, em instantneos imutveis; a cada
+         * mensagem apenas os milissegundos so formatados.
+         *
+         */
+        protected static final class LogTimestampRenderer {
+
+            protected static final class LogRenderedDay {
+
+                protected final long   startMillis;
+
+                protected final long   endMillis;
+
+                protected final String text;
+
+                protected LogRenderedDay( long startMillis,
+                                          long endMillis,
+                                          String text ) {
+                    this.startMillis = startMillis;
+                    this.endMillis = endMillis;
+                    this.text = text;
+                }
+            }
+
+            protected static final class LogRenderedSecond {
+
+                protected final long   epochSecond;
+
+                protected final String text;
+
+                protected LogRenderedSecond( long epochSecond,
+                                             String text ) {
+                    this.epochSecond = epochSecond;
+                    this.text = text;
+                }
+            }
+
+            protected static final DateTimeFormatter DATE_FORMATTER   = DateTimeFormatter.ofPattern( "dd/MM/yyyy " );
+
+            protected static final DateTimeFormatter SECOND_FORMATTER = DateTimeFormatter.ofPattern( "HH:mm:ss." );
+
+            protected final ZoneId                   zone;
+
+            protected volatile LogRenderedDay        day;
+
+            protected volatile LogRenderedSecond     second;
+
+            protected LogTimestampRenderer( ZoneId zone ) {
+                this.zone = zone;
+                this.day = new LogRenderedDay( 0,
+                                               0,
+                                               null );
+                this.second = new LogRenderedSecond( Long.MIN_VALUE,
+                                                     null );
+            }
+
+            public void appendDate( StringBuilder builder,
+                                    long epochMillis ) {
+                LogRenderedDay tmpDay = this.day;
+                if ( ( epochMillis < tmpDay.startMillis ) || ( epochMillis >= tmpDay.endMillis ) ) {
+                    ZonedDateTime tmpDateTime = Instant.ofEpochMilli( epochMillis ).atZone( this.zone );
+                    LocalDate tmpDate = tmpDateTime.toLocalDate( );
+                    tmpDay = new LogRenderedDay( tmpDate.atStartOfDay( this.zone ).toInstant( ).toEpochMilli( ),
+                                                 tmpDate.plusDays( 1 ).atStartOfDay( this.zone ).toInstant( ).toEpochMilli( ),
+                                                 DATE_FORMATTER.format( tmpDateTime ) );
+                    this.day = tmpDay;
+                }
+                builder.append( tmpDay.text );
+            }
+
+            public void appendTime( StringBuilder builder,
+                                    long epochMillis ) {
+                long tmpEpochSecond = Math.floorDiv( epochMillis,
+                                                     1000L );
+                LogRenderedSecond tmpSecond = this.second;
+                if ( tmpSecond.epochSecond != tmpEpochSecond ) {
+                    tmpSecond = new LogRenderedSecond( tmpEpochSecond,
+                                                       SECOND_FORMATTER.format( Instant.ofEpochSecond( tmpEpochSecond ).atZone( this.zone ) ) );
+                    this.second = tmpSecond;
+                }
+                int tmpMillis = (int) Math.floorMod( epochMillis,
+                                                     1000L );
+                builder.append( tmpSecond.text )
+                       .append( (char) ( '0' + ( tmpMillis / 100 ) ) )
+                       .append( (char) ( '0' + ( ( tmpMillis / 10 ) % 10 ) ) )
+                       .append( (char) ( '0' + ( tmpMillis % 10 ) ) )
+                       .append( ' ' );
+            }
+        }
+
         @XmlAttribute( required = true )
-        protected String                  name;
+        protected String                                    name;
 
         @XmlAttribute( required = false )
-        protected Integer                 width;
+        protected Integer                                   width;
 
         @XmlAttribute( required = false )
-        protected Boolean                 noWrap;
+        protected Boolean                                   noWrap;
 
         @XmlElement( required = false,
                      name = "detail" )
-        protected List< LogDetail >       details;
+        protected List< LogDetail >                         details;
+
+        protected static final LogTimestampRenderer         TIMESTAMP_RENDERER                 = new LogTimestampRenderer( ZoneId.systemDefault( ) );
+
+        protected static final int                          INDENTATION_WIDTH                  = 2;
+
+        protected static final int                          MINIMUM_OUTPUT_WIDTH               = 80;
+
+        protected static final int                          MAXIMUM_OUTPUT_WIDTH               = 999;
+
+        protected static final int                          DEFAULT_OUTPUT_WIDTH               = MAXIMUM_OUTPUT_WIDTH;
 
-        protected static SimpleDateFormat dateFormat                         = new SimpleDateFormat( "dd/MM/yyyy " );
+        protected static Pattern                            SIMPLE_CLASS_NAME_SPLIT_PATTERN    = Pattern.compile( "\\." );
 
-        protected static SimpleDateFormat timeFormat                         = new SimpleDateFormat( "HH:mm:ss.SSS " );
+        protected static Pattern                            OUTERMOST_CLASS_NAME_SPLIT_PATTERN = Pattern.compile( "\\.|\\$.*" );
 
-        protected static final int        INDENTATION_WIDTH                  = 2;
+        protected static Pattern                            INNERMOST_CLASS_NAME_SPLIT_PATTERN = Pattern.compile( "\\.|\\$(?!\\d+)" );
 
-        protected static final int        MINIMUM_OUTPUT_WIDTH               = 80;
+        protected static final String[ ]                    LEVEL_TAGS                         = new String[ LogLevel.values( ).length ];
 
-        protected static final int        MAXIMUM_OUTPUT_WIDTH               = 999;
+        protected static final char[ ]                      HEX_DIGITS                         = "0123456789ABCDEF".toCharArray( );
 
-        protected static final int        DEFAULT_OUTPUT_WIDTH               = MAXIMUM_OUTPUT_WIDTH;
+        protected static final int                          MAXIMUM_CALLER_CACHE_SIZE          = 4096;
 
-        protected static Pattern          SIMPLE_CLASS_NAME_SPLIT_PATTERN    = Pattern.compile( "\\." );
+        protected static final int                          MAXIMUM_RETAINED_BUILDER           = 16384;
 
-        protected static Pattern          OUTERMOST_CLASS_NAME_SPLIT_PATTERN = Pattern.compile( "\\.|\\$.*" );
+        protected static final ThreadLocal< StringBuilder > FORMAT_BUILDER;
 
-        protected static Pattern          INNERMOST_CLASS_NAME_SPLIT_PATTERN = Pattern.compile( "\\.|\\$(?!\\d+)" );
+        static {
+            FORMAT_BUILDER = new ThreadLocal< StringBuilder >( ) {
+
+                @Override
+                protected StringBuilder initialValue( ) {
+                    return new StringBuilder( 256 );
+                }
+            };
+            for ( LogLevel tmpLevel : LogLevel.values( ) ) {
+                LEVEL_TAGS[ tmpLevel.ordinal( ) ] = String.format( "[%-5s] ",
+                                                                  tmpLevel.tag );
+            }
+        }
+
+        protected boolean                                   includeCalendarDate;
 
-        protected boolean                 includeCalendarDate;
+        protected boolean                                   includeTimeStamp;
 
-        protected boolean                 includeTimeStamp;
+        protected boolean                                   includeLevelTag;
 
-        protected boolean                 includeLevelTag;
+        protected boolean                                   includeThreadId;
 
-        protected boolean                 includeThreadId;
+        protected LogDetail                                 includeClassName;
 
-        protected LogDetail               includeClassName;
+        protected boolean                                   includeMethodName;
 
-        protected boolean                 includeMethodName;
+        protected boolean                                   includeLineNumber;
 
-        protected boolean                 includeLineNumber;
+        protected volatile LogLayoutAppender[ ]             appenders;
+
+        protected LogTimestampRenderer                      timestampRenderer;
 
         public String getName( ) {
             return this.name;
@@ -630,106 +842,235 @@ public class LogService {
             }
             this.includeMethodName = this.details.contains( LogDetail.MethodName );
             this.includeLineNumber = this.details.contains( LogDetail.LineNumber );
+            this.appenders = this.compileAppenders( );
         }
 
-        protected String format( Calendar timestamp,
-                                 LogLevel level,
-                                 long threadId,
-                                 StackTraceElement stackElement,
-                                 Value< Integer > messageShift,
-                                 int indentation,
-                                 String message ) {
-            int tmpWidth;
-            synchronized ( this ) {
-                tmpWidth = this.width;
-            }
-            StringBuilder tmpLogMessage = new StringBuilder( );
-            /*
-             * 
-             */
+        public boolean needsCaller( ) {
+            return ( this.includeClassName != null );
+        }
+
+        protected LogLayoutAppender[ ] compileAppenders( ) {
+            List< LogLayoutAppender > tmpAppenders = new ArrayList< LogLayoutAppender >( );
+            final LogTimestampRenderer tmpRenderer = ( this.timestampRenderer != null ) ? this.timestampRenderer
+                                                                                        : TIMESTAMP_RENDERER;
             // MessageTime
-            Date tmpCurrentTime = new Date( );
             if ( this.includeCalendarDate ) {
-                tmpLogMessage.append( LogLayout.dateFormat.format( tmpCurrentTime ) );
+                tmpAppenders.add( new LogLayoutAppender( ) {
+
+                    @Override
+                    public void append( StringBuilder builder,
+                                        Calendar timestamp,
+                                        LogLevel level,
+                                        long threadId,
+                                        StackTraceElement stackElement,
+                                        int indentation ) {
+                        tmpRenderer.appendDate( builder,
+                                                timestamp.getTimeInMillis( ) );
+                    }
+                } );
             }
             if ( this.includeTimeStamp ) {
-                tmpLogMessage.append( LogLayout.timeFormat.format( tmpCurrentTime ) );
+                tmpAppenders.add( new LogLayoutAppender( ) {
+
+                    @Override
+                    public void append( StringBuilder builder,
+                                        Calendar timestamp,
+                                        LogLevel level,
+                                        long threadId,
+                                        StackTraceElement stackElement,
+                                        int indentation ) {
+                        tmpRenderer.appendTime( builder,
+                                                timestamp.getTimeInMillis( ) );
+                    }
+                } );
             }
             // MessageLevel
             if ( this.includeLevelTag ) {
-                tmpLogMessage.append( String.format( "[%-5s] ",
-                                                     level.tag ) );
+                tmpAppenders.add( new LogLayoutAppender( ) {
+
+                    @Override
+                    public void append( StringBuilder builder,
+                                        Calendar timestamp,
+                                        LogLevel level,
+                                        long threadId,
+                                        StackTraceElement stackElement,
+                                        int indentation ) {
+                        builder.append( LEVEL_TAGS[ level.ordinal( ) ] );
+                    }
+                } );
             }
             // Indentation
-            if ( indentation > 0 ) {
-                tmpLogMessage.append( StringHelper.spaces( indentation * INDENTATION_WIDTH ) );
-            }
+            tmpAppenders.add( new LogLayoutAppender( ) {
+
+                @Override
+                public void append( StringBuilder builder,
+                                    Calendar timestamp,
+                                    LogLevel level,
+                                    long threadId,
+                                    StackTraceElement stackElement,
+                                    int indentation ) {
+                    appendSpaces( builder,
+                                  indentation * INDENTATION_WIDTH );
+                }
+            } );
             // MessageOrigin
             if ( this.includeThreadId ) {
-                tmpLogMessage.append( String.format( "0x%08X ",
-                                                     threadId ) );
-            }
-            if ( ( this.includeClassName != null ) && ( stackElement != null ) ) {
-                String tmpClassName = null;
-                switch ( this.includeClassName ) {
-                    case FullClassName:
-                        tmpClassName = stackElement.getClassName( );
-                        break;
-                    case SimpleClassName: {
-                        String[ ] tmpClassNamePieces = SIMPLE_CLASS_NAME_SPLIT_PATTERN.split( stackElement.getClassName( ) );
-                        tmpClassName = tmpClassNamePieces[ tmpClassNamePieces.length - 1 ];
-                        break;
-                    }
-                    case OutermostClassName: {
-                        String[ ] tmpClassNamePieces = OUTERMOST_CLASS_NAME_SPLIT_PATTERN.split( stackElement.getClassName( ) );
-                        tmpClassName = tmpClassNamePieces[ tmpClassNamePieces.length - 1 ];
-                        break;
-                    }
-                    case InnermostClassName: {
-                        String[ ] tmpClassNamePieces = INNERMOST_CLASS_NAME_SPLIT_PATTERN.split( stackElement.getClassName( ),
-                                                                                                 -1 );
-                        tmpClassName = tmpClassNamePieces[ tmpClassNamePieces.length - 1 ];
-                        break;
+                tmpAppenders.add( new LogLayoutAppender( ) {
+
+                    @Override
+                    public void append( StringBuilder builder,
+                                        Calendar timestamp,
+                                        LogLevel level,
+                                        long threadId,
+                                        StackTraceElement stackElement,
+                                        int indentation ) {
+                        // Equivalente a "0x%08X ", sem passar por String.format
+                        builder.append( "0x" );
+                        int tmpDigits = Math.max( 8,
+                                                  ( Long.SIZE - Long.numberOfLeadingZeros( threadId ) + 3 ) / 4 );
+                        for ( int tmpShift = ( ( tmpDigits - 1 ) * 4 ); tmpShift >= 0; tmpShift -= 4 ) {
+                            builder.append( HEX_DIGITS[ (int) ( ( threadId >>> tmpShift ) & 0xF ) ] );
+                        }
+                        builder.append( ' ' );
                     }
-                    default:
-                        break;
-                }
-                if ( tmpClassName != null ) {
-                    tmpLogMessage.append( tmpClassName );
-                    if ( this.includeMethodName ) {
-                        boolean tmpBlockMethod = false;
-                        String tmpMethodName = stackElement.getMethodName( );
-                        if ( tmpMethodName.compareTo( "<init>" ) == 0 ) {
-                            tmpMethodName = "constructor";
+                } );
+            }
+            if ( this.includeClassName != null ) {
+                final LogDetail tmpClassNameDetail = this.includeClassName;
+                final boolean tmpIncludeMethodName = this.includeMethodName;
+                final boolean tmpIncludeLineNumber = this.includeLineNumber;
+                tmpAppenders.add( new LogLayoutAppender( ) {
+
+                    // Texto da origem j formatado, por ponto de chamada
+                    protected final Map< StackTraceElement, String > callerTexts = new ConcurrentHashMap< StackTraceElement, String >( );
+
+                    @Override
+                    public void append( StringBuilder builder,
+                                        Calendar timestamp,
+                                        LogLevel level,
+                                        long threadId,
+                                        StackTraceElement stackElement,
+                                        int indentation ) {
+                        if ( stackElement == null ) {
+                            return;
                         }
-                        else if ( tmpMethodName.compareTo( "<clinit>" ) == 0 ) {
-                            tmpMethodName = "static";
-                            tmpBlockMethod = true;
+                        String tmpCallerText = this.callerTexts.get( stackElement );
+                        if ( tmpCallerText == null ) {
+                            if ( this.callerTexts.size( ) >= MAXIMUM_CALLER_CACHE_SIZE ) {
+                                this.callerTexts.clear( );
+                            }
+                            tmpCallerText = formatCaller( tmpClassNameDetail,
+                                                          tmpIncludeMethodName,
+                                                          tmpIncludeLineNumber,
+                                                          stackElement );
+                            this.callerTexts.put( stackElement,
+                                                  tmpCallerText );
                         }
-                        tmpLogMessage.append( String.format( tmpBlockMethod ? ".%s{}"
-                                                                            : ".%s()",
-                                                             tmpMethodName ) );
-                    }
-                    if ( this.includeLineNumber ) {
-                        tmpLogMessage.append( String.format( ":%s",
-                                                             stackElement.getLineNumber( ) ) );
+                        builder.append( tmpCallerText );
                     }
-                    tmpLogMessage.append( " - " );
+                } );
+            }
+            return tmpAppenders.toArray( new LogLayoutAppender[ tmpAppenders.size( ) ] );
+        }
+
+        protected static void appendSpaces( StringBuilder builder,
+                                            int count ) {
+            for ( int tmpIndex = 0; tmpIndex < count; tmpIndex++ ) {
+                builder.append( ' ' );
+            }
+        }
+
+        protected static String formatCaller( LogDetail classNameDetail,
+                                              boolean includeMethodName,
+                                              boolean includeLineNumber,
+                                              StackTraceElement stackElement ) {
+            String tmpClassName = null;
+            switch ( classNameDetail ) {
+                case FullClassName:
+                    tmpClassName = stackElement.getClassName( );
+                    break;
+                case SimpleClassName: {
+                    String[ ] tmpClassNamePieces = SIMPLE_CLASS_NAME_SPLIT_PATTERN.split( stackElement.getClassName( ) );
+                    tmpClassName = tmpClassNamePieces[ tmpClassNamePieces.length - 1 ];
+                    break;
+                }
+                case OutermostClassName: {
+                    String[ ] tmpClassNamePieces = OUTERMOST_CLASS_NAME_SPLIT_PATTERN.split( stackElement.getClassName( ) );
+                    tmpClassName = tmpClassNamePieces[ tmpClassNamePieces.length - 1 ];
+                    break;
+                }
+                case InnermostClassName: {
+                    String[ ] tmpClassNamePieces = INNERMOST_CLASS_NAME_SPLIT_PATTERN.split( stackElement.getClassName( ),
+                                                                                             -1 );
+                    tmpClassName = tmpClassNamePieces[ tmpClassNamePieces.length - 1 ];
+                    break;
                 }
+                default:
+                    break;
+            }
+            if ( tmpClassName == null ) {
+                return "";
+            }
+            StringBuilder tmpCallerText = new StringBuilder( tmpClassName );
+            if ( includeMethodName ) {
+                boolean tmpBlockMethod = false;
+                String tmpMethodName = stackElement.getMethodName( );
+                if ( tmpMethodName.compareTo( "<init>" ) == 0 ) {
+                    tmpMethodName = "constructor";
+                }
+                else if ( tmpMethodName.compareTo( "<clinit>" ) == 0 ) {
+                    tmpMethodName = "static";
+                    tmpBlockMethod = true;
+                }
+                tmpCallerText.append( String.format( tmpBlockMethod ? ".%s{}"
+                                                                    : ".%s()",
+                                                     tmpMethodName ) );
+            }
+            if ( includeLineNumber ) {
+                tmpCallerText.append( String.format( ":%s",
+                                                     stackElement.getLineNumber( ) ) );
+            }
+            tmpCallerText.append( " - " );
+            return tmpCallerText.toString( );
+        }
+
+        protected String format( Calendar timestamp,
+                                 LogLevel level,
+                                 long threadId,
+                                 StackTraceElement stackElement,
+                                 Value< Integer > messageShift,
+                                 int indentation,
+                                 String message ) {
+            int tmpWidth;
+            synchronized ( this ) {
+                tmpWidth = this.width;
+            }
+            StringBuilder tmpLogMessage = FORMAT_BUILDER.get( );
+            tmpLogMessage.setLength( 0 );
+            for ( LogLayoutAppender tmpAppender : this.appenders ) {
+                tmpAppender.append( tmpLogMessage,
+                                    timestamp,
+                                    level,
+                                    threadId,
+                                    stackElement,
+                                    indentation );
             }
             // MessageShift
             if ( messageShift.get( ) < tmpLogMessage.length( ) ) {
-                int tmoNewShift = ( ( ( tmpLogMessage.length( ) + INDENTATION_WIDTH - 1 ) / INDENTATION_WIDTH )
-                                    * INDENTATION_WIDTH );
-                tmoNewShift = tmpLogMessage.length( );
-                messageShift.set( tmoNewShift );
+                messageShift.set( tmpLogMessage.length( ) );
             }
-            tmpLogMessage.append( StringHelper.spaces( messageShift.get( ) - tmpLogMessage.length( ) ) );
+            appendSpaces( tmpLogMessage,
+                          messageShift.get( ) - tmpLogMessage.length( ) );
             int tmpMessageWrapColumn = ( INDENTATION_WIDTH * 2 ); //tmpLogMessage.length( );
             // MessageText
             tmpLogMessage.append( message );
-            return ( this.noWrap ) ? tmpLogMessage.toString( )
-                                   : StringHelper.wrap( tmpLogMessage.toString( ),
+            String tmpResult = tmpLogMessage.toString( );
+            if ( tmpLogMessage.capacity( ) > MAXIMUM_RETAINED_BUILDER ) {
+                // No retm, por thread, o buffer de uma mensagem excepcionalmente longa
+                FORMAT_BUILDER.remove( );
+            }
+            return ( this.noWrap ) ? tmpResult
+                                   : StringHelper.wrap( tmpResult,
                                                         tmpWidth,
                                                         0,
                                                         tmpMessageWrapColumn );
@@ -801,6 +1142,12 @@ public class LogService {
         @XmlTransient
         protected Value< Integer > messageShift;
 
+        @XmlTransient
+        protected LogConfig        config;
+
+        @XmlTransient
+        protected volatile long    enabledLevels;
+
         public String getName( ) {
             return this.name;
         }
@@ -816,6 +1163,7 @@ public class LogService {
             synchronized ( this ) {
                 this.minLevel = minLevel;
             }
+            this.levelsChanged( );
             return this;
         }
 
@@ -830,6 +1178,7 @@ public class LogService {
             synchronized ( this ) {
                 this.maxLevel = maxLevel;
             }
+            this.levelsChanged( );
             return this;
         }
 
@@ -864,9 +1213,36 @@ public class LogService {
             this.messageShift = new BasicValue< Integer >( 0 );
         }
 
+        protected long computeEnabledLevels( ) {
+            synchronized ( this ) {
+                return LogLevel.rangeMask( this.minLevel,
+                                           this.maxLevel );
+            }
+        }
+
+        protected void levelsChanged( ) {
+            LogConfig tmpConfig = this.config;
+            if ( tmpConfig != null ) {
+                tmpConfig.refreshLevels( );
+            }
+            else {
+                this.enabledLevels = this.computeEnabledLevels( );
+            }
+        }
+
         protected boolean isEnabled( LogLevel level ) {
+            return ( ( this.enabledLevels & level.mask ) != 0 );
+        }
+
+        /**
+         *
+         * Se o layout da sada usa a origem da mensagem (classe, mtodo, linha), que s  capturada
+         * quando alguma sada habilitada precisa dela.
+         *
+         */
+        protected boolean needsCaller( ) {
             synchronized ( this ) {
-                return ( !level.isLesser( this.minLevel ) && !level.isGreater( this.maxLevel ) );
+                return ( ( this.layout != null ) && this.layout.needsCaller( ) );
             }
         }
 
@@ -888,6 +1264,33 @@ public class LogService {
             }
         }
 
+        /**
+         *
+         * Se a sada grava o formato e os argumentos brutos da mensagem em vez do texto formatado
+         * ("{@link LogOutputBinaryFile}").
+         *
+         */
+        protected boolean isStructured( ) {
+            return false;
+        }
+
+        protected void message( Calendar timestamp,
+                                LogLevel level,
+                                long threadId,
+                                StackTraceElement stackElement,
+                                int indentation,
+                                String loggerName,
+                                String format,
+                                Object[ ] args ) {
+            this.message( timestamp,
+                          level,
+                          threadId,
+                          stackElement,
+                          indentation,
+                          StringHelper.flawlessFormat( format,
+                                                       args ) );
+        }
+
         protected void engage( LogConfig config )
             throws LogException {
             if ( ( this.name == null ) || ( this.name.length( ) == 0 ) ) {
@@ -895,6 +1298,7 @@ public class LogService {
                                         ( this.name == null ) ? "null"
                                                               : "empty" );
             }
+            this.config = config;
             if ( this.layoutName == null ) {
                 this.layout = config.defaultLayout;
             }
@@ -911,6 +1315,41 @@ public class LogService {
             }
         }
 
+        /**
+         *
+         * Chamado pela "{@link LogOutputAsync}" ao fim de cada lote de mensagens repassadas a esta
+         * sada.
+         *
+         */
+        protected void endBatch( ) {
+        }
+
+        /**
+         *
+         * Grava o que a sada ainda retm em <i>buffer</i>.
+         *
+         */
+        protected void flush( ) {
+        }
+
+        /**
+         *
+         * Chamado quando a configurao que contm a sada passa a ser usada pelo contexto; as
+         * sadas que mantm <i>threads</i> as iniciam aqui, e no no "<i>engage</i>", para que uma
+         * configurao invlida ou descartada no as deixe ativas.
+         *
+         */
+        protected void activate( ) {
+        }
+
+        /**
+         *
+         * Libera os recursos da sada quando a configurao que a contm  substituda.
+         *
+         */
+        protected void release( ) {
+        }
+
         protected abstract void write( Calendar timestamp,
                                        String message );
     }
@@ -998,30 +1437,83 @@ public class LogService {
         }
     }
 
+    /**
+     *
+     * Sada em arquivo com rotao diria. O arquivo do dia fica aberto em um "<i>FileChannel</i>"
+     * e as mensagens so codificadas em um "<i>ByteBuffer</i>" direto reaproveitado, gravado no
+     * canal quando enche, quando chega uma mensagem de nvel igual ou mais severo que
+     * "<i>flushLevel</i>", ou a cada "<i>flushInterval</i>" milissegundos.
+     *
+     */
     @XmlType( name = "file",
               propOrder = { "name",
                             "minLevel",
                             "maxLevel",
                             "layoutName",
                             "dirPath",
-                            "fileName" } )
+                            "fileName",
+                            "bufferSize",
+                            "flushInterval",
+                            "flushLevel" } )
     @XmlAccessorType( XmlAccessType.NONE )
-    public static final class LogOutputFile extends LogOutput {
+    public static class LogOutputFile extends LogOutput {
+
+        @XmlAttribute( required = false )
+        protected String                                 dirPath;
 
         @XmlAttribute( required = false )
-        protected String   dirPath;
+        protected String                                 fileName;
 
         @XmlAttribute( required = false )
-        protected String   fileName;
+        protected Integer                                bufferSize;
+
+        @XmlAttribute( required = false )
+        protected Integer                                flushInterval;
+
+        @XmlAttribute( required = false )
+        protected LogLevel                               flushLevel;
+
+        @XmlTransient
+        protected File                                   dir;
+
+        @XmlTransient
+        protected File                                   currentFile;
+
+        @XmlTransient
+        protected Calendar                               currentTimestamp;
+
+        @XmlTransient
+        protected FileChannel                            channel;
+
+        @XmlTransient
+        protected ByteBuffer                             buffer;
+
+        @XmlTransient
+        protected CharsetEncoder                         encoder;
 
         @XmlTransient
-        protected File     dir;
+        protected long                                   lastFlushTime;
 
         @XmlTransient
-        protected File     currentFile;
+        protected ScheduledFuture< ? >                   flushTask;
 
         @XmlTransient
-        protected Calendar currentTimestamp;
+        protected Thread                                 shutdownHook;
+
+        @XmlTransient
+        protected boolean                                released;
+
+        protected static final int                       DEFAULT_BUFFER_SIZE    = 65536;
+
+        protected static final int                       MINIMUM_BUFFER_SIZE    = 256;
+
+        protected static final int                       DEFAULT_FLUSH_INTERVAL = 1000;
+
+        protected static final LogLevel                  DEFAULT_FLUSH_LEVEL    = LogLevel.Warn;
+
+        protected static final CharBuffer                LINE_SEPARATOR         = CharBuffer.wrap( "\n" );
+
+        private static ScheduledExecutorService          flushScheduler;
 
         public String getDirPath( ) {
             synchronized ( this ) {
@@ -1061,7 +1553,37 @@ public class LogService {
             return this;
         }
 
+        public int getBufferSize( ) {
+            synchronized ( this ) {
+                return ( this.bufferSize != null ) ? Math.max( this.bufferSize,
+                                                               MINIMUM_BUFFER_SIZE )
+                                                   : DEFAULT_BUFFER_SIZE;
+            }
+        }
+
+        public int getFlushInterval( ) {
+            synchronized ( this ) {
+                return ( this.flushInterval != null ) ? this.flushInterval
+                                                      : DEFAULT_FLUSH_INTERVAL;
+            }
+        }
+
+        public LogLevel getFlushLevel( ) {
+            synchronized ( this ) {
+                return ( this.flushLevel != null ) ? this.flushLevel
+                                                   : DEFAULT_FLUSH_LEVEL;
+            }
+        }
+
+        public LogOutputFile setFlushLevel( LogLevel flushLevel ) {
+            synchronized ( this ) {
+                this.flushLevel = flushLevel;
+            }
+            return this;
+        }
+
         protected void reset( ) {
+            this.closeChannel( );
             this.dir = null;
             this.currentFile = null;
             this.currentTimestamp = null;
@@ -1079,22 +1601,94 @@ public class LogService {
                               LogLevel maxLevel,
                               String layoutName,
                               String dirPath,
-                              String fileName ) {
+                              String fileName,
+                              Integer bufferSize,
+                              Integer flushInterval,
+                              LogLevel flushLevel ) {
             super( name,
                    minLevel,
                    maxLevel,
                    layoutName );
             this.dirPath = dirPath;
             this.fileName = fileName;
+            this.bufferSize = bufferSize;
+            this.flushInterval = flushInterval;
+            this.flushLevel = flushLevel;
             this.reset( );
         }
 
+        public LogOutputFile( String name,
+                              LogLevel minLevel,
+                              LogLevel maxLevel,
+                              String layoutName,
+                              String dirPath,
+                              String fileName ) {
+            this( name,
+                  minLevel,
+                  maxLevel,
+                  layoutName,
+                  dirPath,
+                  fileName,
+                  null,
+                  null,
+                  null );
+        }
+
+        private static ScheduledExecutorService getFlushScheduler( ) {
+            synchronized ( LogOutputFile.class ) {
+                if ( flushScheduler == null ) {
+                    flushScheduler = Executors.newSingleThreadScheduledExecutor( new ThreadFactory( ) {
+
+                        @Override
+                        public Thread newThread( Runnable runnable ) {
+                            Thread tmpThread = new Thread( runnable,
+                                                           "LogOutputFileFlush" );
+                            tmpThread.setDaemon( true );
+                            return tmpThread;
+                        }
+                    } );
+                }
+                return flushScheduler;
+            }
+        }
+
         @Override
         protected void engage( LogConfig config )
             throws LogException {
             super.engage( config );
             this.setDirPath( this.dirPath );
             this.setFileName( this.fileName );
+            synchronized ( this ) {
+                this.released = false;
+                this.buffer = ByteBuffer.allocateDirect( this.getBufferSize( ) );
+                this.encoder = Charset.defaultCharset( )
+                                      .newEncoder( )
+                                      .onMalformedInput( CodingErrorAction.REPLACE )
+                                      .onUnmappableCharacter( CodingErrorAction.REPLACE );
+                this.lastFlushTime = System.currentTimeMillis( );
+                long tmpInterval = this.getFlushInterval( );
+                if ( tmpInterval > 0 ) {
+                    this.flushTask = getFlushScheduler( ).scheduleWithFixedDelay( new Runnable( ) {
+
+                        @Override
+                        public void run( ) {
+                            LogOutputFile.this.flushIfStale( );
+                        }
+                    },
+                                                                                  tmpInterval,
+                                                                                  tmpInterval,
+                                                                                  TimeUnit.MILLISECONDS );
+                }
+                this.shutdownHook = new Thread( new Runnable( ) {
+
+                    @Override
+                    public void run( ) {
+                        LogOutputFile.this.flush( );
+                    }
+                },
+                                                "LogOutputFile-" + this.name + "-shutdown" );
+                Runtime.getRuntime( ).addShutdownHook( this.shutdownHook );
+            }
         }
 
         protected File selectApropriateFile( Calendar timestamp ) {
@@ -1110,6 +1704,8 @@ public class LogService {
                 if ( ( this.currentTimestamp.get( Calendar.YEAR ) != timestamp.get( Calendar.YEAR ) )
                      || ( this.currentTimestamp.get( Calendar.MONTH ) != timestamp.get( Calendar.MONTH ) )
                      || ( this.currentTimestamp.get( Calendar.DAY_OF_MONTH ) != timestamp.get( Calendar.DAY_OF_MONTH ) ) ) {
+                    // Rotao: o que restou do dia anterior vai para o arquivo anterior
+                    this.closeChannel( );
                     this.currentTimestamp = null;
                     this.currentFile = null;
                 }
@@ -1143,78 +1739,1332 @@ public class LogService {
             return this.currentFile;
         }
 
-        @Override
-        protected void write( Calendar timestamp,
-                              String message ) {
+        protected FileChannel selectApropriateChannel( Calendar timestamp )
+            throws IOException {
+            if ( this.released ) {
+                // Liberada: mensagens ainda em trnsito so descartadas em vez de reabrir o arquivo
+                return null;
+            }
             File tmpFile = this.selectApropriateFile( timestamp );
-            if ( tmpFile != null ) {
+            if ( ( tmpFile != null ) && ( this.channel == null ) ) {
+                FileHelper.ensureDirectoryExists( tmpFile.getParentFile( ) );
+                this.channel = FileChannel.open( tmpFile.toPath( ),
+                                                 StandardOpenOption.CREATE,
+                                                 StandardOpenOption.WRITE,
+                                                 StandardOpenOption.APPEND );
+                this.channelOpened( );
+            }
+            return this.channel;
+        }
+
+        /**
+         *
+         * Chamado a cada arquivo aberto, com o <i>buffer</i> vazio, antes da primeira mensagem.
+         *
+         */
+        protected void channelOpened( )
+            throws IOException {
+        }
+
+        protected void closeChannel( ) {
+            if ( this.channel != null ) {
                 try {
-                    FileHelper.ensureDirectoryExists( tmpFile.getParentFile( ) );
-                    FileOutputStream tmpFileStream = new FileOutputStream( tmpFile,
-                                                                           true );
                     try {
-                        BufferedOutputStream tmpBufferedStream = new BufferedOutputStream( tmpFileStream );
-                        try {
-                            tmpBufferedStream.write( message.getBytes( ) );
-                            tmpBufferedStream.write( "\n".getBytes( ) );
-                        }
-                        finally {
-                            tmpBufferedStream.close( );
-                        }
+                        this.flushBuffer( );
                     }
                     finally {
-                        tmpFileStream.close( );
+                        this.channel.close( );
                     }
                 }
                 catch ( IOException e ) {
-                    this.currentFile = null;
                     e.printStackTrace( );
                 }
+                this.channel = null;
+            }
+            if ( this.buffer != null ) {
+                this.buffer.clear( );
             }
         }
-    }
-
-    @XmlType( name = "profile",
-              propOrder = { "name",
-                            "minLevel",
-                            "maxLevel",
-                            "forwardParent",
-                            "outputNames" } )
-    @XmlAccessorType( XmlAccessType.NONE )
-    public static final class LogProfile {
 
-        @XmlAttribute( required = true )
-        protected String            name;
+        protected void flushBuffer( )
+            throws IOException {
+            this.buffer.flip( );
+            try {
+                while ( this.buffer.hasRemaining( ) ) {
+                    this.channel.write( this.buffer );
+                }
+            }
+            finally {
+                this.buffer.clear( );
+            }
+            this.lastFlushTime = System.currentTimeMillis( );
+        }
+
+        protected void put( ByteBuffer bytes )
+            throws IOException {
+            while ( bytes.hasRemaining( ) ) {
+                if ( !this.buffer.hasRemaining( ) ) {
+                    this.flushBuffer( );
+                }
+                int tmpLength = Math.min( bytes.remaining( ),
+                                          this.buffer.remaining( ) );
+                ByteBuffer tmpSlice = bytes.duplicate( );
+                tmpSlice.limit( tmpSlice.position( ) + tmpLength );
+                this.buffer.put( tmpSlice );
+                bytes.position( bytes.position( ) + tmpLength );
+            }
+        }
+
+        protected void encode( CharBuffer text )
+            throws IOException {
+            while ( true ) {
+                CoderResult tmpResult = this.encoder.encode( text,
+                                                             this.buffer,
+                                                             true );
+                if ( !tmpResult.isOverflow( ) ) {
+                    break;
+                }
+                this.flushBuffer( );
+            }
+            this.encoder.reset( );
+        }
+
+        @Override
+        protected void message( Calendar timestamp,
+                                LogLevel level,
+                                long threadId,
+                                StackTraceElement stackElement,
+                                int indentation,
+                                String message ) {
+            synchronized ( this ) {
+                super.message( timestamp,
+                               level,
+                               threadId,
+                               stackElement,
+                               indentation,
+                               message );
+                this.flushAfter( level );
+            }
+        }
+
+        protected void flushAfter( LogLevel level ) {
+            if ( !level.isGreater( this.getFlushLevel( ) ) ) {
+                this.flush( );
+            }
+            else {
+                this.flushIfStale( );
+            }
+        }
+
+        @Override
+        protected void write( Calendar timestamp,
+                              String message ) {
+            synchronized ( this ) {
+                try {
+                    if ( this.selectApropriateChannel( timestamp ) != null ) {
+                        this.encode( CharBuffer.wrap( message ) );
+                        this.encode( LINE_SEPARATOR.duplicate( ) );
+                    }
+                }
+                catch ( IOException e ) {
+                    this.closeChannel( );
+                    this.currentFile = null;
+                    e.printStackTrace( );
+                }
+            }
+        }
+
+        @Override
+        protected void flush( ) {
+            synchronized ( this ) {
+                if ( ( this.channel != null ) && ( this.buffer.position( ) > 0 ) ) {
+                    try {
+                        this.flushBuffer( );
+                    }
+                    catch ( IOException e ) {
+                        this.closeChannel( );
+                        this.currentFile = null;
+                        e.printStackTrace( );
+                    }
+                }
+            }
+        }
+
+        protected void flushIfStale( ) {
+            synchronized ( this ) {
+                long tmpInterval = this.getFlushInterval( );
+                if ( ( tmpInterval <= 0 ) || ( ( System.currentTimeMillis( ) - this.lastFlushTime ) >= tmpInterval ) ) {
+                    this.flush( );
+                }
+            }
+        }
+
+        @Override
+        protected void endBatch( ) {
+            this.flushIfStale( );
+        }
+
+        @Override
+        protected void release( ) {
+            synchronized ( this ) {
+                this.released = true;
+                if ( this.flushTask != null ) {
+                    this.flushTask.cancel( false );
+                    this.flushTask = null;
+                }
+                this.closeChannel( );
+                this.currentFile = null;
+                this.currentTimestamp = null;
+                if ( this.shutdownHook != null ) {
+                    try {
+                        Runtime.getRuntime( ).removeShutdownHook( this.shutdownHook );
+                    }
+                    catch ( IllegalStateException e ) {
+                        // A JVM j est encerrando: o gancho ser executado de qualquer forma
+                    }
+                    this.shutdownHook = null;
+                }
+            }
+        }
+    }
+
+    /**
+     *
+     * Sada em arquivo com registros binrios compactos: em vez do texto formatado, cada mensagem
+     * grava o instante, o nvel, a <i>thread</i>, a indentao, a origem (quando o layout a usa), os
+     * identificadores do logger e do formato e os argumentos brutos. A formatao sai do caminho de
+     * quem registra e o texto  reconstrudo fora de linha, com o mesmo layout, por
+     * "{@link LogBinaryDecoder}". Nome, rotao diria, <i>buffer</i> e descargas seguem
+     * "{@link LogOutputFile}".<br>
+     * <br>
+     * Cada arquivo aberto, inclusive ao acrescentar a um arquivo existente, recebe um cabealho com
+     * o layout e o fuso horrio da sada; textos repetidos (nomes de loggers, formatos, classes e
+     * mtodos) so definidos uma vez aps o cabealho e referenciados por identificador. Uma mensagem
+     * com algum argumento que no  tipo primitivo, texto, nmero grande ou data ("{@link Date}" ou
+     * "{@link GregorianCalendar}")  formatada na gravao e gravada como texto literal, assim como
+     * as mensagens que chegam j formatadas.
+     *
+     */
+    @XmlType( name = "binaryFile",
+              propOrder = { } )
+    @XmlAccessorType( XmlAccessType.NONE )
+    public static class LogOutputBinaryFile extends LogOutputFile {
+
+        @XmlTransient
+        protected Map< String, Integer > stringIds;
+
+        @XmlTransient
+        protected ByteBuffer             record;
+
+        @XmlTransient
+        protected long                   lastTimestamp;
+
+        public static final int          FORMAT_MAGIC             = 0x41534C42;
+
+        public static final int          FORMAT_VERSION           = 1;
+
+        protected static final int       HEADER_TAG               = 0x48;
+
+        protected static final int       STRING_TAG               = 0x53;
+
+        protected static final int       RECORD_TAG               = 0x52;
+
+        protected static final int       CALLER_FLAG              = 0x01;
+
+        protected static final int       LITERAL_FORMAT_FLAG      = 0x02;
+
+        protected static final int       NULL_ARGUMENT            = 0;
+
+        protected static final int       TRUE_ARGUMENT            = 1;
+
+        protected static final int       FALSE_ARGUMENT           = 2;
+
+        protected static final int       BYTE_ARGUMENT            = 3;
+
+        protected static final int       SHORT_ARGUMENT           = 4;
+
+        protected static final int       INTEGER_ARGUMENT         = 5;
+
+        protected static final int       LONG_ARGUMENT            = 6;
+
+        protected static final int       FLOAT_ARGUMENT           = 7;
+
+        protected static final int       DOUBLE_ARGUMENT          = 8;
+
+        protected static final int       CHARACTER_ARGUMENT       = 9;
+
+        protected static final int       STRING_ARGUMENT          = 10;
+
+        protected static final int       BIG_INTEGER_ARGUMENT     = 11;
+
+        protected static final int       BIG_DECIMAL_ARGUMENT     = 12;
+
+        protected static final int       DATE_ARGUMENT            = 13;
+
+        protected static final int       CALENDAR_ARGUMENT        = 14;
+
+        protected static final int       MAXIMUM_INTERNED_STRINGS = 65536;
+
+        protected static final int       INITIAL_RECORD_CAPACITY  = 512;
+
+        protected static final int       MAXIMUM_RETAINED_RECORD  = 65536;
+
+        protected LogOutputBinaryFile( ) {
+            super( );
+        }
+
+        public LogOutputBinaryFile( String name,
+                                    LogLevel minLevel,
+                                    LogLevel maxLevel,
+                                    String layoutName,
+                                    String dirPath,
+                                    String fileName,
+                                    Integer bufferSize,
+                                    Integer flushInterval,
+                                    LogLevel flushLevel ) {
+            super( name,
+                   minLevel,
+                   maxLevel,
+                   layoutName,
+                   dirPath,
+                   fileName,
+                   bufferSize,
+                   flushInterval,
+                   flushLevel );
+        }
+
+        @Override
+        protected boolean isStructured( ) {
+            return true;
+        }
+
+        @Override
+        protected void engage( LogConfig config )
+            throws LogException {
+            super.engage( config );
+            synchronized ( this ) {
+                this.stringIds = new HashMap< String, Integer >( );
+                this.record = ByteBuffer.allocate( INITIAL_RECORD_CAPACITY );
+            }
+        }
+
+        @Override
+        protected void channelOpened( )
+            throws IOException {
+            this.stringIds.clear( );
+            this.lastTimestamp = 0;
+            this.record.clear( );
+            this.putByte( HEADER_TAG );
+            this.ensureRecordCapacity( 6 );
+            this.record.putInt( FORMAT_MAGIC );
+            this.record.putShort( (short) FORMAT_VERSION );
+            this.putString( this.layout.name );
+            this.putVarLong( ( this.layout.width != null ) ? ( this.layout.width + 1 )
+                                                           : 0 );
+            this.putByte( ( this.layout.noWrap == null ) ? 2
+                                                         : ( this.layout.noWrap ? 1
+                                                                                : 0 ) );
+            List< LogDetail > tmpDetails = this.layout.getDetails( );
+            this.putVarLong( tmpDetails.size( ) );
+            for ( LogDetail tmpDetail : tmpDetails ) {
+                this.putString( tmpDetail.name( ) );
+            }
+            this.putString( ZoneId.systemDefault( ).getId( ) );
+            this.record.flip( );
+            this.put( this.record );
+        }
+
+        @Override
+        protected void message( Calendar timestamp,
+                                LogLevel level,
+                                long threadId,
+                                StackTraceElement stackElement,
+                                int indentation,
+                                String message ) {
+            synchronized ( this ) {
+                this.writeRecord( timestamp,
+                                  level,
+                                  threadId,
+                                  stackElement,
+                                  indentation,
+                                  null,
+                                  message,
+                                  null,
+                                  true );
+                this.flushAfter( level );
+            }
+        }
+
+        @Override
+        protected void message( Calendar timestamp,
+                                LogLevel level,
+                                long threadId,
+                                StackTraceElement stackElement,
+                                int indentation,
+                                String loggerName,
+                                String format,
+                                Object[ ] args ) {
+            synchronized ( this ) {
+                if ( isEncodable( args ) ) {
+                    this.writeRecord( timestamp,
+                                      level,
+                                      threadId,
+                                      stackElement,
+                                      indentation,
+                                      loggerName,
+                                      format,
+                                      args,
+                                      false );
+                }
+                else {
+                    // O texto de outros objetos depende de seu tipo ("%d", "%x", "%h", "%t"...)
+                    this.writeRecord( timestamp,
+                                      level,
+                                      threadId,
+                                      stackElement,
+                                      indentation,
+                                      loggerName,
+                                      StringHelper.flawlessFormat( format,
+                                                                   args ),
+                                      null,
+                                      true );
+                }
+                this.flushAfter( level );
+            }
+        }
+
+        /**
+         *
+         * Se todos os argumentos tm representao binria da qual "{@link LogBinaryDecoder}"
+         * reconstri um argumento do mesmo tipo.
+         *
+         */
+        protected static boolean isEncodable( Object[ ] args ) {
+            if ( args != null ) {
+                for ( Object tmpArgument : args ) {
+                    if ( ( tmpArgument != null )
+                         && !( tmpArgument instanceof Boolean )
+                         && !( tmpArgument instanceof Byte )
+                         && !( tmpArgument instanceof Short )
+                         && !( tmpArgument instanceof Integer )
+                         && !( tmpArgument instanceof Long )
+                         && !( tmpArgument instanceof Float )
+                         && !( tmpArgument instanceof Double )
+                         && !( tmpArgument instanceof Character )
+                         && !( tmpArgument instanceof String )
+                         && ( tmpArgument.getClass( ) != BigInteger.class )
+                         && ( tmpArgument.getClass( ) != BigDecimal.class )
+                         && ( tmpArgument.getClass( ) != Date.class )
+                         && ( tmpArgument.getClass( ) != GregorianCalendar.class ) ) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        protected void writeRecord( Calendar timestamp,
+                                    LogLevel level,
+                                    long threadId,
+                                    StackTraceElement stackElement,
+                                    int indentation,
+                                    String loggerName,
+                                    String format,
+                                    Object[ ] args,
+                                    boolean literal ) {
+            try {
+                if ( this.selectApropriateChannel( timestamp ) != null ) {
+                    this.record.clear( );
+                    // Definies dos textos ainda no internados precedem o registro
+                    int tmpLoggerId = this.intern( loggerName );
+                    int tmpFormatId = literal ? 0
+                                              : this.intern( format );
+                    int tmpClassId = 0;
+                    int tmpMethodId = 0;
+                    if ( stackElement != null ) {
+                        tmpClassId = this.intern( stackElement.getClassName( ) );
+                        tmpMethodId = this.intern( stackElement.getMethodName( ) );
+                    }
+                    int tmpFlags = 0;
+                    if ( stackElement != null ) {
+                        tmpFlags |= CALLER_FLAG;
+                    }
+                    if ( ( tmpFormatId == 0 ) && ( format != null ) ) {
+                        tmpFlags |= LITERAL_FORMAT_FLAG;
+                    }
+                    long tmpTimestamp = timestamp.getTimeInMillis( );
+                    this.putByte( RECORD_TAG );
+                    this.putByte( tmpFlags );
+                    this.putVarLong( zigZag( tmpTimestamp - this.lastTimestamp ) );
+                    this.lastTimestamp = tmpTimestamp;
+                    this.putByte( level.ordinal( ) );
+                    this.putVarLong( threadId );
+                    this.putVarLong( indentation );
+                    this.putVarLong( tmpLoggerId );
+                    if ( ( tmpFlags & LITERAL_FORMAT_FLAG ) != 0 ) {
+                        this.putString( format );
+                    }
+                    else {
+                        this.putVarLong( tmpFormatId );
+                    }
+                    if ( stackElement != null ) {
+                        this.putVarLong( tmpClassId );
+                        this.putVarLong( tmpMethodId );
+                        this.putVarLong( zigZag( stackElement.getLineNumber( ) ) );
+                    }
+                    int tmpArgCount = ( args != null ) ? args.length
+                                                       : 0;
+                    this.putVarLong( tmpArgCount );
+                    for ( int tmpIndex = 0; tmpIndex < tmpArgCount; tmpIndex++ ) {
+                        this.putArgument( args[ tmpIndex ] );
+                    }
+                    this.record.flip( );
+                    this.put( this.record );
+                }
+            }
+            catch ( IOException e ) {
+                this.closeChannel( );
+                this.currentFile = null;
+                e.printStackTrace( );
+            }
+            if ( this.record.capacity( ) > MAXIMUM_RETAINED_RECORD ) {
+                this.record = ByteBuffer.allocate( INITIAL_RECORD_CAPACITY );
+            }
+        }
+
+        /**
+         *
+         * Identificador do texto no arquivo atual (0 para "<i>null</i>" ou quando o dicionrio est
+         * cheio), gravando sua definio no registro em construo na primeira ocorrncia.
+         *
+         */
+        protected int intern( String text ) {
+            if ( text == null ) {
+                return 0;
+            }
+            Integer tmpId = this.stringIds.get( text );
+            if ( tmpId == null ) {
+                if ( this.stringIds.size( ) >= MAXIMUM_INTERNED_STRINGS ) {
+                    return 0;
+                }
+                tmpId = this.stringIds.size( ) + 1;
+                this.stringIds.put( text,
+                                    tmpId );
+                this.putByte( STRING_TAG );
+                this.putVarLong( tmpId );
+                this.putString( text );
+            }
+            return tmpId;
+        }
+
+        protected void putArgument( Object argument ) {
+            if ( argument == null ) {
+                this.putByte( NULL_ARGUMENT );
+            }
+            else if ( argument instanceof Boolean ) {
+                this.putByte( ( (Boolean) argument ) ? TRUE_ARGUMENT
+                                                     : FALSE_ARGUMENT );
+            }
+            else if ( argument instanceof Byte ) {
+                this.putByte( BYTE_ARGUMENT );
+                this.putByte( (Byte) argument );
+            }
+            else if ( argument instanceof Short ) {
+                this.putByte( SHORT_ARGUMENT );
+                this.putVarLong( zigZag( (Short) argument ) );
+            }
+            else if ( argument instanceof Integer ) {
+                this.putByte( INTEGER_ARGUMENT );
+                this.putVarLong( zigZag( (Integer) argument ) );
+            }
+            else if ( argument instanceof Long ) {
+                this.putByte( LONG_ARGUMENT );
+                this.putVarLong( zigZag( (Long) argument ) );
+            }
+            else if ( argument instanceof Float ) {
+                this.putByte( FLOAT_ARGUMENT );
+                this.ensureRecordCapacity( 4 );
+                this.record.putFloat( (Float) argument );
+            }
+            else if ( argument instanceof Double ) {
+                this.putByte( DOUBLE_ARGUMENT );
+                this.ensureRecordCapacity( 8 );
+                this.record.putDouble( (Double) argument );
+            }
+            else if ( argument instanceof Character ) {
+                this.putByte( CHARACTER_ARGUMENT );
+                this.putVarLong( (Character) argument );
+            }
+            else if ( argument instanceof String ) {
+                this.putByte( STRING_ARGUMENT );
+                this.putString( (String) argument );
+            }
+            else if ( argument instanceof BigInteger ) {
+                this.putByte( BIG_INTEGER_ARGUMENT );
+                this.putString( argument.toString( ) );
+            }
+            else if ( argument instanceof BigDecimal ) {
+                this.putByte( BIG_DECIMAL_ARGUMENT );
+                this.putString( argument.toString( ) );
+            }
+            else if ( argument instanceof Date ) {
+                this.putByte( DATE_ARGUMENT );
+                this.putVarLong( zigZag( ( (Date) argument ).getTime( ) ) );
+            }
+            else {
+                this.putByte( CALENDAR_ARGUMENT );
+                this.putVarLong( zigZag( ( (Calendar) argument ).getTimeInMillis( ) ) );
+                this.putString( ( (Calendar) argument ).getTimeZone( ).getID( ) );
+            }
+        }
+
+        protected static long zigZag( long value ) {
+            return ( ( value << 1 ) ^ ( value >> 63 ) );
+        }
+
+        protected void ensureRecordCapacity( int length ) {
+            if ( this.record.remaining( ) < length ) {
+                ByteBuffer tmpRecord = ByteBuffer.allocate( Math.max( this.record.capacity( ) * 2,
+                                                                      this.record.position( ) + length ) );
+                this.record.flip( );
+                tmpRecord.put( this.record );
+                this.record = tmpRecord;
+            }
+        }
+
+        protected void putByte( int value ) {
+            this.ensureRecordCapacity( 1 );
+            this.record.put( (byte) value );
+        }
+
+        protected void putVarLong( long value ) {
+            this.ensureRecordCapacity( 10 );
+            long tmpValue = value;
+            while ( ( tmpValue & ~0x7FL ) != 0 ) {
+                this.record.put( (byte) ( ( tmpValue & 0x7F ) | 0x80 ) );
+                tmpValue >>>= 7;
+            }
+            this.record.put( (byte) tmpValue );
+        }
+
+        protected void putString( String text ) {
+            byte[ ] tmpBytes = text.getBytes( StandardCharsets.UTF_8 );
+            this.putVarLong( tmpBytes.length );
+            this.ensureRecordCapacity( tmpBytes.length );
+            this.record.put( tmpBytes );
+        }
+    }
+
+    @XmlType
+    @XmlEnum( String.class )
+    @XmlAccessorType( XmlAccessType.NONE )
+    public static enum LogOverflowPolicy {
+        Block,
+        DropLowestLevel,
+        DropNewest;
+    }
+
+    /**
+     *
+     * Sada assncrona: as mensagens so copiadas para um <i>buffer</i> circular pr-alocado, sem
+     * bloqueio, e uma nica <i>thread</i> as repassa em lotes  sada "<i>target</i>", que as
+     * formata e grava. Com o <i>buffer</i> cheio, "<i>overflowPolicy</i>" decide entre esperar
+     * ("Block"), descartar a mensagem nova ("DropNewest") ou descartar apenas as mensagens menos
+     * severas que "<i>retainLevel</i>", esperando pelas demais ("DropLowestLevel"). A quantidade de
+     * mensagens descartadas  registrada na prpria sada "<i>target</i>".
+     *
+     */
+    @XmlType( name = "async",
+              propOrder = { "name",
+                            "minLevel",
+                            "maxLevel",
+                            "layoutName",
+                            "targetName",
+                            "bufferSize",
+                            "overflowPolicy",
+                            "retainLevel" } )
+    @XmlAccessorType( XmlAccessType.NONE )
+    public static final class LogOutputAsync extends LogOutput {
+
+        protected static final class LogEvent {
+
+            protected Calendar          timestamp;
+
+            protected LogLevel          level;
+
+            protected long              threadId;
+
+            protected StackTraceElement stackElement;
+
+            protected int               indentation;
+
+            protected String            loggerName;
+
+            protected String            format;
+
+            protected Object[ ]         args;
+
+            protected String            message;
+        }
+
+        @XmlAttribute( required = true,
+                       name = "target" )
+        protected String                    targetName;
+
+        @XmlAttribute( required = false )
+        protected Integer                   bufferSize;
+
+        @XmlAttribute( required = false )
+        protected LogOverflowPolicy         overflowPolicy;
+
+        @XmlAttribute( required = false )
+        protected LogLevel                  retainLevel;
+
+        @XmlTransient
+        protected LogOutput                 target;
+
+        @XmlTransient
+        protected LogEvent[ ]               events;
+
+        @XmlTransient
+        protected AtomicLongArray           sequences;
+
+        @XmlTransient
+        protected AtomicLong                tail;
+
+        @XmlTransient
+        protected AtomicLong                head;
+
+        @XmlTransient
+        protected int                       mask;
+
+        @XmlTransient
+        protected AtomicLong                dropped;
+
+        @XmlTransient
+        protected volatile boolean          writerParked;
+
+        @XmlTransient
+        protected volatile boolean          running;
+
+        @XmlTransient
+        protected boolean                   released;
+
+        @XmlTransient
+        protected Thread                    writer;
+
+        @XmlTransient
+        protected Thread                    shutdownHook;
+
+        protected static final int          DEFAULT_BUFFER_SIZE  = 8192;
+
+        protected static final int          MAXIMUM_BUFFER_SIZE  = ( 1 << 24 );
+
+        protected static final long         PARK_NANOS           = 10000000L;
+
+        protected static final LogLevel     DEFAULT_RETAIN_LEVEL = LogLevel.Warn;
+
+        public String getTargetName( ) {
+            return this.targetName;
+        }
+
+        public LogOutput getTarget( ) {
+            return this.target;
+        }
+
+        public int getBufferSize( ) {
+            return ( this.events != null ) ? this.events.length
+                                           : ( this.bufferSize != null ) ? this.bufferSize
+                                                                         : DEFAULT_BUFFER_SIZE;
+        }
+
+        public LogOverflowPolicy getOverflowPolicy( ) {
+            return ( this.overflowPolicy != null ) ? this.overflowPolicy
+                                                   : LogOverflowPolicy.Block;
+        }
+
+        public LogLevel getRetainLevel( ) {
+            return ( this.retainLevel != null ) ? this.retainLevel
+                                                : DEFAULT_RETAIN_LEVEL;
+        }
+
+        public long getPendingCount( ) {
+            return ( this.tail != null ) ? ( this.tail.get( ) - this.head.get( ) )
+                                         : 0;
+        }
+
+        public long getDroppedCount( ) {
+            return ( this.dropped != null ) ? this.dropped.get( )
+                                            : 0;
+        }
+
+        protected LogOutputAsync( ) {
+            super( );
+        }
+
+        public LogOutputAsync( String name,
+                               LogLevel minLevel,
+                               LogLevel maxLevel,
+                               String targetName,
+                               Integer bufferSize,
+                               LogOverflowPolicy overflowPolicy,
+                               LogLevel retainLevel ) {
+            super( name,
+                   minLevel,
+                   maxLevel,
+                   null );
+            this.targetName = targetName;
+            this.bufferSize = bufferSize;
+            this.overflowPolicy = overflowPolicy;
+            this.retainLevel = retainLevel;
+        }
+
+        public LogOutputAsync( String name,
+                               String targetName,
+                               LogOverflowPolicy overflowPolicy ) {
+            this( name,
+                  null,
+                  null,
+                  targetName,
+                  null,
+                  overflowPolicy,
+                  null );
+        }
+
+        @Override
+        protected void engage( LogConfig config )
+            throws LogException {
+            super.engage( config );
+            if ( ( this.targetName == null ) || ( this.targetName.compareTo( this.name ) == 0 ) ) {
+                throw new LogException( "Invalid target '%s' on output '%s'",
+                                        this.targetName,
+                                        this.name );
+            }
+            for ( LogOutput tmpOutput : config.outputs ) {
+                if ( tmpOutput.name.compareTo( this.targetName ) == 0 ) {
+                    this.target = tmpOutput;
+                    break;
+                }
+            }
+            if ( this.target == null ) {
+                throw new LogException( "Target '%s' on output '%s' not found in configuration",
+                                        this.targetName,
+                                        this.name );
+            }
+            int tmpRequestedSize = this.getBufferSize( );
+            if ( ( tmpRequestedSize < 2 ) || ( tmpRequestedSize > MAXIMUM_BUFFER_SIZE ) ) {
+                throw new LogException( "Invalid buffer size %d on output '%s'",
+                                        tmpRequestedSize,
+                                        this.name );
+            }
+            // Capacidade arredondada para potncia de 2: o ndice do slot  a sequncia mascarada
+            int tmpCapacity = Integer.highestOneBit( tmpRequestedSize - 1 ) << 1;
+            this.events = new LogEvent[ tmpCapacity ];
+            this.sequences = new AtomicLongArray( tmpCapacity );
+            for ( int tmpIndex = 0; tmpIndex < tmpCapacity; tmpIndex++ ) {
+                this.events[ tmpIndex ] = new LogEvent( );
+                this.sequences.set( tmpIndex,
+                                    tmpIndex );
+            }
+            this.mask = ( tmpCapacity - 1 );
+            this.tail = new AtomicLong( 0 );
+            this.head = new AtomicLong( 0 );
+            this.dropped = new AtomicLong( 0 );
+        }
+
+        /**
+         *
+         * Inicia a <i>thread</i> escritora e o gancho de encerramento da JVM; at aqui, e depois do
+         * "<i>release</i>", as mensagens so repassadas de forma sncrona. A sada  ativada uma
+         * nica vez.
+         *
+         */
+        @Override
+        protected void activate( ) {
+            synchronized ( this ) {
+                if ( ( this.writer != null ) || this.released ) {
+                    return;
+                }
+                this.running = true;
+                this.writer = new Thread( new Runnable( ) {
+
+                    @Override
+                    public void run( ) {
+                        LogOutputAsync.this.drainLoop( );
+                    }
+                },
+                                          "LogOutputAsync-" + this.name );
+                this.writer.setDaemon( true );
+                this.shutdownHook = new Thread( new Runnable( ) {
+
+                    @Override
+                    public void run( ) {
+                        LogOutputAsync.this.stop( );
+                    }
+                },
+                                                "LogOutputAsync-" + this.name + "-shutdown" );
+                Runtime.getRuntime( ).addShutdownHook( this.shutdownHook );
+                this.writer.start( );
+            }
+        }
+
+        @Override
+        protected long computeEnabledLevels( ) {
+            return ( ( this.target != null ) ? ( super.computeEnabledLevels( ) & this.target.computeEnabledLevels( ) )
+                                             : 0 );
+        }
+
+        @Override
+        protected boolean needsCaller( ) {
+            return ( ( this.target != null ) && this.target.needsCaller( ) );
+        }
+
+        /**
+         *
+         * Estruturada quando a sada "<i>target</i>" : o formato e os argumentos atravessam o
+         * <i>buffer</i> e so entregues a ela pela <i>thread</i> escritora, sem formatao em quem
+         * registra. S atravessam o <i>buffer</i> argumentos codificveis, copiados se mutveis; com
+         * outros argumentos, a mensagem  formatada em quem registra ("{@link #snapshot( Object[ ] )}").
+         *
+         */
+        @Override
+        protected boolean isStructured( ) {
+            return ( ( this.target != null ) && this.target.isStructured( ) );
+        }
+
+        @Override
+        protected void message( Calendar timestamp,
+                                LogLevel level,
+                                long threadId,
+                                StackTraceElement stackElement,
+                                int indentation,
+                                String message ) {
+            this.enqueue( timestamp,
+                          level,
+                          threadId,
+                          stackElement,
+                          indentation,
+                          null,
+                          null,
+                          null,
+                          message );
+        }
+
+        @Override
+        protected void message( Calendar timestamp,
+                                LogLevel level,
+                                long threadId,
+                                StackTraceElement stackElement,
+                                int indentation,
+                                String loggerName,
+                                String format,
+                                Object[ ] args ) {
+            String tmpFormat = format;
+            Object[ ] tmpArgs = snapshot( args );
+            if ( ( tmpArgs == null ) && ( args != null ) ) {
+                tmpFormat = "%s";
+                tmpArgs = new Object[ ] { StringHelper.flawlessFormat( format,
+                                                                       args ) };
+            }
+            this.enqueue( timestamp,
+                          level,
+                          threadId,
+                          stackElement,
+                          indentation,
+                          loggerName,
+                          tmpFormat,
+                          tmpArgs,
+                          null );
+        }
+
+        /**
+         *
+         * Cpia dos argumentos que a <i>thread</i> escritora pode usar depois que quem registra os
+         * alterar, ou "<i>null</i>" se no houver argumentos ou algum no for codificvel
+         * ("{@link LogOutputBinaryFile#isEncodable( Object[ ] )}"): o texto de objetos quaisquer
+         * ("<i>StringBuilder</i>", colees...) s vale no momento da chamada.
+         *
+         */
+        protected static Object[ ] snapshot( Object[ ] args ) {
+            if ( ( args == null ) || !LogOutputBinaryFile.isEncodable( args ) ) {
+                return null;
+            }
+            Object[ ] tmpResult = args.clone( );
+            for ( int tmpIndex = 0; tmpIndex < tmpResult.length; tmpIndex++ ) {
+                if ( tmpResult[ tmpIndex ] instanceof Date ) {
+                    tmpResult[ tmpIndex ] = ( (Date) tmpResult[ tmpIndex ] ).clone( );
+                }
+                else if ( tmpResult[ tmpIndex ] instanceof Calendar ) {
+                    tmpResult[ tmpIndex ] = ( (Calendar) tmpResult[ tmpIndex ] ).clone( );
+                }
+            }
+            return tmpResult;
+        }
+
+        /**
+         *
+         * Coloca a mensagem no <i>buffer</i>; com "<i>message</i>" nulo, a mensagem  estruturada
+         * ("<i>format</i>" e "<i>args</i>").
+         *
+         */
+        protected void enqueue( Calendar timestamp,
+                                LogLevel level,
+                                long threadId,
+                                StackTraceElement stackElement,
+                                int indentation,
+                                String loggerName,
+                                String format,
+                                Object[ ] args,
+                                String message ) {
+            if ( !this.running ) {
+                this.deliver( timestamp,
+                              level,
+                              threadId,
+                              stackElement,
+                              indentation,
+                              loggerName,
+                              format,
+                              args,
+                              message );
+                return;
+            }
+            if ( this.offer( timestamp,
+                             level,
+                             threadId,
+                             stackElement,
+                             indentation,
+                             loggerName,
+                             format,
+                             args,
+                             message ) ) {
+                return;
+            }
+            switch ( this.getOverflowPolicy( ) ) {
+                case DropNewest:
+                    this.dropped.incrementAndGet( );
+                    return;
+                case DropLowestLevel:
+                    if ( level.isGreater( this.getRetainLevel( ) ) ) {
+                        this.dropped.incrementAndGet( );
+                        return;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            do {
+                if ( !this.running || ( Thread.currentThread( ) == this.writer ) ) {
+                    // Sem escritor para esvaziar o buffer: grava de forma sncrona
+                    this.deliver( timestamp,
+                                  level,
+                                  threadId,
+                                  stackElement,
+                                  indentation,
+                                  loggerName,
+                                  format,
+                                  args,
+                                  message );
+                    return;
+                }
+                LockSupport.unpark( this.writer );
+                LockSupport.parkNanos( PARK_NANOS / 10 );
+            }
+            while ( !this.offer( timestamp,
+                                 level,
+                                 threadId,
+                                 stackElement,
+                                 indentation,
+                                 loggerName,
+                                 format,
+                                 args,
+                                 message ) );
+        }
+
+        protected boolean offer( Calendar timestamp,
+                                 LogLevel level,
+                                 long threadId,
+                                 StackTraceElement stackElement,
+                                 int indentation,
+                                 String loggerName,
+                                 String format,
+                                 Object[ ] args,
+                                 String message ) {
+            if ( !this.running ) {
+                return false;
+            }
+            long tmpTail;
+            int tmpIndex;
+            while ( true ) {
+                tmpTail = this.tail.get( );
+                tmpIndex = (int) ( tmpTail & this.mask );
+                long tmpSequence = this.sequences.get( tmpIndex );
+                if ( tmpSequence == tmpTail ) {
+                    if ( this.tail.compareAndSet( tmpTail,
+                                                  tmpTail + 1 ) ) {
+                        break;
+                    }
+                }
+                else if ( tmpSequence < tmpTail ) {
+                    return false;
+                }
+            }
+            LogEvent tmpEvent = this.events[ tmpIndex ];
+            tmpEvent.timestamp = timestamp;
+            tmpEvent.level = level;
+            tmpEvent.threadId = threadId;
+            tmpEvent.stackElement = stackElement;
+            tmpEvent.indentation = indentation;
+            tmpEvent.loggerName = loggerName;
+            tmpEvent.format = format;
+            tmpEvent.args = args;
+            tmpEvent.message = message;
+            // Escrita voltil (e no "lazySet") antes de ler "writerParked": com a escrita de
+            // "writerParked" seguida da releitura da sequncia no escritor, um dos dois v o outro
+            this.sequences.set( tmpIndex,
+                                tmpTail + 1 );
+            if ( this.writerParked ) {
+                LockSupport.unpark( this.writer );
+            }
+            else if ( !this.running && ( ( this.writer == null ) || !this.writer.isAlive( ) ) ) {
+                // Publicao concluda depois do "stop": ningum mais esvaziaria o buffer
+                synchronized ( this ) {
+                    this.drain( );
+                }
+            }
+            return true;
+        }
+
+        protected void deliver( Calendar timestamp,
+                                LogLevel level,
+                                long threadId,
+                                StackTraceElement stackElement,
+                                int indentation,
+                                String loggerName,
+                                String format,
+                                Object[ ] args,
+                                String message ) {
+            try {
+                if ( message == null ) {
+                    this.target.message( timestamp,
+                                         level,
+                                         threadId,
+                                         stackElement,
+                                         indentation,
+                                         loggerName,
+                                         format,
+                                         args );
+                }
+                else {
+                    this.target.message( timestamp,
+                                         level,
+                                         threadId,
+                                         stackElement,
+                                         indentation,
+                                         message );
+                }
+            }
+            catch ( Throwable e ) {
+                e.printStackTrace( );
+            }
+        }
+
+        /**
+         *
+         * Repassa  sada "<i>target</i>" as mensagens disponveis no <i>buffer</i>, retornando a
+         * quantidade repassada. S pode ser executado pela <i>thread</i> escritora, ou depois que
+         * ela terminar.
+         *
+         */
+        protected int drain( ) {
+            int tmpCount = 0;
+            long tmpHead = this.head.get( );
+            while ( true ) {
+                int tmpIndex = (int) ( tmpHead & this.mask );
+                if ( this.sequences.get( tmpIndex ) != ( tmpHead + 1 ) ) {
+                    break;
+                }
+                LogEvent tmpEvent = this.events[ tmpIndex ];
+                this.deliver( tmpEvent.timestamp,
+                              tmpEvent.level,
+                              tmpEvent.threadId,
+                              tmpEvent.stackElement,
+                              tmpEvent.indentation,
+                              tmpEvent.loggerName,
+                              tmpEvent.format,
+                              tmpEvent.args,
+                              tmpEvent.message );
+                tmpEvent.timestamp = null;
+                tmpEvent.stackElement = null;
+                tmpEvent.loggerName = null;
+                tmpEvent.format = null;
+                tmpEvent.args = null;
+                tmpEvent.message = null;
+                this.sequences.lazySet( tmpIndex,
+                                        tmpHead + this.events.length );
+                this.head.lazySet( ++tmpHead );
+                ++tmpCount;
+            }
+            long tmpDropped = this.dropped.getAndSet( 0 );
+            if ( tmpDropped > 0 ) {
+                this.deliver( new GregorianCalendar( ),
+                              LogLevel.Warn,
+                              Thread.currentThread( ).getId( ),
+                              null,
+                              0,
+                              null,
+                              null,
+                              null,
+                              String.format( "%d log messages dropped by output '%s' (buffer full)",
+                                             tmpDropped,
+                                             this.name ) );
+            }
+            if ( ( tmpCount > 0 ) || ( tmpDropped > 0 ) ) {
+                try {
+                    this.target.endBatch( );
+                }
+                catch ( Throwable e ) {
+                    e.printStackTrace( );
+                }
+            }
+            return tmpCount;
+        }
+
+        protected void drainLoop( ) {
+            while ( this.running ) {
+                if ( this.drain( ) == 0 ) {
+                    this.writerParked = true;
+                    // Nova verificao aps sinalizar a espera, para no perder uma publicao concorrente
+                    long tmpHead = this.head.get( );
+                    if ( this.sequences.get( (int) ( tmpHead & this.mask ) ) != ( tmpHead + 1 ) ) {
+                        LockSupport.parkNanos( this,
+                                               PARK_NANOS );
+                    }
+                    this.writerParked = false;
+                }
+            }
+        }
+
+        /**
+         *
+         * Encerra a <i>thread</i> escritora e repassa as mensagens ainda pendentes.
+         *
+         */
+        public void stop( ) {
+            synchronized ( this ) {
+                if ( !this.running ) {
+                    return;
+                }
+                this.running = false;
+            }
+            if ( Thread.currentThread( ) != this.writer ) {
+                LockSupport.unpark( this.writer );
+                try {
+                    this.writer.join( );
+                }
+                catch ( InterruptedException e ) {
+                    Thread.currentThread( ).interrupt( );
+                }
+            }
+            synchronized ( this ) {
+                // Publicaes iniciadas antes do fim de "running" ainda podem estar sendo concludas
+                while ( this.head.get( ) != this.tail.get( ) ) {
+                    if ( this.drain( ) == 0 ) {
+                        Thread.yield( );
+                    }
+                }
+                this.drain( );
+            }
+            this.target.flush( );
+        }
+
+        @Override
+        protected void release( ) {
+            synchronized ( this ) {
+                this.released = true;
+            }
+            this.stop( );
+            if ( ( this.shutdownHook != null ) && ( Thread.currentThread( ) != this.shutdownHook ) ) {
+                try {
+                    Runtime.getRuntime( ).removeShutdownHook( this.shutdownHook );
+                }
+                catch ( IllegalStateException e ) {
+                    // A JVM j est encerrando: o gancho ser executado de qualquer forma
+                }
+            }
+        }
+
+        @Override
+        protected void write( Calendar timestamp,
+                              String message ) {
+            this.target.write( timestamp,
+                               message );
+        }
+    }
+
+    @XmlType( name = "profile",
+              propOrder = { "name",
+                            "minLevel",
+                            "maxLevel",
+                            "forwardParent",
+                            "outputNames" } )
+    @XmlAccessorType( XmlAccessType.NONE )
+    public static final class LogProfile {
+
+        @XmlAttribute( required = true )
+        protected String                                                    name;
 
         @XmlAttribute( required = false )
-        protected LogLevel          minLevel;
+        protected LogLevel                                                  minLevel;
 
         @XmlAttribute( required = false )
-        protected LogLevel          maxLevel;
+        protected LogLevel                                                  maxLevel;
 
         @XmlAttribute( required = false )
-        protected Boolean           forwardParent;
+        protected Boolean                                                   forwardParent;
 
         @XmlElement( required = false,
                      name = "output" )
-        protected List< String >    outputNames;
+        protected List< String >                                            outputNames;
 
         @XmlTransient
-        protected LogProfile        parentProfile;
+        protected LogProfile                                                parentProfile;
 
         @XmlTransient
-        protected List< LogOutput > outputs;
-        
-        protected static int        STACK_DEPTH = 3;
-        //
+        protected volatile List< LogOutput >                                outputs;
+
+        @XmlTransient
+        protected LogConfig                                                 config;
+
+        @XmlTransient
+        protected volatile long                                             enabledLevels;
+
+        protected static final String                                       LOG_SERVICE_PREFIX = LogService.class.getName( ) + "$";
+
+        protected static final StackWalker                                  CALLER_WALKER      = StackWalker.getInstance( );
+
+        protected static final Function< Stream< StackFrame >, StackFrame > CALLER_SELECTOR;
+
         static {
-            StackTraceElement[ ] tmpStackTrace = Thread.currentThread( ).getStackTrace( );
-            for ( StackTraceElement tmpElement : tmpStackTrace ) {
-                if ( tmpElement.getMethodName( ).compareTo( "getStackTrace" ) == 0 ) {
-                    break;
+            // Percorre a pilha s at o primeiro quadro fora do LogService
+            CALLER_SELECTOR = new Function< Stream< StackFrame >, StackFrame >( ) {
+
+                @Override
+                public StackFrame apply( Stream< StackFrame > frames ) {
+                    return frames.dropWhile( new Predicate< StackFrame >( ) {
+
+                        @Override
+                        public boolean test( StackFrame frame ) {
+                            return frame.getClassName( ).startsWith( LOG_SERVICE_PREFIX );
+                        }
+                    } ).findFirst( ).orElse( null );
                 }
-                ++STACK_DEPTH;
-            }
+            };
+        }
+
+        protected static StackTraceElement captureCaller( ) {
+            StackFrame tmpFrame = CALLER_WALKER.walk( CALLER_SELECTOR );
+            return ( tmpFrame != null ) ? tmpFrame.toStackTraceElement( )
+                                        : null;
         }
 
         public String getName( ) {
@@ -1233,6 +3083,7 @@ public class LogService {
             synchronized ( this ) {
                 this.minLevel = minLevel;
             }
+            this.levelsChanged( );
             return this;
         }
 
@@ -1248,6 +3099,7 @@ public class LogService {
             synchronized ( this ) {
                 this.maxLevel = maxLevel;
             }
+            this.levelsChanged( );
             return this;
         }
 
@@ -1262,6 +3114,7 @@ public class LogService {
             synchronized ( this ) {
                 this.forwardParent = forwardParent;
             }
+            this.levelsChanged( );
             return this;
         }
 
@@ -1308,71 +3161,106 @@ public class LogService {
                      && this.forwardParent.booleanValue( ) );
         }
 
-        protected boolean isEnabled( LogLevel level ) {
+        /**
+         *
+         * Nveis em que alguma sada do perfil, dentro dos limites do perfil, ou o perfil pai, com
+         * repasse, produziria a mensagem. Os instantneos das sadas devem estar atualizados.
+         *
+         */
+        protected long computeEnabledLevels( ) {
+            long tmpOutputLevels = 0;
+            LogProfile tmpForwardProfile;
+            long tmpRangeMask;
             synchronized ( this ) {
-                boolean tmpIsEnabled = false;
                 for ( LogOutput tmpOutput : this.outputs ) {
-                    if ( tmpOutput.isEnabled( level ) ) {
-                        tmpIsEnabled = ( !level.isLesser( this.minLevel ) && !level.isGreater( this.maxLevel ) );
-                        break;
-                    }
+                    tmpOutputLevels |= tmpOutput.enabledLevels;
                 }
-                if ( !tmpIsEnabled && isParentForwarding( ) ) {
-                    tmpIsEnabled = this.parentProfile.isEnabled( level );
+                tmpRangeMask = LogLevel.rangeMask( this.minLevel,
+                                                   this.maxLevel );
+                tmpForwardProfile = ( this.isParentForwarding( ) ? this.parentProfile
+                                                                 : null );
+            }
+            long tmpResult = ( tmpOutputLevels & tmpRangeMask );
+            if ( tmpForwardProfile != null ) {
+                tmpResult |= tmpForwardProfile.computeEnabledLevels( );
+            }
+            return tmpResult;
+        }
+
+        protected void levelsChanged( ) {
+            LogConfig tmpConfig = this.config;
+            if ( tmpConfig != null ) {
+                tmpConfig.refreshLevels( );
+            }
+            else {
+                this.enabledLevels = this.computeEnabledLevels( );
+            }
+        }
+
+        protected boolean isEnabled( LogLevel level ) {
+            return ( ( this.enabledLevels & level.mask ) != 0 );
+        }
+
+        protected boolean needsCaller( LogLevel level ) {
+            for ( LogOutput tmpOutput : this.outputs ) {
+                if ( tmpOutput.isEnabled( level ) && tmpOutput.needsCaller( ) ) {
+                    return true;
                 }
-                return tmpIsEnabled;
             }
+            return ( this.isParentForwarding( ) && this.parentProfile.needsCaller( level ) );
         }
 
-        protected void message( int indentation,
+        protected void message( String loggerName,
+                                int indentation,
                                 LogLevel level,
                                 String format,
                                 Object... args ) {
-            synchronized ( this ) {
-                Long tmpThreadId = null;
-                StackTraceElement tmpStackElement = null;
-                String tmpMessage = null;
-                Calendar tmpTimestamp = new GregorianCalendar( );
-                if ( this.outputs.size( ) > 0 ) {
-                    if ( this.isEnabled( level ) ) {
-                        for ( LogOutput tmpOutput : this.outputs ) {
-                            if ( tmpOutput.isEnabled( level ) ) {
-                                if ( tmpThreadId == null ) {
-                                    tmpThreadId = Thread.currentThread( ).getId( );
-                                    StackTraceElement[ ] tmpStackTrace = Thread.currentThread( ).getStackTrace( );
-                                    if ( tmpStackTrace.length >= LogProfile.STACK_DEPTH ) {
-                                        tmpStackElement = tmpStackTrace[ LogProfile.STACK_DEPTH ];
-                                    }
-                                    tmpMessage = StringHelper.flawlessFormat( format,
-                                                                              args );
+            Long tmpThreadId = null;
+            StackTraceElement tmpStackElement = null;
+            String tmpMessage = null;
+            Calendar tmpTimestamp = new GregorianCalendar( );
+            // As sadas do perfil s mudam no "engage": a entrega dispensa o monitor do perfil
+            List< LogOutput > tmpOutputs = this.outputs;
+            if ( tmpOutputs.size( ) > 0 ) {
+                if ( this.isEnabled( level ) ) {
+                    for ( LogOutput tmpOutput : tmpOutputs ) {
+                        if ( tmpOutput.isEnabled( level ) ) {
+                            if ( tmpThreadId == null ) {
+                                tmpThreadId = Thread.currentThread( ).getId( );
+                                if ( this.needsCaller( level ) ) {
+                                    tmpStackElement = captureCaller( );
                                 }
-                                tmpOutput.message( tmpTimestamp,
-                                                   level,
-                                                   tmpThreadId,
-                                                   tmpStackElement,
-                                                   indentation,
-                                                   tmpMessage );
                             }
+                            tmpMessage = deliver( tmpOutput,
+                                                  tmpTimestamp,
+                                                  level,
+                                                  tmpThreadId,
+                                                  tmpStackElement,
+                                                  indentation,
+                                                  loggerName,
+                                                  format,
+                                                  args,
+                                                  tmpMessage );
                         }
                     }
                 }
-                if ( this.isParentForwarding( ) ) {
-                    if ( tmpThreadId == null ) {
-                        tmpThreadId = Thread.currentThread( ).getId( );
-                        StackTraceElement[ ] tmpStackTrace = Thread.currentThread( ).getStackTrace( );
-                        if ( tmpStackTrace.length >= LogProfile.STACK_DEPTH ) {
-                            tmpStackElement = tmpStackTrace[ LogProfile.STACK_DEPTH ];
-                        }
-                        tmpMessage = StringHelper.flawlessFormat( format,
-                                                                  args );
+            }
+            if ( this.isParentForwarding( ) ) {
+                if ( tmpThreadId == null ) {
+                    tmpThreadId = Thread.currentThread( ).getId( );
+                    if ( this.needsCaller( level ) ) {
+                        tmpStackElement = captureCaller( );
                     }
-                    this.parentProfile.forwardParent( tmpTimestamp,
-                                                      level,
-                                                      tmpThreadId,
-                                                      tmpStackElement,
-                                                      indentation,
-                                                      tmpMessage );
                 }
+                this.parentProfile.forwardParent( tmpTimestamp,
+                                                  level,
+                                                  tmpThreadId,
+                                                  tmpStackElement,
+                                                  indentation,
+                                                  loggerName,
+                                                  format,
+                                                  args,
+                                                  tmpMessage );
             }
         }
 
@@ -1381,16 +3269,24 @@ public class LogService {
                                       long threadId,
                                       StackTraceElement stackElement,
                                       int indentation,
+                                      String loggerName,
+                                      String format,
+                                      Object[ ] args,
                                       String message ) {
+            String tmpMessage = message;
             if ( this.isEnabled( level ) ) {
                 for ( LogOutput tmpOutput : this.outputs ) {
                     if ( tmpOutput.isEnabled( level ) ) {
-                        tmpOutput.message( timestamp,
-                                           level,
-                                           threadId,
-                                           stackElement,
-                                           indentation,
-                                           message );
+                        tmpMessage = deliver( tmpOutput,
+                                              timestamp,
+                                              level,
+                                              threadId,
+                                              stackElement,
+                                              indentation,
+                                              loggerName,
+                                              format,
+                                              args,
+                                              tmpMessage );
                     }
                 }
             }
@@ -1400,8 +3296,51 @@ public class LogService {
                                                   threadId,
                                                   stackElement,
                                                   indentation,
-                                                  message );
-            }
+                                                  loggerName,
+                                                  format,
+                                                  args,
+                                                  tmpMessage );
+            }
+        }
+
+        /**
+         *
+         * Entrega a mensagem a uma sada: as estruturadas ("{@link LogOutput#isStructured( )}")
+         * recebem o formato e os argumentos; as demais recebem o texto, formatado uma nica vez, na
+         * primeira sada que o usa. Retorna o texto, se j formatado, ou "<i>null</i>".
+         *
+         */
+        protected static String deliver( LogOutput output,
+                                         Calendar timestamp,
+                                         LogLevel level,
+                                         long threadId,
+                                         StackTraceElement stackElement,
+                                         int indentation,
+                                         String loggerName,
+                                         String format,
+                                         Object[ ] args,
+                                         String message ) {
+            if ( output.isStructured( ) ) {
+                output.message( timestamp,
+                                level,
+                                threadId,
+                                stackElement,
+                                indentation,
+                                loggerName,
+                                format,
+                                args );
+                return message;
+            }
+            String tmpMessage = ( message != null ) ? message
+                                                    : StringHelper.flawlessFormat( format,
+                                                                                   args );
+            output.message( timestamp,
+                            level,
+                            threadId,
+                            stackElement,
+                            indentation,
+                            tmpMessage );
+            return tmpMessage;
         }
 
         protected void engage( LogConfig config )
@@ -1411,8 +3350,10 @@ public class LogService {
                                         ( this.name == null ) ? "null"
                                                               : "empty" );
             }
+            this.config = config;
+            List< LogOutput > tmpOutputs = new ArrayList< LogOutput >( );
             if ( this.outputNames.size( ) == 0 ) {
-                this.outputs.add( config.defaultOutput );
+                tmpOutputs.add( config.defaultOutput );
             }
             else {
                 for ( String tmpOutputName : this.outputNames ) {
@@ -1424,7 +3365,7 @@ public class LogService {
                         }
                     }
                     if ( tmpOutputObject != null ) {
-                        this.outputs.add( tmpOutputObject );
+                        tmpOutputs.add( tmpOutputObject );
                     }
                     else {
                         throw new LogException( "Output '%s' on profile '%s' not found in configuration",
@@ -1433,7 +3374,7 @@ public class LogService {
                     }
                 }
             }
-            //
+            this.outputs = tmpOutputs;
         }
 
         protected void setParent( LogConfig config ) {
@@ -1480,7 +3421,13 @@ public class LogService {
                                      type = LogOutputStderr.class ),
                         @XmlElement( required = true,
                                      name = "rollingFile",
-                                     type = LogOutputFile.class ) } )
+                                     type = LogOutputFile.class ),
+                        @XmlElement( required = true,
+                                     name = "binaryRollingFile",
+                                     type = LogOutputBinaryFile.class ),
+                        @XmlElement( required = true,
+                                     name = "asyncOutput",
+                                     type = LogOutputAsync.class ) } )
         protected List< LogOutput >         outputs;
 
         @XmlElement( required = true,
@@ -1520,6 +3467,9 @@ public class LogService {
         @XmlTransient
         protected Map< String, LogProfile > profileRegistry;
 
+        @XmlTransient
+        protected LogContext                context;
+
         public List< LogLayout > getLayouts( ) {
             synchronized ( this ) {
                 return new ArrayList< LogLayout >( this.layouts );
@@ -1637,6 +3587,10 @@ public class LogService {
                 tmpDefaultOutput.getName( );
                 tmpDefaultOutput = new LogOutputFile( );
                 tmpDefaultOutput.getName( );
+                tmpDefaultOutput = new LogOutputBinaryFile( );
+                tmpDefaultOutput.getName( );
+                tmpDefaultOutput = new LogOutputAsync( );
+                tmpDefaultOutput.getName( );
                 LogLayout tmpDefaultLayout = new LogLayout( );
                 tmpDefaultLayout.getName( );
                 //
@@ -1739,6 +3693,53 @@ public class LogService {
                                                LogLevel.Off,
                                                LogLevel.Off,
                                                false );
+            this.refreshLevels( );
+        }
+
+        /**
+         *
+         * Recalcula os instantneos de nveis habilitados das sadas, dos perfis e, se a configurao
+         * estiver em uso, dos loggers do contexto. Chamado a cada alterao de nveis, para que as
+         * verificaes de nvel no precisem de sincronizao.
+         *
+         */
+        protected void refreshLevels( ) {
+            LogContext tmpContext;
+            synchronized ( this ) {
+                for ( LogOutput tmpOutput : this.outputs ) {
+                    tmpOutput.enabledLevels = tmpOutput.computeEnabledLevels( );
+                }
+                for ( LogProfile tmpProfile : this.profiles ) {
+                    tmpProfile.enabledLevels = tmpProfile.computeEnabledLevels( );
+                }
+                if ( this.nullProfile != null ) {
+                    this.nullProfile.enabledLevels = this.nullProfile.computeEnabledLevels( );
+                }
+                tmpContext = this.context;
+            }
+            if ( tmpContext != null ) {
+                tmpContext.refreshLoggers( this );
+            }
+        }
+
+        protected void activate( ) {
+            for ( LogOutput tmpOutput : this.outputs ) {
+                tmpOutput.activate( );
+            }
+        }
+
+        protected void release( ) {
+            // As sadas assncronas primeiro: o que ainda est no buffer vai para um destino aberto
+            for ( LogOutput tmpOutput : this.outputs ) {
+                if ( tmpOutput instanceof LogOutputAsync ) {
+                    tmpOutput.release( );
+                }
+            }
+            for ( LogOutput tmpOutput : this.outputs ) {
+                if ( !( tmpOutput instanceof LogOutputAsync ) ) {
+                    tmpOutput.release( );
+                }
+            }
         }
     }
 
@@ -1752,37 +3753,52 @@ public class LogService {
 
         public LogContext setConfig( LogConfig config ) {
             synchronized ( this ) {
+                LogConfig tmpPrevious = this.config;
                 this.config = config;
+                synchronized ( config ) {
+                    config.context = this;
+                }
+                config.activate( );
                 for ( Map.Entry< String, Logger > tmpLoggerEntry : this.loggerRegistry.entrySet( ) ) {
                     Logger tmpLogger = tmpLoggerEntry.getValue( );
                     tmpLogger.setProfile( this.config.getProfile( tmpLoggerEntry.getKey( ),
                                                                   tmpLogger.inheritParent,
                                                                   tmpLogger.defaultToNull ) );
                 }
+                if ( ( tmpPrevious != null ) && ( tmpPrevious != config ) ) {
+                    tmpPrevious.release( );
+                }
             }
             return this;
         }
 
         public LogContext setLevels( LogLevel minLevel,
                                      LogLevel maxLevel ) {
+            LogConfig tmpConfig;
             synchronized ( this ) {
-                for ( LogOutput tmpOutput : this.config.outputs ) {
-                    if ( minLevel != null ) {
-                        tmpOutput.setMinLevel( minLevel );
-                    }
-                    if ( maxLevel != null ) {
-                        tmpOutput.setMaxLevel( maxLevel );
+                tmpConfig = this.config;
+                for ( LogOutput tmpOutput : tmpConfig.outputs ) {
+                    synchronized ( tmpOutput ) {
+                        if ( minLevel != null ) {
+                            tmpOutput.minLevel = minLevel;
+                        }
+                        if ( maxLevel != null ) {
+                            tmpOutput.maxLevel = maxLevel;
+                        }
                     }
                 }
-                for ( LogProfile tmpProfile : this.config.profiles ) {
-                    if ( minLevel != null ) {
-                        tmpProfile.setMinLevel( minLevel );
-                    }
-                    if ( maxLevel != null ) {
-                        tmpProfile.setMaxLevel( maxLevel );
+                for ( LogProfile tmpProfile : tmpConfig.profiles ) {
+                    synchronized ( tmpProfile ) {
+                        if ( minLevel != null ) {
+                            tmpProfile.minLevel = minLevel;
+                        }
+                        if ( maxLevel != null ) {
+                            tmpProfile.maxLevel = maxLevel;
+                        }
                     }
                 }
             }
+            tmpConfig.refreshLevels( );
             return this;
         }
 
@@ -1805,11 +3821,23 @@ public class LogService {
             return this;
         }
 
+        protected void refreshLoggers( LogConfig config ) {
+            if ( this.config == config ) {
+                for ( Logger tmpLogger : this.loggerRegistry.values( ) ) {
+                    tmpLogger.refreshLevels( );
+                }
+            }
+        }
+
         public Logger getLogger( String loggerName,
                                  boolean inheritParent,
                                  boolean defaultToNull ) {
+            Logger tmpResult = this.loggerRegistry.get( loggerName );
+            if ( tmpResult != null ) {
+                return tmpResult;
+            }
             synchronized ( this ) {
-                Logger tmpResult = this.loggerRegistry.get( loggerName );
+                tmpResult = this.loggerRegistry.get( loggerName );
                 if ( tmpResult == null ) {
                     tmpResult = new Logger( loggerName,
                                             this,
@@ -1844,12 +3872,12 @@ public class LogService {
             }
         }
 
-        protected LogConfig             config;
+        protected volatile LogConfig    config;
 
         protected Map< String, Logger > loggerRegistry;
 
         protected LogContext( ) {
-            this.loggerRegistry = new HashMap< String, Logger >( );
+            this.loggerRegistry = new ConcurrentHashMap< String, Logger >( );
             //
             try {
                 this.config = this.createDefaultConfig( );
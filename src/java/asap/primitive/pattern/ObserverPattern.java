@@ -4,14 +4,19 @@ import java.util.AbstractList;
 import java.util.AbstractMap;
 import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import asap.primitive.pattern.ValuePattern.BasicValue;
 import asap.primitive.pattern.ValuePattern.ReadOnlyValue;
@@ -118,24 +123,188 @@ public class ObserverPattern {
 
         public abstract void attachObserver( Executor executor,
                                              ValueObserver< V > observer );
+
+        /**
+         *
+         * Com "<i>coalesce</i>", se o observador ainda no recebeu uma notificao quando chega a
+         * seguinte, as duas so combinadas: ele recebe apenas o valor mais recente (com o valor
+         * anterior  primeira), e nunca um valor mais antigo que um j entregue.
+         *
+         */
+        public abstract void attachObserver( Executor executor,
+                                             ValueObserver< V > observer,
+                                             boolean coalesce );
     }
 
+    /**
+     *
+     * Valor observvel por vrias <i>threads</i>: os observadores ficam em um vetor substitudo a
+     * cada incluso ou excluso ("<i>copy-on-write</i>"), e as notificaes so feitas fora do
+     * bloqueio, de modo que quem altera o valor no espera pelos observadores. Cada observador pode
+     * ter seu prprio "<i>Executor</i>" (ou usar o padro do valor) e pode ter notificaes
+     * combinadas ("{@link ObservableThreadValue#attachObserver( Executor, ValueObserver, boolean )}").
+     * <br>
+     * <br>
+     * Sem combinao, alteraes feitas ao mesmo tempo por <i>threads</i> distintas podem ser
+     * notificadas fora de ordem; com combinao, cada observador recebe as alteraes em ordem e uma
+     * de cada vez.
+     *
+     */
     public static class BasicObservableThreadValue< V > extends ThreadValue< V > implements ObservableThreadValue< V > {
 
-        protected List< ValueObserver< V > >          observers;
+        /**
+         *
+         * Alterao do valor, compartilhada por todos os observadores; "<i>version</i>" ordena as
+         * alteraes de um mesmo valor.
+         *
+         */
+        protected static final class ValueChange< V > {
+
+            protected final V    oldValue;
+
+            protected final V    newValue;
+
+            protected final long version;
+
+            protected ValueChange( V oldValue,
+                                   V newValue,
+                                   long version ) {
+                this.oldValue = oldValue;
+                this.newValue = newValue;
+                this.version = version;
+            }
+        }
+
+        protected static class ObserverBinding< V > {
+
+            protected final ValueObserver< V > observer;
+
+            protected final Executor           executor;
+
+            protected ObserverBinding( ValueObserver< V > observer,
+                                       Executor executor ) {
+                this.observer = observer;
+                this.executor = executor;
+            }
+
+            protected void deliver( ValueChange< V > change ) {
+                try {
+                    this.observer.changed( change.oldValue,
+                                           change.newValue );
+                }
+                catch ( Throwable e ) {
+                    e.printStackTrace( );
+                }
+            }
 
-        protected Map< ValueObserver< V >, Executor > executorMap;
+            protected void dispatch( final ValueChange< V > change ) {
+                if ( this.executor != null ) {
+                    this.executor.execute( new Runnable( ) {
 
-        protected Executor                            defaultExecutor;
+                        @Override
+                        public void run( ) {
+                            ObserverBinding.this.deliver( change );
+                        }
+                    } );
+                }
+                else {
+                    this.deliver( change );
+                }
+            }
+        }
 
-        protected ObservableReadOnlyValue< V >        readOnly;
+        /**
+         *
+         * Observador com notificaes combinadas: a alterao pendente  acumulada e uma nica
+         * entrega por vez  feita (no "<i>Executor</i>" ou na prpria <i>thread</i> que notifica),
+         * repetindo enquanto houver pendncia. A prpria ligao  a tarefa submetida, sem alocao
+         * por notificao.
+         *
+         */
+        protected static final class CoalescingObserverBinding< V > extends ObserverBinding< V > implements Runnable {
+
+            protected final AtomicReference< ValueChange< V > > pending;
+
+            protected final AtomicBoolean                       scheduled;
+
+            protected long                                      deliveredVersion;
+
+            protected CoalescingObserverBinding( ValueObserver< V > observer,
+                                                 Executor executor ) {
+                super( observer,
+                       executor );
+                this.pending = new AtomicReference< ValueChange< V > >( );
+                this.scheduled = new AtomicBoolean( false );
+                this.deliveredVersion = Long.MIN_VALUE;
+            }
 
+            @Override
+            protected void dispatch( ValueChange< V > change ) {
+                while ( true ) {
+                    ValueChange< V > tmpPending = this.pending.get( );
+                    ValueChange< V > tmpMerged = change;
+                    if ( tmpPending != null ) {
+                        ValueChange< V > tmpOlder = ( tmpPending.version < change.version ) ? tmpPending
+                                                                                            : change;
+                        ValueChange< V > tmpNewer = ( tmpPending.version < change.version ) ? change
+                                                                                            : tmpPending;
+                        tmpMerged = new ValueChange< V >( tmpOlder.oldValue,
+                                                          tmpNewer.newValue,
+                                                          tmpNewer.version );
+                    }
+                    if ( this.pending.compareAndSet( tmpPending,
+                                                     tmpMerged ) ) {
+                        break;
+                    }
+                }
+                if ( this.scheduled.compareAndSet( false,
+                                                   true ) ) {
+                    if ( this.executor != null ) {
+                        try {
+                            this.executor.execute( this );
+                        }
+                        catch ( RuntimeException e ) {
+                            // Tarefa recusada: a prxima notificao tenta de novo
+                            this.scheduled.set( false );
+                            throw e;
+                        }
+                    }
+                    else {
+                        this.run( );
+                    }
+                }
+            }
+
+            @Override
+            public void run( ) {
+                do {
+                    ValueChange< V > tmpChange = this.pending.getAndSet( null );
+                    if ( ( tmpChange != null ) && ( tmpChange.version > this.deliveredVersion ) ) {
+                        this.deliveredVersion = tmpChange.version;
+                        this.deliver( tmpChange );
+                    }
+                    this.scheduled.set( false );
+                }
+                while ( ( this.pending.get( ) != null ) && this.scheduled.compareAndSet( false,
+                                                                                         true ) );
+            }
+        }
+
+        protected volatile ObserverBinding< V >[ ] bindings;
+
+        protected Executor                         defaultExecutor;
+
+        protected long                             version;
+
+        protected ObservableReadOnlyValue< V >     readOnly;
+
+        @SuppressWarnings( "unchecked" )
         public BasicObservableThreadValue( V initialValue,
                                            Executor defaultExecutor ) {
             super( initialValue );
-            this.observers = new ArrayList< ValueObserver< V > >( );
-            this.executorMap = new HashMap< ValueObserver< V >, Executor >( );
+            this.bindings = (ObserverBinding< V >[ ]) new ObserverBinding< ? >[ 0 ];
             this.defaultExecutor = defaultExecutor;
+            this.version = 0;
         }
 
         public BasicObservableThreadValue( V initialValue ) {
@@ -148,93 +317,108 @@ public class ObserverPattern {
                   null );
         }
 
-        protected void notifyObserver( Executor executor,
-                                       final ValueObserver< V > observer,
-                                       final V oldValue,
-                                       final V newValue ) {
-            Executor tmpExecutor = ( executor != null ) ? executor
-                                                        : this.defaultExecutor;
-            if ( tmpExecutor != null ) {
-                tmpExecutor.execute( new Runnable( ) {
-
-                    protected ValueObserver< V > _observer = observer;
-
-                    protected V                  _oldValue = oldValue;
-
-                    protected V                  _newValue = newValue;
-
-                    @Override
-                    public void run( ) {
-                        try {
-                            this._observer.changed( this._oldValue,
-                                                    this._newValue );
-                        }
-                        catch ( Throwable e ) {
-                        }
-                    }
-                } );
-            }
-            else {
-                try {
-                    observer.changed( oldValue,
-                                      newValue );
-                }
-                catch ( Throwable e ) {
+        protected int indexOf( ValueObserver< V > observer ) {
+            ObserverBinding< V >[ ] tmpBindings = this.bindings;
+            for ( int tmpIndex = 0; tmpIndex < tmpBindings.length; tmpIndex++ ) {
+                if ( tmpBindings[ tmpIndex ].observer.equals( observer ) ) {
+                    return tmpIndex;
                 }
             }
+            return -1;
         }
 
         @Override
         public void attachObserver( ValueObserver< V > observer ) {
             this.attachObserver( null,
-                                 observer );
+                                 observer,
+                                 false );
         }
 
         @Override
         public void attachObserver( Executor executor,
                                     ValueObserver< V > observer ) {
+            this.attachObserver( executor,
+                                 observer,
+                                 false );
+        }
+
+        @Override
+        public void attachObserver( Executor executor,
+                                    ValueObserver< V > observer,
+                                    boolean coalesce ) {
+            ObserverBinding< V > tmpBinding = null;
+            ValueChange< V > tmpChange = null;
             synchronized ( this ) {
-                if ( ( observer != null ) && !this.observers.contains( observer ) ) {
-                    this.observers.add( observer );
-                    this.executorMap.put( observer,
-                                          executor );
-                    this.notifyObserver( executor,
-                                         observer,
-                                         null,
-                                         this.value );
+                if ( ( observer != null ) && ( this.indexOf( observer ) < 0 ) ) {
+                    Executor tmpExecutor = ( executor != null ) ? executor
+                                                                : this.defaultExecutor;
+                    tmpBinding = coalesce ? new CoalescingObserverBinding< V >( observer,
+                                                                                tmpExecutor )
+                                          : new ObserverBinding< V >( observer,
+                                                                      tmpExecutor );
+                    ObserverBinding< V >[ ] tmpBindings = Arrays.copyOf( this.bindings,
+                                                                         this.bindings.length + 1 );
+                    tmpBindings[ tmpBindings.length - 1 ] = tmpBinding;
+                    this.bindings = tmpBindings;
+                    tmpChange = new ValueChange< V >( null,
+                                                      this.value,
+                                                      this.version );
                 }
             }
+            if ( tmpBinding != null ) {
+                tmpBinding.dispatch( tmpChange );
+            }
         }
 
         @Override
         public void detachObserver( ValueObserver< V > observer ) {
+            ObserverBinding< V > tmpBinding = null;
+            ValueChange< V > tmpChange = null;
             synchronized ( this ) {
-                if ( ( observer != null ) && this.observers.contains( observer ) ) {
-                    this.observers.remove( observer );
-                    Executor tmpExecutor = this.executorMap.remove( observer );
-                    this.notifyObserver( tmpExecutor,
-                                         observer,
-                                         this.value,
-                                         null );
+                int tmpIndex = ( observer != null ) ? this.indexOf( observer )
+                                                    : -1;
+                if ( tmpIndex >= 0 ) {
+                    ObserverBinding< V >[ ] tmpBindings = this.bindings;
+                    tmpBinding = tmpBindings[ tmpIndex ];
+                    ObserverBinding< V >[ ] tmpRemaining = Arrays.copyOf( tmpBindings,
+                                                                          tmpBindings.length - 1 );
+                    System.arraycopy( tmpBindings,
+                                      tmpIndex + 1,
+                                      tmpRemaining,
+                                      tmpIndex,
+                                      tmpBindings.length - tmpIndex - 1 );
+                    this.bindings = tmpRemaining;
+                    // Verso posterior  de qualquer alterao j notificada a este observador
+                    this.version++;
+                    tmpChange = new ValueChange< V >( this.value,
+                                                      null,
+                                                      this.version );
                 }
             }
+            if ( tmpBinding != null ) {
+                tmpBinding.dispatch( tmpChange );
+            }
         }
 
         @Override
         public void set( V value ) {
+            ObserverBinding< V >[ ] tmpBindings;
+            ValueChange< V > tmpChange;
             synchronized ( this ) {
                 V tmpOldValue = this.value;
-                if ( ( tmpOldValue == null ) ? ( value != null )
-                                             : !tmpOldValue.equals( value ) ) {
-                    this.value = value;
-                    for ( ValueObserver< V > tmpObserver : this.observers ) {
-                        Executor tmpExecutor = this.executorMap.get( tmpObserver );
-                        this.notifyObserver( tmpExecutor,
-                                             tmpObserver,
-                                             tmpOldValue,
-                                             value );
-                    }
+                if ( ( tmpOldValue == null ) ? ( value == null )
+                                             : tmpOldValue.equals( value ) ) {
+                    return;
                 }
+                this.value = value;
+                this.version++;
+                tmpBindings = this.bindings;
+                tmpChange = new ValueChange< V >( tmpOldValue,
+                                                  value,
+                                                  this.version );
+            }
+            for ( ObserverBinding< V > tmpBinding : tmpBindings ) {
+                tmpBinding.dispatch( tmpChange );
             }
         }
 
@@ -276,37 +460,144 @@ public class ObserverPattern {
                                       V element );
     }
 
+    /**
+     *
+     * Observador de alteraes em bloco de uma lista: uma incluso ou excluso de vrios elementos
+     * contguos gera um nico evento. "<i>beginChanges</i>"/"<i>endChanges</i>" delimitam as
+     * transaes ("{@link ObservableList#beginChanges( )}") e as operaes em bloco compostas, para
+     * que o observador possa adiar a atualizao de sua viso at o fim.
+     *
+     */
+    public static interface ListChangeObserver< V > {
+
+        public abstract void beginChanges( );
+
+        public abstract void rangeAdded( int fromIndex,
+                                         List< V > elements );
+
+        public abstract void changed( int index,
+                                      V oldElement,
+                                      V newElement );
+
+        public abstract void rangeRemoved( int fromIndex,
+                                           List< V > elements );
+
+        public abstract void endChanges( );
+    }
+
+    /**
+     *
+     * Repassa os eventos em bloco a um "{@link ListObserver}", elemento a elemento, na mesma ordem
+     * em que incluses e excluses individuais os gerariam: os elementos includos a partir de
+     * "<i>fromIndex</i>" em ndices crescentes, os excludos sempre em "<i>fromIndex</i>".
+     *
+     */
+    public static class ListObserverAdapter< V > implements ListChangeObserver< V > {
+
+        protected final ListObserver< V > observer;
+
+        public ListObserverAdapter( ListObserver< V > observer ) {
+            this.observer = observer;
+        }
+
+        @Override
+        public void beginChanges( ) {
+        }
+
+        @Override
+        public void rangeAdded( int fromIndex,
+                                List< V > elements ) {
+            for ( int tmpIndex = 0; tmpIndex < elements.size( ); tmpIndex++ ) {
+                try {
+                    this.observer.added( fromIndex + tmpIndex,
+                                         elements.get( tmpIndex ) );
+                }
+                catch ( Throwable e ) {
+                }
+            }
+        }
+
+        @Override
+        public void changed( int index,
+                             V oldElement,
+                             V newElement ) {
+            this.observer.changed( index,
+                                   oldElement,
+                                   newElement );
+        }
+
+        @Override
+        public void rangeRemoved( int fromIndex,
+                                  List< V > elements ) {
+            for ( V tmpElement : elements ) {
+                try {
+                    this.observer.removed( fromIndex,
+                                           tmpElement );
+                }
+                catch ( Throwable e ) {
+                }
+            }
+        }
+
+        @Override
+        public void endChanges( ) {
+        }
+
+        @Override
+        public boolean equals( Object anotherObject ) {
+            return ( anotherObject instanceof ListObserverAdapter )
+                   && this.observer.equals( ( (ListObserverAdapter< ? >) anotherObject ).observer );
+        }
+
+        @Override
+        public int hashCode( ) {
+            return this.observer.hashCode( );
+        }
+    }
+
     public static interface ObservableList< V > extends List< V > {
 
         public abstract void attachObserver( ListObserver< V > observer );
 
         public abstract void detachObserver( ListObserver< V > observer );
+
+        public abstract void attachChangeObserver( ListChangeObserver< V > observer );
+
+        public abstract void detachChangeObserver( ListChangeObserver< V > observer );
+
+        public abstract void beginChanges( );
+
+        public abstract void endChanges( );
     }
 
     public static class BasicObservableList< V > extends AbstractList< V > implements ObservableList< V > {
 
-        protected List< V >                 valueList;
+        protected List< V >                       valueList;
 
-        protected List< ListObserver< V > > observers;
+        protected List< ListChangeObserver< V > > observers;
+
+        protected int                             changeDepth;
 
         public BasicObservableList( ) {
             this.valueList = new ArrayList< V >( );
-            this.observers = new ArrayList< ListObserver< V > >( );
+            this.observers = new ArrayList< ListChangeObserver< V > >( );
         }
 
         public BasicObservableList( int initialCapacity ) {
             this.valueList = new ArrayList< V >( initialCapacity );
-            this.observers = new ArrayList< ListObserver< V > >( );
+            this.observers = new ArrayList< ListChangeObserver< V > >( );
         }
 
         public BasicObservableList( Collection< ? extends V > collection ) {
             this.valueList = new ArrayList< V >( collection );
-            this.observers = new ArrayList< ListObserver< V > >( );
+            this.observers = new ArrayList< ListChangeObserver< V > >( );
         }
 
         public void attachObserver( ListObserver< V > observer ) {
-            if ( ( observer != null ) && !this.observers.contains( observer ) ) {
-                this.observers.add( observer );
+            ListObserverAdapter< V > tmpAdapter = ( observer != null ) ? new ListObserverAdapter< V >( observer )
+                                                                      : null;
+            if ( ( tmpAdapter != null ) && !this.observers.contains( tmpAdapter ) ) {
+                this.observers.add( tmpAdapter );
                 for ( int tmpIndex = 0; tmpIndex < this.valueList.size( ); tmpIndex++ ) {
                     try {
                         observer.added( tmpIndex,
@@ -319,8 +610,10 @@ public class ObserverPattern {
         }
 
         public void detachObserver( ListObserver< V > observer ) {
-            if ( ( observer != null ) && this.observers.contains( observer ) ) {
-                this.observers.remove( observer );
+            ListObserverAdapter< V > tmpAdapter = ( observer != null ) ? new ListObserverAdapter< V >( observer )
+                                                                      : null;
+            if ( ( tmpAdapter != null ) && this.observers.contains( tmpAdapter ) ) {
+                this.observers.remove( tmpAdapter );
                 for ( int tmpIndex = 0; tmpIndex < this.valueList.size( ); tmpIndex++ ) {
                     try {
                         observer.removed( tmpIndex,
@@ -332,6 +625,90 @@ public class ObserverPattern {
             }
         }
 
+        public void attachChangeObserver( ListChangeObserver< V > observer ) {
+            if ( ( observer != null ) && !this.observers.contains( observer ) ) {
+                this.observers.add( observer );
+                if ( this.valueList.size( ) > 0 ) {
+                    try {
+                        observer.rangeAdded( 0,
+                                             this.snapshot( 0,
+                                                            this.valueList.size( ) ) );
+                    }
+                    catch ( Throwable e ) {
+                    }
+                }
+            }
+        }
+
+        public void detachChangeObserver( ListChangeObserver< V > observer ) {
+            if ( ( observer != null ) && this.observers.contains( observer ) ) {
+                this.observers.remove( observer );
+                if ( this.valueList.size( ) > 0 ) {
+                    try {
+                        observer.rangeRemoved( 0,
+                                               this.snapshot( 0,
+                                                              this.valueList.size( ) ) );
+                    }
+                    catch ( Throwable e ) {
+                    }
+                }
+            }
+        }
+
+        public void beginChanges( ) {
+            if ( this.changeDepth++ == 0 ) {
+                for ( ListChangeObserver< V > tmpObserver : this.observers ) {
+                    try {
+                        tmpObserver.beginChanges( );
+                    }
+                    catch ( Throwable e ) {
+                    }
+                }
+            }
+        }
+
+        public void endChanges( ) {
+            if ( ( this.changeDepth > 0 ) && ( --this.changeDepth == 0 ) ) {
+                for ( ListChangeObserver< V > tmpObserver : this.observers ) {
+                    try {
+                        tmpObserver.endChanges( );
+                    }
+                    catch ( Throwable e ) {
+                    }
+                }
+            }
+        }
+
+        protected List< V > snapshot( int fromIndex,
+                                      int toIndex ) {
+            return Collections.unmodifiableList( new ArrayList< V >( this.valueList.subList( fromIndex,
+                                                                                             toIndex ) ) );
+        }
+
+        protected void fireRangeAdded( int fromIndex,
+                                       List< V > elements ) {
+            for ( ListChangeObserver< V > tmpObserver : this.observers ) {
+                try {
+                    tmpObserver.rangeAdded( fromIndex,
+                                            elements );
+                }
+                catch ( Throwable e ) {
+                }
+            }
+        }
+
+        protected void fireRangeRemoved( int fromIndex,
+                                         List< V > elements ) {
+            for ( ListChangeObserver< V > tmpObserver : this.observers ) {
+                try {
+                    tmpObserver.rangeRemoved( fromIndex,
+                                              elements );
+                }
+                catch ( Throwable e ) {
+                }
+            }
+        }
+
         @Override
         public V get( int index ) {
             return this.valueList.get( index );
@@ -342,30 +719,81 @@ public class ObserverPattern {
                          V element ) {
             this.valueList.add( index,
                                 element );
-            for ( ListObserver< V > tmpObserver : this.observers ) {
-                try {
-                    tmpObserver.added( index,
-                                       element );
-                }
-                catch ( Throwable e ) {
+            this.fireRangeAdded( index,
+                                 Collections.singletonList( element ) );
+        }
+
+        @Override
+        public boolean addAll( Collection< ? extends V > collection ) {
+            return this.addAll( this.valueList.size( ),
+                                collection );
+        }
+
+        @Override
+        public boolean addAll( int index,
+                               Collection< ? extends V > collection ) {
+            List< V > tmpElements = Collections.unmodifiableList( new ArrayList< V >( collection ) );
+            if ( tmpElements.isEmpty( ) ) {
+                if ( ( index < 0 ) || ( index > this.valueList.size( ) ) ) {
+                    throw new IndexOutOfBoundsException( String.format( "Index: %d, Size: %d",
+                                                                        index,
+                                                                        this.valueList.size( ) ) );
                 }
+                return false;
             }
+            this.valueList.addAll( index,
+                                   tmpElements );
+            this.modCount++;
+            this.fireRangeAdded( index,
+                                 tmpElements );
+            return true;
         }
 
         @Override
         public V remove( int index ) {
             V tmpOldElement = this.valueList.remove( index );
-            for ( ListObserver< V > tmpObserver : this.observers ) {
-                try {
-                    tmpObserver.removed( index,
-                                         tmpOldElement );
-                }
-                catch ( Throwable e ) {
-                }
-            }
+            this.fireRangeRemoved( index,
+                                   Collections.singletonList( tmpOldElement ) );
             return tmpOldElement;
         }
 
+        /**
+         *
+         * Usado por "<i>clear( )</i>" e por "<i>subList( ).clear( )</i>": um nico evento para
+         * todo o intervalo.
+         *
+         */
+        @Override
+        protected void removeRange( int fromIndex,
+                                    int toIndex ) {
+            if ( fromIndex < toIndex ) {
+                List< V > tmpElements = this.snapshot( fromIndex,
+                                                       toIndex );
+                this.valueList.subList( fromIndex,
+                                        toIndex )
+                              .clear( );
+                this.modCount++;
+                this.fireRangeRemoved( fromIndex,
+                                       tmpElements );
+            }
+        }
+
+        /**
+         *
+         * Substitui todo o contedo em uma nica transao: um evento de excluso e um de incluso.
+         *
+         */
+        public void reload( Collection< ? extends V > collection ) {
+            this.beginChanges( );
+            try {
+                this.clear( );
+                this.addAll( collection );
+            }
+            finally {
+                this.endChanges( );
+            }
+        }
+
         @Override
         public V set( int index,
                       V element ) {
@@ -373,7 +801,7 @@ public class ObserverPattern {
                                                   element );
             if ( ( tmpOldElement == null ) ? ( element != null )
                                            : !tmpOldElement.equals( element ) ) {
-                for ( ListObserver< V > tmpObserver : this.observers ) {
+                for ( ListChangeObserver< V > tmpObserver : this.observers ) {
                     try {
                         tmpObserver.changed( index,
                                              tmpOldElement,
@@ -399,18 +827,95 @@ public class ObserverPattern {
         public abstract void removed( V element );
     }
 
+    /**
+     *
+     * Observador de alteraes em bloco de um conjunto: cada operao gera um nico evento com
+     * todos os elementos efetivamente includos ou excludos.
+     *
+     */
+    public static interface SetChangeObserver< V > {
+
+        public abstract void beginChanges( );
+
+        public abstract void added( Collection< V > elements );
+
+        public abstract void removed( Collection< V > elements );
+
+        public abstract void endChanges( );
+    }
+
+    public static class SetObserverAdapter< V > implements SetChangeObserver< V > {
+
+        protected final SetObserver< V > observer;
+
+        public SetObserverAdapter( SetObserver< V > observer ) {
+            this.observer = observer;
+        }
+
+        @Override
+        public void beginChanges( ) {
+        }
+
+        @Override
+        public void added( Collection< V > elements ) {
+            for ( V tmpElement : elements ) {
+                try {
+                    this.observer.added( tmpElement );
+                }
+                catch ( Throwable e ) {
+                }
+            }
+        }
+
+        @Override
+        public void removed( Collection< V > elements ) {
+            for ( V tmpElement : elements ) {
+                try {
+                    this.observer.removed( tmpElement );
+                }
+                catch ( Throwable e ) {
+                }
+            }
+        }
+
+        @Override
+        public void endChanges( ) {
+        }
+
+        @Override
+        public boolean equals( Object anotherObject ) {
+            return ( anotherObject instanceof SetObserverAdapter )
+                   && this.observer.equals( ( (SetObserverAdapter< ? >) anotherObject ).observer );
+        }
+
+        @Override
+        public int hashCode( ) {
+            return this.observer.hashCode( );
+        }
+    }
+
     public static interface ObservableSet< V > extends Set< V > {
 
         public abstract void attachObserver( SetObserver< V > observer );
 
         public abstract void detachObserver( SetObserver< V > observer );
+
+        public abstract void attachChangeObserver( SetChangeObserver< V > observer );
+
+        public abstract void detachChangeObserver( SetChangeObserver< V > observer );
+
+        public abstract void beginChanges( );
+
+        public abstract void endChanges( );
     }
 
     public static class BasicObservableSet< V > extends AbstractSet< V > implements ObservableSet< V > {
 
-        protected Set< V >                 valueSet;
+        protected Set< V >                       valueSet;
+
+        protected List< SetChangeObserver< V > > observers;
 
-        protected List< SetObserver< V > > observers;
+        protected int                            changeDepth;
 
         protected static class ObservableSetIterator< V > implements Iterator< V > {
 
@@ -440,37 +945,49 @@ public class ObserverPattern {
             @Override
             public void remove( ) {
                 this.iterator.remove( );
-                for ( SetObserver< V > tmpObserver : this.observableSet.observers ) {
-                    try {
-                        tmpObserver.removed( this.lastValue );
-                    }
-                    catch ( Throwable e ) {
-                    }
-                }
+                this.observableSet.fireRemoved( Collections.singletonList( this.lastValue ) );
             }
         }
 
         public BasicObservableSet( ) {
             this.valueSet = new HashSet< V >( );
-            this.observers = new ArrayList< SetObserver< V > >( );
+            this.observers = new ArrayList< SetChangeObserver< V > >( );
         }
 
         public BasicObservableSet( int initialCapacity ) {
             this.valueSet = new HashSet< V >( initialCapacity );
-            this.observers = new ArrayList< SetObserver< V > >( );
+            this.observers = new ArrayList< SetChangeObserver< V > >( );
         }
 
         public BasicObservableSet( Collection< ? extends V > collection ) {
             this.valueSet = new HashSet< V >( collection );
-            this.observers = new ArrayList< SetObserver< V > >( );
+            this.observers = new ArrayList< SetChangeObserver< V > >( );
         }
 
         public void attachObserver( SetObserver< V > observer ) {
+            SetObserverAdapter< V > tmpAdapter = ( observer != null ) ? new SetObserverAdapter< V >( observer )
+                                                                     : null;
+            if ( ( tmpAdapter != null ) && !this.observers.contains( tmpAdapter ) ) {
+                this.observers.add( tmpAdapter );
+                tmpAdapter.added( this.valueSet );
+            }
+        }
+
+        public void detachObserver( SetObserver< V > observer ) {
+            SetObserverAdapter< V > tmpAdapter = ( observer != null ) ? new SetObserverAdapter< V >( observer )
+                                                                     : null;
+            if ( ( tmpAdapter != null ) && this.observers.contains( tmpAdapter ) ) {
+                this.observers.remove( tmpAdapter );
+                tmpAdapter.removed( this.valueSet );
+            }
+        }
+
+        public void attachChangeObserver( SetChangeObserver< V > observer ) {
             if ( ( observer != null ) && !this.observers.contains( observer ) ) {
                 this.observers.add( observer );
-                for ( V tmpValue : this.valueSet ) {
+                if ( this.valueSet.size( ) > 0 ) {
                     try {
-                        observer.added( tmpValue );
+                        observer.added( Collections.unmodifiableList( new ArrayList< V >( this.valueSet ) ) );
                     }
                     catch ( Throwable e ) {
                     }
@@ -478,12 +995,12 @@ public class ObserverPattern {
             }
         }
 
-        public void detachObserver( SetObserver< V > observer ) {
+        public void detachChangeObserver( SetChangeObserver< V > observer ) {
             if ( ( observer != null ) && this.observers.contains( observer ) ) {
                 this.observers.remove( observer );
-                for ( V tmpValue : this.valueSet ) {
+                if ( this.valueSet.size( ) > 0 ) {
                     try {
-                        observer.removed( tmpValue );
+                        observer.removed( Collections.unmodifiableList( new ArrayList< V >( this.valueSet ) ) );
                     }
                     catch ( Throwable e ) {
                     }
@@ -491,21 +1008,128 @@ public class ObserverPattern {
             }
         }
 
-        @Override
-        public boolean add( V value ) {
-            boolean tmpResult = this.valueSet.add( value );
-            if ( tmpResult ) {
-                for ( SetObserver< V > tmpObserver : this.observers ) {
+        public void beginChanges( ) {
+            if ( this.changeDepth++ == 0 ) {
+                for ( SetChangeObserver< V > tmpObserver : this.observers ) {
+                    try {
+                        tmpObserver.beginChanges( );
+                    }
+                    catch ( Throwable e ) {
+                    }
+                }
+            }
+        }
+
+        public void endChanges( ) {
+            if ( ( this.changeDepth > 0 ) && ( --this.changeDepth == 0 ) ) {
+                for ( SetChangeObserver< V > tmpObserver : this.observers ) {
                     try {
-                        tmpObserver.added( value );
+                        tmpObserver.endChanges( );
                     }
                     catch ( Throwable e ) {
                     }
                 }
             }
+        }
+
+        protected void fireAdded( Collection< V > elements ) {
+            for ( SetChangeObserver< V > tmpObserver : this.observers ) {
+                try {
+                    tmpObserver.added( elements );
+                }
+                catch ( Throwable e ) {
+                }
+            }
+        }
+
+        protected void fireRemoved( Collection< V > elements ) {
+            for ( SetChangeObserver< V > tmpObserver : this.observers ) {
+                try {
+                    tmpObserver.removed( elements );
+                }
+                catch ( Throwable e ) {
+                }
+            }
+        }
+
+        @Override
+        public boolean add( V value ) {
+            boolean tmpResult = this.valueSet.add( value );
+            if ( tmpResult ) {
+                this.fireAdded( Collections.singletonList( value ) );
+            }
             return tmpResult;
         }
 
+        @Override
+        public boolean addAll( Collection< ? extends V > collection ) {
+            List< V > tmpAdded = new ArrayList< V >( );
+            for ( V tmpValue : collection ) {
+                if ( this.valueSet.add( tmpValue ) ) {
+                    tmpAdded.add( tmpValue );
+                }
+            }
+            if ( tmpAdded.isEmpty( ) ) {
+                return false;
+            }
+            this.fireAdded( Collections.unmodifiableList( tmpAdded ) );
+            return true;
+        }
+
+        @SuppressWarnings( "unchecked" )
+        @Override
+        public boolean remove( Object value ) {
+            boolean tmpResult = this.valueSet.remove( value );
+            if ( tmpResult ) {
+                this.fireRemoved( Collections.singletonList( (V) value ) );
+            }
+            return tmpResult;
+        }
+
+        @Override
+        public boolean removeAll( Collection< ? > collection ) {
+            return this.removeMatching( collection,
+                                        true );
+        }
+
+        @Override
+        public boolean retainAll( Collection< ? > collection ) {
+            return this.removeMatching( collection,
+                                        false );
+        }
+
+        protected boolean removeMatching( Collection< ? > collection,
+                                          boolean contained ) {
+            List< V > tmpRemoved = new ArrayList< V >( );
+            Iterator< V > tmpIterator = this.valueSet.iterator( );
+            while ( tmpIterator.hasNext( ) ) {
+                V tmpValue = tmpIterator.next( );
+                if ( collection.contains( tmpValue ) == contained ) {
+                    tmpIterator.remove( );
+                    tmpRemoved.add( tmpValue );
+                }
+            }
+            if ( tmpRemoved.isEmpty( ) ) {
+                return false;
+            }
+            this.fireRemoved( Collections.unmodifiableList( tmpRemoved ) );
+            return true;
+        }
+
+        @Override
+        public void clear( ) {
+            if ( this.valueSet.size( ) > 0 ) {
+                List< V > tmpRemoved = Collections.unmodifiableList( new ArrayList< V >( this.valueSet ) );
+                this.valueSet.clear( );
+                this.fireRemoved( tmpRemoved );
+            }
+        }
+
+        @Override
+        public boolean contains( Object value ) {
+            return this.valueSet.contains( value );
+        }
+
         @Override
         public Iterator< V > iterator( ) {
             return new ObservableSetIterator< V >( this );
@@ -530,44 +1154,218 @@ public class ObserverPattern {
                                       V value );
     }
 
+    /**
+     *
+     * Observador de alteraes em bloco de um mapa: as entradas includas, alteradas (com os valores
+     * anteriores e os novos, nas mesmas chaves) ou excludas por uma operao chegam em um nico
+     * evento, na ordem em que foram processadas.
+     *
+     */
+    public static interface MapChangeObserver< K, V > {
+
+        public abstract void beginChanges( );
+
+        public abstract void added( Map< K, V > entries );
+
+        public abstract void changed( Map< K, V > oldValues,
+                                      Map< K, V > newValues );
+
+        public abstract void removed( Map< K, V > entries );
+
+        public abstract void endChanges( );
+    }
+
+    public static class MapObserverAdapter< K, V > implements MapChangeObserver< K, V > {
+
+        protected final MapObserver< K, V > observer;
+
+        public MapObserverAdapter( MapObserver< K, V > observer ) {
+            this.observer = observer;
+        }
+
+        @Override
+        public void beginChanges( ) {
+        }
+
+        @Override
+        public void added( Map< K, V > entries ) {
+            for ( Map.Entry< K, V > tmpEntry : entries.entrySet( ) ) {
+                try {
+                    this.observer.added( tmpEntry.getKey( ),
+                                         tmpEntry.getValue( ) );
+                }
+                catch ( Throwable e ) {
+                }
+            }
+        }
+
+        @Override
+        public void changed( Map< K, V > oldValues,
+                             Map< K, V > newValues ) {
+            for ( Map.Entry< K, V > tmpEntry : newValues.entrySet( ) ) {
+                try {
+                    this.observer.changed( tmpEntry.getKey( ),
+                                           oldValues.get( tmpEntry.getKey( ) ),
+                                           tmpEntry.getValue( ) );
+                }
+                catch ( Throwable e ) {
+                }
+            }
+        }
+
+        @Override
+        public void removed( Map< K, V > entries ) {
+            for ( Map.Entry< K, V > tmpEntry : entries.entrySet( ) ) {
+                try {
+                    this.observer.removed( tmpEntry.getKey( ),
+                                           tmpEntry.getValue( ) );
+                }
+                catch ( Throwable e ) {
+                }
+            }
+        }
+
+        @Override
+        public void endChanges( ) {
+        }
+
+        @Override
+        public boolean equals( Object anotherObject ) {
+            return ( anotherObject instanceof MapObserverAdapter )
+                   && this.observer.equals( ( (MapObserverAdapter< ?, ? >) anotherObject ).observer );
+        }
+
+        @Override
+        public int hashCode( ) {
+            return this.observer.hashCode( );
+        }
+    }
+
     public static interface ObservableMap< K, V > extends Map< K, V > {
 
         public abstract void attachObserver( MapObserver< K, V > observer );
 
         public abstract void detachObserver( MapObserver< K, V > observer );
+
+        public abstract void attachChangeObserver( MapChangeObserver< K, V > observer );
+
+        public abstract void detachChangeObserver( MapChangeObserver< K, V > observer );
+
+        public abstract void beginChanges( );
+
+        public abstract void endChanges( );
     }
 
+    /**
+     *
+     * Mapa observvel sobre um "{@link BasicObservableSet}" de entradas indexadas pela chave
+     * ("{@link KeyedEntrySet}"), o que torna "<i>get</i>", "<i>put</i>" e "<i>remove</i>" diretos.
+     *
+     */
     public static class BasicObservableMap< K, V > extends AbstractMap< K, V > implements ObservableMap< K, V > {
 
+        /**
+         *
+         * Conjunto de entradas com no mximo uma entrada por chave, indexado pela chave: o
+         * <i>hash</i> de uma entrada ("<i>chave ^ valor</i>") muda com o valor e colide com
+         * facilidade, e no serve para localiz-la.
+         *
+         */
+        protected static class KeyedEntrySet< K, V > extends AbstractSet< Map.Entry< K, V > > {
+
+            protected final Map< K, Map.Entry< K, V > > entries;
+
+            public KeyedEntrySet( int initialCapacity ) {
+                this.entries = new HashMap< K, Map.Entry< K, V > >( initialCapacity );
+            }
+
+            public KeyedEntrySet( ) {
+                this.entries = new HashMap< K, Map.Entry< K, V > >( );
+            }
+
+            /**
+             *
+             * Uma entrada cuja chave j existe no  includa.
+             *
+             */
+            @Override
+            public boolean add( Map.Entry< K, V > entry ) {
+                if ( this.entries.containsKey( entry.getKey( ) ) ) {
+                    return false;
+                }
+                this.entries.put( entry.getKey( ),
+                                  entry );
+                return true;
+            }
+
+            @Override
+            public boolean contains( Object object ) {
+                if ( object instanceof Map.Entry ) {
+                    Map.Entry< ?, ? > tmpEntry = this.entries.get( ( (Map.Entry< ?, ? >) object ).getKey( ) );
+                    return ( tmpEntry != null ) && tmpEntry.equals( object );
+                }
+                return false;
+            }
+
+            @Override
+            public boolean remove( Object object ) {
+                if ( this.contains( object ) ) {
+                    this.entries.remove( ( (Map.Entry< ?, ? >) object ).getKey( ) );
+                    return true;
+                }
+                return false;
+            }
+
+            @Override
+            public Iterator< Map.Entry< K, V > > iterator( ) {
+                return this.entries.values( ).iterator( );
+            }
+
+            @Override
+            public int size( ) {
+                return this.entries.size( );
+            }
+
+            @Override
+            public void clear( ) {
+                this.entries.clear( );
+            }
+        }
+
         protected BasicObservableSet< Map.Entry< K, V > > entrySet;
 
-        protected List< MapObserver< K, V > >             observers;
+        protected List< MapChangeObserver< K, V > >       observers;
+
+        protected Map< K, Map.Entry< K, V > >             entryIndex;
 
         public BasicObservableMap( ) {
-            this.entrySet = new BasicObservableSet< Map.Entry< K, V > >( );
-            this.construct( );
+            this.construct( new KeyedEntrySet< K, V >( ) );
         }
 
         public BasicObservableMap( int initialCapacity ) {
-            this.entrySet = new BasicObservableSet< Map.Entry< K, V > >( initialCapacity );
-            this.construct( );
+            this.construct( new KeyedEntrySet< K, V >( initialCapacity ) );
         }
 
         public BasicObservableMap( Map< K, V > anotherMap ) {
-            this.entrySet = new BasicObservableSet< Map.Entry< K, V > >( anotherMap.entrySet( ) );
-            this.construct( );
+            KeyedEntrySet< K, V > tmpEntries = new KeyedEntrySet< K, V >( anotherMap.size( ) );
+            for ( Map.Entry< K, V > tmpEntry : anotherMap.entrySet( ) ) {
+                tmpEntries.add( new AbstractMap.SimpleEntry< K, V >( tmpEntry ) );
+            }
+            this.construct( tmpEntries );
         }
 
-        protected void construct( ) {
-            this.observers = new ArrayList< MapObserver< K, V > >( );
-            this.entrySet.attachObserver( new SetObserver< Entry< K, V > >( ) {
+        protected void construct( KeyedEntrySet< K, V > entries ) {
+            this.entrySet = new BasicObservableSet< Map.Entry< K, V > >( );
+            this.entrySet.valueSet = entries;
+            this.entryIndex = entries.entries;
+            this.observers = new ArrayList< MapChangeObserver< K, V > >( );
+            this.entrySet.attachChangeObserver( new SetChangeObserver< Map.Entry< K, V > >( ) {
 
                 @Override
-                public void added( java.util.Map.Entry< K, V > element ) {
-                    for ( MapObserver< K, V > tmpObserver : BasicObservableMap.this.observers ) {
+                public void beginChanges( ) {
+                    for ( MapChangeObserver< K, V > tmpObserver : BasicObservableMap.this.observers ) {
                         try {
-                            tmpObserver.added( element.getKey( ),
-                                               element.getValue( ) );
+                            tmpObserver.beginChanges( );
                         }
                         catch ( Throwable e ) {
                         }
@@ -575,11 +1373,30 @@ public class ObserverPattern {
                 }
 
                 @Override
-                public void removed( java.util.Map.Entry< K, V > element ) {
-                    for ( MapObserver< K, V > tmpObserver : BasicObservableMap.this.observers ) {
+                public void added( Collection< Map.Entry< K, V > > elements ) {
+                    Map< K, V > tmpEntries = new LinkedHashMap< K, V >( );
+                    for ( Map.Entry< K, V > tmpEntry : elements ) {
+                        tmpEntries.put( tmpEntry.getKey( ),
+                                        tmpEntry.getValue( ) );
+                    }
+                    BasicObservableMap.this.fireAdded( Collections.unmodifiableMap( tmpEntries ) );
+                }
+
+                @Override
+                public void removed( Collection< Map.Entry< K, V > > elements ) {
+                    Map< K, V > tmpEntries = new LinkedHashMap< K, V >( );
+                    for ( Map.Entry< K, V > tmpEntry : elements ) {
+                        tmpEntries.put( tmpEntry.getKey( ),
+                                        tmpEntry.getValue( ) );
+                    }
+                    BasicObservableMap.this.fireRemoved( Collections.unmodifiableMap( tmpEntries ) );
+                }
+
+                @Override
+                public void endChanges( ) {
+                    for ( MapChangeObserver< K, V > tmpObserver : BasicObservableMap.this.observers ) {
                         try {
-                            tmpObserver.removed( element.getKey( ),
-                                                 element.getValue( ) );
+                            tmpObserver.endChanges( );
                         }
                         catch ( Throwable e ) {
                         }
@@ -589,8 +1406,10 @@ public class ObserverPattern {
         }
 
         public void attachObserver( MapObserver< K, V > observer ) {
-            if ( ( observer != null ) && !this.observers.contains( observer ) ) {
-                this.observers.add( observer );
+            MapObserverAdapter< K, V > tmpAdapter = ( observer != null ) ? new MapObserverAdapter< K, V >( observer )
+                                                                        : null;
+            if ( ( tmpAdapter != null ) && !this.observers.contains( tmpAdapter ) ) {
+                this.observers.add( tmpAdapter );
                 for ( Map.Entry< K, V > tmpEntry : this.entrySet ) {
                     try {
                         observer.added( tmpEntry.getKey( ),
@@ -603,8 +1422,10 @@ public class ObserverPattern {
         }
 
         public void detachObserver( MapObserver< K, V > observer ) {
-            if ( ( observer != null ) && this.observers.contains( observer ) ) {
-                this.observers.remove( observer );
+            MapObserverAdapter< K, V > tmpAdapter = ( observer != null ) ? new MapObserverAdapter< K, V >( observer )
+                                                                        : null;
+            if ( ( tmpAdapter != null ) && this.observers.contains( tmpAdapter ) ) {
+                this.observers.remove( tmpAdapter );
                 for ( Map.Entry< K, V > tmpEntry : this.entrySet ) {
                     try {
                         observer.removed( tmpEntry.getKey( ),
@@ -616,43 +1437,201 @@ public class ObserverPattern {
             }
         }
 
+        public void attachChangeObserver( MapChangeObserver< K, V > observer ) {
+            if ( ( observer != null ) && !this.observers.contains( observer ) ) {
+                this.observers.add( observer );
+                if ( this.entrySet.size( ) > 0 ) {
+                    try {
+                        observer.added( this.snapshot( ) );
+                    }
+                    catch ( Throwable e ) {
+                    }
+                }
+            }
+        }
+
+        public void detachChangeObserver( MapChangeObserver< K, V > observer ) {
+            if ( ( observer != null ) && this.observers.contains( observer ) ) {
+                this.observers.remove( observer );
+                if ( this.entrySet.size( ) > 0 ) {
+                    try {
+                        observer.removed( this.snapshot( ) );
+                    }
+                    catch ( Throwable e ) {
+                    }
+                }
+            }
+        }
+
+        public void beginChanges( ) {
+            this.entrySet.beginChanges( );
+        }
+
+        public void endChanges( ) {
+            this.entrySet.endChanges( );
+        }
+
+        protected Map< K, V > snapshot( ) {
+            Map< K, V > tmpEntries = new LinkedHashMap< K, V >( );
+            for ( Map.Entry< K, V > tmpEntry : this.entrySet.valueSet ) {
+                tmpEntries.put( tmpEntry.getKey( ),
+                                tmpEntry.getValue( ) );
+            }
+            return Collections.unmodifiableMap( tmpEntries );
+        }
+
+        protected void fireAdded( Map< K, V > entries ) {
+            for ( MapChangeObserver< K, V > tmpObserver : this.observers ) {
+                try {
+                    tmpObserver.added( entries );
+                }
+                catch ( Throwable e ) {
+                }
+            }
+        }
+
+        protected void fireChanged( Map< K, V > oldValues,
+                                    Map< K, V > newValues ) {
+            for ( MapChangeObserver< K, V > tmpObserver : this.observers ) {
+                try {
+                    tmpObserver.changed( oldValues,
+                                         newValues );
+                }
+                catch ( Throwable e ) {
+                }
+            }
+        }
+
+        protected void fireRemoved( Map< K, V > entries ) {
+            for ( MapChangeObserver< K, V > tmpObserver : this.observers ) {
+                try {
+                    tmpObserver.removed( entries );
+                }
+                catch ( Throwable e ) {
+                }
+            }
+        }
+
         @Override
         public Set< Map.Entry< K, V > > entrySet( ) {
             return this.entrySet;
         }
 
+        @Override
+        public int size( ) {
+            return this.entrySet.size( );
+        }
+
+        @Override
+        public boolean containsKey( Object key ) {
+            return this.entryIndex.containsKey( key );
+        }
+
+        @Override
+        public V get( Object key ) {
+            Map.Entry< K, V > tmpEntry = this.entryIndex.get( key );
+            return ( tmpEntry != null ) ? tmpEntry.getValue( )
+                                        : null;
+        }
+
         @Override
         public V put( K key,
                       V value ) {
-            K tmpKey = null;
-            V tmpValue = null;
-            for ( Map.Entry< K, V > tmpEntry : this.entrySet ) {
-                K tmpEntryKey = tmpEntry.getKey( );
-                if ( ( tmpEntryKey == null ) ? ( key == null )
-                                             : tmpEntryKey.equals( key ) ) {
-                    tmpKey = tmpEntryKey;
-                    tmpValue = tmpEntry.getValue( );
-                    if ( ( tmpValue == null ) ? ( value != null )
-                                              : !tmpValue.equals( value ) ) {
-                        tmpEntry.setValue( value );
-                        for ( MapObserver< K, V > tmpObserver : this.observers ) {
-                            try {
-                                tmpObserver.changed( tmpKey,
-                                                     tmpValue,
-                                                     value );
-                            }
-                            catch ( Throwable e ) {
-                            }
+            Map.Entry< K, V > tmpEntry = this.entryIndex.get( key );
+            if ( tmpEntry == null ) {
+                this.entrySet.add( new AbstractMap.SimpleEntry< K, V >( key,
+                                                                        value ) );
+                return null;
+            }
+            V tmpValue = tmpEntry.getValue( );
+            if ( ( tmpValue == null ) ? ( value != null )
+                                      : !tmpValue.equals( value ) ) {
+                tmpEntry.setValue( value );
+                this.fireChanged( Collections.singletonMap( key,
+                                                            tmpValue ),
+                                  Collections.singletonMap( key,
+                                                            value ) );
+            }
+            return tmpValue;
+        }
+
+        /**
+         *
+         * Entradas novas consecutivas, na ordem de iterao de "<i>anotherMap</i>", formam um nico
+         * evento, assim como as alteradas consecutivas, todos na mesma transao: os eventos seguem a
+         * ordem das entradas e os "{@link MapObserver}" recebem as chamadas na mesma sequncia de
+         * "<i>put</i>" a "<i>put</i>".
+         *
+         */
+        @Override
+        public void putAll( Map< ? extends K, ? extends V > anotherMap ) {
+            List< Map.Entry< K, V > > tmpAdded = new ArrayList< Map.Entry< K, V > >( );
+            Map< K, V > tmpOldValues = new LinkedHashMap< K, V >( );
+            Map< K, V > tmpNewValues = new LinkedHashMap< K, V >( );
+            this.beginChanges( );
+            try {
+                for ( Map.Entry< ? extends K, ? extends V > tmpSource : anotherMap.entrySet( ) ) {
+                    K tmpKey = tmpSource.getKey( );
+                    V tmpValue = tmpSource.getValue( );
+                    Map.Entry< K, V > tmpEntry = this.entryIndex.get( tmpKey );
+                    if ( tmpEntry == null ) {
+                        this.flushChanged( tmpOldValues,
+                                           tmpNewValues );
+                        tmpAdded.add( new AbstractMap.SimpleEntry< K, V >( tmpKey,
+                                                                           tmpValue ) );
+                    }
+                    else {
+                        V tmpOldValue = tmpEntry.getValue( );
+                        if ( ( tmpOldValue == null ) ? ( tmpValue != null )
+                                                     : !tmpOldValue.equals( tmpValue ) ) {
+                            this.flushAdded( tmpAdded );
+                            tmpEntry.setValue( tmpValue );
+                            tmpOldValues.put( tmpKey,
+                                              tmpOldValue );
+                            tmpNewValues.put( tmpKey,
+                                              tmpValue );
                         }
                     }
-                    break;
                 }
+                this.flushAdded( tmpAdded );
+                this.flushChanged( tmpOldValues,
+                                   tmpNewValues );
             }
-            if ( tmpKey == null ) {
-                this.entrySet.add( new AbstractMap.SimpleEntry< K, V >( key,
-                                                                        value ) );
+            finally {
+                this.endChanges( );
             }
-            return tmpValue;
+        }
+
+        protected void flushAdded( List< Map.Entry< K, V > > added ) {
+            if ( !added.isEmpty( ) ) {
+                this.entrySet.addAll( new ArrayList< Map.Entry< K, V > >( added ) );
+                added.clear( );
+            }
+        }
+
+        protected void flushChanged( Map< K, V > oldValues,
+                                     Map< K, V > newValues ) {
+            if ( !newValues.isEmpty( ) ) {
+                this.fireChanged( Collections.unmodifiableMap( new LinkedHashMap< K, V >( oldValues ) ),
+                                  Collections.unmodifiableMap( new LinkedHashMap< K, V >( newValues ) ) );
+                oldValues.clear( );
+                newValues.clear( );
+            }
+        }
+
+        @Override
+        public V remove( Object key ) {
+            Map.Entry< K, V > tmpEntry = this.entryIndex.get( key );
+            if ( tmpEntry == null ) {
+                return null;
+            }
+            this.entrySet.remove( tmpEntry );
+            return tmpEntry.getValue( );
+        }
+
+        @Override
+        public void clear( ) {
+            this.entrySet.clear( );
         }
     }
 }
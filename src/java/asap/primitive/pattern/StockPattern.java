@@ -2,9 +2,16 @@ package asap.primitive.pattern;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class StockPattern {
 
@@ -73,9 +80,18 @@ public class StockPattern {
     /*
      * -----------------------------------------------------------------------
      */
+    /**
+     *
+     * Estoque otimizado para leitura: as alteraes (sob o monitor do estoque) publicam cpias
+     * imutveis dos itens, uma lista na ordem de incluso e um conjunto por identidade, que
+     * "<i>getItems</i>", "<i>getItemCount</i>" e "<i>containsItem</i>" leem sem bloqueio.
+     *
+     */
     public static class BasicStock< T > implements Stock< T > {
 
-        protected List< T >                          items;
+        protected volatile List< T >                 items;
+
+        protected volatile Set< T >                  itemSet;
 
         protected List< StockListener< ? super T > > listeners;
 
@@ -90,15 +106,11 @@ public class StockPattern {
             protected abstract void _removeListener( StockListener< ? super C > listener );
 
             public List< C > getItems( ) {
-                synchronized ( BasicStock.this ) {
-                    return this._getItems( );
-                }
+                return this._getItems( );
             }
 
             public int getItemCount( ) {
-                synchronized ( BasicStock.this ) {
-                    return BasicStock.this.items.size( );
-                }
+                return BasicStock.this.items.size( );
             }
 
             @Override
@@ -150,13 +162,21 @@ public class StockPattern {
         }
 
         public BasicStock( List< T > itemList ) {
-            this.items = new ArrayList< T >( itemList );
+            Set< T > tmpItemSet = Collections.newSetFromMap( new IdentityHashMap< T, Boolean >( ) );
+            List< T > tmpItems = new ArrayList< T >( itemList.size( ) );
+            for ( T tmpItem : itemList ) {
+                if ( ( tmpItem != null ) && tmpItemSet.add( tmpItem ) ) {
+                    tmpItems.add( tmpItem );
+                }
+            }
+            this.publish( tmpItems,
+                          tmpItemSet );
             this.listeners = new ArrayList< StockListener< ? super T > >( );
             this.registry = new AbstractStockRegistry< T >( ) {
 
                 @Override
                 protected List< T > _getItems( ) {
-                    return new ArrayList< T >( BasicStock.this.items );
+                    return BasicStock.this.items;
                 }
 
                 @Override
@@ -176,27 +196,45 @@ public class StockPattern {
             return this.registry;
         }
 
+        /**
+         *
+         * Publica as novas cpias dos itens; chamado sob o monitor do estoque.
+         *
+         */
+        protected void publish( List< T > items,
+                                Set< T > itemSet ) {
+            this.itemSet = Collections.unmodifiableSet( itemSet );
+            this.items = Collections.unmodifiableList( items );
+        }
+
+        /**
+         *
+         * Lista imutvel dos itens, na ordem de incluso.
+         *
+         */
         @Override
         public List< T > getItems( ) {
-            synchronized ( this ) {
-                return new ArrayList< T >( this.items );
-            }
+            return this.items;
         }
 
         @Override
         public int getItemCount( ) {
-            synchronized ( this ) {
-                return this.items.size( );
-            }
+            return this.items.size( );
         }
 
         @Override
         public boolean addItem( T item ) {
             synchronized ( this ) {
-                if ( ( item == null ) || this.items.contains( item ) ) {
+                if ( ( item == null ) || this.itemSet.contains( item ) ) {
                     return false;
                 }
-                this.items.add( item );
+                List< T > tmpItems = new ArrayList< T >( this.items.size( ) + 1 );
+                tmpItems.addAll( this.items );
+                tmpItems.add( item );
+                Set< T > tmpItemSet = Collections.newSetFromMap( new IdentityHashMap< T, Boolean >( tmpItems.size( ) ) );
+                tmpItemSet.addAll( tmpItems );
+                this.publish( tmpItems,
+                              tmpItemSet );
                 for ( StockListener< ? super T > tmpListener : this.listeners ) {
                     tmpListener.itemAdded( item );
                 }
@@ -209,32 +247,61 @@ public class StockPattern {
             return this.addItems( Arrays.asList( items ) );
         }
 
+        /**
+         *
+         * Inclui os itens em uma nica nova cpia, publicada uma vez; os ouvintes so avisados
+         * depois da publicao, na ordem dos itens includos.
+         *
+         */
         @Override
         public int addItems( List< ? extends T > items ) {
             synchronized ( this ) {
-                int tmpAddedCount = 0;
+                List< T > tmpItems = new ArrayList< T >( this.items.size( ) + items.size( ) );
+                tmpItems.addAll( this.items );
+                Set< T > tmpItemSet = Collections.newSetFromMap( new IdentityHashMap< T, Boolean >( tmpItems.size( ) + items.size( ) ) );
+                tmpItemSet.addAll( tmpItems );
+                List< T > tmpAddedItems = new ArrayList< T >( );
                 for ( T tmpItem : items ) {
-                    if ( this.addItem( tmpItem ) ) {
-                        ++tmpAddedCount;
+                    if ( ( tmpItem != null ) && tmpItemSet.add( tmpItem ) ) {
+                        tmpItems.add( tmpItem );
+                        tmpAddedItems.add( tmpItem );
                     }
                 }
-                return tmpAddedCount;
+                if ( tmpAddedItems.isEmpty( ) ) {
+                    return 0;
+                }
+                this.publish( tmpItems,
+                              tmpItemSet );
+                for ( T tmpItem : tmpAddedItems ) {
+                    for ( StockListener< ? super T > tmpListener : this.listeners ) {
+                        tmpListener.itemAdded( tmpItem );
+                    }
+                }
+                return tmpAddedItems.size( );
             }
         }
 
         @Override
         public boolean containsItem( T item ) {
-            synchronized ( this ) {
-                return this.items.contains( item );
-            }
+            return this.itemSet.contains( item );
         }
 
         @Override
         public boolean removeItem( T item ) {
             synchronized ( this ) {
-                if ( !this.items.remove( item ) ) {
+                if ( !this.itemSet.contains( item ) ) {
                     return false;
                 }
+                List< T > tmpItems = new ArrayList< T >( this.items.size( ) );
+                for ( T tmpItem : this.items ) {
+                    if ( tmpItem != item ) {
+                        tmpItems.add( tmpItem );
+                    }
+                }
+                Set< T > tmpItemSet = Collections.newSetFromMap( new IdentityHashMap< T, Boolean >( tmpItems.size( ) ) );
+                tmpItemSet.addAll( tmpItems );
+                this.publish( tmpItems,
+                              tmpItemSet );
                 for ( StockListener< ? super T > tmpListener : this.listeners ) {
                     tmpListener.itemRemoved( item );
                 }
@@ -247,25 +314,54 @@ public class StockPattern {
             return this.removeItems( Arrays.asList( items ) );
         }
 
+        /**
+         *
+         * Retira os itens em uma nica nova cpia, publicada uma vez; os ouvintes so avisados
+         * depois da publicao, na ordem dos itens retirados.
+         *
+         */
         @Override
         public int removeItems( List< ? extends T > items ) {
             synchronized ( this ) {
-                int tmpRemovedCount = 0;
+                Set< T > tmpRemovedSet = Collections.newSetFromMap( new IdentityHashMap< T, Boolean >( ) );
+                List< T > tmpRemovedItems = new ArrayList< T >( );
                 for ( T tmpItem : items ) {
-                    if ( this.removeItem( tmpItem ) ) {
-                        ++tmpRemovedCount;
+                    if ( this.itemSet.contains( tmpItem ) && tmpRemovedSet.add( tmpItem ) ) {
+                        tmpRemovedItems.add( tmpItem );
                     }
                 }
-                return tmpRemovedCount;
+                if ( tmpRemovedItems.isEmpty( ) ) {
+                    return 0;
+                }
+                List< T > tmpItems = new ArrayList< T >( this.items.size( ) - tmpRemovedItems.size( ) );
+                for ( T tmpItem : this.items ) {
+                    if ( !tmpRemovedSet.contains( tmpItem ) ) {
+                        tmpItems.add( tmpItem );
+                    }
+                }
+                Set< T > tmpItemSet = Collections.newSetFromMap( new IdentityHashMap< T, Boolean >( tmpItems.size( ) ) );
+                tmpItemSet.addAll( tmpItems );
+                this.publish( tmpItems,
+                              tmpItemSet );
+                for ( T tmpItem : tmpRemovedItems ) {
+                    for ( StockListener< ? super T > tmpListener : this.listeners ) {
+                        tmpListener.itemRemoved( tmpItem );
+                    }
+                }
+                return tmpRemovedItems.size( );
             }
         }
 
         @Override
         public void clear( ) {
             synchronized ( this ) {
-                List< T > tmpItems = new ArrayList< T >( this.items );
-                for ( T tmpItem : tmpItems ) {
-                    this.items.remove( tmpItem );
+                List< T > tmpRemovedItems = this.items;
+                if ( tmpRemovedItems.isEmpty( ) ) {
+                    return;
+                }
+                this.publish( new ArrayList< T >( ),
+                              Collections.newSetFromMap( new IdentityHashMap< T, Boolean >( ) ) );
+                for ( T tmpItem : tmpRemovedItems ) {
                     for ( StockListener< ? super T > tmpListener : this.listeners ) {
                         tmpListener.itemRemoved( tmpItem );
                     }
@@ -295,7 +391,7 @@ public class StockPattern {
 
                 @Override
                 protected List< S > _getItems( ) {
-                    return new ArrayList< S >( BasicSuperStock.this.items );
+                    return Collections.< S > unmodifiableList( BasicSuperStock.this.items );
                 }
 
                 @Override
@@ -669,6 +765,8 @@ public class StockPattern {
     
         public void release( StockListener< ? super T > listener,
                              T item );
+    
+        public int getAcquireCount( T item );
     }
 
     /*
@@ -708,74 +806,366 @@ public class StockPattern {
     /*
      * -----------------------------------------------------------------------
      */
+    /**
+     *
+     * Rene os itens de vrios estoques filhos em uma nica viso, mantida de forma incremental
+     * pelos eventos dos filhos: cada item conta quantos filhos o contm, entra na viso com o
+     * primeiro e sai com o ltimo. A lista de itens, na ordem de entrada na viso,  reconstruda
+     * apenas na primeira leitura aps uma alterao.<br>
+     * <br>
+     * "<i>acquire</i>"/"<i>release</i>" contam as referncias de cada ouvinte a um item; se o
+     * item deixar o conjunto enquanto referenciado, os ouvintes que o adquiriram recebem
+     * "<i>itemRemoved</i>" e as suas referncias so descartadas; um ouvinte que tambm esteja
+     * registrado no estoque recebe o evento uma nica vez.
+     *
+     */
     public static class BasicPoolStock< T > implements PoolStock< T > {
 
-        protected List< StockRegistry< ? extends T > > childStocks;
+        protected Set< StockRegistry< ? extends T > >                 childStocks;
 
-        protected StockListener< T >                   childStocksListener;
+        protected final Object                                        childStocksLock;
 
-        protected List< StockListener< ? super T > >   rootListeners;
+        protected StockListener< T >                                  childStocksListener;
 
-        protected StockRegistry< T >                   rootRegistry;
+        /**
+         *
+         * Por item: quantos filhos o contm e a ordem em que entrou na viso.
+         *
+         */
+        protected Map< T, int[ ] >                                    itemCounts;
+
+        protected int                                                 itemSequence;
+
+        protected volatile List< T >                                  items;
+
+        protected volatile int                                        itemCount;
+
+        protected Map< T, Map< StockListener< ? super T >, int[ ] > > acquisitions;
+
+        protected List< StockListener< ? super T > >                  rootListeners;
+
+        protected PoolStockRegistry< T >                              rootRegistry;
+
+        @SuppressWarnings( "unchecked" )
+        public BasicPoolStock( Stock< ? extends T >... childStocks ) {
+            this( );
+            for ( Stock< ? extends T > tmpChildStock : childStocks ) {
+                this.addStock( tmpChildStock );
+            }
+        }
+
+        public BasicPoolStock( List< ? extends StockRegistry< ? extends T > > childRegistries ) {
+            this( );
+            for ( StockRegistry< ? extends T > tmpChildRegistry : childRegistries ) {
+                this.addStock( tmpChildRegistry );
+            }
+        }
+
+        public BasicPoolStock( ) {
+            this.childStocks = new LinkedHashSet< StockRegistry< ? extends T > >( );
+            this.childStocksLock = new Object( );
+            this.itemCounts = new IdentityHashMap< T, int[ ] >( );
+            this.itemSequence = 0;
+            this.items = Collections.emptyList( );
+            this.itemCount = 0;
+            this.acquisitions = new IdentityHashMap< T, Map< StockListener< ? super T >, int[ ] > >( );
+            this.rootListeners = new ArrayList< StockListener< ? super T > >( );
+            this.childStocksListener = new StockListener< T >( ) {
+
+                @Override
+                public void itemAdded( T item ) {
+                    BasicPoolStock.this.childItemAdded( item );
+                }
+
+                @Override
+                public void itemRemoved( T item ) {
+                    BasicPoolStock.this.childItemRemoved( item );
+                }
+            };
+            this.rootRegistry = new PoolStockRegistry< T >( ) {
+
+                @Override
+                public List< T > getItems( ) {
+                    return BasicPoolStock.this.getItems( );
+                }
+
+                @Override
+                public int getItemCount( ) {
+                    return BasicPoolStock.this.getItemCount( );
+                }
+
+                @Override
+                public boolean addListener( StockListener< ? super T > listener ) {
+                    synchronized ( BasicPoolStock.this ) {
+                        if ( ( listener == null ) || BasicPoolStock.this.rootListeners.contains( listener ) ) {
+                            return false;
+                        }
+                        BasicPoolStock.this.rootListeners.add( listener );
+                        for ( T tmpItem : BasicPoolStock.this.getItems( ) ) {
+                            try {
+                                listener.itemAdded( tmpItem );
+                            }
+                            catch ( Throwable e ) {
+                                e.printStackTrace( );
+                            }
+                        }
+                        return true;
+                    }
+                }
+
+                @Override
+                public boolean removeListener( StockListener< ? super T > listener ) {
+                    synchronized ( BasicPoolStock.this ) {
+                        if ( ( listener == null ) || !BasicPoolStock.this.rootListeners.remove( listener ) ) {
+                            return false;
+                        }
+                        for ( T tmpItem : BasicPoolStock.this.getItems( ) ) {
+                            try {
+                                listener.itemRemoved( tmpItem );
+                            }
+                            catch ( Throwable e ) {
+                                e.printStackTrace( );
+                            }
+                        }
+                        return true;
+                    }
+                }
+
+                @Override
+                public void acquire( StockListener< ? super T > listener,
+                                     T item ) {
+                    BasicPoolStock.this.acquire( listener,
+                                                 item );
+                }
+
+                @Override
+                public void release( StockListener< ? super T > listener,
+                                     T item ) {
+                    BasicPoolStock.this.release( listener,
+                                                 item );
+                }
+
+                @Override
+                public int getAcquireCount( T item ) {
+                    return BasicPoolStock.this.getAcquireCount( item );
+                }
+            };
+        }
+
+        protected void childItemAdded( T item ) {
+            synchronized ( this ) {
+                int[ ] tmpCount = this.itemCounts.get( item );
+                if ( tmpCount != null ) {
+                    ++tmpCount[ 0 ];
+                    return;
+                }
+                this.itemCounts.put( item,
+                                     new int[ ] { 1,
+                                                  this.itemSequence++ } );
+                this.itemsChanged( );
+                for ( StockListener< ? super T > tmpListener : this.rootListeners ) {
+                    tmpListener.itemAdded( item );
+                }
+            }
+        }
+
+        protected void childItemRemoved( T item ) {
+            synchronized ( this ) {
+                int[ ] tmpCount = this.itemCounts.get( item );
+                if ( ( tmpCount == null ) || ( --tmpCount[ 0 ] > 0 ) ) {
+                    return;
+                }
+                this.itemCounts.remove( item );
+                this.itemsChanged( );
+                for ( StockListener< ? super T > tmpListener : this.rootListeners ) {
+                    tmpListener.itemRemoved( item );
+                }
+                Map< StockListener< ? super T >, int[ ] > tmpHolders = this.acquisitions.remove( item );
+                if ( tmpHolders != null ) {
+                    for ( StockListener< ? super T > tmpHolder : tmpHolders.keySet( ) ) {
+                        if ( this.rootListeners.contains( tmpHolder ) ) {
+                            continue;
+                        }
+                        try {
+                            tmpHolder.itemRemoved( item );
+                        }
+                        catch ( Throwable e ) {
+                            e.printStackTrace( );
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         *
+         * Descarta a lista publicada; chamado sob o monitor do estoque.
+         *
+         */
+        protected void itemsChanged( ) {
+            this.itemCount = this.itemCounts.size( );
+            this.items = null;
+        }
 
         @Override
         public List< T > getItems( ) {
-            return null;
+            List< T > tmpResult = this.items;
+            if ( tmpResult == null ) {
+                synchronized ( this ) {
+                    tmpResult = this.items;
+                    if ( tmpResult == null ) {
+                        List< Map.Entry< T, int[ ] > > tmpEntries = new ArrayList< Map.Entry< T, int[ ] > >( this.itemCounts.entrySet( ) );
+                        Collections.sort( tmpEntries,
+                                          new Comparator< Map.Entry< T, int[ ] > >( ) {
+
+                                              @Override
+                                              public int compare( Map.Entry< T, int[ ] > first,
+                                                                  Map.Entry< T, int[ ] > second ) {
+                                                  return Integer.compare( first.getValue( )[ 1 ],
+                                                                          second.getValue( )[ 1 ] );
+                                              }
+                                          } );
+                        List< T > tmpItems = new ArrayList< T >( tmpEntries.size( ) );
+                        for ( Map.Entry< T, int[ ] > tmpEntry : tmpEntries ) {
+                            tmpItems.add( tmpEntry.getKey( ) );
+                        }
+                        tmpResult = Collections.unmodifiableList( tmpItems );
+                        this.items = tmpResult;
+                    }
+                }
+            }
+            return tmpResult;
         }
 
         @Override
         public int getItemCount( ) {
-            return 0;
+            return this.itemCount;
         }
 
         @Override
         public PoolStockRegistry< T > getRegistry( ) {
-            return null;
+            return this.rootRegistry;
+        }
+
+        public void acquire( StockListener< ? super T > listener,
+                             T item ) {
+            synchronized ( this ) {
+                if ( ( listener == null ) || !this.itemCounts.containsKey( item ) ) {
+                    throw new IllegalArgumentException( String.format( "Item not in pool: %s",
+                                                                       item ) );
+                }
+                Map< StockListener< ? super T >, int[ ] > tmpHolders = this.acquisitions.get( item );
+                if ( tmpHolders == null ) {
+                    tmpHolders = new HashMap< StockListener< ? super T >, int[ ] >( );
+                    this.acquisitions.put( item,
+                                           tmpHolders );
+                }
+                int[ ] tmpCount = tmpHolders.get( listener );
+                if ( tmpCount == null ) {
+                    tmpHolders.put( listener,
+                                    new int[ ] { 1 } );
+                }
+                else {
+                    ++tmpCount[ 0 ];
+                }
+            }
+        }
+
+        public void release( StockListener< ? super T > listener,
+                             T item ) {
+            synchronized ( this ) {
+                Map< StockListener< ? super T >, int[ ] > tmpHolders = this.acquisitions.get( item );
+                int[ ] tmpCount = ( tmpHolders == null ) ? null
+                                                         : tmpHolders.get( listener );
+                if ( tmpCount == null ) {
+                    return;
+                }
+                if ( --tmpCount[ 0 ] == 0 ) {
+                    tmpHolders.remove( listener );
+                    if ( tmpHolders.isEmpty( ) ) {
+                        this.acquisitions.remove( item );
+                    }
+                }
+            }
+        }
+
+        public int getAcquireCount( T item ) {
+            synchronized ( this ) {
+                Map< StockListener< ? super T >, int[ ] > tmpHolders = this.acquisitions.get( item );
+                int tmpResult = 0;
+                if ( tmpHolders != null ) {
+                    for ( int[ ] tmpCount : tmpHolders.values( ) ) {
+                        tmpResult += tmpCount[ 0 ];
+                    }
+                }
+                return tmpResult;
+            }
         }
 
         @Override
         public boolean addStock( Stock< ? extends T > childStock ) {
-            return false;
+            return this.addStock( childStock.getRegistry( ) );
         }
 
         @Override
         public boolean addStock( RootStock< ? extends T > childRootStock ) {
-            return false;
+            return this.addStock( childRootStock.getRegistry( ) );
         }
 
+        /**
+         *
+         * O filho entra no conjunto e recebe o ouvinte sob "<i>childStocksLock</i>", e no sob o
+         * monitor do estoque: os filhos notificam sob o seu prprio monitor e este estoque no os
+         * bloqueia em ordem inversa.
+         *
+         */
         @Override
         public boolean addStock( StockRegistry< ? extends T > childStockRegistry ) {
-            return false;
+            synchronized ( this.childStocksLock ) {
+                if ( ( childStockRegistry == null ) || !this.childStocks.add( childStockRegistry ) ) {
+                    return false;
+                }
+                childStockRegistry.addListener( this.childStocksListener );
+                return true;
+            }
         }
 
         @Override
         public boolean removeStock( Stock< ? extends T > childStock ) {
-            return false;
+            return this.removeStock( childStock.getRegistry( ) );
         }
 
         @Override
         public boolean removeStock( RootStock< ? extends T > childRootStock ) {
-            return false;
+            return this.removeStock( childRootStock.getRegistry( ) );
         }
 
         @Override
         public boolean removeStock( StockRegistry< ? extends T > childStockRegistry ) {
-            return false;
+            synchronized ( this.childStocksLock ) {
+                if ( ( childStockRegistry == null ) || !this.childStocks.remove( childStockRegistry ) ) {
+                    return false;
+                }
+                childStockRegistry.removeListener( this.childStocksListener );
+                return true;
+            }
         }
 
         @Override
         public boolean containsStock( Stock< ? extends T > childStock ) {
-            return false;
+            return this.containsStock( childStock.getRegistry( ) );
         }
 
         @Override
         public boolean containsStock( RootStock< ? extends T > childRootStock ) {
-            return false;
+            return this.containsStock( childRootStock.getRegistry( ) );
         }
 
         @Override
         public boolean containsStock( StockRegistry< ? extends T > childStockRegistry ) {
-            return false;
+            synchronized ( this.childStocksLock ) {
+                return this.childStocks.contains( childStockRegistry );
+            }
         }
     }
 
@@ -830,13 +1220,190 @@ public class StockPattern {
     /*
      * -----------------------------------------------------------------------
      */
+    /**
+     *
+     * Provedor de verses indexado por nome: cada nome aponta para uma cpia imutvel das suas
+     * verses, ordenadas, mantida pelos eventos do registro do estoque; as consultas no
+     * bloqueiam e localizam uma verso por busca binria.
+     *
+     */
     protected static class AbstractConfigurationStockProvider< T extends ConfigurationStockItem >
                     implements ConfigurationStockProvider< T > {
 
-        protected StockProvider< T > stockProvider;
+        /**
+         *
+         * Verses de um mesmo nome, em ordem crescente de "<i>major</i>", "<i>minor</i>" e
+         * "<i>release</i>"; nunca  alterada depois de publicada.
+         *
+         */
+        protected static final class ConfigurationVersions< T extends ConfigurationStockItem > {
+
+            protected final List< T >        items;
+
+            protected final Map< String, T > versionStrings;
+
+            protected ConfigurationVersions( List< T > items ) {
+                this.items = Collections.unmodifiableList( items );
+                this.versionStrings = new HashMap< String, T >( items.size( ) );
+                for ( T tmpItem : items ) {
+                    if ( !this.versionStrings.containsKey( tmpItem.getVersionString( ) ) ) {
+                        this.versionStrings.put( tmpItem.getVersionString( ),
+                                                 tmpItem );
+                    }
+                }
+            }
+
+            protected ConfigurationVersions< T > with( T item ) {
+                int tmpIndex = this.search( item.getVersionMajor( ),
+                                            item.getVersionMinor( ),
+                                            item.getVersionRelease( ) );
+                if ( tmpIndex < 0 ) {
+                    tmpIndex = -( tmpIndex + 1 );
+                }
+                // Aps as verses iguais j existentes
+                while ( ( tmpIndex < this.items.size( ) ) && ( compareVersion( this.items.get( tmpIndex ),
+                                                                               item.getVersionMajor( ),
+                                                                               item.getVersionMinor( ),
+                                                                               item.getVersionRelease( ) ) == 0 ) ) {
+                    tmpIndex++;
+                }
+                List< T > tmpItems = new ArrayList< T >( this.items.size( ) + 1 );
+                tmpItems.addAll( this.items );
+                tmpItems.add( tmpIndex,
+                              item );
+                return new ConfigurationVersions< T >( tmpItems );
+            }
+
+            protected ConfigurationVersions< T > without( T item ) {
+                List< T > tmpItems = new ArrayList< T >( this.items );
+                for ( int tmpIndex = 0; tmpIndex < tmpItems.size( ); tmpIndex++ ) {
+                    if ( tmpItems.get( tmpIndex ) == item ) {
+                        tmpItems.remove( tmpIndex );
+                        return tmpItems.isEmpty( ) ? null
+                                                   : new ConfigurationVersions< T >( tmpItems );
+                    }
+                }
+                return this;
+            }
+
+            protected T getNewest( ) {
+                return this.items.get( this.items.size( ) - 1 );
+            }
+
+            protected T getExact( int versionMajor,
+                                  int versionMinor,
+                                  int versionRelease ) {
+                int tmpIndex = this.search( versionMajor,
+                                            versionMinor,
+                                            versionRelease );
+                return ( tmpIndex < 0 ) ? null
+                                        : this.items.get( tmpIndex );
+            }
+
+            protected T getExact( String version ) {
+                return this.versionStrings.get( version );
+            }
+
+            /**
+             *
+             * ndice da primeira verso igual  informada ou "<i>-( ponto de insero + 1 )</i>".
+             *
+             */
+            protected int search( int versionMajor,
+                                  int versionMinor,
+                                  int versionRelease ) {
+                int tmpLow = 0;
+                int tmpHigh = this.items.size( );
+                while ( tmpLow < tmpHigh ) {
+                    int tmpMiddle = ( tmpLow + tmpHigh ) >>> 1;
+                    if ( compareVersion( this.items.get( tmpMiddle ),
+                                         versionMajor,
+                                         versionMinor,
+                                         versionRelease ) < 0 ) {
+                        tmpLow = tmpMiddle + 1;
+                    }
+                    else {
+                        tmpHigh = tmpMiddle;
+                    }
+                }
+                if ( ( tmpLow < this.items.size( ) ) && ( compareVersion( this.items.get( tmpLow ),
+                                                                          versionMajor,
+                                                                          versionMinor,
+                                                                          versionRelease ) == 0 ) ) {
+                    return tmpLow;
+                }
+                return -( tmpLow + 1 );
+            }
 
-        protected AbstractConfigurationStockProvider( StockProvider< T > stockProvider ) {
-            this.stockProvider = stockProvider;
+            protected static int compareVersion( ConfigurationStockItem item,
+                                                 int versionMajor,
+                                                 int versionMinor,
+                                                 int versionRelease ) {
+                int tmpResult = Integer.compare( item.getVersionMajor( ),
+                                                 versionMajor );
+                if ( tmpResult == 0 ) {
+                    tmpResult = Integer.compare( item.getVersionMinor( ),
+                                                 versionMinor );
+                    if ( tmpResult == 0 ) {
+                        tmpResult = Integer.compare( item.getVersionRelease( ),
+                                                     versionRelease );
+                    }
+                }
+                return tmpResult;
+            }
+        }
+
+        protected StockProvider< T >                                  stockProvider;
+
+        protected ConcurrentMap< String, ConfigurationVersions< T > > versionIndex;
+
+        protected StockListener< T >                                  versionIndexListener;
+
+        protected AbstractConfigurationStockProvider( StockRegistry< T > stockRegistry ) {
+            this.stockProvider = stockRegistry;
+            this.versionIndex = new ConcurrentHashMap< String, ConfigurationVersions< T > >( );
+            this.versionIndexListener = new StockListener< T >( ) {
+
+                @Override
+                public void itemAdded( T item ) {
+                    if ( item.getVersionName( ) == null ) {
+                        // Sem nome no h consulta que o encontre: fica fora do ndice
+                        return;
+                    }
+                    synchronized ( AbstractConfigurationStockProvider.this ) {
+                        ConfigurationVersions< T > tmpVersions = AbstractConfigurationStockProvider.this.versionIndex.get( item.getVersionName( ) );
+                        if ( tmpVersions == null ) {
+                            tmpVersions = new ConfigurationVersions< T >( Collections.singletonList( item ) );
+                        }
+                        else {
+                            tmpVersions = tmpVersions.with( item );
+                        }
+                        AbstractConfigurationStockProvider.this.versionIndex.put( item.getVersionName( ),
+                                                                                  tmpVersions );
+                    }
+                }
+
+                @Override
+                public void itemRemoved( T item ) {
+                    if ( item.getVersionName( ) == null ) {
+                        return;
+                    }
+                    synchronized ( AbstractConfigurationStockProvider.this ) {
+                        ConfigurationVersions< T > tmpVersions = AbstractConfigurationStockProvider.this.versionIndex.get( item.getVersionName( ) );
+                        if ( tmpVersions != null ) {
+                            tmpVersions = tmpVersions.without( item );
+                            if ( tmpVersions == null ) {
+                                AbstractConfigurationStockProvider.this.versionIndex.remove( item.getVersionName( ) );
+                            }
+                            else {
+                                AbstractConfigurationStockProvider.this.versionIndex.put( item.getVersionName( ),
+                                                                                          tmpVersions );
+                            }
+                        }
+                    }
+                }
+            };
+            stockRegistry.addListener( this.versionIndexListener );
         }
 
         @Override
@@ -846,71 +1413,37 @@ public class StockPattern {
 
         @Override
         public int getItemCount( ) {
-            synchronized ( this ) {
-                return this.stockProvider.getItemCount( );
-            }
+            return this.stockProvider.getItemCount( );
         }
 
         public List< T > getVersions( String name ) {
-            synchronized ( this.stockProvider ) {
-                List< T > tmpResult = new ArrayList< T >( );
-                for ( T tmpItem : this.getItems( ) ) {
-                    if ( tmpItem.getVersionName( ).compareTo( name ) == 0 ) {
-                        tmpResult.add( tmpItem );
-                    }
-                }
-                return tmpResult;
-            }
+            ConfigurationVersions< T > tmpVersions = this.versionIndex.get( name );
+            return ( tmpVersions == null ) ? new ArrayList< T >( )
+                                           : new ArrayList< T >( tmpVersions.items );
         }
 
         public T getNewestVersion( String name ) {
-            synchronized ( this.stockProvider ) {
-                T tmpResult = null;
-                for ( T tmpItem : this.getItems( ) ) {
-                    if ( ( tmpItem.getVersionName( ).compareTo( name ) == 0 )
-                         && ( ( tmpResult == null )
-                              || ( tmpResult.getVersionMajor( ) < tmpItem.getVersionMajor( ) )
-                              || ( tmpResult.getVersionMinor( ) < tmpItem.getVersionMinor( ) )
-                              || ( tmpResult.getVersionRelease( ) < tmpItem.getVersionRelease( ) ) ) ) {
-                        tmpResult = tmpItem;
-                    }
-                }
-                return tmpResult;
-            }
+            ConfigurationVersions< T > tmpVersions = this.versionIndex.get( name );
+            return ( tmpVersions == null ) ? null
+                                           : tmpVersions.getNewest( );
         }
 
         public T getExactVersion( String name,
                                   int versionMajor,
                                   int versionMinor,
                                   int versionRelease ) {
-            synchronized ( this.stockProvider ) {
-                T tmpResult = null;
-                for ( T tmpItem : this.getItems( ) ) {
-                    if ( ( tmpItem.getVersionName( ).compareTo( name ) == 0 )
-                         && ( tmpItem.getVersionMajor( ) == versionMajor )
-                         && ( tmpItem.getVersionMinor( ) == versionMinor )
-                         && ( tmpItem.getVersionRelease( ) == versionRelease ) ) {
-                        tmpResult = tmpItem;
-                        break;
-                    }
-                }
-                return tmpResult;
-            }
+            ConfigurationVersions< T > tmpVersions = this.versionIndex.get( name );
+            return ( tmpVersions == null ) ? null
+                                           : tmpVersions.getExact( versionMajor,
+                                                                   versionMinor,
+                                                                   versionRelease );
         }
 
         public T getExactVersion( String name,
                                   String version ) {
-            synchronized ( this.stockProvider ) {
-                T tmpResult = null;
-                for ( T tmpItem : this.getItems( ) ) {
-                    if ( ( tmpItem.getVersionName( ).compareTo( name ) == 0 )
-                         && ( tmpItem.getVersionString( ).compareTo( version ) == 0 ) ) {
-                        tmpResult = tmpItem;
-                        break;
-                    }
-                }
-                return tmpResult;
-            }
+            ConfigurationVersions< T > tmpVersions = this.versionIndex.get( name );
+            return ( tmpVersions == null ) ? null
+                                           : tmpVersions.getExact( version );
         }
     }
 
@@ -923,7 +1456,7 @@ public class StockPattern {
         protected AbstractConfigurationStockProvider< T > stockProvider;
 
         public BasicConfigurationStock( ) {
-            this.stockProvider = new AbstractConfigurationStockProvider< T >( this );
+            this.stockProvider = new AbstractConfigurationStockProvider< T >( this.getRegistry( ) );
         }
 
         @Override
@@ -961,7 +1494,7 @@ public class StockPattern {
         protected AbstractConfigurationStockProvider< T > stockProvider;
 
         public BasicConfigurationRootStock( ) {
-            this.stockProvider = new AbstractConfigurationStockProvider< T >( this );
+            this.stockProvider = new AbstractConfigurationStockProvider< T >( this.getRegistry( ) );
         }
 
         @Override
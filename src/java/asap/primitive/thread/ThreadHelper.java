@@ -1,17 +1,44 @@
 package asap.primitive.thread;
 
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
+import asap.primitive.log.LogService.LogLevel;
+import asap.primitive.log.LogService.Logger;
 import asap.primitive.math.NumberHelper;
 
 public class ThreadHelper {
 
-    public static final int DEFAULT_THREAD_POOL_KEEPALIVE = 15000;
+    public static final int DEFAULT_THREAD_POOL_KEEPALIVE      = 15000;
+
+    public static final int DEFAULT_PLATFORM_THREADS_PER_TASK = 256;
 
     public static interface AsapThreadFactoryListener {
 
@@ -137,10 +164,567 @@ public class ThreadHelper {
         public void terminated( );
     }
 
-    public static class AsapFixedThreadPoolExecutor extends ThreadPoolExecutor {
+    /**
+     *
+     * Histograma de latncias (em nanossegundos) no estilo HDR: escala logartmica com 32
+     * subdivises lineares por potncia de 2, o que limita o erro relativo de cada valor a
+     * cerca de 3%. O registro no bloqueia (contadores atmicos); valores acima de
+     * "<i>MAXIMUM_TRACKABLE_VALUE</i>" (cerca de 36 minutos) so registrados como esse valor.
+     *
+     */
+    public static class AsapLatencyHistogram {
+
+        protected static final int      SUB_BUCKET_BITS         = 5;
+
+        protected static final int      SUB_BUCKET_COUNT        = ( 1 << SUB_BUCKET_BITS );
+
+        protected static final int      MAXIMUM_EXPONENT        = 40;
+
+        protected static final int      BUCKET_COUNT            = ( SUB_BUCKET_COUNT
+                                                                    + ( ( MAXIMUM_EXPONENT - SUB_BUCKET_BITS + 1 ) * SUB_BUCKET_COUNT ) );
+
+        public static final long        MAXIMUM_TRACKABLE_VALUE = ( ( 1L << ( MAXIMUM_EXPONENT + 1 ) ) - 1 );
+
+        protected final AtomicLongArray counts;
+
+        protected final LongAdder       totalCount;
+
+        protected final LongAdder       totalValue;
+
+        protected final AtomicLong      maximumValue;
+
+        public AsapLatencyHistogram( ) {
+            this.counts = new AtomicLongArray( BUCKET_COUNT );
+            this.totalCount = new LongAdder( );
+            this.totalValue = new LongAdder( );
+            this.maximumValue = new AtomicLong( 0 );
+        }
+
+        protected static int bucketIndex( long value ) {
+            if ( value < SUB_BUCKET_COUNT ) {
+                return (int) value;
+            }
+            int tmpShift = ( 63 - Long.numberOfLeadingZeros( value ) - SUB_BUCKET_BITS );
+            return ( SUB_BUCKET_COUNT + ( tmpShift * SUB_BUCKET_COUNT ) + (int) ( ( value >>> tmpShift ) - SUB_BUCKET_COUNT ) );
+        }
+
+        /**
+         *
+         * Maior valor representado pela posio "<i>index</i>".
+         *
+         */
+        protected static long bucketHighestValue( int index ) {
+            if ( index < SUB_BUCKET_COUNT ) {
+                return index;
+            }
+            int tmpShift = ( ( index - SUB_BUCKET_COUNT ) / SUB_BUCKET_COUNT );
+            long tmpSubBucket = ( ( ( index - SUB_BUCKET_COUNT ) % SUB_BUCKET_COUNT ) + SUB_BUCKET_COUNT );
+            return ( ( ( tmpSubBucket + 1 ) << tmpShift ) - 1 );
+        }
+
+        public void record( long value ) {
+            long tmpValue = ( value < 0 ) ? 0
+                                          : Math.min( value,
+                                                      MAXIMUM_TRACKABLE_VALUE );
+            this.counts.incrementAndGet( bucketIndex( tmpValue ) );
+            this.totalCount.increment( );
+            this.totalValue.add( tmpValue );
+            long tmpMaximum = this.maximumValue.get( );
+            while ( ( tmpValue > tmpMaximum ) && !this.maximumValue.compareAndSet( tmpMaximum,
+                                                                                   tmpValue ) ) {
+                tmpMaximum = this.maximumValue.get( );
+            }
+        }
+
+        /**
+         *
+         * Cpia dos valores atuais, para consultas consistentes entre si.
+         *
+         */
+        public AsapLatencyHistogram copy( ) {
+            AsapLatencyHistogram tmpResult = new AsapLatencyHistogram( );
+            for ( int tmpIndex = 0; tmpIndex < BUCKET_COUNT; tmpIndex++ ) {
+                long tmpCount = this.counts.get( tmpIndex );
+                if ( tmpCount != 0 ) {
+                    tmpResult.counts.set( tmpIndex,
+                                          tmpCount );
+                    tmpResult.totalCount.add( tmpCount );
+                }
+            }
+            tmpResult.totalValue.add( this.totalValue.sum( ) );
+            tmpResult.maximumValue.set( this.maximumValue.get( ) );
+            return tmpResult;
+        }
+
+        public long getCount( ) {
+            return this.totalCount.sum( );
+        }
+
+        public long getMaximum( ) {
+            return this.maximumValue.get( );
+        }
+
+        public double getMean( ) {
+            long tmpCount = this.totalCount.sum( );
+            return ( tmpCount == 0 ) ? 0.0
+                                     : ( (double) this.totalValue.sum( ) / tmpCount );
+        }
+
+        /**
+         *
+         * Menor valor que cobre "<i>percentile</i>" % dos registros (0 se no h registros).
+         *
+         */
+        public long getValueAtPercentile( double percentile ) {
+            long tmpCount = this.totalCount.sum( );
+            if ( tmpCount == 0 ) {
+                return 0;
+            }
+            long tmpTarget = Math.max( 1,
+                                       (long) Math.ceil( ( Math.min( percentile,
+                                                                     100.0 ) / 100.0 ) * tmpCount ) );
+            long tmpAccumulated = 0;
+            for ( int tmpIndex = 0; tmpIndex < BUCKET_COUNT; tmpIndex++ ) {
+                tmpAccumulated += this.counts.get( tmpIndex );
+                if ( tmpAccumulated >= tmpTarget ) {
+                    return Math.min( bucketHighestValue( tmpIndex ),
+                                     this.maximumValue.get( ) );
+                }
+            }
+            return this.maximumValue.get( );
+        }
+
+        /**
+         *
+         * Resumo em milissegundos.
+         *
+         */
+        @Override
+        public String toString( ) {
+            return String.format( Locale.ROOT,
+                                  "count=%d mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms p99.9=%.3fms max=%.3fms",
+                                  this.getCount( ),
+                                  this.getMean( ) / 1000000.0,
+                                  this.getValueAtPercentile( 50.0 ) / 1000000.0,
+                                  this.getValueAtPercentile( 90.0 ) / 1000000.0,
+                                  this.getValueAtPercentile( 99.0 ) / 1000000.0,
+                                  this.getValueAtPercentile( 99.9 ) / 1000000.0,
+                                  this.getMaximum( ) / 1000000.0 );
+        }
+    }
+
+    /**
+     *
+     * Mtricas de um executor: contadores de tarefas, <i>threads</i> em execuo (e o pico) e
+     * histogramas do tempo de espera na fila e do tempo de execuo. Os executores de
+     * "{@link ThreadHelper}" as mantm sempre; "<i>getSnapshot</i>" as l sem bloquear as
+     * tarefas e "<i>scheduleReporting</i>" entrega o instantneo periodicamente a um consumidor;
+     * "<i>scheduleLogging</i>" o registra em um "{@link Logger}".
+     *
+     */
+    public static class AsapExecutorMetrics {
+
+        protected static AsapScheduledThreadPoolExecutor reportingScheduler;
+
+        protected final String                           name;
+
+        protected final ThreadPoolExecutor               executor;
+
+        protected final LongAdder                        submittedCount;
+
+        protected final LongAdder                        completedCount;
+
+        protected final LongAdder                        failedCount;
+
+        protected final LongAdder                        rejectedCount;
+
+        protected final AtomicInteger                    runningCount;
+
+        protected final AtomicInteger                    peakRunningCount;
+
+        protected final AsapLatencyHistogram             waitHistogram;
+
+        protected final AsapLatencyHistogram             executionHistogram;
+
+        public AsapExecutorMetrics( String name,
+                                    ThreadPoolExecutor executor ) {
+            this.name = name;
+            this.executor = executor;
+            this.submittedCount = new LongAdder( );
+            this.completedCount = new LongAdder( );
+            this.failedCount = new LongAdder( );
+            this.rejectedCount = new LongAdder( );
+            this.runningCount = new AtomicInteger( 0 );
+            this.peakRunningCount = new AtomicInteger( 0 );
+            this.waitHistogram = new AsapLatencyHistogram( );
+            this.executionHistogram = new AsapLatencyHistogram( );
+        }
+
+        protected static String executorName( ThreadFactory factory ) {
+            return ( factory instanceof AsapThreadFactory ) ? ( (AsapThreadFactory) factory ).namePrefix
+                                                            : factory.getClass( ).getName( );
+        }
+
+        public String getName( ) {
+            return this.name;
+        }
+
+        public void taskSubmitted( ) {
+            this.submittedCount.increment( );
+        }
+
+        /**
+         *
+         * Registra a rejeio de uma tarefa j informada a "<i>taskSubmitted</i>", que deixa de
+         * contar como submetida.
+         *
+         */
+        public void taskRejected( ) {
+            this.submittedCount.decrement( );
+            this.rejectedCount.increment( );
+        }
+
+        /**
+         *
+         * Registra o incio de uma tarefa que esperou "<i>waitNanos</i>"; o retorno  o instante
+         * de incio, a ser informado a "<i>taskFinished</i>".
+         *
+         */
+        public long taskStarted( long waitNanos ) {
+            this.waitHistogram.record( waitNanos );
+            int tmpRunning = this.runningCount.incrementAndGet( );
+            int tmpPeak = this.peakRunningCount.get( );
+            while ( ( tmpRunning > tmpPeak ) && !this.peakRunningCount.compareAndSet( tmpPeak,
+                                                                                      tmpRunning ) ) {
+                tmpPeak = this.peakRunningCount.get( );
+            }
+            return System.nanoTime( );
+        }
+
+        public void taskFinished( long startNanos,
+                                  Throwable throwable ) {
+            this.executionHistogram.record( System.nanoTime( ) - startNanos );
+            this.runningCount.decrementAndGet( );
+            if ( throwable != null ) {
+                this.failedCount.increment( );
+            }
+            else {
+                this.completedCount.increment( );
+            }
+        }
+
+        public AsapExecutorMetricsSnapshot getSnapshot( ) {
+            return new AsapExecutorMetricsSnapshot( this );
+        }
+
+        /**
+         *
+         * Entrega o instantneo das mtricas a "<i>consumer</i>" a cada
+         * "<i>periodMiliseconds</i>"; o retorno permite cancelar a entrega. Excees do
+         * consumidor no interrompem as entregas seguintes.
+         *
+         */
+        public ScheduledFuture< ? > scheduleReporting( Consumer< AsapExecutorMetricsSnapshot > consumer,
+                                                       long periodMiliseconds ) {
+            return this.scheduleReporting( getReportingScheduler( ),
+                                           consumer,
+                                           periodMiliseconds );
+        }
+
+        public ScheduledFuture< ? > scheduleReporting( ScheduledExecutorService scheduler,
+                                                       Consumer< AsapExecutorMetricsSnapshot > consumer,
+                                                       long periodMiliseconds ) {
+            if ( consumer == null ) {
+                throw new NullPointerException( );
+            }
+            return scheduler.scheduleAtFixedRate( new Runnable( ) {
+
+                @Override
+                public void run( ) {
+                    try {
+                        consumer.accept( AsapExecutorMetrics.this.getSnapshot( ) );
+                    }
+                    catch ( RuntimeException e ) {
+                        e.printStackTrace( );
+                    }
+                }
+            },
+                                                  periodMiliseconds,
+                                                  periodMiliseconds,
+                                                  TimeUnit.MILLISECONDS );
+        }
+
+        /**
+         *
+         * Registra o instantneo das mtricas em "<i>logger</i>", no nvel informado, a cada
+         * "<i>periodMiliseconds</i>"; o retorno permite cancelar o registro.
+         *
+         */
+        public ScheduledFuture< ? > scheduleLogging( final Logger logger,
+                                                     final LogLevel level,
+                                                     long periodMiliseconds ) {
+            if ( ( logger == null ) || ( level == null ) ) {
+                throw new NullPointerException( );
+            }
+            return this.scheduleReporting( new Consumer< AsapExecutorMetricsSnapshot >( ) {
+
+                @Override
+                public void accept( AsapExecutorMetricsSnapshot snapshot ) {
+                    if ( logger.isEnabled( level ) ) {
+                        logger.message( level,
+                                        "%s",
+                                        snapshot );
+                    }
+                }
+            },
+                                           periodMiliseconds );
+        }
+
+        protected static AsapScheduledThreadPoolExecutor getReportingScheduler( ) {
+            synchronized ( AsapExecutorMetrics.class ) {
+                if ( reportingScheduler == null ) {
+                    reportingScheduler = new AsapScheduledThreadPoolExecutor( 1,
+                                                                              DEFAULT_THREAD_POOL_KEEPALIVE,
+                                                                              new AsapThreadFactory( null,
+                                                                                                     "AsapExecutorMetrics",
+                                                                                                     true,
+                                                                                                     Thread.NORM_PRIORITY,
+                                                                                                     null ),
+                                                                              null );
+                }
+                return reportingScheduler;
+            }
+        }
+    }
+
+    /**
+     *
+     * Instantneo imutvel de "{@link AsapExecutorMetrics}". "<i>submitted</i>" no inclui as
+     * tarefas rejeitadas; uma tarefa peridica conta uma submisso e uma concluso por
+     * execuo (o agendamento e cada reagendamento so submisses). A capacidade  o limite de <i>threads</i> do executor (-1 se ilimitado).
+     *
+     */
+    public static final class AsapExecutorMetricsSnapshot {
+
+        protected final String               name;
+
+        protected final long                 timestamp;
+
+        protected final long                 submitted;
+
+        protected final long                 completed;
+
+        protected final long                 failed;
+
+        protected final long                 rejected;
+
+        protected final int                  running;
+
+        protected final int                  peakRunning;
+
+        protected final int                  poolSize;
+
+        protected final int                  largestPoolSize;
+
+        protected final int                  capacity;
+
+        protected final int                  queueSize;
+
+        protected final AsapLatencyHistogram waitHistogram;
+
+        protected final AsapLatencyHistogram executionHistogram;
+
+        protected AsapExecutorMetricsSnapshot( AsapExecutorMetrics metrics ) {
+            this.name = metrics.name;
+            this.timestamp = System.currentTimeMillis( );
+            this.submitted = metrics.submittedCount.sum( );
+            this.completed = metrics.completedCount.sum( );
+            this.failed = metrics.failedCount.sum( );
+            this.rejected = metrics.rejectedCount.sum( );
+            this.running = metrics.runningCount.get( );
+            this.peakRunning = metrics.peakRunningCount.get( );
+            if ( metrics.executor != null ) {
+                this.poolSize = metrics.executor.getPoolSize( );
+                this.largestPoolSize = metrics.executor.getLargestPoolSize( );
+                // O executor agendado no cresce alm do nmero de threads bsicas
+                this.capacity = ( metrics.executor instanceof ScheduledThreadPoolExecutor ) ? metrics.executor.getCorePoolSize( )
+                                                                                             : metrics.executor.getMaximumPoolSize( );
+                this.queueSize = metrics.executor.getQueue( ).size( );
+            }
+            else {
+                this.poolSize = this.running;
+                this.largestPoolSize = this.peakRunning;
+                this.capacity = -1;
+                this.queueSize = 0;
+            }
+            this.waitHistogram = metrics.waitHistogram.copy( );
+            this.executionHistogram = metrics.executionHistogram.copy( );
+        }
+
+        public String getName( ) {
+            return this.name;
+        }
+
+        public long getTimestamp( ) {
+            return this.timestamp;
+        }
+
+        public long getSubmitted( ) {
+            return this.submitted;
+        }
+
+        public long getCompleted( ) {
+            return this.completed;
+        }
+
+        public long getFailed( ) {
+            return this.failed;
+        }
+
+        public long getRejected( ) {
+            return this.rejected;
+        }
+
+        public int getRunning( ) {
+            return this.running;
+        }
+
+        public int getPeakRunning( ) {
+            return this.peakRunning;
+        }
+
+        public int getPoolSize( ) {
+            return this.poolSize;
+        }
+
+        public int getLargestPoolSize( ) {
+            return this.largestPoolSize;
+        }
+
+        public int getCapacity( ) {
+            return this.capacity;
+        }
+
+        public int getQueueSize( ) {
+            return this.queueSize;
+        }
+
+        /**
+         *
+         * Frao da capacidade ocupada por tarefas em execuo (0 se a capacidade  ilimitada).
+         *
+         */
+        public double getSaturation( ) {
+            return ( this.capacity > 0 ) ? ( (double) this.running / this.capacity )
+                                         : 0.0;
+        }
+
+        public AsapLatencyHistogram getWaitHistogram( ) {
+            return this.waitHistogram;
+        }
+
+        public AsapLatencyHistogram getExecutionHistogram( ) {
+            return this.executionHistogram;
+        }
+
+        @Override
+        public String toString( ) {
+            return String.format( Locale.ROOT,
+                                  "Executor %s: submitted=%d completed=%d failed=%d rejected=%d running=%d peakRunning=%d pool=%d largestPool=%d capacity=%d queue=%d saturation=%.1f%% wait[%s] execution[%s]",
+                                  this.name,
+                                  this.submitted,
+                                  this.completed,
+                                  this.failed,
+                                  this.rejected,
+                                  this.running,
+                                  this.peakRunning,
+                                  this.poolSize,
+                                  this.largestPoolSize,
+                                  this.capacity,
+                                  this.queueSize,
+                                  this.getSaturation( ) * 100.0,
+                                  this.waitHistogram,
+                                  this.executionHistogram );
+        }
+    }
+
+    public static interface AsapInstrumentedExecutor {
+
+        public AsapExecutorMetrics getMetrics( );
+    }
+
+    /**
+     *
+     * "<i>AbortPolicy</i>" que conta a rejeio nas mtricas do executor.
+     *
+     */
+    public static class AsapMetricsAbortPolicy extends ThreadPoolExecutor.AbortPolicy {
+
+        @Override
+        public void rejectedExecution( Runnable runnable,
+                                       ThreadPoolExecutor executor ) {
+            if ( executor instanceof AsapInstrumentedExecutor ) {
+                ( (AsapInstrumentedExecutor) executor ).getMetrics( ).taskRejected( );
+            }
+            super.rejectedExecution( runnable,
+                                     executor );
+        }
+    }
+
+    /**
+     *
+     * Tarefa na fila de "{@link AsapFixedThreadPoolExecutor}", com o instante da submisso;
+     * "<i>getTask</i>" devolve a tarefa submetida.
+     *
+     */
+    public static final class AsapQueuedTask implements Runnable {
+
+        protected final Runnable task;
+
+        protected final long     queuedNanos;
+
+        protected long           startNanos;
+
+        protected AsapQueuedTask( Runnable task ) {
+            this.task = task;
+            this.queuedNanos = System.nanoTime( );
+        }
+
+        public Runnable getTask( ) {
+            return this.task;
+        }
+
+        public static Runnable unwrap( Runnable runnable ) {
+            return ( runnable instanceof AsapQueuedTask ) ? ( (AsapQueuedTask) runnable ).task
+                                                          : runnable;
+        }
+
+        @Override
+        public void run( ) {
+            this.task.run( );
+        }
+
+        @Override
+        public String toString( ) {
+            return this.task.toString( );
+        }
+    }
+
+    /**
+     *
+     * Executor de tamanho fixo com mtricas. Cada tarefa entra na fila envolvida por
+     * "{@link AsapQueuedTask}", que guarda o instante da submisso: os elementos de
+     * "<i>getQueue</i>" so esses envoltrios ("{@link AsapQueuedTask#unwrap( Runnable )}"),
+     * enquanto "<i>remove</i>", "<i>purge</i>", "<i>shutdownNow</i>" e o
+     * "{@link AsapThreadPoolListener}" tratam das tarefas submetidas.
+     *
+     */
+    public static class AsapFixedThreadPoolExecutor extends ThreadPoolExecutor implements AsapInstrumentedExecutor {
 
         protected AsapThreadPoolListener listener;
 
+        protected AsapExecutorMetrics    metrics;
+
         public AsapFixedThreadPoolExecutor( int coreThreads,
                                             int maxThreads,
                                             int queueSize,
@@ -168,30 +752,83 @@ public class ThreadHelper {
                    TimeUnit.MILLISECONDS,
                    new ArrayBlockingQueue< Runnable >( queueSize ),
                    factory,
-                   new ThreadPoolExecutor.AbortPolicy( ) );
+                   new AsapMetricsAbortPolicy( ) );
             this.listener = listener;
+            this.metrics = new AsapExecutorMetrics( AsapExecutorMetrics.executorName( factory ),
+                                                    this );
             // this.allowCoreThreadTimeOut( true );
             this.prestartCoreThread( );
         }
 
+        @Override
+        public void execute( Runnable runnable ) {
+            if ( runnable == null ) {
+                throw new NullPointerException( );
+            }
+            this.metrics.taskSubmitted( );
+            super.execute( new AsapQueuedTask( runnable ) );
+        }
+
+        @Override
+        public boolean remove( Runnable runnable ) {
+            for ( Runnable tmpQueued : this.getQueue( ) ) {
+                if ( ( tmpQueued == runnable )
+                     || tmpQueued.equals( runnable )
+                     || AsapQueuedTask.unwrap( tmpQueued ).equals( runnable ) ) {
+                    return super.remove( tmpQueued );
+                }
+            }
+            return false;
+        }
+
+        /**
+         *
+         * Remove da fila as tarefas canceladas ("<i>Future</i>" de "<i>submit</i>"), que o
+         * "<i>purge</i>" original no reconhece dentro de "{@link AsapQueuedTask}".
+         *
+         */
+        @Override
+        public void purge( ) {
+            for ( Runnable tmpQueued : this.getQueue( ) ) {
+                Runnable tmpTask = AsapQueuedTask.unwrap( tmpQueued );
+                if ( ( tmpTask instanceof Future ) && ( (Future< ? >) tmpTask ).isCancelled( ) ) {
+                    super.remove( tmpQueued );
+                }
+            }
+        }
+
+        @Override
+        public List< Runnable > shutdownNow( ) {
+            List< Runnable > tmpResult = new ArrayList< Runnable >( );
+            for ( Runnable tmpQueued : super.shutdownNow( ) ) {
+                tmpResult.add( AsapQueuedTask.unwrap( tmpQueued ) );
+            }
+            return tmpResult;
+        }
+
         @Override
         protected void beforeExecute( Thread thread,
                                       Runnable runnable ) {
             super.beforeExecute( thread,
                                  runnable );
+            Runnable tmpTask = AsapQueuedTask.unwrap( runnable );
             if ( this.isShutdown( ) ) {
                 if ( this.listener != null ) {
                     this.listener.abortingTask( thread,
-                                                runnable );
+                                                tmpTask );
                 }
                 thread.interrupt( );
             }
             else {
                 if ( this.listener != null ) {
                     this.listener.beforeExecute( thread,
-                                                 runnable );
+                                                 tmpTask );
                 }
             }
+            if ( runnable instanceof AsapQueuedTask ) {
+                AsapQueuedTask tmpQueuedTask = (AsapQueuedTask) runnable;
+                tmpQueuedTask.startNanos = this.metrics.taskStarted( System.nanoTime( ) - tmpQueuedTask.queuedNanos );
+            }
         }
 
         @Override
@@ -199,12 +836,21 @@ public class ThreadHelper {
                                      Throwable throwabe ) {
             super.afterExecute( runnable,
                                 throwabe );
+            if ( runnable instanceof AsapQueuedTask ) {
+                this.metrics.taskFinished( ( (AsapQueuedTask) runnable ).startNanos,
+                                           throwabe );
+            }
             if ( this.listener != null ) {
-                this.listener.afterExecute( runnable,
+                this.listener.afterExecute( AsapQueuedTask.unwrap( runnable ),
                                             throwabe );
             }
         }
 
+        @Override
+        public AsapExecutorMetrics getMetrics( ) {
+            return this.metrics;
+        }
+
         @Override
         protected void terminated( ) {
             super.terminated( );
@@ -240,10 +886,15 @@ public class ThreadHelper {
         }
     }
 
-    public static class AsapScheduledThreadPoolExecutor extends ScheduledThreadPoolExecutor {
+    public static class AsapScheduledThreadPoolExecutor extends ScheduledThreadPoolExecutor
+                    implements AsapInstrumentedExecutor {
 
         protected AsapThreadPoolListener listener;
 
+        protected AsapExecutorMetrics    metrics;
+
+        protected ThreadLocal< long[ ] > taskStartNanos;
+
         public AsapScheduledThreadPoolExecutor( int coreThreads,
                                                 int keepAlive,
                                                 String namePrefix,
@@ -261,8 +912,17 @@ public class ThreadHelper {
                                                 AsapThreadPoolListener listener ) {
             super( coreThreads,
                    factory,
-                   new ThreadPoolExecutor.AbortPolicy( ) );
+                   new AsapMetricsAbortPolicy( ) );
             this.listener = listener;
+            this.metrics = new AsapExecutorMetrics( AsapExecutorMetrics.executorName( factory ),
+                                                    this );
+            this.taskStartNanos = new ThreadLocal< long[ ] >( ) {
+
+                @Override
+                protected long[ ] initialValue( ) {
+                    return new long[ 1 ];
+                }
+            };
             this.setKeepAliveTime( keepAlive,
                                    TimeUnit.MILLISECONDS );
             this.allowCoreThreadTimeOut( true );
@@ -270,6 +930,26 @@ public class ThreadHelper {
             this.prestartCoreThread( );
         }
 
+        /**
+         *
+         * Conta a submisso antes de a tarefa entrar na fila; se ela for rejeitada,
+         * "{@link AsapMetricsAbortPolicy}" a desconta.
+         *
+         */
+        @Override
+        protected < V > RunnableScheduledFuture< V > decorateTask( Runnable runnable,
+                                                                   RunnableScheduledFuture< V > task ) {
+            this.metrics.taskSubmitted( );
+            return task;
+        }
+
+        @Override
+        protected < V > RunnableScheduledFuture< V > decorateTask( Callable< V > callable,
+                                                                   RunnableScheduledFuture< V > task ) {
+            this.metrics.taskSubmitted( );
+            return task;
+        }
+
         @Override
         protected void beforeExecute( Thread thread,
                                       Runnable runnable ) {
@@ -288,6 +968,11 @@ public class ThreadHelper {
                                                  runnable );
                 }
             }
+            if ( runnable instanceof RunnableScheduledFuture ) {
+                // Espera: atraso em relao ao instante agendado
+                long tmpWaitNanos = -( (Delayed) runnable ).getDelay( TimeUnit.NANOSECONDS );
+                this.taskStartNanos.get( )[ 0 ] = this.metrics.taskStarted( tmpWaitNanos );
+            }
         }
 
         @Override
@@ -295,12 +980,26 @@ public class ThreadHelper {
                                      Throwable throwabe ) {
             super.afterExecute( runnable,
                                 throwabe );
+            if ( runnable instanceof RunnableScheduledFuture ) {
+                RunnableScheduledFuture< ? > tmpTask = (RunnableScheduledFuture< ? >) runnable;
+                this.metrics.taskFinished( this.taskStartNanos.get( )[ 0 ],
+                                           throwabe );
+                // Tarefa peridica que voltou  fila: a prxima execuo  uma nova submisso
+                if ( tmpTask.isPeriodic( ) && !tmpTask.isDone( ) ) {
+                    this.metrics.taskSubmitted( );
+                }
+            }
             if ( this.listener != null ) {
                 this.listener.afterExecute( runnable,
                                             throwabe );
             }
         }
 
+        @Override
+        public AsapExecutorMetrics getMetrics( ) {
+            return this.metrics;
+        }
+
         @Override
         protected void terminated( ) {
             super.terminated( );
@@ -328,6 +1027,344 @@ public class ThreadHelper {
         }
     }
 
+    /**
+     *
+     * Fbrica de <i>virtual threads</i> ("<i>Thread.ofVirtual</i>", obtido por reflexo) com o
+     * mesmo esquema de nomes e o mesmo tratamento de excees no capturadas de
+     * "{@link AsapThreadFactory}"; se a JVM no as oferece, cria <i>threads</i> de plataforma
+     * <i>daemon</i> no grupo padro (sem limite de quantidade: o limite fica a cargo de quem a usa,
+     * como "{@link AsapThreadPerTaskExecutor}").
+     *
+     */
+    public static class AsapVirtualThreadFactory extends AsapThreadFactory {
+
+        public static final String    DEFAULT_VIRTUAL_THREAD_NAME_PREFIX = "AsapVirtualThread";
+
+        protected static final Method OF_VIRTUAL_METHOD;
+
+        protected static final Method BUILDER_NAME_METHOD;
+
+        protected static final Method BUILDER_UNSTARTED_METHOD;
+
+        static {
+            Method tmpOfVirtualMethod = null;
+            Method tmpBuilderNameMethod = null;
+            Method tmpBuilderUnstartedMethod = null;
+            try {
+                Class< ? > tmpBuilderClass = Class.forName( "java.lang.Thread$Builder" );
+                tmpOfVirtualMethod = Thread.class.getMethod( "ofVirtual" );
+                tmpBuilderNameMethod = tmpBuilderClass.getMethod( "name",
+                                                                  String.class );
+                tmpBuilderUnstartedMethod = tmpBuilderClass.getMethod( "unstarted",
+                                                                       Runnable.class );
+                // Recurso em "preview" no habilitado
+                tmpOfVirtualMethod.invoke( null );
+            }
+            catch ( Throwable e ) {
+                tmpOfVirtualMethod = null;
+            }
+            OF_VIRTUAL_METHOD = tmpOfVirtualMethod;
+            BUILDER_NAME_METHOD = tmpBuilderNameMethod;
+            BUILDER_UNSTARTED_METHOD = tmpBuilderUnstartedMethod;
+        }
+
+        public AsapVirtualThreadFactory( ) {
+            this( null,
+                  null );
+        }
+
+        public AsapVirtualThreadFactory( String namePrefix ) {
+            this( namePrefix,
+                  null );
+        }
+
+        public AsapVirtualThreadFactory( String namePrefix,
+                                         AsapThreadFactoryListener listener ) {
+            super( null,
+                   ( namePrefix != null ) ? namePrefix
+                                          : DEFAULT_VIRTUAL_THREAD_NAME_PREFIX,
+                   true,
+                   Thread.NORM_PRIORITY,
+                   listener );
+        }
+
+        public static boolean isVirtualThreadSupported( ) {
+            return ( OF_VIRTUAL_METHOD != null );
+        }
+
+        @Override
+        public Thread newThread( Runnable runnable ) {
+            int tmpSequence;
+            synchronized ( this ) {
+                tmpSequence = this.sequence;
+                this.sequence += 1;
+            }
+            String tmpName = String.format( "%s-%04d",
+                                            this.namePrefix,
+                                            tmpSequence );
+            Thread tmpThread = null;
+            if ( OF_VIRTUAL_METHOD != null ) {
+                try {
+                    Object tmpBuilder = BUILDER_NAME_METHOD.invoke( OF_VIRTUAL_METHOD.invoke( null ),
+                                                                    tmpName );
+                    tmpThread = (Thread) BUILDER_UNSTARTED_METHOD.invoke( tmpBuilder,
+                                                                          runnable );
+                }
+                catch ( ReflectiveOperationException e ) {
+                    throw new IllegalStateException( e );
+                }
+            }
+            else {
+                tmpThread = new Thread( this.group,
+                                        runnable,
+                                        tmpName );
+                tmpThread.setPriority( this.priority );
+                tmpThread.setDaemon( true );
+            }
+            tmpThread.setUncaughtExceptionHandler( this.uncaughtExceptionHandler );
+            if ( this.listener != null ) {
+                try {
+                    this.listener.threadCreated( tmpThread.getId( ),
+                                                 tmpThread.getName( ),
+                                                 true,
+                                                 tmpThread.getPriority( ) );
+                }
+                catch ( Throwable e ) {
+                    e.printStackTrace( );
+                }
+            }
+            return tmpThread;
+        }
+    }
+
+    /**
+     *
+     * Executor que inicia uma <i>thread</i> por tarefa, sem fila, para tarefas que passam a maior
+     * parte do tempo bloqueadas em E/S. Usa por padro "{@link AsapVirtualThreadFactory}" e chama
+     * "{@link AsapThreadPoolListener}" como os executores de tamanho fixo: "<i>beforeExecute</i>"
+     * e "<i>afterExecute</i>" na <i>thread</i> da tarefa, "<i>abortingTask</i>" para tarefas que
+     * comeam aps o encerramento e "<i>terminated</i>" quando a ltima <i>thread</i> termina
+     * aps o encerramento.<br>
+     * <br>
+     * Sem <i>virtual threads</i> (fbrica que no  "{@link AsapVirtualThreadFactory}" ou JVM que
+     * no as oferece), as <i>threads</i> so de plataforma e no mximo
+     * "<i>maxPlatformThreads</i>" tarefas executam ao mesmo tempo: "<i>execute</i>" espera por
+     * uma vaga.
+     *
+     */
+    public static class AsapThreadPerTaskExecutor extends AbstractExecutorService implements AsapInstrumentedExecutor {
+
+        protected ThreadFactory          factory;
+
+        protected AsapThreadPoolListener listener;
+
+        protected AsapExecutorMetrics    metrics;
+
+        protected Set< Thread >          threads;
+
+        protected Semaphore              permits;
+
+        protected volatile boolean       shutdown;
+
+        protected AtomicBoolean          terminated;
+
+        protected CountDownLatch         terminationLatch;
+
+        public AsapThreadPerTaskExecutor( String namePrefix,
+                                          AsapThreadPoolListener listener ) {
+            this( new AsapVirtualThreadFactory( namePrefix,
+                                                null ),
+                  listener );
+        }
+
+        public AsapThreadPerTaskExecutor( ThreadFactory factory,
+                                          AsapThreadPoolListener listener ) {
+            this( factory,
+                  DEFAULT_PLATFORM_THREADS_PER_TASK,
+                  listener );
+        }
+
+        public AsapThreadPerTaskExecutor( ThreadFactory factory,
+                                          int maxPlatformThreads,
+                                          AsapThreadPoolListener listener ) {
+            if ( maxPlatformThreads <= 0 ) {
+                throw new IllegalArgumentException( String.format( "Invalid platform thread limit %d",
+                                                                   maxPlatformThreads ) );
+            }
+            this.factory = factory;
+            this.listener = listener;
+            this.metrics = new AsapExecutorMetrics( AsapExecutorMetrics.executorName( factory ),
+                                                    null );
+            this.threads = Collections.newSetFromMap( new ConcurrentHashMap< Thread, Boolean >( ) );
+            boolean tmpVirtual = ( ( factory instanceof AsapVirtualThreadFactory ) && AsapVirtualThreadFactory.isVirtualThreadSupported( ) );
+            this.permits = tmpVirtual ? null
+                                      : new Semaphore( maxPlatformThreads );
+            this.shutdown = false;
+            this.terminated = new AtomicBoolean( false );
+            this.terminationLatch = new CountDownLatch( 1 );
+        }
+
+        @Override
+        public void execute( Runnable runnable ) {
+            if ( runnable == null ) {
+                throw new NullPointerException( );
+            }
+            this.metrics.taskSubmitted( );
+            long tmpQueuedNanos = System.nanoTime( );
+            if ( this.permits != null ) {
+                try {
+                    this.permits.acquire( );
+                }
+                catch ( InterruptedException e ) {
+                    Thread.currentThread( ).interrupt( );
+                    this.metrics.taskRejected( );
+                    throw new RejectedExecutionException( String.format( "Interrupted waiting for a thread for task %s",
+                                                                         runnable ) );
+                }
+            }
+            boolean tmpStarted = false;
+            try {
+                Thread tmpThread = this.factory.newThread( new Runnable( ) {
+
+                    @Override
+                    public void run( ) {
+                        try {
+                            AsapThreadPerTaskExecutor.this.runTask( Thread.currentThread( ),
+                                                                    runnable,
+                                                                    tmpQueuedNanos );
+                        }
+                        finally {
+                            AsapThreadPerTaskExecutor.this.threads.remove( Thread.currentThread( ) );
+                            if ( AsapThreadPerTaskExecutor.this.permits != null ) {
+                                AsapThreadPerTaskExecutor.this.permits.release( );
+                            }
+                            AsapThreadPerTaskExecutor.this.tryTerminate( );
+                        }
+                    }
+                } );
+                if ( tmpThread == null ) {
+                    this.metrics.taskRejected( );
+                    throw new RejectedExecutionException( "Thread factory returned no thread" );
+                }
+                this.threads.add( tmpThread );
+                // Revalidado aps o registro: "shutdown" pode ter visto o conjunto sem esta thread
+                if ( this.shutdown ) {
+                    this.threads.remove( tmpThread );
+                    this.tryTerminate( );
+                    this.metrics.taskRejected( );
+                    throw new RejectedExecutionException( String.format( "Task %s rejected from %s",
+                                                                         runnable,
+                                                                         this ) );
+                }
+                tmpThread.start( );
+                tmpStarted = true;
+            }
+            finally {
+                if ( !tmpStarted && ( this.permits != null ) ) {
+                    this.permits.release( );
+                }
+            }
+        }
+
+        protected void runTask( Thread thread,
+                                Runnable runnable,
+                                long queuedNanos ) {
+            if ( this.shutdown ) {
+                if ( this.listener != null ) {
+                    this.listener.abortingTask( thread,
+                                                runnable );
+                }
+                thread.interrupt( );
+            }
+            else {
+                if ( this.listener != null ) {
+                    this.listener.beforeExecute( thread,
+                                                 runnable );
+                }
+            }
+            long tmpStartNanos = this.metrics.taskStarted( System.nanoTime( ) - queuedNanos );
+            Throwable tmpThrown = null;
+            try {
+                runnable.run( );
+            }
+            catch ( RuntimeException | Error e ) {
+                tmpThrown = e;
+                throw e;
+            }
+            finally {
+                this.metrics.taskFinished( tmpStartNanos,
+                                           tmpThrown );
+                if ( this.listener != null ) {
+                    this.listener.afterExecute( runnable,
+                                                tmpThrown );
+                }
+            }
+        }
+
+        protected void tryTerminate( ) {
+            if ( this.shutdown && this.threads.isEmpty( ) && this.terminated.compareAndSet( false,
+                                                                                               true ) ) {
+                try {
+                    if ( this.listener != null ) {
+                        this.listener.terminated( );
+                    }
+                }
+                finally {
+                    this.terminationLatch.countDown( );
+                }
+            }
+        }
+
+        public int getActiveCount( ) {
+            return this.threads.size( );
+        }
+
+        @Override
+        public AsapExecutorMetrics getMetrics( ) {
+            return this.metrics;
+        }
+
+        @Override
+        public void shutdown( ) {
+            this.shutdown = true;
+            this.tryTerminate( );
+        }
+
+        @Override
+        public List< Runnable > shutdownNow( ) {
+            this.shutdown = true;
+            for ( Thread tmpThread : this.threads ) {
+                tmpThread.interrupt( );
+            }
+            this.tryTerminate( );
+            return new ArrayList< Runnable >( );
+        }
+
+        @Override
+        public boolean isShutdown( ) {
+            return this.shutdown;
+        }
+
+        @Override
+        public boolean isTerminated( ) {
+            return this.terminated.get( );
+        }
+
+        public boolean awaitTermination( long timeoutMiliseconds )
+            throws InterruptedException {
+            return this.awaitTermination( timeoutMiliseconds,
+                                          TimeUnit.MILLISECONDS );
+        }
+
+        @Override
+        public boolean awaitTermination( long timeout,
+                                         TimeUnit unit )
+            throws InterruptedException {
+            return this.terminationLatch.await( timeout,
+                                                unit );
+        }
+    }
+
     public static void sleep( long timeValue ) {
         try {
             Thread.sleep( timeValue );
@@ -0,0 +1,158 @@
+package asap.primitive.bits._benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import asap.primitive.bits.BitHelper;
+import asap.primitive.bits.bitStore.BitStoreData;
+import asap.primitive.bits.bitStore.BitStoreException;
+import asap.primitive.bits.bitStore.BitStoreData.BitStoreItemData;
+import asap.primitive.bits.bitStore.BitStoreData.BitStoreRecordData;
+import asap.primitive.bits.bitStore.BitStoreData.BitStoreViewData;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreViewPieceMap;
+import asap.primitive.bits.bitStore._benchmark.BitStoreBenchmarkMaps;
+
+/**
+ *
+ * <i>Benchmarks</i> das operaes de "{@link BitHelper}" sobre os pedaos ("<i>pieces</i>") de
+ * todas as vises de um registro do mapa de carto, e sobre o registro inteiro com e sem
+ * alinhamento de byte.
+ *
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5,
+         time = 1 )
+@Measurement( iterations = 5,
+              time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class BitHelperBenchmark {
+
+    @Param( { "Emissao",
+              "Viagens" } )
+    public String     recordName;
+
+    @Param( { "false",
+              "true" } )
+    public boolean    isLittleEndian;
+
+    protected byte[ ] recordImage;
+
+    protected int     recordBitLength;
+
+    protected byte[ ] targetImage;
+
+    protected int[ ]  pieceOffsets;
+
+    protected int[ ]  pieceLengths;
+
+    protected byte[ ] pieceBuffer;
+
+    @Setup
+    public void setup( )
+        throws BitStoreException {
+        BitStoreData tmpStore = new BitStoreData( BitStoreBenchmarkMaps.loadCardMap( ) );
+        BitStoreRecordData tmpMainRecord = tmpStore.getMainView( ).getRecord( this.recordName );
+        this.recordImage = BitStoreBenchmarkMaps.createRecordImage( tmpMainRecord,
+                                                                    new Random( BitStoreBenchmarkMaps.IMAGE_SEED ) );
+        this.recordBitLength = tmpMainRecord.getBitLength( );
+        this.targetImage = new byte[ this.recordImage.length + 1 ];
+        List< BitStoreViewPieceMap > tmpPieces = new ArrayList< BitStoreViewPieceMap >( );
+        int tmpMaxPieceLength = 0;
+        for ( BitStoreViewData tmpView : tmpStore.getViews( true ) ) {
+            BitStoreRecordData tmpRecord = tmpView.searchRecord( this.recordName );
+            if ( tmpRecord != null ) {
+                for ( BitStoreItemData tmpItem : tmpRecord.getItems( true ) ) {
+                    for ( BitStoreViewPieceMap tmpPiece : tmpItem.getPieces( ) ) {
+                        tmpPieces.add( tmpPiece );
+                        tmpMaxPieceLength = Math.max( tmpMaxPieceLength,
+                                                      tmpPiece.getLength( ) );
+                    }
+                }
+            }
+        }
+        this.pieceOffsets = new int[ tmpPieces.size( ) ];
+        this.pieceLengths = new int[ tmpPieces.size( ) ];
+        for ( int tmpIndex = 0; tmpIndex < this.pieceOffsets.length; tmpIndex++ ) {
+            this.pieceOffsets[ tmpIndex ] = tmpPieces.get( tmpIndex ).getOffset( );
+            this.pieceLengths[ tmpIndex ] = tmpPieces.get( tmpIndex ).getLength( );
+        }
+        this.pieceBuffer = BitHelper.createBitArrayBuffer( tmpMaxPieceLength );
+    }
+
+    @Benchmark
+    public byte[ ] bitArrayCopyPieces( ) {
+        int tmpBufferBitLength = ( this.pieceBuffer.length * Byte.SIZE );
+        for ( int tmpIndex = 0; tmpIndex < this.pieceOffsets.length; tmpIndex++ ) {
+            int tmpPieceLength = this.pieceLengths[ tmpIndex ];
+            BitHelper.bitArrayCopy( this.isLittleEndian,
+                                    this.recordImage,
+                                    this.pieceOffsets[ tmpIndex ],
+                                    this.pieceBuffer,
+                                    ( this.isLittleEndian ? 0
+                                                          : ( tmpBufferBitLength - tmpPieceLength ) ),
+                                    tmpPieceLength );
+        }
+        return this.pieceBuffer;
+    }
+
+    @Benchmark
+    public byte[ ] bitArrayCopyRecordAligned( ) {
+        BitHelper.bitArrayCopy( this.isLittleEndian,
+                                this.recordImage,
+                                0,
+                                this.targetImage,
+                                Byte.SIZE,
+                                this.recordBitLength );
+        return this.targetImage;
+    }
+
+    @Benchmark
+    public byte[ ] bitArrayCopyRecordUnaligned( ) {
+        BitHelper.bitArrayCopy( this.isLittleEndian,
+                                this.recordImage,
+                                0,
+                                this.targetImage,
+                                3,
+                                this.recordBitLength );
+        return this.targetImage;
+    }
+
+    @Benchmark
+    public int countOneBitsPieces( ) {
+        int tmpResult = 0;
+        for ( int tmpIndex = 0; tmpIndex < this.pieceOffsets.length; tmpIndex++ ) {
+            tmpResult += BitHelper.countOneBits( this.isLittleEndian,
+                                                 this.recordImage,
+                                                 this.pieceOffsets[ tmpIndex ],
+                                                 this.pieceLengths[ tmpIndex ] );
+        }
+        return tmpResult;
+    }
+
+    @Benchmark
+    public void subBitArrayPieces( Blackhole blackhole ) {
+        for ( int tmpIndex = 0; tmpIndex < this.pieceOffsets.length; tmpIndex++ ) {
+            blackhole.consume( BitHelper.subBitArray( this.isLittleEndian,
+                                                      this.recordImage,
+                                                      this.pieceOffsets[ tmpIndex ],
+                                                      this.pieceLengths[ tmpIndex ] ) );
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package asap.primitive.bits.bitStore._benchmark;
+
+import java.util.Random;
+
+import asap.primitive.bits.BitHelper;
+import asap.primitive.bits.bitStore.BitStoreException;
+import asap.primitive.bits.bitStore.BitStoreHelper;
+import asap.primitive.bits.bitStore.BitStoreMap;
+import asap.primitive.bits.bitStore.BitStoreData.BitStoreItemData;
+import asap.primitive.bits.bitStore.BitStoreData.BitStoreRecordData;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreItemType;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreMapException;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreViewItemMap;
+import asap.primitive.bits.bitStore.BitStoreMap.BitStoreViewPieceMap;
+
+/**
+ *
+ * Mapas e imagens de registros usados pelos <i>benchmarks</i>.<br>
+ * <br>
+ * O mapa "<i>BenchmarkCardMap.xml</i>" reproduz o layout de um carto de transporte, com campos de
+ * todos os tipos, campos que no comeam em fronteira de byte e uma viso alternativa com campos
+ * reordenados e fragmentados.
+ *
+ */
+public final class BitStoreBenchmarkMaps {
+
+    public static final String CARD_MAP_RESOURCE     = "BenchmarkCardMap.xml";
+
+    public static final String CARD_MAIN_VIEW        = "Principal";
+
+    public static final String CARD_ALTERNATIVE_VIEW = "Legado";
+
+    public static final long   IMAGE_SEED            = 0x5EED_CAFEL;
+
+    private BitStoreBenchmarkMaps( ) {
+    }
+
+    public static BitStoreMap loadCardMap( )
+        throws BitStoreMapException {
+        return BitStoreHelper.fromXmlMapResource( BitStoreBenchmarkMaps.class,
+                                                  CARD_MAP_RESOURCE );
+    }
+
+    /**
+     * Cria uma imagem aleatria, porm vlida, para o registro: os bits de campos RUF so zerados.
+     */
+    public static byte[ ] createRecordImage( BitStoreRecordData record,
+                                             Random random )
+        throws BitStoreException {
+        byte[ ] tmpImage = new byte[ record.getByteLength( ) ];
+        random.nextBytes( tmpImage );
+        for ( BitStoreItemData tmpItem : record.getItems( true ) ) {
+            if ( ( tmpItem.getItemType( ) == BitStoreViewItemMap.ItemType.RUF )
+                 || ( tmpItem.getDataType( ) == BitStoreItemType.RUF ) ) {
+                for ( BitStoreViewPieceMap tmpPiece : tmpItem.getPieces( ) ) {
+                    BitHelper.bitArrayReset( record.isLittleEndianBytes( ),
+                                             tmpImage,
+                                             tmpPiece.getOffset( ),
+                                             tmpPiece.getLength( ) );
+                }
+            }
+        }
+        return tmpImage;
+    }
+}
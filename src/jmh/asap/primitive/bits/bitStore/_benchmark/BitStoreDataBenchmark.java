@@ -0,0 +1,171 @@
+package asap.primitive.bits.bitStore._benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import asap.primitive.bits.bitStore.BitStoreData;
+import asap.primitive.bits.bitStore.BitStoreException;
+import asap.primitive.bits.bitStore.BitStoreFieldAccessor;
+import asap.primitive.bits.bitStore.BitStoreData.BitStoreFieldData;
+import asap.primitive.bits.bitStore.BitStoreData.BitStoreRecordData;
+
+/**
+ *
+ * <i>Benchmarks</i> da leitura e escrita de registros e campos de um "{@link BitStoreData}" em
+ * memria, na viso principal e na viso alternativa do mapa de carto.
+ *
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5,
+         time = 1 )
+@Measurement( iterations = 5,
+              time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class BitStoreDataBenchmark {
+
+    @Param( { "Emissao",
+              "Viagens" } )
+    public String                      recordName;
+
+    protected BitStoreData             store;
+
+    protected BitStoreRecordData       mainRecord;
+
+    protected byte[ ]                  mainImage;
+
+    protected BitStoreRecordData       alternativeRecord;
+
+    protected byte[ ]                  alternativeImage;
+
+    protected BitStoreFieldData[ ]     fields;
+
+    protected Object[ ]                fieldValues;
+
+    protected BitStoreFieldData[ ]     numericFields;
+
+    protected BitStoreFieldAccessor[ ] numericAccessors;
+
+    @Setup
+    public void setup( )
+        throws BitStoreException {
+        this.store = new BitStoreData( BitStoreBenchmarkMaps.loadCardMap( ) );
+        this.mainRecord = this.store.getMainView( ).getRecord( this.recordName );
+        this.mainImage = BitStoreBenchmarkMaps.createRecordImage( this.mainRecord,
+                                                                  new Random( BitStoreBenchmarkMaps.IMAGE_SEED ) );
+        this.mainRecord.setBytes( this.mainImage );
+        this.alternativeRecord = this.store.getView( BitStoreBenchmarkMaps.CARD_ALTERNATIVE_VIEW ).searchRecord( this.recordName );
+        this.alternativeImage = ( ( this.alternativeRecord == null ) ? null
+                                                                     : this.alternativeRecord.getBytes( ) );
+        this.fields = this.mainRecord.getFields( );
+        this.fieldValues = new Object[ this.fields.length ];
+        List< BitStoreFieldData > tmpNumericFields = new ArrayList< BitStoreFieldData >( );
+        for ( int tmpIndex = 0; tmpIndex < this.fields.length; tmpIndex++ ) {
+            BitStoreFieldData tmpField = this.fields[ tmpIndex ];
+            switch ( tmpField.getDataType( ) ) {
+                case IntegerArray:
+                    this.fieldValues[ tmpIndex ] = tmpField.getAs( long[ ].class );
+                    break;
+                case RUF:
+                case BitArray:
+                case ByteArray:
+                    this.fieldValues[ tmpIndex ] = tmpField.getAs( byte[ ].class );
+                    break;
+                default:
+                    this.fieldValues[ tmpIndex ] = tmpField.getAs( Long.class );
+                    tmpNumericFields.add( tmpField );
+                    break;
+            }
+        }
+        this.numericFields = tmpNumericFields.toArray( new BitStoreFieldData[ 0 ] );
+        this.numericAccessors = new BitStoreFieldAccessor[ this.numericFields.length ];
+        for ( int tmpIndex = 0; tmpIndex < this.numericAccessors.length; tmpIndex++ ) {
+            this.numericAccessors[ tmpIndex ] = this.numericFields[ tmpIndex ].getAccessor( );
+        }
+    }
+
+    @Benchmark
+    public byte[ ] recordGetBytes( )
+        throws BitStoreException {
+        return this.mainRecord.getBytes( );
+    }
+
+    @Benchmark
+    public void recordSetBytes( )
+        throws BitStoreException {
+        this.mainRecord.setBytes( this.mainImage );
+    }
+
+    @Benchmark
+    public byte[ ] alternativeRecordGetBytes( )
+        throws BitStoreException {
+        return ( ( this.alternativeRecord == null ) ? null
+                                                    : this.alternativeRecord.getBytes( ) );
+    }
+
+    @Benchmark
+    public void alternativeRecordSetBytes( )
+        throws BitStoreException {
+        if ( this.alternativeRecord != null ) {
+            this.alternativeRecord.setBytes( this.alternativeImage );
+        }
+    }
+
+    @Benchmark
+    public void fieldsGetAsLong( Blackhole blackhole )
+        throws BitStoreException {
+        for ( BitStoreFieldData tmpField : this.numericFields ) {
+            blackhole.consume( tmpField.getAs( Long.class ) );
+        }
+    }
+
+    @Benchmark
+    public long fieldsGetLongCompiled( ) {
+        long tmpResult = 0L;
+        for ( BitStoreFieldAccessor tmpAccessor : this.numericAccessors ) {
+            tmpResult += tmpAccessor.getLong( this.mainImage );
+        }
+        return tmpResult;
+    }
+
+    @Benchmark
+    public void fieldsSetLongCompiled( )
+        throws BitStoreException {
+        for ( int tmpIndex = 0; tmpIndex < this.numericAccessors.length; tmpIndex++ ) {
+            this.numericAccessors[ tmpIndex ].setLong( this.mainImage,
+                                                       this.numericAccessors[ tmpIndex ].getLong( this.mainImage ) );
+        }
+    }
+
+    @Benchmark
+    public void fieldsGetAsString( Blackhole blackhole )
+        throws BitStoreException {
+        for ( BitStoreFieldData tmpField : this.fields ) {
+            blackhole.consume( tmpField.getAs( String.class ) );
+        }
+    }
+
+    @Benchmark
+    public void fieldsSetWith( )
+        throws BitStoreException {
+        for ( int tmpIndex = 0; tmpIndex < this.fields.length; tmpIndex++ ) {
+            this.fields[ tmpIndex ].setWith( this.fieldValues[ tmpIndex ] );
+        }
+    }
+}
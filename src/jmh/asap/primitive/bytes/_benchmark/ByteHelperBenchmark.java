@@ -0,0 +1,71 @@
+package asap.primitive.bytes._benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import asap.primitive.bits.bitStore.BitStoreData;
+import asap.primitive.bits.bitStore.BitStoreException;
+import asap.primitive.bits.bitStore._benchmark.BitStoreBenchmarkMaps;
+import asap.primitive.bytes.ByteHelper;
+
+/**
+ *
+ * <i>Benchmarks</i> da converso de bytes para texto hexadecimal e de volta, sobre as imagens dos
+ * registros do mapa de carto.
+ *
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5,
+         time = 1 )
+@Measurement( iterations = 5,
+              time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class ByteHelperBenchmark {
+
+    @Param( { "Emissao",
+              "Viagens" } )
+    public String     recordName;
+
+    protected byte[ ] recordImage;
+
+    protected String  recordHexString;
+
+    @Setup
+    public void setup( )
+        throws BitStoreException {
+        BitStoreData tmpStore = new BitStoreData( BitStoreBenchmarkMaps.loadCardMap( ) );
+        this.recordImage = BitStoreBenchmarkMaps.createRecordImage( tmpStore.getMainView( ).getRecord( this.recordName ),
+                                                                    new Random( BitStoreBenchmarkMaps.IMAGE_SEED ) );
+        this.recordHexString = ByteHelper.hexify( this.recordImage );
+    }
+
+    @Benchmark
+    public String hexify( ) {
+        return ByteHelper.hexify( this.recordImage );
+    }
+
+    @Benchmark
+    public String hexifyWithoutSeparator( ) {
+        return ByteHelper.hexify( this.recordImage,
+                                  "" );
+    }
+
+    @Benchmark
+    public byte[ ] parseHexString( ) {
+        return ByteHelper.parseHexString( this.recordHexString );
+    }
+}
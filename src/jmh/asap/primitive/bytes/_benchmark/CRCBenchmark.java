@@ -0,0 +1,183 @@
+package asap.primitive.bytes._benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import asap.primitive.bits.bitStore.BitStoreData;
+import asap.primitive.bits.bitStore.BitStoreException;
+import asap.primitive.bits.bitStore.BitStoreData.BitStoreRecordData;
+import asap.primitive.bits.bitStore._benchmark.BitStoreBenchmarkMaps;
+import asap.primitive.bytes.CRC;
+import asap.primitive.bytes.CRC16BU;
+import asap.primitive.bytes.CRCEngine;
+import asap.primitive.bytes.CRC.CRCException;
+
+/**
+ *
+ * <i>Benchmarks</i> do clculo de CRC: montagem da tabela de um "{@link CRC}" e clculo sobre
+ * registros do mapa de carto e sobre blocos maiores ("{@link CRCBlock}").
+ *
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5,
+         time = 1 )
+@Measurement( iterations = 5,
+              time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class CRCBenchmark {
+
+    public static enum CRCModel {
+        CRC16_CCITT( 16, false, false, 0x1021L, 0x0000L, true, 0xFFFFL ),
+        CRC16_ARC( 16, true, true, 0x8005L, 0x0000L, true, 0x0000L ),
+        CRC32( 32, true, true, 0x04C11DB7L, 0xFFFFFFFFL, true, 0xFFFFFFFFL ),
+        CRC32C( 32, true, true, 0x1EDC6F41L, 0xFFFFFFFFL, true, 0xFFFFFFFFL );
+
+        public final int     order;
+
+        public final boolean refin;
+
+        public final boolean refout;
+
+        public final long    polynom;
+
+        public final long    crcxor;
+
+        public final boolean direct;
+
+        public final long    crcinit;
+
+        private CRCModel( int order,
+                          boolean refin,
+                          boolean refout,
+                          long polynom,
+                          long crcxor,
+                          boolean direct,
+                          long crcinit ) {
+            this.order = order;
+            this.refin = refin;
+            this.refout = refout;
+            this.polynom = polynom;
+            this.crcxor = crcxor;
+            this.direct = direct;
+            this.crcinit = crcinit;
+        }
+
+        public CRC create( )
+            throws CRCException {
+            return new CRC( this.order,
+                            this.refin,
+                            this.refout,
+                            this.polynom,
+                            this.crcxor,
+                            this.direct,
+                            this.crcinit );
+        }
+    }
+
+    /**
+     *
+     * Bloco aleatrio para os <i>benchmarks</i> de blocos, em um estado  parte para que s eles
+     * variem com "<i>blockLength</i>".
+     *
+     */
+    @State( Scope.Thread )
+    public static class CRCBlock {
+
+        @Param( { "256",
+                  "1024",
+                  "65536" } )
+        public int        blockLength;
+
+        protected byte[ ] block;
+
+        @Setup
+        public void setup( ) {
+            this.block = new byte[ this.blockLength ];
+            new Random( BitStoreBenchmarkMaps.IMAGE_SEED ).nextBytes( this.block );
+        }
+    }
+
+    @Param( { "CRC16_CCITT",
+              "CRC16_ARC",
+              "CRC32",
+              "CRC32C" } )
+    public CRCModel     model;
+
+    protected CRC       crc;
+
+    protected CRCEngine engine;
+
+    protected CRCEngine tableEngine;
+
+    protected byte[ ]   recordImage;
+
+    @Setup
+    public void setup( )
+        throws CRCException,
+            BitStoreException {
+        this.crc = this.model.create( );
+        this.engine = new CRCEngine( this.crc );
+        this.tableEngine = new CRCEngine( this.crc,
+                                          false );
+        BitStoreData tmpStore = new BitStoreData( BitStoreBenchmarkMaps.loadCardMap( ) );
+        BitStoreRecordData tmpRecord = tmpStore.getMainView( ).getRecord( "Emissao" );
+        Random tmpRandom = new Random( BitStoreBenchmarkMaps.IMAGE_SEED );
+        this.recordImage = BitStoreBenchmarkMaps.createRecordImage( tmpRecord,
+                                                                    tmpRandom );
+    }
+
+    @Benchmark
+    public CRC tableComputation( )
+        throws CRCException {
+        return this.model.create( );
+    }
+
+    @Benchmark
+    public long recordCrcTable( ) {
+        return this.crc.crc_table( this.recordImage );
+    }
+
+    @Benchmark
+    public long recordCrcTableFast( ) {
+        return this.crc.crc_table_fast( this.recordImage );
+    }
+
+    @Benchmark
+    public int recordCrc16BU( ) {
+        return CRC16BU.compute( this.recordImage );
+    }
+
+    @Benchmark
+    public long blockCrcTableFast( CRCBlock block ) {
+        return this.crc.crc_table_fast( block.block );
+    }
+
+    @Benchmark
+    public long recordCrcEngine( ) {
+        return this.engine.compute( this.recordImage );
+    }
+
+    @Benchmark
+    public long blockCrcEngine( CRCBlock block ) {
+        return this.engine.compute( block.block );
+    }
+
+    @Benchmark
+    public long blockCrcEngineTables( CRCBlock block ) {
+        return this.tableEngine.compute( block.block );
+    }
+}